@@ -0,0 +1,93 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Набор данных замеров JMH: {@code size} задач и {@code size / fanOut} эпиков по {@code fanOut} подзадач.
+ * Подзадачи эпика {@code epicIds[e]} лежат в {@code subtaskIds[e * fanOut .. (e + 1) * fanOut)}
+ * и запланированы на непересекающиеся интервалы.
+ */
+final class BenchmarkDataset {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    final InMemoryTaskManager manager;
+    final int fanOut;
+    final int[] taskIds;
+    final int[] epicIds;
+    final int[] subtaskIds;
+
+    BenchmarkDataset(int size, int fanOut, int history) {
+        this.fanOut = fanOut;
+        manager = new InMemoryTaskManager(TaskStorage.OPEN_ADDRESSING,
+                resolver -> new InMemoryHistoryManager(history));
+        taskIds = new int[size];
+        epicIds = new int[Math.max(1, size / fanOut)];
+        subtaskIds = new int[epicIds.length * fanOut];
+        Status[] statuses = Status.values();
+        for (int i = 0; i < size; i++) {
+            taskIds[i] = manager.createTask(new Task("Task " + i, "Task description " + i));
+        }
+        for (int e = 0; e < epicIds.length; e++) {
+            epicIds[e] = manager.createEpic(new Epic("Epic " + e, "Epic description " + e));
+            for (int s = 0; s < fanOut; s++) {
+                Subtask subtask = new Subtask("Subtask " + s, "Subtask description " + s, epicIds[e]);
+                subtask.setStatus(statuses[(e + s) % statuses.length]);
+                schedule(subtask, e * fanOut + s);
+                subtaskIds[e * fanOut + s] = manager.createSubtask(subtask);
+            }
+        }
+    }
+
+    /**
+     * Подзадача с номером {@code index} в наборе, на своём интервале и с заданным статусом.
+     */
+    Subtask subtask(int index, String description, Status status) {
+        Subtask subtask = new Subtask("Subtask", description, epicIds[index / fanOut]);
+        subtask.setId(subtaskIds[index]);
+        schedule(subtask, index);
+        subtask.setStatus(status);
+        return subtask;
+    }
+
+    /**
+     * Переписывает набор в CSV-снимок одним пакетом. Сущности идут в порядке ID,
+     * поэтому {@code createAll} выдаёт им те же ID, что и в наборе.
+     */
+    FileBackedTaskManager copyTo(File file) {
+        file.delete();
+        List<Task> items = new ArrayList<>(taskIds.length + subtaskIds.length + epicIds.length);
+        manager.getAllTasks().forEach(task -> items.add(new Task(task)));
+        manager.getAllEpics().forEach(epic -> items.add(new Epic(epic.getName(), epic.getDescription())));
+        manager.getAllSubtasks().forEach(subtask -> items.add(new Subtask(subtask)));
+        items.sort(Comparator.comparingInt(Task::getId));
+        FileBackedTaskManager copy = new FileBackedTaskManager(file);
+        copy.createAll(items);
+        return copy;
+    }
+
+    /**
+     * Псевдослучайный, но воспроизводимый индекс без затрат на {@code Random}.
+     */
+    static int pick(int i, int bound) {
+        return Math.floorMod(i * 0x9E3779B1, bound);
+    }
+
+    /**
+     * Назначает подзадаче с номером {@code index} её интервал: по 30 минут на номер.
+     */
+    private static void schedule(Subtask subtask, int index) {
+        subtask.setStartTime(START.plusMinutes(30L * index));
+        subtask.setDuration(Duration.ofMinutes(20));
+    }
+}
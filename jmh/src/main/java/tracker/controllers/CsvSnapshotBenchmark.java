@@ -0,0 +1,63 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись и чтение CSV-снимка {@link FileBackedTaskManager} на наборе из {@code size} задач
+ * и {@code size / fanout} эпиков по {@code fanout} подзадач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"10"})
+    public int fanout;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench", ".csv");
+        manager = new BenchmarkDataset(size, fanout, 10).copyTo(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".bak").delete();
+    }
+
+    @Benchmark
+    public void save() {
+        manager.save();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+}
@@ -0,0 +1,90 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.model.Task;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InMemoryHistoryManager}: добавление просмотра и чтения истории длины {@code history}.
+ * <p>
+ * Опрос последних {@link #PAGE} просмотров страницей, итератором {@code recentFirst()} и снимком
+ * {@code snapshot()} сравнивается с полной копией {@code getHistory()}: с {@code -prof gc}
+ * видно, что страница и итератор выделяют память по размеру страницы, а не истории.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    private static final int PAGE = 20;
+
+    @Param({"1000", "100000"})
+    public int history;
+
+    private InMemoryHistoryManager manager;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryHistoryManager(history);
+        tasks = new Task[history * 2];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Desc");
+            tasks[i].setId(i + 1);
+        }
+        for (int i = 0; i < history; i++) {
+            manager.add(tasks[i]);
+        }
+    }
+
+    /**
+     * Просмотр случайной из вдвое большего числа задач: половина — перенос в конец, половина — вытеснение.
+     */
+    @Benchmark
+    public void add() {
+        manager.add(tasks[BenchmarkDataset.pick(cursor++, tasks.length)]);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> getHistoryPage() {
+        return manager.getHistory(0, PAGE);
+    }
+
+    @Benchmark
+    public int recentFirst() {
+        Iterator<Task> iterator = manager.recentFirst();
+        int count = 0;
+        while (count < PAGE && iterator.hasNext()) {
+            count += iterator.next().getId() > 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int snapshot() {
+        return manager.snapshot().size();
+    }
+}
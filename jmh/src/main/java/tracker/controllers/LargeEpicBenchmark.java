@@ -0,0 +1,90 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Изменение подзадачи в эпике из {@code subtasks} подзадач при включённых снимках
+ * и подписчике на события: каждая операция кладёт копию эпика в снимок и в событие.
+ * <p>
+ * Копия эпика делит с ним ID подзадач, поэтому время операции почти не должно
+ * расти с {@code subtasks}; с {@code -prof gc} видно, что и выделения не растут.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargeEpicBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000", "100000"})
+    public int subtasks;
+
+    private InMemoryTaskManager manager;
+    private Subtask[] items;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        int epicId = manager.createEpic(new Epic("Epic", "Large"));
+        items = new Subtask[subtasks];
+        for (int i = 0; i < subtasks; i++) {
+            Subtask subtask = new Subtask("Subtask " + i, "Desc", epicId);
+            subtask.setStartTime(START.plusHours(i));
+            subtask.setDuration(Duration.ofMinutes(30));
+            manager.createSubtask(subtask);
+            items[i] = new Subtask(subtask);
+        }
+        manager.snapshot();
+        manager.events().subscribe(events -> { });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.events().close();
+    }
+
+    /**
+     * Смена статуса подзадачи: пересчёт статуса эпика и копия эпика в снимок и событие.
+     */
+    @Benchmark
+    public TaskSnapshot updateStatus() {
+        Subtask subtask = items[cursor++ % items.length];
+        subtask.setStatus(subtask.getStatus() == Status.NEW ? Status.IN_PROGRESS : Status.NEW);
+        manager.updateSubtask(new Subtask(subtask));
+        return manager.snapshot();
+    }
+
+    /**
+     * Сдвиг подзадачи внутри её получаса: время эпика меняется за O(log k), плюс копия эпика.
+     */
+    @Benchmark
+    public TaskSnapshot updateTime() {
+        Subtask subtask = items[cursor++ % items.length];
+        subtask.setDuration(subtask.getDuration().toMinutes() == 30 ? Duration.ofMinutes(20) : Duration.ofMinutes(30));
+        manager.updateSubtask(new Subtask(subtask));
+        return manager.snapshot();
+    }
+}
@@ -0,0 +1,54 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.model.Task;
+import tracker.util.IntMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по ID в хранилищах {@link TaskStorage} на {@code size} записях, по умолчанию 1M.
+ * Ключи случайные в пределах набора, поэтому при большом наборе замер включает промахи кэша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StorageLookupBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"HASH_MAP", "OPEN_ADDRESSING", "DENSE_ARRAY"})
+    public TaskStorage storage;
+
+    private IntMap<Task> map;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Task task = new Task("Task", "Shared");
+        map = storage.newMap();
+        for (int id = 1; id <= size; id++) {
+            map.put(id, task);
+        }
+    }
+
+    @Benchmark
+    public Task get() {
+        return map.get(1 + BenchmarkDataset.pick(cursor++, size));
+    }
+}
@@ -0,0 +1,108 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создания и удаления {@link TaskManager}: они расходуют или раздувают набор данных,
+ * поэтому каждая итерация получает свежий набор и выполняет ровно {@link #OPS} вызовов
+ * (режим {@code ss} с {@code batchSize}); время итерации — время всей пачки вызовов.
+ * <p>
+ * Удаления идут по набору по порядку, так что {@code size / fanout} не меньше {@link #OPS}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = TaskManagerChurnBenchmark.OPS)
+@Measurement(iterations = 20, batchSize = TaskManagerChurnBenchmark.OPS)
+@Fork(1)
+public class TaskManagerChurnBenchmark {
+
+    static final int OPS = 1_000;
+    private static final int BATCH = 10;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"10"})
+    public int fanout;
+
+    @Param({"1000"})
+    public int history;
+
+    private BenchmarkDataset data;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        data = new BenchmarkDataset(size, fanout, history);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public int createTask() {
+        return data.manager.createTask(new Task("New", "Description"));
+    }
+
+    @Benchmark
+    public int createEpic() {
+        return data.manager.createEpic(new Epic("New", "Description"));
+    }
+
+    @Benchmark
+    public int createSubtask() {
+        return data.manager.createSubtask(new Subtask("New", "Description",
+                data.epicIds[BenchmarkDataset.pick(cursor++, data.epicIds.length)]));
+    }
+
+    @Benchmark
+    public int[] createAll() {
+        List<Task> batch = new ArrayList<>(BATCH);
+        for (int j = 0; j < BATCH; j++) {
+            batch.add(new Task("New " + j, "Description"));
+        }
+        return data.manager.createAll(batch);
+    }
+
+    @Benchmark
+    public void deleteTask() {
+        data.manager.deleteTask(data.taskIds[cursor++]);
+    }
+
+    @Benchmark
+    public void deleteEpic() {
+        data.manager.deleteEpic(data.epicIds[cursor++]);
+    }
+
+    @Benchmark
+    public void deleteSubtask() {
+        data.manager.deleteSubtask(data.subtaskIds[cursor++]);
+    }
+
+    @Benchmark
+    public void deleteAll() {
+        List<Integer> batch = new ArrayList<>(BATCH);
+        for (int j = 0; j < BATCH; j++) {
+            batch.add(data.taskIds[(cursor * BATCH + j) % data.taskIds.length]);
+        }
+        cursor++;
+        data.manager.deleteAll(batch);
+    }
+}
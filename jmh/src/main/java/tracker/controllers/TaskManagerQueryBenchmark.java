@@ -0,0 +1,139 @@
+package tracker.controllers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтения и обновления {@link TaskManager} на готовом наборе данных, которые его не расходуют.
+ * <p>
+ * Режимы {@code thrpt} (ops/s) и {@code sample} (перцентили задержки); выделение памяти
+ * на операцию показывает профилировщик {@code -prof gc}. Обновление подзадачи меняет её статус,
+ * поэтому включает пересчёт статуса эпика и проверку пересечений по времени.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerQueryBenchmark {
+
+    private static final int BATCH = 100;
+    private static final Status[] STATUSES = Status.values();
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"10", "100"})
+    public int fanout;
+
+    @Param({"1000"})
+    public int history;
+
+    private BenchmarkDataset data;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkDataset(size, fanout, history);
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return data.manager.getTaskById(data.taskIds[BenchmarkDataset.pick(cursor++, data.taskIds.length)]);
+    }
+
+    @Benchmark
+    public Epic getEpicById() {
+        return data.manager.getEpicById(data.epicIds[BenchmarkDataset.pick(cursor++, data.epicIds.length)]);
+    }
+
+    @Benchmark
+    public Subtask getSubtaskById() {
+        return data.manager.getSubtaskById(
+                data.subtaskIds[BenchmarkDataset.pick(cursor++, data.subtaskIds.length)]);
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return data.manager.getAllTasks();
+    }
+
+    @Benchmark
+    public List<Epic> getAllEpics() {
+        return data.manager.getAllEpics();
+    }
+
+    @Benchmark
+    public List<Subtask> getAllSubtasks() {
+        return data.manager.getAllSubtasks();
+    }
+
+    @Benchmark
+    public List<Task> getByStatus() {
+        return data.manager.getByStatus(STATUSES[cursor++ % STATUSES.length], TaskType.SUBTASK);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return data.manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return data.manager.getHistory();
+    }
+
+    @Benchmark
+    public void updateTask() {
+        int i = cursor++;
+        Task task = new Task("Task", "Updated");
+        task.setId(data.taskIds[BenchmarkDataset.pick(i, data.taskIds.length)]);
+        task.setStatus(STATUSES[i % STATUSES.length]);
+        data.manager.updateTask(task);
+    }
+
+    @Benchmark
+    public void updateEpic() {
+        Epic epic = new Epic("Epic", "Updated");
+        epic.setId(data.epicIds[BenchmarkDataset.pick(cursor++, data.epicIds.length)]);
+        data.manager.updateEpic(epic);
+    }
+
+    @Benchmark
+    public void updateSubtask() {
+        int i = cursor++;
+        data.manager.updateSubtask(data.subtask(BenchmarkDataset.pick(i, data.subtaskIds.length),
+                "Updated", STATUSES[i % STATUSES.length]));
+    }
+
+    @Benchmark
+    public void updateAll() {
+        int i = cursor++;
+        List<Subtask> batch = new ArrayList<>(BATCH);
+        for (int j = 0; j < BATCH; j++) {
+            batch.add(data.subtask(BenchmarkDataset.pick(i * BATCH + j, data.subtaskIds.length),
+                    "Updated", STATUSES[(i + j) % STATUSES.length]));
+        }
+        data.manager.updateAll(batch);
+    }
+}
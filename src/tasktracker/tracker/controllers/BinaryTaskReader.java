@@ -0,0 +1,193 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Чтение двоичного снимка, записанного {@link BinaryTaskWriter}.
+ * Писатель всегда оставляет заголовок и трейлер, поэтому пустой файл — обрезанный снимок.
+ * Читается только версия {@link BinaryTaskWriter#VERSION}; в конце сверяется контрольная сумма.
+ */
+class BinaryTaskReader implements TaskReader {
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path path;
+    private final SnapshotInput input;
+    private final InputStream in;
+    private byte[] bytes = new byte[256];
+    private boolean finished;
+    private int nextId;
+    private long journalGeneration;
+
+    /**
+     * @param path файл снимка
+     */
+    BinaryTaskReader(final Path path) throws IOException {
+        this.path = path;
+        this.input = new SnapshotInput(path, BinaryTaskWriter.TRAILER_LENGTH);
+        this.in = new BufferedInputStream(input, 64 * 1024);
+        final byte[] magic = new byte[BinaryTaskWriter.MAGIC.length];
+        final int read = in.readNBytes(magic, 0, magic.length);
+        if (read == 0) {
+            throw new ManagerSaveException("Двоичный снимок пуст, вероятно обрезан: " + path);
+        }
+        if (read != magic.length || !Arrays.equals(magic, BinaryTaskWriter.MAGIC)) {
+            throw new ManagerSaveException("Файл " + path + " не является двоичным снимком");
+        }
+        final int version = in.read();
+        if (version != BinaryTaskWriter.VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+    }
+
+    @Override
+    public Task next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int tag = readByte();
+        if (tag == BinaryTaskWriter.NEXT_ID) {
+            nextId = readVarint();
+            tag = readByte();
+        }
+        if (tag == BinaryTaskWriter.JOURNAL_GENERATION) {
+            journalGeneration = readVarlong();
+            tag = readByte();
+        }
+        if (tag == BinaryTaskWriter.END) {
+            finished = true;
+            verifyChecksum();
+            return null;
+        }
+        final TaskType type = decode(TYPES, tag);
+        final int id = readVarint();
+        final Status status = decode(STATUSES, readByte());
+        final String name = readString();
+        final String description = readString();
+
+        final Task task = switch (type) {
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, readVarint());
+            default -> new Task(name, description);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        readTime(task);
+        return task;
+    }
+
+    @Override
+    public int nextId() {
+        return nextId;
+    }
+
+    @Override
+    public long journalGeneration() {
+        return journalGeneration;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readTime(final Task task) throws IOException {
+        final int flags = readByte();
+        if ((flags & BinaryTaskWriter.HAS_START) != 0) {
+            final long seconds = readVarlong();
+            task.setStartTime(LocalDateTime.ofEpochSecond(seconds, readNano(), ZoneOffset.UTC));
+        }
+        if ((flags & BinaryTaskWriter.HAS_DURATION) != 0) {
+            final long seconds = readVarlong();
+            task.setDuration(Duration.ofSeconds(seconds, readNano()));
+        }
+    }
+
+    private void verifyChecksum() throws IOException {
+        final int actual = input.checksum();
+        int expected = 0;
+        for (int i = 0; i < BinaryTaskWriter.TRAILER_LENGTH; i++) {
+            expected = expected << 8 | readByte();
+        }
+        if (expected != actual) {
+            throw new ManagerSaveException("Контрольная сумма снимка не совпадает: " + path);
+        }
+    }
+
+    private static <E> E decode(final E[] values, final int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new ManagerSaveException("Некорректный код в двоичном снимке: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private int readByte() throws IOException {
+        final int value = in.read();
+        if (value < 0) {
+            throw new EOFException("Двоичный снимок оборван");
+        }
+        return value;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Некорректное число в двоичном снимке");
+    }
+
+    private long readVarlong() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new ManagerSaveException("Некорректное число в двоичном снимке");
+    }
+
+    private int readNano() throws IOException {
+        final int nano = readVarint();
+        if (nano < 0 || nano > 999_999_999) {
+            throw new ManagerSaveException("Некорректное время в двоичном снимке: " + nano + " нс");
+        }
+        return nano;
+    }
+
+    private String readString() throws IOException {
+        final int length = readVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > bytes.length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        if (in.readNBytes(bytes, 0, length) != length) {
+            throw new EOFException("Двоичный снимок оборван");
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package tracker.controllers;
+
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Запись двоичного снимка.
+ * <p>
+ * Формат (версия {@link #VERSION}):
+ * <pre>
+ * 'T' 'T' 'S' 'B' версия
+ * запись*: тип(1 байт, ordinal TaskType) id(varint) статус(1 байт, ordinal Status)
+ *          название(строка) описание(строка) [id эпика(varint) — только у подзадачи]
+ *          флаги времени(1 байт) [начало] [длительность]
+ * [0xFE следующий свободный ID(varint)]
+ * [0xFD поколение журнала, учтённое снимком (zigzag varlong)]
+ * 0xFF — конец снимка
+ * CRC32C всех предыдущих байт (4 байта, старшие вперёд)
+ * </pre>
+ * Строка — varint (длина UTF-8 в байтах + 1), затем байты; 0 означает {@code null}.
+ * Varint — 7 бит на байт, младшие вперёд, старший бит — признак продолжения.
+ * Флаги времени: бит 0 — задано начало, бит 1 — задана длительность; у эпика всегда 0.
+ * Начало — секунды эпохи в UTC (zigzag varlong) и наносекунды (varint), длительность —
+ * секунды (zigzag varlong) и наносекунды (varint).
+ */
+class BinaryTaskWriter implements TaskWriter {
+
+    static final byte[] MAGIC = {'T', 'T', 'S', 'B'};
+    static final int VERSION = 1;
+
+    /** Длина трейлера с контрольной суммой. */
+    static final int TRAILER_LENGTH = 4;
+
+    private final SnapshotOutput output;
+    static final int JOURNAL_GENERATION = 0xFD;
+    static final int NEXT_ID = 0xFE;
+    static final int END = 0xFF;
+
+    static final int HAS_START = 1;
+    static final int HAS_DURATION = 2;
+
+    private final OutputStream out;
+
+    /**
+     * @param path файл снимка; перезаписывается
+     */
+    BinaryTaskWriter(final Path path) throws IOException {
+        this.output = new SnapshotOutput(path);
+        this.out = new BufferedOutputStream(output, 64 * 1024);
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    @Override
+    public void write(final Task task) throws IOException {
+        final TaskType type = TaskType.of(task);
+        out.write(type.ordinal());
+        writeVarint(task.getId());
+        out.write(task.getStatus().ordinal());
+        writeString(task.getName());
+        writeString(task.getDescription());
+        if (task instanceof Subtask subtask) {
+            writeVarint(subtask.getEpicId());
+        }
+        final LocalDateTime start = type == TaskType.EPIC ? null : task.getStartTime();
+        final Duration duration = type == TaskType.EPIC ? null : task.getDuration();
+        out.write((start != null ? HAS_START : 0) | (duration != null ? HAS_DURATION : 0));
+        if (start != null) {
+            writeVarlong(start.toEpochSecond(ZoneOffset.UTC));
+            writeVarint(start.getNano());
+        }
+        if (duration != null) {
+            writeVarlong(duration.getSeconds());
+            writeVarint(duration.getNano());
+        }
+    }
+
+    @Override
+    public void writeNextId(final int nextId) throws IOException {
+        out.write(NEXT_ID);
+        writeVarint(nextId);
+    }
+
+    @Override
+    public void writeJournalGeneration(final long generation) throws IOException {
+        out.write(JOURNAL_GENERATION);
+        writeVarlong(generation);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(END);
+            out.flush();
+            final int checksum = output.checksum();
+            output.writeTrailer(new byte[]{
+                    (byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8), (byte) checksum});
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Пишет знаковое число в zigzag-кодировке: малые по модулю числа занимают мало байт.
+     */
+    private void writeVarlong(final long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
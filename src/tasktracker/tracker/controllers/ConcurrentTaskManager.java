@@ -0,0 +1,363 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+import tracker.util.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасная реализация TaskManager.
+ * <p>
+ * Сущности хранятся в ConcurrentHashMap, ID задач, эпиков и подзадач выдаёт
+ * один {@link IdGenerator}, при желании — блоками на поток.
+ * Всё, что меняет эпик и его подзадачи, выполняется под блокировкой полосы
+ * (stripe), выбранной по ID эпика, поэтому изменения разных эпиков идут параллельно.
+ * Обновление и удаление обычной задачи берут полосу по ID задачи. Обновления заменяют
+ * только существующую сущность (подзадачу — только в её эпике), так что удалённая сущность
+ * не возвращается параллельным обновлением. История просмотров защищена своим монитором.
+ * <p>
+ * Эпик, переданный в {@code createEpic}, принадлежит менеджеру: множества ID его
+ * подзадач и время меняются под блокировкой полосы. Наружу эпики отдаются копиями,
+ * снятыми под той же блокировкой, поэтому читатель не видит эпик посреди изменения.
+ * Индексы по статусам переносят ID атомарно для каждого ID; выборка по статусу
+ * слабо согласована, как и обход ConcurrentHashMap.
+ * Время эпика пересчитывается под той же блокировкой полосы. Пересечения задач по времени
+ * не проверяются, {@link #getPrioritizedTasks()} сортирует задачи при каждом вызове.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    /** Число полос блокировки эпиков и задач; степень двойки. */
+    private static final int STRIPES = 64;
+
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+
+    private final ConcurrentStatusIndex taskIndex = new ConcurrentStatusIndex();
+    private final ConcurrentStatusIndex epicIndex = new ConcurrentStatusIndex();
+    private final ConcurrentStatusIndex subtaskIndex = new ConcurrentStatusIndex();
+
+    /** Менеджер истории просмотров задач; доступ только под его монитором. */
+    private final HistoryManager historyManager = new InMemoryHistoryManager();
+
+    private final Object[] stripeLocks = new Object[STRIPES];
+
+    private final IdGenerator idGenerator;
+
+    public ConcurrentTaskManager() {
+        this(1);
+    }
+
+    /**
+     * @param idBlockSize сколько ID поток забирает у общего счётчика за раз; 1 — ID строго по порядку
+     */
+    public ConcurrentTaskManager(final int idBlockSize) {
+        idGenerator = new IdGenerator(idBlockSize);
+        for (int i = 0; i < STRIPES; i++) {
+            stripeLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public int createTask(final Task task) {
+        task.setId(idGenerator.next());
+        tasks.put(task.getId(), task);
+        taskIndex.index(task.getId(), task.getStatus());
+        return task.getId();
+    }
+
+    @Override
+    public int createEpic(final Epic epic) {
+        final int id = idGenerator.next();
+        synchronized (epicLock(id)) {
+            epic.setId(id);
+            epic.recalculateTime(subtasks::get);
+            epics.put(id, epic);
+            epicIndex.index(id, epic.getStatus());
+        }
+        return id;
+    }
+
+    @Override
+    public int createSubtask(final Subtask subtask) {
+        synchronized (epicLock(subtask.getEpicId())) {
+            subtask.setId(idGenerator.next());
+            subtasks.put(subtask.getId(), subtask);
+            subtaskIndex.index(subtask.getId(), subtask.getStatus());
+
+            final Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtask(subtask);
+                epic.addSubtaskTime(subtask);
+                epicIndex.index(epic.getId(), epic.getStatus());
+            }
+        }
+        return subtask.getId();
+    }
+
+    @Override
+    public Task getTaskById(final int id) {
+        final Task task = tasks.get(id);
+        if (task != null) {
+            addToHistory(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(final int id) {
+        final Epic epic = copyOf(epics.get(id));
+        if (epic != null) {
+            addToHistory(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(final int id) {
+        final Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            addToHistory(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        final List<Epic> result = new ArrayList<>(epics.size());
+        for (final Epic epic : epics.values()) {
+            result.add(copyOf(epic));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Task> getByStatus(final Status status, final TaskType type) {
+        return switch (type) {
+            case EPIC -> {
+                final List<Task> result = epicIndex.collect(status, epics);
+                result.replaceAll(epic -> copyOf((Epic) epic));
+                yield result;
+            }
+            case SUBTASK -> subtaskIndex.collect(status, subtasks);
+            default -> taskIndex.collect(status, tasks);
+        };
+    }
+
+    /**
+     * Заменяет существующую задачу; если задачи с таким ID нет, ничего не делает.
+     */
+    @Override
+    public void updateTask(final Task task) {
+        synchronized (stripeLock(task.getId())) {
+            if (tasks.replace(task.getId(), task) != null) {
+                taskIndex.index(task.getId(), task.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Переносит название и описание в существующий эпик; если эпика с таким ID нет,
+     * ничего не делает. Состав подзадач, статус и время эпика выводятся из подзадач
+     * менеджера, поэтому устаревший список ID в переданной копии их не затирает.
+     */
+    @Override
+    public void updateEpic(final Epic epic) {
+        synchronized (epicLock(epic.getId())) {
+            final Epic stored = epics.get(epic.getId());
+            if (stored == null) {
+                return;
+            }
+            // Новый объект, а не правка на месте: копии, выданные ранее, не меняются
+            final Epic updated = new Epic(stored);
+            updated.setName(epic.getName());
+            updated.setDescription(epic.getDescription());
+            epics.put(updated.getId(), updated);
+        }
+    }
+
+    /**
+     * Заменяет существующую подзадачу того же эпика; если такой подзадачи нет
+     * или она принадлежит другому эпику, ничего не делает.
+     */
+    @Override
+    public void updateSubtask(final Subtask subtask) {
+        final int id = subtask.getId();
+        synchronized (epicLock(subtask.getEpicId())) {
+            // Подзадачу эпика меняют только под его полосой, поэтому проверка и замена атомарны
+            final Subtask previous = subtasks.get(id);
+            final Epic epic = epics.get(subtask.getEpicId());
+            if (previous == null || previous.getEpicId() != subtask.getEpicId()
+                    || epic == null || !epic.containsSubtask(id)) {
+                return;
+            }
+            subtasks.put(id, subtask);
+            subtaskIndex.index(id, subtask.getStatus());
+            epic.updateSubtaskStatus(subtask);
+            // Время переносится за O(log k); пересчёт — только если подзадачу изменили на месте
+            if (previous == subtask || !epic.replaceSubtaskTime(previous, subtask)) {
+                epic.recalculateTime(subtasks::get);
+            }
+            epicIndex.index(epic.getId(), epic.getStatus());
+        }
+    }
+
+    @Override
+    public void deleteTask(final int id) {
+        synchronized (stripeLock(id)) {
+            if (tasks.remove(id) != null) {
+                taskIndex.remove(id);
+            }
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public void deleteEpic(final int id) {
+        synchronized (epicLock(id)) {
+            final Epic epic = epics.remove(id);
+            if (epic != null) {
+                epic.forEachSubtaskId(subId -> {
+                    subtasks.remove(subId);
+                    subtaskIndex.remove(subId);
+                    removeFromHistory(subId);
+                });
+                epicIndex.remove(id);
+                removeFromHistory(id);
+            }
+        }
+    }
+
+    @Override
+    public void deleteSubtask(final int id) {
+        final Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            return;
+        }
+        synchronized (epicLock(subtask.getEpicId())) {
+            // Обновление не переносит подзадачу в другой эпик, поэтому полоса та же,
+            // а удаляется последняя версия, даже если её успели заменить
+            final Subtask current = subtasks.remove(id);
+            if (current == null) {
+                return; // подзадачу уже удалил другой поток
+            }
+            subtaskIndex.remove(id);
+            final Epic epic = epics.get(current.getEpicId());
+            if (epic != null && epic.containsSubtask(id)) {
+                epic.removeSubtaskId(id);
+                if (!epic.removeSubtaskTime(current)) {
+                    epic.recalculateTime(subtasks::get);
+                }
+                epicIndex.index(epic.getId(), epic.getStatus());
+            }
+            removeFromHistory(id);
+        }
+    }
+
+    /**
+     * Возвращает текущую историю просмотров задач.
+     *
+     * @return список задач в порядке просмотра
+     */
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    /**
+     * @return копия эпика, снятая под блокировкой его полосы, или {@code null}
+     */
+    private Epic copyOf(final Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+        synchronized (epicLock(epic.getId())) {
+            return new Epic(epic);
+        }
+    }
+
+    private Object epicLock(final int epicId) {
+        return stripeLock(epicId);
+    }
+
+    private Object stripeLock(final int id) {
+        return stripeLocks[Integer.hashCode(id) & (STRIPES - 1)];
+    }
+
+    private void addToHistory(final Task task) {
+        synchronized (historyManager) {
+            historyManager.add(task);
+        }
+    }
+
+    private void removeFromHistory(final int id) {
+        synchronized (historyManager) {
+            historyManager.remove(id);
+        }
+    }
+
+    /**
+     * Индекс «статус → ID» для одного типа сущностей.
+     * Перенос одного ID между статусами атомарен: он выполняется в compute
+     * словаря проиндексированных статусов.
+     */
+    private static final class ConcurrentStatusIndex {
+
+        private final Map<Integer, Status> indexed = new ConcurrentHashMap<>();
+        private final Map<Status, Set<Integer>> ids = new EnumMap<>(Status.class);
+
+        ConcurrentStatusIndex() {
+            for (final Status status : Status.values()) {
+                ids.put(status, ConcurrentHashMap.newKeySet());
+            }
+        }
+
+        void index(final int id, final Status status) {
+            indexed.compute(id, (key, previous) -> {
+                if (previous != null) {
+                    ids.get(previous).remove(key);
+                }
+                if (status != null) {
+                    ids.get(status).add(key);
+                }
+                return status;
+            });
+        }
+
+        void remove(final int id) {
+            index(id, null);
+        }
+
+        List<Task> collect(final Status status, final Map<Integer, ? extends Task> source) {
+            final List<Task> result = new ArrayList<>();
+            for (final Integer id : ids.get(status)) {
+                final Task task = source.get(id);
+                if (task != null) {
+                    result.add(task);
+                }
+            }
+            return result;
+        }
+    }
+}
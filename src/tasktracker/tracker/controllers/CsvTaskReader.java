@@ -0,0 +1,309 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Потоковое чтение CSV-снимка FileBackedTaskManager.
+ * <p>
+ * Файл читается блоками в переиспользуемый буфер, поля разбираются прямо в нём:
+ * числа и перечисления — без промежуточных строк, новые строки создаются только
+ * для названия и описания. Память на чтение не зависит от размера файла.
+ * Строка заголовка пропускается. Строки, начинающиеся с {@code #}, служебные:
+ * {@code #next-id,<ID>} задаёт водяной знак генератора ID, {@code #journal,<поколение>} —
+ * поколение журнала, учтённое снимком, {@code #crc32c,<hex>} —
+ * контрольную сумму, которая сверяется, когда файл дочитан; остальные пропускаются.
+ * Трейлер обязателен, если файл начинается с нынешнего заголовка, содержит {@code #next-id}
+ * или рядом лежит резервная копия {@code .bak}: без него такой файл считается обрезанным.
+ * Без проверки читается только снимок прежнего формата, записанный до появления трейлера.
+ * Строки без полей start и duration (из снимков до их появления) читаются как задачи без времени.
+ */
+class CsvTaskReader implements TaskReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FIELDS = 8;
+
+    /** Число полей до времени начала и длительности. */
+    private static final int TIME_FIELD = 6;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path path;
+    private final SnapshotInput input;
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /** Текущая строка без перевода строки; растёт под самую длинную строку файла. */
+    private char[] line = new char[256];
+    private int lineLength;
+    private long lineNumber;
+
+    private int nextId;
+    private long journalGeneration;
+
+    private boolean hasChecksum;
+    private int expectedChecksum;
+
+    /** Файл записан с трейлером, и его отсутствие означает обрезанный файл. */
+    private boolean requiresChecksum;
+
+    /** Начала и концы полей текущей строки. */
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+
+    /**
+     * @param path CSV-файл для чтения
+     */
+    CsvTaskReader(final Path path) throws IOException {
+        this.path = path;
+        this.input = new SnapshotInput(path, CsvTaskWriter.TRAILER_LENGTH);
+        this.reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        readLine(); // заголовок
+        final String header = CsvTaskWriter.CSV_HEADER;
+        requiresChecksum = lineLength == header.length() - 1 && matches(header.substring(0, lineLength), 0)
+                || Files.exists(Path.of(path + FileBackedTaskManager.BACKUP_SUFFIX));
+    }
+
+    @Override
+    public Task next() throws IOException {
+        while (readLine()) {
+            if (lineLength > 0 && line[0] == '#') {
+                parseDirective();
+            } else if (!isBlank()) {
+                return parse();
+            }
+        }
+        if (!hasChecksum && requiresChecksum) {
+            throw new ManagerSaveException("Снимок без контрольной суммы, вероятно обрезан: " + path);
+        }
+        if (hasChecksum && input.checksum() != expectedChecksum) {
+            throw new ManagerSaveException("Контрольная сумма снимка не совпадает: " + path);
+        }
+        return null;
+    }
+
+    @Override
+    public int nextId() {
+        return nextId;
+    }
+
+    @Override
+    public long journalGeneration() {
+        return journalGeneration;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Task parse() {
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < lineLength && count < FIELDS - 1; i++) {
+            if (line[i] == ',') {
+                starts[count] = start;
+                ends[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        starts[count] = start;
+        ends[count] = lineLength;
+        count++;
+        if (count < 5) {
+            throw malformed();
+        }
+
+        final int id = parseInt(0);
+        final TaskType type = parseEnum(TYPES, 1);
+        final String name = new String(line, starts[2], ends[2] - starts[2]);
+        final Status status = parseEnum(STATUSES, 3);
+        final String description = new String(line, starts[4], ends[4] - starts[4]);
+
+        final Task task = switch (type) {
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> {
+                if (count < TIME_FIELD) {
+                    throw malformed();
+                }
+                yield new Subtask(name, description, parseInt(5));
+            }
+            default -> new Task(name, description);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        if (type != TaskType.EPIC) {
+            try {
+                if (count > TIME_FIELD && ends[TIME_FIELD] > starts[TIME_FIELD]) {
+                    task.setStartTime(LocalDateTime.parse(field(TIME_FIELD)));
+                }
+                if (count > TIME_FIELD + 1 && ends[TIME_FIELD + 1] > starts[TIME_FIELD + 1]) {
+                    task.setDuration(Duration.parse(field(TIME_FIELD + 1)));
+                }
+            } catch (DateTimeParseException e) {
+                throw malformed();
+            }
+        }
+        return task;
+    }
+
+    /**
+     * @return поле текущей строки без копирования
+     */
+    private CharSequence field(final int field) {
+        return CharBuffer.wrap(line, starts[field], ends[field] - starts[field]);
+    }
+
+    private void parseDirective() {
+        final String prefix = CsvTaskWriter.NEXT_ID_PREFIX;
+        if (lineLength > prefix.length() && matches(prefix, 0)) {
+            starts[0] = prefix.length();
+            ends[0] = lineLength;
+            nextId = parseInt(0);
+            // Водяной знак пишется вместе с трейлером
+            requiresChecksum = true;
+        }
+        final String journal = CsvTaskWriter.JOURNAL_PREFIX;
+        if (lineLength > journal.length() && matches(journal, 0)) {
+            try {
+                journalGeneration = Long.parseLong(new String(line, journal.length(), lineLength - journal.length()));
+            } catch (NumberFormatException e) {
+                throw malformed();
+            }
+            requiresChecksum = true;
+        }
+        final String checksum = CsvTaskWriter.CHECKSUM_PREFIX;
+        if (lineLength > checksum.length() && matches(checksum, 0)) {
+            try {
+                expectedChecksum = Integer.parseUnsignedInt(
+                        new String(line, checksum.length(), lineLength - checksum.length()), 16);
+            } catch (NumberFormatException e) {
+                throw malformed();
+            }
+            hasChecksum = true;
+        }
+    }
+
+    private int parseInt(final int field) {
+        int i = starts[field];
+        final int end = ends[field];
+        final boolean negative = i < end && line[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw malformed();
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            final int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed();
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private <E extends Enum<E>> E parseEnum(final E[] values, final int field) {
+        final int start = starts[field];
+        final int length = ends[field] - start;
+        for (final E value : values) {
+            final String name = value.name();
+            if (name.length() == length && matches(name, start)) {
+                return value;
+            }
+        }
+        throw malformed();
+    }
+
+    private boolean matches(final String name, final int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (line[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < lineLength; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Копирует следующую строку файла в {@link #line}.
+     *
+     * @return {@code false}, если файл закончился
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    break;
+                }
+            }
+            any = true;
+            int i = position;
+            while (i < limit && buffer[i] != '\n') {
+                i++;
+            }
+            append(position, i);
+            if (i < limit) {
+                position = i + 1;
+                break;
+            }
+            position = limit;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        if (any) {
+            lineNumber++;
+        }
+        return any;
+    }
+
+    private void append(final int from, final int to) {
+        final int length = to - from;
+        if (lineLength + length > line.length) {
+            final char[] grown = new char[Math.max(line.length * 2, lineLength + length)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        System.arraycopy(buffer, from, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private ManagerSaveException malformed() {
+        return new ManagerSaveException("Некорректная строка " + lineNumber + ": "
+                + new String(line, 0, lineLength));
+    }
+}
@@ -0,0 +1,80 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Запись CSV-снимка: заголовок и по строке {@link Task#toCsvString()} на сущность.
+ * Время начала и длительность пишутся в ISO-8601, пустое поле означает {@code null}.
+ * После сущностей идёт служебная строка {@code #next-id,<ID>} — водяной знак генератора ID,
+ * затем, если снимок свёрнут из журнала, {@code #journal,<поколение>} — поколение журнала,
+ * чьи записи в нём учтены, а последней — {@code #crc32c,<8 hex>}: CRC32C всех байт файла до неё.
+ */
+class CsvTaskWriter implements TaskWriter {
+
+    static final String CSV_HEADER = "id,type,name,status,description,epic,start,duration\n";
+
+    /** Начало служебной строки с водяным знаком генератора ID. */
+    static final String NEXT_ID_PREFIX = "#next-id,";
+
+    /** Начало служебной строки с поколением журнала, учтённым в снимке. */
+    static final String JOURNAL_PREFIX = "#journal,";
+
+    /** Начало строки-трейлера с контрольной суммой. */
+    static final String CHECKSUM_PREFIX = "#crc32c,";
+
+    /** Длина трейлера в байтах: префикс, 8 шестнадцатеричных цифр и перевод строки. */
+    static final int TRAILER_LENGTH = CHECKSUM_PREFIX.length() + 9;
+
+    private final SnapshotOutput output;
+
+    private final Writer writer;
+
+    /**
+     * @param path файл снимка; перезаписывается
+     */
+    CsvTaskWriter(final Path path) throws IOException {
+        this.output = new SnapshotOutput(path);
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new BufferedOutputStream(output, 64 * 1024), StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+    }
+
+    @Override
+    public void write(final Task task) throws IOException {
+        writer.write(task.toCsvString());
+        writer.write('\n');
+    }
+
+    @Override
+    public void writeNextId(final int nextId) throws IOException {
+        writer.write(NEXT_ID_PREFIX);
+        writer.write(Integer.toString(nextId));
+        writer.write('\n');
+    }
+
+    @Override
+    public void writeJournalGeneration(final long generation) throws IOException {
+        writer.write(JOURNAL_PREFIX);
+        writer.write(Long.toString(generation));
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.flush();
+            final String trailer = String.format("%s%08x\n", CHECKSUM_PREFIX, output.checksum());
+            output.writeTrailer(trailer.getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            writer.close();
+        }
+    }
+}
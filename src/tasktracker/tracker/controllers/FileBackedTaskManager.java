@@ -1,20 +1,104 @@
 package tracker.controllers;
 
 import tracker.model.*;
+import tracker.util.IdGenerator;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FileBackedTaskManager — менеджер задач с поддержкой сохранения/загрузки в CSV.
  * Наследуется от InMemoryTaskManager: берём базовую логику и добавляем файловое хранилище.
+ * Снимок пишется в CSV или в двоичном формате {@link SnapshotFormat#BINARY} (файлы {@code .bin}).
+ * <p>
+ * В режиме {@link PersistenceMode#JOURNAL} изменения не перезаписывают файл, а дописываются
+ * в журнал {@link TaskJournal}. Фоновый поток сворачивает журнал в новый снимок,
+ * когда в нём накапливается {@link #COMPACTION_THRESHOLD} записей.
+ * <p>
+ * {@link FlushMode} задаёт, когда изменения попадают на диск: сразу ({@code SYNC}),
+ * пачкой раз в интервал ({@code GROUP_COMMIT}) или фоновым потоком ({@code ASYNC}).
+ * В отложенных режимах несохранённые изменения записываются {@link #flush()} и {@link #close()}.
+ * <p>
+ * Снимок никогда не перезаписывается на месте: он пишется в {@code <файл>.tmp}, сбрасывается
+ * на диск через {@code FileChannel.force} и атомарно переименовывается поверх файла, а прежний
+ * снимок остаётся в {@code <файл>.bak} (жёсткой ссылкой, без копирования). Снимок заканчивается
+ * контрольной суммой; если при загрузке она не сошлась, читается {@code <файл>.bak}.
  */
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
     private final File file; // файл для хранения данных
-    private static final String CSV_HEADER = "id,type,name,status,description,epic\n";
+
+    /** Число записей журнала, после которого он сворачивается в снимок. */
+    static final int COMPACTION_THRESHOLD = 10_000;
+
+    /** Период проверки размера журнала фоновым потоком, мс. */
+    private static final long COMPACTION_CHECK_MS = 1_000;
+
+    /** Суффикс временного файла, в который пишется новый снимок. */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /** Суффикс предыдущего снимка. */
+    static final String BACKUP_SUFFIX = ".bak";
+
+    /** Интервал группового сброса по умолчанию, мс. */
+    public static final long DEFAULT_GROUP_COMMIT_MS = 50;
+
+    /** Число изменений, после которого групповой сброс выполняется досрочно, по умолчанию. */
+    public static final int DEFAULT_GROUP_COMMIT_OPS = 1_000;
+
+    private final SnapshotFormat format;
+    private final PersistenceMode mode;
+    private final FlushMode flushMode;
+    private final long groupCommitMs;
+    private final int groupCommitOps;
+
+    /** Журнал изменений; {@code null} в режиме SNAPSHOT. */
+    private final TaskJournal journal;
+
+    /** Фоновый поток сброса и уплотнения; {@code null}, если фоновая работа не нужна. */
+    private final ScheduledExecutorService background;
+
+    /** Блокирует изменения на время записи в журнал и его переключения при уплотнении. */
+    private final Object lock = new Object();
+
+    /** Не даёт двум сбросам или уплотнениям идти одновременно. */
+    private final Object flushLock = new Object();
+
+    /** Не даёт двум записям снимка делить временный файл; берётся последним. */
+    private final Object snapshotLock = new Object();
+
+    /** Последнее поколение журнала, учтённое снимком на диске (под {@link #lock}). */
+    private long coveredGeneration;
+
+    /** Снимок оказался повреждён, и данные загружены из предыдущего. */
+    private volatile boolean loadedFromBackup;
+
+    /** Получатель сведений о записанных снимках; {@code null} — не сообщать. */
+    private volatile SnapshotListener snapshotListener;
+
+    /** Изменения, ещё не записанные на диск (под {@link #lock}). */
+    private int pendingOps;
+
+    /** Фоновый сброс уже запрошен и ещё не начался (под {@link #lock}). */
+    private boolean flushRequested;
+
+    /** Периодические уплотнение и сброс уже запланированы (под {@link #lock}). */
+    private boolean scheduled;
+
+    /** Менеджер закрыт, изменения больше не принимаются (под {@link #lock}). */
+    private boolean closed;
 
     /**
      * Конструктор менеджера задач с указанием файла хранения.
@@ -22,7 +106,92 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      * @param file файл для хранения данных
      */
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    /**
+     * Конструктор нового (пустого) менеджера с выбором способа хранения.
+     * В режиме JOURNAL старый журнал рядом с файлом удаляется, а файл перезаписывается пустым снимком.
+     *
+     * @param file файл для хранения данных
+     * @param mode способ хранения
+     */
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
+        this(file, mode, FlushMode.SYNC);
+    }
+
+    /**
+     * Конструктор нового менеджера с выбором способа хранения и режима сброса на диск.
+     * Групповой сброс идёт с параметрами по умолчанию.
+     *
+     * @param file      файл для хранения данных
+     * @param mode      способ хранения
+     * @param flushMode режим сброса изменений на диск
+     */
+    public FileBackedTaskManager(File file, PersistenceMode mode, FlushMode flushMode) {
+        this(file, mode, flushMode, DEFAULT_GROUP_COMMIT_MS, DEFAULT_GROUP_COMMIT_OPS);
+    }
+
+    /**
+     * Конструктор нового менеджера с настройкой группового сброса.
+     *
+     * @param file            файл для хранения данных
+     * @param mode            способ хранения
+     * @param flushMode       режим сброса изменений на диск
+     * @param groupCommitMs   интервал группового сброса, мс
+     * @param groupCommitOps  число изменений, после которого групповой сброс выполняется досрочно
+     */
+    public FileBackedTaskManager(File file, PersistenceMode mode, FlushMode flushMode,
+                                 long groupCommitMs, int groupCommitOps) {
+        this(file, SnapshotFormat.forFile(file), mode, flushMode, groupCommitMs, groupCommitOps);
+    }
+
+    /**
+     * Конструктор нового менеджера с явным форматом снимка.
+     *
+     * @param file            файл для хранения данных
+     * @param format          формат снимка независимо от расширения файла
+     * @param mode            способ хранения
+     * @param flushMode       режим сброса изменений на диск
+     * @param groupCommitMs   интервал группового сброса, мс
+     * @param groupCommitOps  число изменений, после которого групповой сброс выполняется досрочно
+     */
+    public FileBackedTaskManager(File file, SnapshotFormat format, PersistenceMode mode, FlushMode flushMode,
+                                 long groupCommitMs, int groupCommitOps) {
+        this(file, format, mode, flushMode, groupCommitMs, groupCommitOps, true);
+    }
+
+    private FileBackedTaskManager(File file, SnapshotFormat format, PersistenceMode mode, FlushMode flushMode,
+                                  long groupCommitMs, int groupCommitOps, boolean fresh) {
+        if (groupCommitMs <= 0 || groupCommitOps <= 0) {
+            throw new IllegalArgumentException("Параметры группового сброса должны быть положительными");
+        }
         this.file = file;
+        this.format = format;
+        this.mode = mode;
+        this.flushMode = flushMode;
+        this.groupCommitMs = groupCommitMs;
+        this.groupCommitOps = groupCommitOps;
+        this.journal = mode == PersistenceMode.JOURNAL ? new TaskJournal(file) : null;
+        if (journal != null && fresh) {
+            try {
+                journal.reset();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при очистке журнала", e);
+            }
+            saveEmpty();
+        }
+
+        if (journal == null && flushMode == FlushMode.SYNC) {
+            background = null;
+            return;
+        }
+        // Периодическая работа планируется при первом изменении, см. schedule()
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-manager-io");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -33,28 +202,59 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      * @return менеджер задач с данными из файла
      */
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        if (!file.exists()) {
-            return manager; // Если файла ещё нет — возвращаем пустой менеджер
-        }
-        try {
-            String content = Files.readString(file.toPath());
-            String[] lines = content.split("\n");
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
 
-            // Пропускаем первую строку (заголовок)
-            for (int i = 1; i < lines.length; i++) {
-                if (lines[i].isBlank()) {
-                    continue;
+    /**
+     * Загружает менеджер из снимка и дочитывает хвост журнала, если он есть.
+     * В режиме SNAPSHOT найденный журнал сразу сворачивается в снимок и удаляется.
+     *
+     * @param file файл для загрузки
+     * @param mode способ хранения для загруженного менеджера
+     * @return менеджер задач с данными из файла
+     */
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode) {
+        return loadFromFile(file, mode, FlushMode.SYNC);
+    }
+
+    /**
+     * Загружает менеджер из файла с выбором режима сброса изменений на диск.
+     *
+     * @param file      файл для загрузки
+     * @param mode      способ хранения для загруженного менеджера
+     * @param flushMode режим сброса изменений на диск
+     * @return менеджер задач с данными из файла
+     */
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode, FlushMode flushMode) {
+        return loadFromFile(file, SnapshotFormat.forFile(file), mode, flushMode);
+    }
+
+    /**
+     * Загружает менеджер из снимка явно заданного формата.
+     *
+     * @param file      файл для загрузки
+     * @param format    формат снимка независимо от расширения файла
+     * @param mode      способ хранения для загруженного менеджера
+     * @param flushMode режим сброса изменений на диск
+     * @return менеджер задач с данными из файла
+     */
+    public static FileBackedTaskManager loadFromFile(File file, SnapshotFormat format, PersistenceMode mode,
+                                                     FlushMode flushMode) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, format, mode, flushMode,
+                DEFAULT_GROUP_COMMIT_MS, DEFAULT_GROUP_COMMIT_OPS, false);
+        TaskJournal journal = mode == PersistenceMode.JOURNAL ? manager.journal : new TaskJournal(file);
+        try {
+            synchronized (manager.lock) {
+                manager.loadSnapshot(journal);
+                List<String> records = journal.read(manager.coveredGeneration);
+                for (String record : records) {
+                    manager.replay(record);
                 }
-                Task task = Task.fromCsv(lines[i]);
-
-                if (task instanceof Epic) {
-                    manager.createEpic((Epic) task);
-                } else if (task instanceof Subtask) {
-                    manager.createSubtask((Subtask) task);
-                } else {
-                    manager.createTask(task);
+                if (mode == PersistenceMode.SNAPSHOT && !records.isEmpty()) {
+                    manager.save();
+                    journal.reset();
                 }
+                manager.schedule();
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка при загрузке файла", e);
@@ -62,87 +262,674 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return manager;
     }
 
-    // ⬇️ Переопределяем все CRUD-методы, чтобы они сразу вызывали save()
+    // ⬇️ Переопределяем все CRUD-методы, чтобы они сразу сохраняли изменения
+    // Поток диспетчера событий отклоняется до блокировки: иначе он ждал бы её у писателя,
+    // который сам ждёт места в буфере событий
     @Override
     public int createTask(Task task) {
-        int id = super.createTask(task);
-        save();
-        return id;
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            int id = super.createTask(task);
+            persist(task);
+            return id;
+        }
     }
 
     @Override
     public int createEpic(Epic epic) {
-        int id = super.createEpic(epic);
-        save();
-        return id;
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            int id = super.createEpic(epic);
+            persist(epic);
+            return id;
+        }
     }
 
     @Override
     public int createSubtask(Subtask subtask) {
-        int id = super.createSubtask(subtask);
-        save();
-        return id;
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            int id = super.createSubtask(subtask);
+            persist(subtask);
+            return id;
+        }
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.updateTask(task);
+            persist(task);
+        }
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.updateEpic(epic);
+            persist(epic);
+        }
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.updateSubtask(subtask);
+            persist(subtask);
+        }
     }
 
     @Override
     public void deleteTask(int id) {
-        super.deleteTask(id);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.deleteTask(id);
+            persistDelete(TaskType.TASK, id);
+        }
     }
 
     @Override
     public void deleteEpic(int id) {
-        super.deleteEpic(id);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.deleteEpic(id);
+            persistDelete(TaskType.EPIC, id);
+        }
     }
 
     @Override
     public void deleteSubtask(int id) {
-        super.deleteSubtask(id);
-        save();
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.deleteSubtask(id);
+            persistDelete(TaskType.SUBTASK, id);
+        }
+    }
+
+    // ⬇️ Пакетные операции сохраняются один раз на всю коллекцию
+    @Override
+    public int[] createAll(Collection<? extends Task> items) {
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            int[] ids = super.createAll(items);
+            persistAll(items);
+            return ids;
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<? extends Task> items) {
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            super.updateAll(items);
+            persistAll(items);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        checkNotDispatchThread();
+        synchronized (lock) {
+            checkOpen();
+            // Тип запоминаем до удаления: по нему журнал повторит удаление при загрузке
+            List<TaskType> types = new ArrayList<>();
+            List<Integer> deleted = new ArrayList<>();
+            for (int id : ids) {
+                for (TaskType type : TaskType.values()) {
+                    if (find(type, id) != null) {
+                        types.add(type);
+                        deleted.add(id);
+                    }
+                }
+            }
+            super.deleteAll(ids);
+            if (deleted.isEmpty()) {
+                return;
+            }
+            try {
+                if (journal != null) {
+                    for (int i = 0; i < deleted.size(); i++) {
+                        journal.delete(types.get(i), deleted.get(i));
+                    }
+                }
+                committed(deleted.size());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+    }
+
+    /**
+     * Записывает на диск все отложенные изменения.
+     * Под блокировкой изменений только забираются накопленные записи журнала или копируются
+     * списки сущностей; сброс журнала на устройство и запись снимка идут параллельно
+     * с новыми изменениями. Если запись не удалась, изменения остаются отложенными
+     * и попадут на диск при следующем сбросе.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            int ops = 0;
+            boolean written = false;
+            try {
+                if (journal != null) {
+                    FileChannel channel;
+                    synchronized (lock) {
+                        flushRequested = false;
+                        ops = pendingOps;
+                        if (ops == 0) {
+                            return;
+                        }
+                        pendingOps = 0;
+                        channel = journal.drain();
+                    }
+                    // Один сброс журнала на устройство на всю накопленную пачку
+                    if (channel != null) {
+                        forceJournal(channel);
+                    }
+                    written = true;
+                    return;
+                }
+                List<Task> tasks;
+                List<Epic> epics;
+                List<Subtask> subtasks;
+                int nextId;
+                synchronized (lock) {
+                    flushRequested = false;
+                    ops = pendingOps;
+                    if (ops == 0) {
+                        return;
+                    }
+                    pendingOps = 0;
+                    tasks = getAllTasks();
+                    epics = getAllEpics();
+                    subtasks = getAllSubtasks();
+                    nextId = getIdGenerator().peek();
+                }
+                writeSnapshot(tasks, epics, subtasks, nextId, 0);
+                written = true;
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при сохранении файла", e);
+            } finally {
+                if (!written && ops > 0) {
+                    synchronized (lock) {
+                        pendingOps += ops;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Сворачивает журнал в новый снимок.
+     * Под блокировкой изменений только копируются списки сущностей и переключается журнал,
+     * сам снимок пишется параллельно с новыми изменениями. Там же перестраивается текстовый
+     * индекс, если он был отключён из-за бюджета. В режиме SNAPSHOT ничего не делает.
+     */
+    public void compact() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<Task> tasks;
+            List<Epic> epics;
+            List<Subtask> subtasks;
+            int nextId;
+            long generation;
+            try {
+                synchronized (lock) {
+                    tasks = getAllTasks();
+                    epics = getAllEpics();
+                    subtasks = getAllSubtasks();
+                    nextId = getIdGenerator().peek();
+                    generation = journal.rotate();
+                    pendingOps = 0;
+                    rebuildTextIndex();
+                }
+                // Снимок помечен поколением: если сбой случится до удаления .journal.old,
+                // её записи не применятся к нему повторно
+                writeSnapshot(tasks, epics, subtasks, nextId, generation);
+                synchronized (lock) {
+                    coveredGeneration = generation;
+                }
+                journal.discardRotated();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при уплотнении журнала", e);
+            }
+        }
+    }
+
+    /**
+     * Останавливает фоновую работу, записывает отложенные изменения и закрывает журнал.
+     * Последующие изменения отклоняются с {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        if (background != null) {
+            background.shutdown();
+            try {
+                background.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        if (journal != null) {
+            // Сброс мог получить канал журнала и ещё держать его вне блокировки изменений
+            synchronized (flushLock) {
+                synchronized (lock) {
+                    try {
+                        journal.close();
+                    } catch (IOException e) {
+                        throw new ManagerSaveException("Ошибка при закрытии журнала", e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param listener получатель размера и времени записи каждого снимка; {@code null} — не сообщать
+     */
+    public void setSnapshotListener(SnapshotListener listener) {
+        snapshotListener = listener;
+    }
+
+    /**
+     * @return {@code true}, если снимок при загрузке оказался повреждён и данные взяты из предыдущего
+     */
+    public boolean isLoadedFromBackup() {
+        return loadedFromBackup;
+    }
+
+    /**
+     * @return способ хранения данных этим менеджером
+     */
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return формат снимка
+     */
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return режим сброса изменений на диск
+     */
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Включение идёт под блокировкой записи, поэтому первый вызов возможен из любого потока.
+     */
+    @Override
+    protected TaskSnapshot startSnapshots() {
+        synchronized (lock) {
+            return super.startSnapshots();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Диспетчер создаётся под блокировкой записи, поэтому первый вызов возможен из любого потока.
+     */
+    @Override
+    protected TaskEventDispatcher startEvents() {
+        synchronized (lock) {
+            return super.startEvents();
+        }
     }
 
     // ⬇️ Protected методы
 
     /**
-     * Сохраняет все задачи в CSV-файл.
-     * Формат: id,type,name,status,description,epic
+     * Сохраняет все задачи и водяной знак генератора ID в файл снимка.
+     * Формат CSV: id,type,name,status,description,epic,start,duration
      */
     protected void save() {
-        try (Writer writer = new FileWriter(file)) {
-            // Заголовок CSV
-            writer.write(CSV_HEADER);
+        try {
+            writeSnapshot(getAllTasks(), getAllEpics(), getAllSubtasks(), getIdGenerator().peek(), coveredGeneration);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении файла", e);
+        }
+    }
+
+    // ⬇️ Private методы
+
+    /**
+     * Перезаписывает файл пустым снимком нового менеджера. Вызывается из конструктора,
+     * поэтому не зовёт переопределяемый {@link #save()}.
+     */
+    private void saveEmpty() {
+        try {
+            writeSnapshot(List.of(), List.of(), List.of(), new IdGenerator().peek(), 0);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении файла", e);
+        }
+    }
+
+    /**
+     * Атомарно заменяет снимок: пишет временный файл, переносит прежний снимок
+     * в {@code .bak} и переименовывает временный файл поверх основного.
+     *
+     * @param generation последнее поколение журнала, учтённое снимком; 0 — без журнала
+     */
+    private void writeSnapshot(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                               int nextId, long generation) throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            Path target = file.toPath();
+            Path temp = Path.of(file.getPath() + TEMP_SUFFIX);
+            writeSnapshot(temp, tasks, epics, subtasks, nextId, generation);
+            long bytes = Files.size(temp);
+            if (Files.exists(target)) {
+                Path backup = Path.of(file.getPath() + BACKUP_SUFFIX);
+                Files.deleteIfExists(backup);
+                try {
+                    Files.createLink(backup, target);
+                } catch (UnsupportedOperationException | IOException e) {
+                    // Файловая система без жёстких ссылок
+                    Files.copy(target, backup);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory(target.toAbsolutePath().getParent());
+            SnapshotListener listener = snapshotListener;
+            if (listener != null) {
+                listener.snapshotWritten(bytes, System.nanoTime() - start);
+            }
+        }
+    }
 
-            // Сохраняем все сущности
-            for (Task task : getAllTasks()) {
-                writer.write(task.toCsvString() + "\n");
+    private void writeSnapshot(Path path, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                               int nextId, long generation) throws IOException {
+        try (TaskWriter writer = format.openWriter(path)) {
+            // Сохраняем все сущности: эпики раньше своих подзадач
+            for (Task task : tasks) {
+                writer.write(task);
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(epic.toCsvString() + "\n");
+            for (Epic epic : epics) {
+                writer.write(epic);
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(subtask.toCsvString() + "\n");
+            for (Subtask subtask : subtasks) {
+                writer.write(subtask);
             }
+            writer.writeNextId(nextId);
+            if (generation > 0) {
+                writer.writeJournalGeneration(generation);
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает на диск запись каталога, чтобы переименование пережило сбой питания.
+     * Там, где каталог нельзя открыть как файл, ничего не делает.
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении файла", e);
+            // Не поддерживается платформой — остаётся гарантия самого переименования
+        }
+    }
+
+    /**
+     * Читает снимок в менеджер. Если снимок повреждён или отсутствует,
+     * а предыдущий снимок сохранился, читает предыдущий — если с журналом он полон,
+     * см. {@link #checkBackupComplete}.
+     */
+    private void loadSnapshot(TaskJournal journal) throws IOException {
+        Path target = file.toPath();
+        Path backup = Path.of(file.getPath() + BACKUP_SUFFIX);
+        if (!Files.exists(target)) {
+            if (Files.exists(backup)) {
+                checkBackupComplete(journal, null);
+                readSnapshot(backup);
+                loadedFromBackup = true;
+            }
+            return;
+        }
+        try {
+            readSnapshot(target);
+        } catch (ManagerSaveException | IOException e) {
+            if (!Files.exists(backup)) {
+                throw e;
+            }
+            checkBackupComplete(journal, e);
+            clear();
+            try {
+                readSnapshot(backup);
+            } catch (ManagerSaveException | IOException fallbackError) {
+                e.addSuppressed(fallbackError);
+                throw e;
+            }
+            loadedFromBackup = true;
+        }
+    }
+
+    /**
+     * Проверяет, что предыдущий снимок вместе с журналом содержит все изменения. Записи журнала,
+     * свёрнутые уплотнением, есть только в последнем снимке, и откат к предыдущему молча потерял бы их.
+     * Откат безопасен, пока цел отложенный журнал {@code .journal.old} (уплотнение не завершилось)
+     * или если журнал не ведётся вовсе.
+     *
+     * @param cause ошибка чтения последнего снимка; {@code null}, если его нет
+     */
+    private void checkBackupComplete(TaskJournal journal, Exception cause) {
+        if (journal.hasRotated() || mode == PersistenceMode.SNAPSHOT && !journal.exists()) {
+            return;
+        }
+        throw new ManagerSaveException("Снимок " + file + " повреждён или отсутствует, а предыдущий снимок "
+                + "не содержит изменений, свёрнутых из журнала", cause);
+    }
+
+    private void readSnapshot(Path path) throws IOException {
+        // Читаем потоково и кладём сущности напрямую, без save() на каждую строку
+        try (TaskReader reader = format.openReader(path)) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                restore(task);
+            }
+            // Водяной знак не даёт повторно выдать ID удалённых сущностей
+            if (reader.nextId() > 0) {
+                getIdGenerator().advancePast(reader.nextId() - 1);
+            }
+            coveredGeneration = reader.journalGeneration();
+        }
+    }
+
+    /**
+     * Сохраняет созданную или изменённую сущность: в журнал либо полной перезаписью файла.
+     */
+    private void persist(Task task) {
+        try {
+            if (journal != null) {
+                journal.put(task);
+            }
+            committed(1);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал", e);
+        }
+    }
+
+    /**
+     * Сохраняет удаление сущности: в журнал либо полной перезаписью файла.
+     */
+    private void persistDelete(TaskType type, int id) {
+        try {
+            if (journal != null) {
+                journal.delete(type, id);
+            }
+            committed(1);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал", e);
+        }
+    }
+
+    /**
+     * Сохраняет пакет созданных или изменённых сущностей: записи журнала и один сброс
+     * либо одна перезапись файла на весь пакет.
+     */
+    private void persistAll(Collection<? extends Task> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        try {
+            if (journal != null) {
+                for (Task task : items) {
+                    journal.put(task);
+                }
+            }
+            committed(items.size());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал", e);
+        }
+    }
+
+    /**
+     * Учитывает изменения согласно режиму сброса. Вызывается под {@link #lock}.
+     *
+     * @param ops число изменений
+     */
+    private void committed(int ops) throws IOException {
+        schedule();
+        if (flushMode == FlushMode.SYNC) {
+            if (journal != null) {
+                syncJournal();
+            } else {
+                save();
+            }
+            return;
+        }
+        pendingOps += ops;
+        boolean due = flushMode == FlushMode.ASYNC || pendingOps >= groupCommitOps;
+        if (due && !flushRequested) {
+            flushRequested = true;
+            background.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Отклоняет изменение закрытого менеджера: его журнал закрыт, а фоновый поток остановлен.
+     * Вызывается под {@link #lock}.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Менеджер закрыт, изменение не будет сохранено: " + file);
+        }
+    }
+
+    /**
+     * Сбрасывает журнал на устройство и сообщает время сброса получателю. Вызывается под {@link #lock}.
+     */
+    private void syncJournal() throws IOException {
+        long start = System.nanoTime();
+        if (journal.sync()) {
+            journalSynced(start);
+        }
+    }
+
+    /**
+     * Сбрасывает на устройство канал журнала, полученный под {@link #lock}, и сообщает время сброса.
+     * Вызывается под {@link #flushLock} без {@link #lock}: канал закрывают и переключают только
+     * под {@link #flushLock}, а записи, дописанные во время сброса, останутся до следующего.
+     */
+    private void forceJournal(FileChannel channel) throws IOException {
+        long start = System.nanoTime();
+        channel.force(false);
+        journalSynced(start);
+    }
+
+    private void journalSynced(long start) {
+        SnapshotListener listener = snapshotListener;
+        if (listener != null) {
+            listener.journalSynced(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Применяет одну запись журнала к состоянию менеджера, минуя сохранение.
+     */
+    private void replay(String record) {
+        String[] fields = record.split(",", 2);
+        if (TaskJournal.PUT.equals(fields[0])) {
+            restore(Task.fromCsv(fields[1]));
+            return;
+        }
+        String[] target = fields[1].split(",");
+        int id = Integer.parseInt(target[1]);
+        switch (TaskType.valueOf(target[0])) {
+            case EPIC -> super.deleteEpic(id);
+            case SUBTASK -> super.deleteSubtask(id);
+            default -> super.deleteTask(id);
+        }
+    }
+
+    /**
+     * Планирует периодические уплотнение журнала и групповой сброс. Вызывается под {@link #lock}
+     * после загрузки или при первом изменении, а не из конструктора, чтобы фоновый поток
+     * не обратился к наследнику до конца его конструирования.
+     */
+    private void schedule() {
+        if (scheduled || background == null) {
+            return;
+        }
+        scheduled = true;
+        if (journal != null) {
+            background.scheduleWithFixedDelay(this::compactIfNeeded,
+                    COMPACTION_CHECK_MS, COMPACTION_CHECK_MS, TimeUnit.MILLISECONDS);
+        }
+        if (flushMode == FlushMode.GROUP_COMMIT) {
+            background.scheduleWithFixedDelay(this::flushQuietly,
+                    groupCommitMs, groupCommitMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // flush() вернул изменения в отложенные — запишем при следующем сбросе
+        }
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (journal.records() >= COMPACTION_THRESHOLD) {
+                compact();
+            }
+        } catch (ManagerSaveException e) {
+            // Журнал остаётся целым — попробуем при следующей проверке
         }
     }
 }
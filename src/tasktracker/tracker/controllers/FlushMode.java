@@ -0,0 +1,16 @@
+package tracker.controllers;
+
+/**
+ * Когда FileBackedTaskManager сбрасывает изменения на диск.
+ */
+public enum FlushMode {
+    /** Изменение записано в файл (журнал — и сброшен на устройство) до возврата из CRUD-метода. */
+    SYNC,
+    /**
+     * Изменения копятся и записываются одной операцией раз в заданный интервал
+     * или сразу после накопления заданного числа изменений.
+     */
+    GROUP_COMMIT,
+    /** Изменения записываются фоновым потоком как можно скорее, вызывающий поток не ждёт записи. */
+    ASYNC
+}
@@ -1,6 +1,10 @@
 package tracker.controllers;
 
 import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -28,4 +32,53 @@ public interface HistoryManager {
      * @return список задач в порядке просмотра
      */
     List<Task> getHistory();
+
+    /**
+     * Возвращает страницу истории от самых свежих просмотров к давним.
+     * Страница {@code (0, 20)} — двадцать последних просмотров.
+     * Реализация по умолчанию копирует всю историю; реализации переопределяют её
+     * так, чтобы стоимость зависела от {@code offset + limit}, а не от размера истории.
+     *
+     * @param offset сколько самых свежих просмотров пропустить
+     * @param limit  максимальный размер страницы
+     * @return просмотры от свежих к давним
+     */
+    default List<Task> getHistory(int offset, int limit) {
+        checkPage(offset, limit);
+        final List<Task> history = getHistory();
+        final int to = Math.max(0, history.size() - offset);
+        final int from = Math.max(0, to - limit);
+        final List<Task> page = new ArrayList<>(history.subList(from, to));
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * @return итератор по истории от самого свежего просмотра к самому давнему
+     */
+    default Iterator<Task> recentFirst() {
+        return getHistory(0, Integer.MAX_VALUE).iterator();
+    }
+
+    /**
+     * Возвращает неизменяемый снимок истории на момент вызова
+     * в порядке просмотра. Последующие изменения истории на снимок не влияют.
+     *
+     * @return снимок истории
+     */
+    default List<Task> snapshot() {
+        return List.copyOf(getHistory());
+    }
+
+    /**
+     * Проверяет параметры страницы истории.
+     *
+     * @param offset сколько самых свежих просмотров пропустить
+     * @param limit  максимальный размер страницы
+     */
+    static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректная страница истории: offset=" + offset + ", limit=" + limit);
+        }
+    }
 }
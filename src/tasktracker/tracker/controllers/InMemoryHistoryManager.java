@@ -1,20 +1,31 @@
 package tracker.controllers;
 
 import tracker.model.Task;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Реализация истории просмотров задач в памяти.
  * <p>
  * Поддерживает:
  * <ul>
- *     <li>Неограниченную историю</li>
+ *     <li>Неограниченную историю или историю заданной ёмкости с вытеснением самого старого просмотра за O(1)</li>
  *     <li>Удаление задач по ID</li>
  *     <li>Уникальность задач в истории (повторный просмотр перемещает задачу в конец)</li>
+ *     <li>Счётчик вытеснений</li>
+ *     <li>Чтение последних просмотров страницами и итератором с хвоста списка — O(offset + limit)</li>
+ *     <li>Неизменяемый снимок истории, который пересобирается только после изменений</li>
  * </ul>
+ * Изменения и постраничное чтение синхронизированы на самом менеджере;
+ * {@link #snapshot()} без изменений истории читается без блокировок.
  */
 public class InMemoryHistoryManager implements HistoryManager {
 
@@ -31,8 +42,17 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
+    /** Ёмкость, означающая историю без ограничения. */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
     /** Словарь для быстрого доступа к узлам по ID задачи. */
-    private final Map<Integer, Node> nodes = new HashMap<>();
+    private final IntMap<Node> nodes = new IntHashMap<>();
+
+    /** Максимальное число задач в истории. */
+    private final int capacity;
+
+    /** Сколько просмотров вытеснено из-за превышения ёмкости. */
+    private long evictions;
 
     /** Голова двусвязного списка. */
     private Node head;
@@ -40,17 +60,53 @@ public class InMemoryHistoryManager implements HistoryManager {
     /** Хвост двусвязного списка. */
     private Node tail;
 
+    /** Номер версии истории; растёт при каждом изменении списка. */
+    private volatile int version;
+
+    /** Последний собранный снимок. */
+    private volatile Snapshot published = new Snapshot(0, List.of());
+
+    /**
+     * Неизменяемый снимок истории и версия, с которой он собран.
+     */
+    private record Snapshot(int version, List<Task> tasks) {
+    }
+
+    /**
+     * Конструктор истории без ограничения размера.
+     */
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Конструктор истории ограниченного размера.
+     * При переполнении вытесняется самый давний просмотр.
+     *
+     * @param capacity максимальное число задач в истории
+     */
+    public InMemoryHistoryManager(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
     @Override
-    public void add(final Task task) {
+    public synchronized void add(final Task task) {
         if (task == null) {
             return;
         }
         remove(task.getId());
         linkLast(task);
+        if (nodes.size() > capacity) {
+            remove(head.task.getId());
+            evictions++;
+        }
     }
 
     @Override
-    public void remove(final int id) {
+    public synchronized void remove(final int id) {
         final Node node = nodes.remove(id);
         if (node != null) {
             removeNode(node);
@@ -58,8 +114,8 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public List<Task> getHistory() {
-        final List<Task> history = new ArrayList<>();
+    public synchronized List<Task> getHistory() {
+        final List<Task> history = new ArrayList<>(nodes.size());
         Node current = head;
         while (current != null) {
             history.add(current.task);
@@ -68,6 +124,104 @@ public class InMemoryHistoryManager implements HistoryManager {
         return history;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Идёт от хвоста списка и не трогает более давние просмотры: O(offset + limit).
+     */
+    @Override
+    public synchronized List<Task> getHistory(final int offset, final int limit) {
+        HistoryManager.checkPage(offset, limit);
+        final List<Task> page = new ArrayList<>(Math.min(limit, Math.max(0, nodes.size() - offset)));
+        Node current = tail;
+        for (int i = 0; i < offset && current != null; i++) {
+            current = current.prev;
+        }
+        while (current != null && page.size() < limit) {
+            page.add(current.task);
+            current = current.prev;
+        }
+        return page;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Итератор идёт по самому списку без копирования. Он не потокобезопасен
+     * и бросает ConcurrentModificationException, если история изменилась во время обхода.
+     */
+    @Override
+    public Iterator<Task> recentFirst() {
+        return new Iterator<>() {
+            private final int expectedVersion = version;
+            private Node next = tail;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (version != expectedVersion) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final Task task = next.task;
+                next = next.prev;
+                return task;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Пока история не менялась, возвращается один и тот же снимок без блокировок и копирования.
+     * После изменения первый вызов собирает новый снимок за O(n).
+     */
+    @Override
+    public List<Task> snapshot() {
+        final Snapshot current = published;
+        if (current.version() == version) {
+            return current.tasks();
+        }
+        synchronized (this) {
+            if (published.version() != version) {
+                final Task[] tasks = new Task[nodes.size()];
+                int i = 0;
+                for (Node node = head; node != null; node = node.next) {
+                    tasks[i++] = node.task;
+                }
+                published = new Snapshot(version, Collections.unmodifiableList(Arrays.asList(tasks)));
+            }
+            return published.tasks();
+        }
+    }
+
+    /**
+     * @return максимальное число задач в истории; {@link #UNBOUNDED}, если ограничения нет
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return текущее число задач в истории
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return сколько просмотров вытеснено из-за превышения ёмкости
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
     /**
      * Добавляет задачу в конец двусвязного списка.
      *
@@ -84,6 +238,7 @@ public class InMemoryHistoryManager implements HistoryManager {
             tail = newNode;
         }
         nodes.put(task.getId(), newNode);
+        version++;
     }
 
     /**
@@ -107,5 +262,6 @@ public class InMemoryHistoryManager implements HistoryManager {
         // Очистка ссылок для предотвращения утечек памяти
         node.prev = null;
         node.next = null;
+        version++;
     }
 }
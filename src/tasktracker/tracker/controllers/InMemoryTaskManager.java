@@ -2,66 +2,222 @@ package tracker.controllers;
 
 import tracker.model.Task;
 import tracker.model.Epic;
-import tracker.model.Subtask;
 import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.TaskType;
+
+import tracker.util.IdGenerator;
+import tracker.util.IntMap;
+import tracker.util.IntSet;
+import tracker.util.PersistentIntMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Реализация TaskManager в памяти с интеграцией истории просмотров.
  * История просмотров реализована через InMemoryHistoryManager.
+ * Сущности хранятся в словарях по примитивным ID, вид словаря задаёт {@link TaskStorage}.
+ * ID задач, эпиков и подзадач выдаются одним {@link IdGenerator} и не пересекаются.
+ * Индекс по статусам обновляется при каждом изменении, поэтому выборка
+ * {@link #getByStatus(Status, TaskType)} не просматривает все сущности.
+ * Полнотекстовый {@link TextIndex} так же обновляется при изменениях и обслуживает
+ * {@link #search(String, TaskType)}.
+ * Интервалы времени задач и подзадач хранятся в {@link IntervalIndex}: создание и обновление
+ * с пересечением по времени отклоняются с {@link TaskOverlapException} за O(log n),
+ * а {@link #getPrioritizedTasks()} отдаёт задачи по времени начала без сортировки.
+ * Время эпика выводится из его подзадач.
+ * После первого вызова {@link #snapshot()} менеджер после каждой операции публикует
+ * неизменяемый снимок {@link TaskSnapshot} для чтения без блокировок.
+ * Пока на {@link #events()} подписаны слушатели, каждая операция публикует
+ * события {@link TaskEvent} о созданных, изменённых и удалённых сущностях и о смене статуса эпиков.
  */
 public class InMemoryTaskManager implements TaskManager {
 
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
+    private final IntMap<Task> tasks;
+    private final IntMap<Epic> epics;
+    private final IntMap<Subtask> subtasks;
+
+    /** Индекс «тип и статус → ID» */
+    private final StatusIndex statusIndex = new StatusIndex();
+
+    /** Индекс интервалов времени задач и подзадач */
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+
+    /** Полнотекстовый индекс по названию и описанию */
+    private final TextIndex textIndex;
+
+    /** Эпики, затронутые текущей пакетной операцией; {@code null} вне пакета */
+    private IntSet deferredEpics;
+
+    /** Поиск сущностей без записи в историю; замыкает только карты, не сам менеджер */
+    private final TaskResolver lookup;
 
     /** Менеджер истории просмотров задач */
-    private final InMemoryHistoryManager historyManager = new InMemoryHistoryManager();
+    private final HistoryManager historyManager;
+
+    /** ID, под которым проверяется ещё не созданная сущность: генератор его не выдаёт */
+    private static final int NEW_ID = 0;
+
+    /** Общий генератор ID для задач, эпиков и подзадач; у шарда заменяется генератором с шагом */
+    private volatile IdGenerator idGenerator = new IdGenerator();
+
+    /** Последний опубликованный снимок; {@code null}, пока снимки не запрошены */
+    private volatile TaskSnapshot snapshot;
+
+    /** Копии сущностей следующей версии снимка — их меняет только пишущий поток */
+    private PersistentIntMap<Task> snapshotTasks;
+    private PersistentIntMap<Epic> snapshotEpics;
+    private PersistentIntMap<Subtask> snapshotSubtasks;
+
+    /** Есть ли изменения, не попавшие в опубликованный снимок */
+    private boolean snapshotDirty;
+
+    /** Диспетчер событий; {@code null}, пока события не запрошены */
+    private volatile TaskEventDispatcher events;
+
+    /** События текущей операции, ещё не переданные диспетчеру */
+    private final List<TaskEvent> pendingEvents = new ArrayList<>();
+
+    /** Номер последнего переданного диспетчеру события */
+    private long eventSequence;
+
+    /**
+     * Конструктор менеджера на хранилище с открытой адресацией.
+     */
+    public InMemoryTaskManager() {
+        this(TaskStorage.OPEN_ADDRESSING);
+    }
+
+    /**
+     * Конструктор менеджера с выбором хранилища.
+     *
+     * @param storage способ хранения сущностей по ID
+     */
+    public InMemoryTaskManager(final TaskStorage storage) {
+        this(storage, resolver -> new InMemoryHistoryManager());
+    }
+
+    /**
+     * Конструктор менеджера с собственной историей просмотров.
+     * Фабрика получает поиск сущностей этого менеджера без записи в историю —
+     * например, для {@link SessionHistoryManagers#current(TaskResolver)}.
+     *
+     * @param storage        способ хранения сущностей по ID
+     * @param historyFactory создаёт историю просмотров по поиску сущностей менеджера
+     */
+    public InMemoryTaskManager(final TaskStorage storage,
+                               final Function<TaskResolver, HistoryManager> historyFactory) {
+        this(storage, historyFactory, TextIndex.DEFAULT_BUDGET_BYTES);
+    }
 
-    private int nextTaskId = 1;
-    private int nextEpicId = 1;
-    private int nextSubtaskId = 1;
+    /**
+     * Конструктор менеджера с собственной историей и бюджетом памяти текстового индекса.
+     *
+     * @param storage         способ хранения сущностей по ID
+     * @param historyFactory  создаёт историю просмотров по поиску сущностей менеджера
+     * @param textIndexBudget бюджет памяти текстового индекса в байтах; 0 — искать перебором
+     */
+    public InMemoryTaskManager(final TaskStorage storage,
+                               final Function<TaskResolver, HistoryManager> historyFactory,
+                               final long textIndexBudget) {
+        textIndex = new TextIndex(textIndexBudget);
+        tasks = storage.newMap();
+        epics = storage.newMap();
+        subtasks = storage.newMap();
+        lookup = lookup(tasks, epics, subtasks);
+        historyManager = historyFactory.apply(lookup);
+    }
 
     /**
-     * Сбрасывает счетчики ID задач, эпиков и подзадач.
+     * Сбрасывает счетчик ID задач, эпиков и подзадач.
      */
     public void resetIdCounter() {
-        nextTaskId = 1;
-        nextEpicId = 1;
-        nextSubtaskId = 1;
+        idGenerator.reset();
     }
 
     @Override
     public int createTask(final Task task) {
-        task.setId(nextTaskId++);
-        tasks.put(task.getId(), task);
+        checkNotDispatchThread();
+        // Проверяем до выдачи ID: отклонённая задача не расходует ID и не меняется
+        checkOverlap(task, NEW_ID);
+        task.setId(idGenerator.next());
+        insert(task);
+        publishChanges();
         return task.getId();
     }
 
     @Override
     public int createEpic(final Epic epic) {
-        epic.setId(nextEpicId++);
-        epics.put(epic.getId(), epic);
+        checkNotDispatchThread();
+        epic.setId(idGenerator.next());
+        insert(epic);
+        publishChanges();
         return epic.getId();
     }
 
     @Override
     public int createSubtask(final Subtask subtask) {
-        subtask.setId(nextSubtaskId++);
-        subtasks.put(subtask.getId(), subtask);
+        checkNotDispatchThread();
+        checkOverlap(subtask, NEW_ID);
+        subtask.setId(idGenerator.next());
+        insert(subtask);
+        publishChanges();
+        return subtask.getId();
+    }
 
-        final Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            epic.addSubtaskId(subtask.getId());
-            updateEpicStatus(epic);
+    /**
+     * {@inheritDoc}
+     * <p>
+     * ID выдаются одним непрерывным блоком, индекс статусов эпиков обновляется
+     * один раз на каждый затронутый эпик. Элементы проверяются до изменений:
+     * если хоть один некорректен или пересекается с другими, пакет не применяется, элементам
+     * возвращаются прежние ID, а зарезервированные ID — генератору.
+     *
+     * @throws TaskOverlapException     если элемент пересекается по времени с задачей или подзадачей
+     * @throws IllegalArgumentException если у элемента отрицательная длительность
+     */
+    @Override
+    public int[] createAll(final Collection<? extends Task> items) {
+        checkNotDispatchThread();
+        final int[] ids = new int[items.size()];
+        final int[] previous = new int[ids.length];
+        final IdGenerator generator = idGenerator;
+        final int first = generator.reserve(ids.length);
+        final int stride = generator.getStride();
+        int i = 0;
+        for (final Task item : items) {
+            previous[i] = item.getId();
+            item.setId(first + i * stride);
+            ids[i++] = item.getId();
         }
-
-        return subtask.getId();
+        boolean checked = false;
+        try {
+            checkOverlaps(items);
+            checked = true;
+        } finally {
+            if (!checked) {
+                i = 0;
+                for (final Task item : items) {
+                    item.setId(previous[i++]);
+                }
+                generator.release(first, ids.length);
+            }
+        }
+        deferEpicIndexing();
+        try {
+            for (final Task item : items) {
+                insert(item);
+            }
+        } finally {
+            indexDeferredEpics();
+            publishChanges();
+        }
+        return ids;
     }
 
     @Override
@@ -93,112 +249,757 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return tasks.values();
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return epics.values();
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return subtasks.values();
+    }
+
+    @Override
+    public List<Task> getByStatus(final Status status, final TaskType type) {
+        final IntMap<? extends Task> source = storageOf(type);
+        final List<Task> result = new ArrayList<>();
+        statusIndex.ids(type, status).forEach(id -> result.add(source.get(id)));
+        return result;
+    }
+
+    /**
+     * Ищет сущности заданного типа по словам из названия и описания.
+     * Пока текстовый индекс укладывается в бюджет памяти, стоимость зависит
+     * от числа совпадений; иначе сущности этого типа перебираются.
+     *
+     * @param query слова через пробел; слово со {@code *} на конце ищется по префиксу
+     * @param type  тип сущностей
+     * @return сущности, содержащие все слова запроса, по возрастанию ID
+     */
+    public List<Task> search(final String query, final TaskType type) {
+        final IntMap<? extends Task> source = storageOf(type);
+        final List<Task> result = new ArrayList<>();
+        if (textIndex.isAvailable()) {
+            for (final int id : textIndex.find(type, query)) {
+                result.add(source.get(id));
+            }
+        } else {
+            final Predicate<Task> matcher = TextIndex.matcher(query);
+            source.forEachValue(task -> {
+                if (matcher.test(task)) {
+                    result.add(task);
+                }
+            });
+            result.sort(Comparator.comparingInt(Task::getId));
+        }
+        return result;
+    }
+
+    /**
+     * @return полнотекстовый индекс менеджера — для оценки памяти и доступности
+     */
+    public TextIndex getTextIndex() {
+        return textIndex;
+    }
+
+    /**
+     * Перестраивает текстовый индекс, отключённый из-за превышения бюджета: после удалений
+     * сущности могут снова в него уложиться. Если бюджета по-прежнему мало, индексация
+     * останавливается на первой сущности сверх него. Доступный индекс не трогается.
+     *
+     * @return {@code true}, если индекс доступен
+     */
+    public boolean rebuildTextIndex() {
+        if (textIndex.isAvailable() || textIndex.getBudgetBytes() == 0) {
+            return textIndex.isAvailable();
+        }
+        textIndex.clear();
+        tasks.forEachValue(textIndex::index);
+        epics.forEachValue(textIndex::index);
+        subtasks.forEachValue(textIndex::index);
+        return textIndex.isAvailable();
+    }
+
+    /**
+     * Возвращает последний опубликованный снимок без копирования и блокировок.
+     * <p>
+     * Первый вызов включает публикацию снимков и строит первый снимок по текущему
+     * состоянию за O(n); его нужно сделать из потока, который меняет менеджер,
+     * или до начала конкурентных чтений. Дальше каждая операция публикует новую
+     * версию, копируя только изменённые сущности, а {@code snapshot()} можно
+     * вызывать из любых потоков.
+     *
+     * @return неизменяемое состояние менеджера после последней завершённой операции
+     */
+    public TaskSnapshot snapshot() {
+        final TaskSnapshot current = snapshot;
+        return current != null ? current : startSnapshots();
+    }
+
+    /**
+     * Включает публикацию снимков и публикует первый снимок.
+     *
+     * @return первый снимок
+     */
+    protected TaskSnapshot startSnapshots() {
+        if (snapshot == null) {
+            snapshotTasks = PersistentIntMap.empty();
+            snapshotEpics = PersistentIntMap.empty();
+            snapshotSubtasks = PersistentIntMap.empty();
+            tasks.forEachValue(task -> snapshotTasks = snapshotTasks.put(task.getId(), new Task(task)));
+            epics.forEachValue(epic -> snapshotEpics = snapshotEpics.put(epic.getId(), new Epic(epic)));
+            subtasks.forEachValue(subtask ->
+                    snapshotSubtasks = snapshotSubtasks.put(subtask.getId(), new Subtask(subtask)));
+            snapshot = new TaskSnapshot(1, snapshotTasks, snapshotEpics, snapshotSubtasks);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Возвращает диспетчер событий об изменениях менеджера.
+     * <p>
+     * Первый вызов создаёт диспетчер с настройками по умолчанию. Пока на него подписан
+     * хотя бы один слушатель, каждая операция в конце передаёт ему свои события:
+     * создание, обновление и удаление сущностей (удаление эпика — и его подзадач)
+     * и смену статуса эпика после пересчёта по подзадачам. Без подписчиков события
+     * не создаются. Восстановление из файла и {@link #clear()} событий не создают.
+     *
+     * @return диспетчер событий менеджера
+     */
+    public TaskEventDispatcher events() {
+        final TaskEventDispatcher current = events;
+        return current != null ? current : startEvents();
+    }
+
+    /**
+     * Создаёт диспетчер событий, если его ещё нет.
+     *
+     * @return диспетчер событий
+     */
+    protected TaskEventDispatcher startEvents() {
+        if (events == null) {
+            events = new TaskEventDispatcher();
+        }
+        return events;
     }
 
     @Override
     public void updateTask(final Task task) {
-        tasks.put(task.getId(), task);
+        checkNotDispatchThread();
+        replace(task);
+        publishChanges();
     }
 
     @Override
     public void updateEpic(final Epic epic) {
-        epics.put(epic.getId(), epic);
-        updateEpicStatus(epic);
+        checkNotDispatchThread();
+        replace(epic);
+        publishChanges();
     }
 
     @Override
     public void updateSubtask(final Subtask subtask) {
-        subtasks.put(subtask.getId(), subtask);
-        final Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
+        checkNotDispatchThread();
+        replace(subtask);
+        publishChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Индекс статусов эпиков обновляется один раз на каждый затронутый эпик.
+     * Пересечения по времени проверяются до изменений, как при {@link #createAll(Collection)}.
+     *
+     * @throws TaskOverlapException если элемент пересекается по времени с задачей или подзадачей
+     */
+    @Override
+    public void updateAll(final Collection<? extends Task> items) {
+        checkNotDispatchThread();
+        checkOverlaps(items);
+        deferEpicIndexing();
+        try {
+            for (final Task item : items) {
+                replace(item);
+            }
+        } finally {
+            indexDeferredEpics();
+            publishChanges();
         }
     }
 
     @Override
     public void deleteTask(final int id) {
-        tasks.remove(id);
-        historyManager.remove(id);
+        checkNotDispatchThread();
+        removeTask(id);
+        publishChanges();
     }
 
     @Override
     public void deleteEpic(final int id) {
+        checkNotDispatchThread();
+        removeEpic(id);
+        publishChanges();
+    }
+
+    @Override
+    public void deleteSubtask(final int id) {
+        checkNotDispatchThread();
+        removeSubtask(id);
+        publishChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Индекс статусов эпиков обновляется один раз на каждый затронутый эпик.
+     */
+    @Override
+    public void deleteAll(final Collection<Integer> ids) {
+        checkNotDispatchThread();
+        deferEpicIndexing();
+        try {
+            for (final int id : ids) {
+                removeTask(id);
+                removeEpic(id);
+                removeSubtask(id);
+            }
+        } finally {
+            indexDeferredEpics();
+            publishChanges();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Задачи берутся из индекса интервалов уже упорядоченными, стоимость — O(размер результата).
+     */
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return intervalIndex.values();
+    }
+
+    /**
+     * Возвращает текущую историю просмотров задач.
+     *
+     * @return список задач в порядке просмотра
+     */
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    /**
+     * Возвращает страницу истории от самых свежих просмотров к давним.
+     *
+     * @param offset сколько самых свежих просмотров пропустить
+     * @param limit  максимальный размер страницы
+     * @return просмотры от свежих к давним
+     */
+    public List<Task> getHistory(final int offset, final int limit) {
+        return historyManager.getHistory(offset, limit);
+    }
+
+    /**
+     * @return общий генератор ID менеджера — чтобы сохранять и восстанавливать его водяной знак
+     */
+    protected IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Переводит менеджер на ID одного шарда из {@code count}: дальше выдаются только ID,
+     * для которых {@code (id - 1) % count == index}, и больше уже выданных.
+     *
+     * @param index номер шарда
+     * @param count число шардов
+     */
+    void partitionIds(final int index, final int count) {
+        final IdGenerator partitioned = new IdGenerator(index + 1, count);
+        partitioned.advancePast(idGenerator.peek() - 1);
+        idGenerator = partitioned;
+    }
+
+    /**
+     * Возвращает поиск сущностей этого менеджера без записи в историю просмотров —
+     * тот же, что получает фабрика истории.
+     *
+     * @return поиск по типу и ID
+     */
+    public TaskResolver resolver() {
+        return lookup;
+    }
+
+    /**
+     * Ищет сущность без записи в историю просмотров.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     * @return сущность или {@code null}
+     */
+    Task find(final TaskType type, final int id) {
+        return lookup.find(type, id);
+    }
+
+    /**
+     * Поиск по картам сущностей. Не ссылается на менеджер, поэтому его можно отдать
+     * фабрике истории из конструктора, пока менеджер ещё не построен.
+     */
+    private static TaskResolver lookup(final IntMap<Task> tasks, final IntMap<Epic> epics,
+                                       final IntMap<Subtask> subtasks) {
+        return (type, id) -> switch (type) {
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+            default -> tasks.get(id);
+        };
+    }
+
+    /**
+     * Удаляет все сущности, очищает индексы и историю и сбрасывает счётчик ID.
+     * Используется, когда загрузку из файла нужно начать заново.
+     */
+    protected void clear() {
+        for (final Task task : historyManager.getHistory()) {
+            historyManager.remove(task.getId());
+        }
+        tasks.clear();
+        epics.clear();
+        subtasks.clear();
+        statusIndex.clear();
+        intervalIndex.clear();
+        textIndex.clear();
+        idGenerator.reset();
+        if (snapshot != null) {
+            snapshotTasks = PersistentIntMap.empty();
+            snapshotEpics = PersistentIntMap.empty();
+            snapshotSubtasks = PersistentIntMap.empty();
+            snapshotDirty = true;
+            publishChanges();
+        }
+    }
+
+    /**
+     * Помещает в хранилище сущность с уже назначенным ID, не выдавая новый.
+     * Используется при восстановлении из файла: счётчик ID сдвигается за
+     * восстановленный, подзадача привязывается к своему эпику.
+     * Повторное восстановление сущности с тем же ID заменяет её.
+     *
+     * @param task задача, эпик или подзадача с заполненным ID
+     */
+    protected void restore(final Task task) {
+        final int id = task.getId();
+        idGenerator.advancePast(id);
+        if (task instanceof Epic epic) {
+            final Epic previous = epics.put(id, epic);
+            if (previous != null && previous != epic) {
+                previous.forEachSubtaskId(subId -> {
+                    final Subtask subtask = subtasks.get(subId);
+                    if (subtask != null) {
+                        epic.addSubtask(subtask);
+                    }
+                });
+            }
+            epic.recalculateStatus();
+            epic.recalculateTime(subtasks::get);
+            indexEpic(epic);
+            textIndex.index(epic);
+        } else if (task instanceof Subtask subtask) {
+            final Subtask previous = subtasks.put(id, subtask);
+            statusIndex.index(TaskType.SUBTASK, id, subtask.getStatus());
+            intervalIndex.index(subtask);
+            textIndex.index(subtask);
+            trackSnapshot(subtask);
+            final Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                final boolean member = epic.containsSubtask(id);
+                epic.addSubtask(subtask);
+                if (member) {
+                    retimeEpic(epic, previous, subtask);
+                } else {
+                    epic.addSubtaskTime(subtask);
+                }
+                indexEpic(epic);
+            }
+        } else {
+            tasks.put(id, task);
+            statusIndex.index(TaskType.TASK, id, task.getStatus());
+            intervalIndex.index(task);
+            textIndex.index(task);
+            trackSnapshot(task);
+        }
+        // Восстановление — не изменение: пересчёт статуса эпика здесь событий не даёт
+        pendingEvents.clear();
+        publishChanges();
+    }
+
+    private IntMap<? extends Task> storageOf(final TaskType type) {
+        return switch (type) {
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+            default -> tasks;
+        };
+    }
+
+    /**
+     * Кладёт в хранилище новую сущность с уже выданным ID и обновляет индексы.
+     * Пересечения по времени вызывающий проверяет заранее, до выдачи ID.
+     *
+     * @param task задача, эпик или подзадача
+     */
+    private void insert(final Task task) {
+        if (task instanceof Epic epic) {
+            epic.recalculateTime(subtasks::get);
+            epics.put(epic.getId(), epic);
+            emit(TaskEvent.Kind.CREATED, TaskType.EPIC, epic.getId(), epic, null);
+            // Новый эпик сразу попадает в индекс — и в пакете, чтобы смена статуса
+            // к концу пакета сравнивалась с его начальным статусом
+            statusIndex.index(TaskType.EPIC, epic.getId(), epic.getStatus());
+            indexEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            subtasks.put(subtask.getId(), subtask);
+            emit(TaskEvent.Kind.CREATED, TaskType.SUBTASK, subtask.getId(), subtask, null);
+            statusIndex.index(TaskType.SUBTASK, subtask.getId(), subtask.getStatus());
+            intervalIndex.index(subtask);
+            trackSnapshot(subtask);
+            final Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtask(subtask);
+                epic.addSubtaskTime(subtask);
+                indexEpic(epic);
+            }
+        } else {
+            tasks.put(task.getId(), task);
+            emit(TaskEvent.Kind.CREATED, TaskType.TASK, task.getId(), task, null);
+            statusIndex.index(TaskType.TASK, task.getId(), task.getStatus());
+            intervalIndex.index(task);
+            trackSnapshot(task);
+        }
+        textIndex.index(task);
+    }
+
+    /**
+     * Заменяет сущность в хранилище и обновляет индексы, статус и время её эпика.
+     *
+     * @param task задача, эпик или подзадача
+     * @throws TaskOverlapException если задача или подзадача пересекается по времени с другой
+     */
+    private void replace(final Task task) {
+        if (task instanceof Epic epic) {
+            epics.put(epic.getId(), epic);
+            epic.recalculateStatus();
+            epic.recalculateTime(subtasks::get);
+            emit(TaskEvent.Kind.UPDATED, TaskType.EPIC, epic.getId(), epic, null);
+            indexEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            checkOverlap(subtask, subtask.getId());
+            final Subtask previous = subtasks.put(subtask.getId(), subtask);
+            emit(TaskEvent.Kind.UPDATED, TaskType.SUBTASK, subtask.getId(), subtask, null);
+            statusIndex.index(TaskType.SUBTASK, subtask.getId(), subtask.getStatus());
+            intervalIndex.index(subtask);
+            trackSnapshot(subtask);
+            final Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.updateSubtaskStatus(subtask);
+                retimeEpic(epic, previous, subtask);
+                indexEpic(epic);
+            }
+        } else {
+            checkOverlap(task, task.getId());
+            tasks.put(task.getId(), task);
+            emit(TaskEvent.Kind.UPDATED, TaskType.TASK, task.getId(), task, null);
+            statusIndex.index(TaskType.TASK, task.getId(), task.getStatus());
+            intervalIndex.index(task);
+            trackSnapshot(task);
+        }
+        textIndex.index(task);
+    }
+
+    /**
+     * Удаляет задачу из хранилища, индексов и истории.
+     *
+     * @param id идентификатор; отсутствующий ID игнорируется
+     */
+    private void removeTask(final int id) {
+        if (tasks.remove(id) != null) {
+            emit(TaskEvent.Kind.DELETED, TaskType.TASK, id, null, null);
+            statusIndex.remove(TaskType.TASK, id);
+            intervalIndex.remove(id);
+            textIndex.remove(TaskType.TASK, id);
+            untrackSnapshot(TaskType.TASK, id);
+        }
+        historyManager.remove(id);
+    }
+
+    /**
+     * Удаляет эпик вместе с подзадачами из хранилища, индексов и истории.
+     *
+     * @param id идентификатор; отсутствующий ID игнорируется
+     */
+    private void removeEpic(final int id) {
         final Epic epic = epics.remove(id);
         if (epic != null) {
-            for (final int subId : epic.getSubtaskIds()) {
+            epic.forEachSubtaskId(subId -> {
                 subtasks.remove(subId);
+                emit(TaskEvent.Kind.DELETED, TaskType.SUBTASK, subId, null, null);
+                statusIndex.remove(TaskType.SUBTASK, subId);
+                intervalIndex.remove(subId);
+                textIndex.remove(TaskType.SUBTASK, subId);
+                untrackSnapshot(TaskType.SUBTASK, subId);
                 historyManager.remove(subId);
-            }
+            });
+            emit(TaskEvent.Kind.DELETED, TaskType.EPIC, id, null, null);
+            statusIndex.remove(TaskType.EPIC, id);
+            textIndex.remove(TaskType.EPIC, id);
+            untrackSnapshot(TaskType.EPIC, id);
             historyManager.remove(id);
         }
     }
 
-    @Override
-    public void deleteSubtask(final int id) {
+    /**
+     * Удаляет подзадачу из хранилища, индексов, истории и из её эпика.
+     *
+     * @param id идентификатор; отсутствующий ID игнорируется
+     */
+    private void removeSubtask(final int id) {
         final Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            emit(TaskEvent.Kind.DELETED, TaskType.SUBTASK, id, null, null);
+            statusIndex.remove(TaskType.SUBTASK, id);
+            intervalIndex.remove(id);
+            textIndex.remove(TaskType.SUBTASK, id);
+            untrackSnapshot(TaskType.SUBTASK, id);
             final Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                epic.removeSubtaskId(id);
-                updateEpicStatus(epic);
+                if (epic.containsSubtask(id)) {
+                    epic.removeSubtaskId(id);
+                    if (!epic.removeSubtaskTime(subtask)) {
+                        epic.recalculateTime(subtasks::get);
+                    }
+                }
+                indexEpic(epic);
             }
             historyManager.remove(id);
         }
     }
 
     /**
-     * Возвращает текущую историю просмотров задач.
+     * Проверяет, что интервал задачи или подзадачи не пересекается с уже запланированными.
      *
-     * @return список задач в порядке просмотра
+     * @param task задача или подзадача
+     * @param id   ID, под которым она хранится или будет храниться; {@link #NEW_ID} — для новой
+     * @throws TaskOverlapException     при пересечении
+     * @throws IllegalArgumentException если длительность отрицательна
      */
-    public List<Task> getHistory() {
-        return historyManager.getHistory();
+    private void checkOverlap(final Task task, final int id) {
+        if (task.getDuration() != null && task.getDuration().isNegative()) {
+            throw new IllegalArgumentException("Отрицательная длительность задачи " + id + ": "
+                    + task.getDuration());
+        }
+        final Task other = intervalIndex.findOverlap(task, id);
+        if (other != null) {
+            throw new TaskOverlapException(String.format(
+                    "Задача %d (%s — %s) пересекается по времени с задачей %d (%s — %s)",
+                    id, task.getStartTime(), task.getEndTime(),
+                    other.getId(), other.getStartTime(), other.getEndTime()));
+        }
+    }
+
+    /**
+     * Проверяет пакет до изменений так, как если бы элементы применялись по одному:
+     * интервал каждого элемента сразу переносится в индексе, чтобы следующие элементы
+     * сверялись и с ним. При пересечении индекс возвращается к хранимым сущностям.
+     *
+     * @param items задачи, эпики и подзадачи с заполненными ID
+     * @throws TaskOverlapException     при пересечении; хранилище и индексы не меняются
+     * @throws IllegalArgumentException если длительность отрицательна; хранилище и индексы не меняются
+     */
+    private void checkOverlaps(final Collection<? extends Task> items) {
+        final List<Task> moved = new ArrayList<>();
+        boolean checked = false;
+        try {
+            for (final Task item : items) {
+                if (!(item instanceof Epic)) {
+                    checkOverlap(item, item.getId());
+                    intervalIndex.index(item);
+                    moved.add(item);
+                }
+            }
+            checked = true;
+        } finally {
+            if (!checked) {
+                for (final Task item : moved) {
+                    final Task stored = item instanceof Subtask ? subtasks.get(item.getId()) : tasks.get(item.getId());
+                    if (stored != null) {
+                        intervalIndex.index(stored);
+                    } else {
+                        intervalIndex.remove(item.getId());
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Обновляет статус эпика в зависимости от статусов его подзадач.
+     * Переносит в эпике время подзадачи с прежнего состояния на новое за O(log k).
+     * Если прежнее состояние неизвестно — подзадачу изменили на месте или эпик её время
+     * не учитывал, — пересчитывает время эпика по всем подзадачам.
      *
-     * @param epic эпик для обновления
+     * @param epic     эпик подзадачи
+     * @param previous подзадача, которая хранилась до изменения, или {@code null}
+     * @param subtask  подзадача после изменения
      */
-    private void updateEpicStatus(final Epic epic) {
-        final List<Integer> subIds = epic.getSubtaskIds();
-        if (subIds.isEmpty()) {
-            epic.setStatus(Status.NEW);
+    private void retimeEpic(final Epic epic, final Subtask previous, final Subtask subtask) {
+        if (!epic.containsSubtask(subtask.getId())) {
             return;
         }
+        if (previous == null || previous == subtask || !epic.replaceSubtaskTime(previous, subtask)) {
+            epic.recalculateTime(subtasks::get);
+        }
+    }
+
+    /**
+     * Переносит эпик в индексе под его текущий, возможно пересчитанный, статус;
+     * если статус изменился, создаёт событие {@link TaskEvent.Kind#EPIC_STATUS_CHANGED}.
+     * Во время пакетной операции только запоминает эпик.
+     *
+     * @param epic эпик
+     */
+    private void indexEpic(final Epic epic) {
+        if (deferredEpics != null) {
+            deferredEpics.add(epic.getId());
+        } else {
+            final Status previous = statusIndex.index(TaskType.EPIC, epic.getId(), epic.getStatus());
+            if (previous != null && previous != epic.getStatus()) {
+                emit(TaskEvent.Kind.EPIC_STATUS_CHANGED, TaskType.EPIC, epic.getId(), epic, previous);
+            }
+            trackSnapshot(epic);
+        }
+    }
 
-        boolean allNew = true;
-        boolean allDone = true;
+    /**
+     * Кладёт копию сущности в следующую версию снимка, если снимки включены.
+     * Копия эпика делит с ним ID подзадач и не зависит от их числа.
+     *
+     * @param task задача, эпик или подзадача в текущем состоянии
+     */
+    private void trackSnapshot(final Task task) {
+        if (snapshot == null) {
+            return;
+        }
+        if (task instanceof Epic epic) {
+            snapshotEpics = snapshotEpics.put(epic.getId(), new Epic(epic));
+        } else if (task instanceof Subtask subtask) {
+            snapshotSubtasks = snapshotSubtasks.put(subtask.getId(), new Subtask(subtask));
+        } else {
+            snapshotTasks = snapshotTasks.put(task.getId(), new Task(task));
+        }
+        snapshotDirty = true;
+    }
 
-        for (final int id : subIds) {
-            final Subtask subtask = subtasks.get(id);
-            if (subtask != null) {
-                if (subtask.getStatus() != Status.DONE) {
-                    allDone = false;
-                }
-                if (subtask.getStatus() != Status.NEW) {
-                    allNew = false;
-                }
+    /**
+     * Убирает сущность из следующей версии снимка, если снимки включены.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     */
+    private void untrackSnapshot(final TaskType type, final int id) {
+        if (snapshot == null) {
+            return;
+        }
+        switch (type) {
+            case EPIC -> snapshotEpics = snapshotEpics.remove(id);
+            case SUBTASK -> snapshotSubtasks = snapshotSubtasks.remove(id);
+            default -> snapshotTasks = snapshotTasks.remove(id);
+        }
+        snapshotDirty = true;
+    }
+
+    /**
+     * Отклоняет изменение из потока диспетчера событий до того, как оно затронет состояние:
+     * слушатель не может ждать места в буфере, которое освобождает он сам.
+     * Наследники, берущие свои блокировки, вызывают проверку до них.
+     *
+     * @throws IllegalStateException если вызов пришёл из слушателя событий
+     */
+    protected void checkNotDispatchThread() {
+        final TaskEventDispatcher dispatcher = events;
+        if (dispatcher != null) {
+            dispatcher.checkNotDispatchThread();
+        }
+    }
+
+    /**
+     * Завершает операцию: публикует снимок и передаёт события диспетчеру.
+     */
+    private void publishChanges() {
+        publishSnapshot();
+        if (!pendingEvents.isEmpty()) {
+            eventSequence += pendingEvents.size();
+            try {
+                events.publishAll(pendingEvents);
+            } finally {
+                pendingEvents.clear();
             }
         }
+    }
 
-        if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else if (allNew) {
-            epic.setStatus(Status.NEW);
+    /**
+     * Создаёт событие текущей операции, если на события кто-то подписан.
+     * Сущность копируется сразу — слушатель читает её в другом потоке.
+     *
+     * @param kind           вид изменения
+     * @param type           тип сущности
+     * @param id             идентификатор сущности
+     * @param task           сущность после изменения или {@code null}
+     * @param previousStatus статус эпика до пересчёта или {@code null}
+     */
+    private void emit(final TaskEvent.Kind kind, final TaskType type, final int id, final Task task,
+                      final Status previousStatus) {
+        final TaskEventDispatcher dispatcher = events;
+        if (dispatcher == null || !dispatcher.hasListeners()) {
+            return;
+        }
+        final Task copy;
+        if (task instanceof Epic epic) {
+            copy = new Epic(epic);
+        } else if (task instanceof Subtask subtask) {
+            copy = new Subtask(subtask);
         } else {
-            epic.setStatus(Status.IN_PROGRESS);
+            copy = task == null ? null : new Task(task);
+        }
+        final long sequence = eventSequence + pendingEvents.size() + 1;
+        pendingEvents.add(new TaskEvent(sequence, kind, type, id, copy, previousStatus));
+    }
+
+    /**
+     * Публикует накопленные изменения новой версией снимка. Вызывается в конце
+     * каждой операции, чтобы читатели не видели промежуточных состояний.
+     */
+    private void publishSnapshot() {
+        if (snapshotDirty) {
+            snapshot = new TaskSnapshot(snapshot.getVersion() + 1, snapshotTasks, snapshotEpics, snapshotSubtasks);
+            snapshotDirty = false;
         }
     }
+
+    private void deferEpicIndexing() {
+        deferredEpics = new IntSet();
+    }
+
+    /**
+     * Переносит в индексе эпики, затронутые пакетной операцией, по разу на эпик.
+     */
+    private void indexDeferredEpics() {
+        final IntSet affected = deferredEpics;
+        deferredEpics = null;
+        affected.forEach(id -> {
+            final Epic epic = epics.get(id);
+            if (epic != null) {
+                indexEpic(epic);
+            }
+        });
+    }
 }
@@ -0,0 +1,105 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Индекс интервалов времени задач и подзадач, упорядоченный по началу.
+ * <p>
+ * Хранит интервал {@code [начало, окончание)} каждой сущности с заданным временем начала
+ * в дереве по началу, затем окончанию, затем ID. Менеджер не пускает в индекс пересекающиеся
+ * интервалы, а у непересекающихся интервалов, упорядоченных по началу, окончания тоже
+ * не убывают. Поэтому из интервалов, начинающихся раньше окончания кандидата, пересечься
+ * с ним может только последний: проверка стоит один спуск по дереву, O(log n).
+ * Обход дерева сразу даёт задачи по приоритету без сортировки. Не потокобезопасен.
+ */
+final class IntervalIndex {
+
+    private final TreeMap<Slot, Task> slots = new TreeMap<>();
+    private final IntMap<Slot> slotsById = new IntHashMap<>();
+
+    /**
+     * Записывает текущий интервал сущности, убирая прежний.
+     *
+     * @param task задача или подзадача; без времени начала только убирается из индекса
+     */
+    void index(final Task task) {
+        remove(task.getId());
+        if (task.getStartTime() != null) {
+            final Slot slot = new Slot(task.getStartTime(), task.getEndTime(), task.getId());
+            slots.put(slot, task);
+            slotsById.put(task.getId(), slot);
+        }
+    }
+
+    /**
+     * @param id идентификатор сущности; отсутствующий ID игнорируется
+     */
+    void remove(final int id) {
+        final Slot slot = slotsById.remove(id);
+        if (slot != null) {
+            slots.remove(slot);
+        }
+    }
+
+    /**
+     * Ищет в индексе интервал, пересекающийся с интервалом кандидата.
+     * Собственный интервал кандидата, если он уже в индексе, не учитывается.
+     *
+     * @param candidate задача или подзадача с новым временем
+     * @return пересекающаяся сущность или {@code null}; без времени начала — всегда {@code null}
+     */
+    Task findOverlap(final Task candidate) {
+        return findOverlap(candidate, candidate.getId());
+    }
+
+    /**
+     * Ищет в индексе интервал, пересекающийся с интервалом кандидата, не учитывая интервал с ID {@code ownId}.
+     *
+     * @param candidate задача или подзадача с новым временем
+     * @param ownId     ID кандидата в индексе; для ещё не созданной сущности — ID, которого нет в индексе
+     * @return пересекающаяся сущность или {@code null}; без времени начала — всегда {@code null}
+     */
+    Task findOverlap(final Task candidate, final int ownId) {
+        final LocalDateTime start = candidate.getStartTime();
+        if (start == null) {
+            return null;
+        }
+        final Slot bound = new Slot(candidate.getEndTime(), LocalDateTime.MIN, Integer.MIN_VALUE);
+        Map.Entry<Slot, Task> last = slots.lowerEntry(bound);
+        if (last != null && last.getKey().id() == ownId) {
+            last = slots.lowerEntry(last.getKey());
+        }
+        return last != null && last.getKey().end().isAfter(start) ? last.getValue() : null;
+    }
+
+    /**
+     * @return сущности со временем начала по возрастанию начала, окончания и ID
+     */
+    List<Task> values() {
+        return new ArrayList<>(slots.values());
+    }
+
+    void clear() {
+        slots.clear();
+        slotsById.clear();
+    }
+
+    private record Slot(LocalDateTime start, LocalDateTime end, int id) implements Comparable<Slot> {
+        @Override
+        public int compareTo(final Slot other) {
+            int result = start.compareTo(other.start);
+            if (result == 0) {
+                result = end.compareTo(other.end);
+            }
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+}
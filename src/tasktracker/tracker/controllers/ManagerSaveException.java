@@ -5,6 +5,10 @@ package tracker.controllers;
  * Наследуется от RuntimeException, чтобы не заставлять обрабатывать через try-catch.
  */
 public class ManagerSaveException extends RuntimeException {
+    public ManagerSaveException(String message) {
+        super(message);
+    }
+
     public ManagerSaveException(String message, Throwable cause) {
         super(message, cause);
     }
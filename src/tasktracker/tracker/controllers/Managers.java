@@ -7,7 +7,15 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
@@ -0,0 +1,750 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+import tracker.util.IdGenerator;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+import tracker.util.IntSet;
+import tracker.util.TinyLfuCache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Менеджер поверх отображаемого в память хранилища {@link MappedTaskStore} — для быстрого старта.
+ * <p>
+ * Открытие не читает сущности: {@link #getTaskById(int)} и остальные выборки по ID
+ * находят запись в индексе хранилища и декодируют её по требованию. Изменения
+ * не трогают файл хранилища, а копятся в слое поверх него: изменённые и созданные сущности
+ * хранятся объектами, удалённые — отметками. Эпик, которого коснулось изменение
+ * подзадачи, переносится в слой целиком, поэтому его статус и список подзадач
+ * остаются согласованными. {@link #writeTo(File)} сохраняет итоговое состояние
+ * в новый файл хранилища. Менеджер, открытый через {@link #openSnapshot(File)}, вдобавок
+ * дописывает каждое изменение в журнал снимка, как FileBackedTaskManager в режиме JOURNAL.
+ * <p>
+ * Декодированные сущности держатся в кэше {@link TinyLfuCache} ограниченного размера,
+ * поэтому занятая память зависит от размера кэша, а не от числа сущностей в файле.
+ * Промах стоит двоичного поиска и декодирования одной записи; эпику для статуса
+ * нужны только ID и статусы подзадач, их названия не декодируются.
+ * {@code getAll*} и {@link #getByStatus(Status, TaskType)} декодируют все записи
+ * своего типа мимо кэша. Класс не потокобезопасен.
+ * <p>
+ * Время эпика выводится из подзадач так же, как у InMemoryTaskManager; пересечения задач
+ * по времени не проверяются, {@link #getPrioritizedTasks()} сортирует задачи при каждом вызове.
+ */
+public class MappedTaskManager implements TaskManager, Closeable {
+
+    /** Размер кэша сущностей по умолчанию. */
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    /** Суффикс файла хранилища, который {@link #openSnapshot(File)} ведёт рядом со снимком. */
+    public static final String STORE_SUFFIX = ".tsm";
+
+    private static final int TYPE_BITS = 2;
+
+    private final MappedTaskStore store;
+
+    /** Декодированные из хранилища сущности по ключу {@code id << 2 | тип} */
+    private final TinyLfuCache<Task> cache;
+
+    /** Созданные и изменённые сущности */
+    private final IntMap<Task> tasks = new IntHashMap<>();
+    private final IntMap<Epic> epics = new IntHashMap<>();
+    private final IntMap<Subtask> subtasks = new IntHashMap<>();
+
+    /** ID удалённых сущностей, которые остаются в хранилище */
+    private final IntSet deletedTasks = new IntSet();
+    private final IntSet deletedEpics = new IntSet();
+    private final IntSet deletedSubtasks = new IntSet();
+
+    private final HistoryManager historyManager = new InMemoryHistoryManager();
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    /** Журнал снимка; {@code null} у менеджера поверх файла хранилища и пока журнал применяется. */
+    private TaskJournal journal;
+
+    private MappedTaskManager(final MappedTaskStore store, final int cacheSize) {
+        this.store = store;
+        this.cache = new TinyLfuCache<>(cacheSize);
+        idGenerator.advancePast(store.nextId() - 1);
+    }
+
+    /**
+     * Открывает файл хранилища с кэшем размера {@link #DEFAULT_CACHE_SIZE}.
+     * Время открытия не зависит от числа сущностей.
+     *
+     * @param file файл, записанный {@link #write(File, TaskManager)} или {@link #writeTo(File)}
+     * @return менеджер поверх файла
+     */
+    public static MappedTaskManager open(final File file) {
+        return open(file, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Открывает файл хранилища.
+     *
+     * @param file      файл, записанный {@link #write(File, TaskManager)} или {@link #writeTo(File)}
+     * @param cacheSize наибольшее число декодированных сущностей в памяти; 0 — без кэша
+     * @return менеджер поверх файла
+     */
+    public static MappedTaskManager open(final File file, final int cacheSize) {
+        try {
+            return new MappedTaskManager(MappedTaskStore.open(file.toPath()), cacheSize);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при открытии хранилища " + file, e);
+        }
+    }
+
+    /**
+     * Открывает снимок FileBackedTaskManager с ленивой загрузкой сущностей
+     * и кэшем размера {@link #DEFAULT_CACHE_SIZE}.
+     *
+     * @param snapshot снимок CSV или {@code .bin}
+     * @return менеджер поверх хранилища снимка
+     * @see #openSnapshot(File, int)
+     */
+    public static MappedTaskManager openSnapshot(final File snapshot) {
+        return openSnapshot(snapshot, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Открывает снимок FileBackedTaskManager с ленивой загрузкой сущностей.
+     * <p>
+     * Снимок читается только последовательно, поэтому рядом с ним ведётся хранилище
+     * {@code <снимок>.tsm} с индексом ID; оно пересобирается, если длина или контрольная
+     * сумма снимка не совпадают с теми, из которых оно построено. Если снимок повреждён
+     * или отсутствует, хранилище строится из {@code <снимок>.bak} — при тех же условиях,
+     * что и у FileBackedTaskManager. Записи журнала {@code <снимок>.journal}, ещё не учтённые
+     * снимком, применяются к слою изменений, а новые изменения дописываются в журнал
+     * и сбрасываются на устройство; снимок свернёт их при следующем уплотнении.
+     * Одновременно с FileBackedTaskManager на том же снимке открывать нельзя.
+     *
+     * @param snapshot  снимок CSV или {@code .bin}
+     * @param cacheSize наибольшее число декодированных сущностей в памяти; 0 — без кэша
+     * @return менеджер поверх хранилища снимка
+     */
+    public static MappedTaskManager openSnapshot(final File snapshot, final int cacheSize) {
+        final TaskJournal journal = new TaskJournal(snapshot);
+        final MappedTaskManager manager = new MappedTaskManager(openStore(snapshot, journal), cacheSize);
+        try {
+            for (final String record : journal.read(manager.store.journalGeneration())) {
+                manager.replay(record);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении журнала " + snapshot, e);
+        }
+        manager.journal = journal;
+        return manager;
+    }
+
+    /**
+     * Хранилище снимка, а если снимок повреждён или отсутствует — предыдущего снимка.
+     * Откат к предыдущему снимку безопасен, только пока журнал не ведётся или уплотнение
+     * не завершилось: иначе записи, свёрнутые в последний снимок, потерялись бы.
+     */
+    private static MappedTaskStore openStore(final File snapshot, final TaskJournal journal) {
+        final SnapshotFormat format = SnapshotFormat.forFile(snapshot);
+        final File storeFile = new File(snapshot.getPath() + STORE_SUFFIX);
+        try {
+            return openStore(snapshot, format, storeFile);
+        } catch (ManagerSaveException e) {
+            final File backup = new File(snapshot.getPath() + FileBackedTaskManager.BACKUP_SUFFIX);
+            if (!backup.exists()) {
+                throw e;
+            }
+            if (journal.exists() && !journal.hasRotated()) {
+                throw new ManagerSaveException("Снимок " + snapshot + " повреждён или отсутствует, а предыдущий "
+                        + "снимок не содержит изменений, свёрнутых из журнала", e);
+            }
+            try {
+                return openStore(backup, format, storeFile);
+            } catch (ManagerSaveException fallbackError) {
+                e.addSuppressed(fallbackError);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Открывает хранилище, построенное из этого снимка, или пересобирает его.
+     */
+    private static MappedTaskStore openStore(final File snapshot, final SnapshotFormat format, final File storeFile) {
+        try {
+            if (!MappedTaskStore.isBuiltFrom(storeFile.toPath(), source(snapshot.toPath(), format))) {
+                convert(snapshot, format, storeFile);
+            }
+            return MappedTaskStore.open(storeFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при открытии снимка " + snapshot, e);
+        }
+    }
+
+    private static MappedTaskStore.Source source(final Path snapshot, final SnapshotFormat format)
+            throws IOException {
+        return new MappedTaskStore.Source(Files.size(snapshot), format.checksum(snapshot), 0);
+    }
+
+    /**
+     * Записывает все сущности менеджера в файл хранилища.
+     * Для InMemoryTaskManager сохраняется и водяной знак генератора ID.
+     * Сущности обходятся дважды: сначала для индекса, затем для записей.
+     *
+     * @param file   файл хранилища; перезаписывается атомарно
+     * @param source менеджер-источник
+     */
+    public static void write(final File file, final TaskManager source) {
+        int nextId = 1;
+        if (source instanceof InMemoryTaskManager manager) {
+            nextId = manager.getIdGenerator().peek();
+        } else if (source instanceof MappedTaskManager manager) {
+            nextId = manager.idGenerator.peek();
+        }
+        try (MappedTaskStore.Writer writer = new MappedTaskStore.Writer(file.toPath())) {
+            forEachEntity(source, writer::count);
+            writer.layout();
+            forEachEntity(source, task -> {
+                try {
+                    writer.write(task);
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Ошибка при записи хранилища " + file, e);
+                }
+            });
+            writer.commit(nextId, MappedTaskStore.Source.NONE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи хранилища " + file, e);
+        }
+    }
+
+    /**
+     * Переписывает снимок FileBackedTaskManager в файл хранилища, не создавая менеджер.
+     * Формат снимка определяется по расширению. Снимок читается дважды — для индекса
+     * и для записей, — поэтому сущности не накапливаются в памяти.
+     *
+     * @param snapshot снимок CSV или {@code .bin}
+     * @param file     файл хранилища; перезаписывается атомарно
+     */
+    public static void convert(final File snapshot, final File file) {
+        convert(snapshot, SnapshotFormat.forFile(snapshot), file);
+    }
+
+    private static void convert(final File snapshot, final SnapshotFormat format, final File file) {
+        final Path path = snapshot.toPath();
+        try (MappedTaskStore.Writer writer = new MappedTaskStore.Writer(file.toPath())) {
+            // Снимок, заменённый во время чтения, не совпадёт с отпечатком, и хранилище пересоберут
+            final MappedTaskStore.Source source = source(path, format);
+            try (TaskReader reader = format.openReader(path)) {
+                Task task;
+                while ((task = reader.next()) != null) {
+                    writer.count(task);
+                }
+            }
+            writer.layout();
+            try (TaskReader reader = format.openReader(path)) {
+                Task task;
+                while ((task = reader.next()) != null) {
+                    writer.write(task);
+                }
+                writer.commit(reader.nextId(),
+                        new MappedTaskStore.Source(source.length(), source.checksum(), reader.journalGeneration()));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при конвертации снимка " + snapshot, e);
+        }
+    }
+
+    /**
+     * Обходит сущности менеджера; у MappedTaskManager — не собирая их в списки.
+     */
+    private static void forEachEntity(final TaskManager source, final Consumer<? super Task> action) {
+        if (source instanceof MappedTaskManager manager) {
+            for (final TaskType type : TaskType.values()) {
+                manager.forEach(type, action);
+            }
+        } else {
+            source.getAllTasks().forEach(action);
+            source.getAllEpics().forEach(action);
+            source.getAllSubtasks().forEach(action);
+        }
+    }
+
+    /**
+     * Сохраняет хранилище вместе с изменениями в новый файл.
+     * Открытый менеджер продолжает работать со старым отображением.
+     *
+     * @param file файл хранилища; не должен совпадать с открытым
+     */
+    public void writeTo(final File file) {
+        write(file, this);
+    }
+
+    /**
+     * Закрывает журнал снимка. Изменения уже на устройстве: журнал сбрасывается после каждого.
+     */
+    @Override
+    public void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при закрытии журнала", e);
+            }
+        }
+    }
+
+    /**
+     * @return счётчики попаданий, промахов и вытеснений кэша сущностей
+     */
+    public TinyLfuCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return число декодированных сущностей в кэше
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return число сущностей в слое изменений, включая отметки об удалении
+     */
+    public int getOverlaySize() {
+        return tasks.size() + epics.size() + subtasks.size()
+               + deletedTasks.size() + deletedEpics.size() + deletedSubtasks.size();
+    }
+
+    @Override
+    public int createTask(final Task task) {
+        task.setId(idGenerator.next());
+        tasks.put(task.getId(), task);
+        cache.remove(key(TaskType.TASK, task.getId()));
+        journalPut(task);
+        return task.getId();
+    }
+
+    @Override
+    public int createEpic(final Epic epic) {
+        epic.setId(idGenerator.next());
+        retime(epic);
+        epics.put(epic.getId(), epic);
+        cache.remove(key(TaskType.EPIC, epic.getId()));
+        journalPut(epic);
+        return epic.getId();
+    }
+
+    @Override
+    public int createSubtask(final Subtask subtask) {
+        subtask.setId(idGenerator.next());
+        subtasks.put(subtask.getId(), subtask);
+        cache.remove(key(TaskType.SUBTASK, subtask.getId()));
+        final Epic epic = materializeEpic(subtask.getEpicId());
+        if (epic != null) {
+            epic.addSubtask(subtask);
+            epic.addSubtaskTime(subtask);
+        }
+        journalPut(subtask);
+        return subtask.getId();
+    }
+
+    @Override
+    public Task getTaskById(final int id) {
+        final Task task = resolveTask(id);
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(final int id) {
+        final Epic epic = resolveEpic(id);
+        if (epic != null) {
+            historyManager.add(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(final int id) {
+        final Subtask subtask = resolveSubtask(id);
+        if (subtask != null) {
+            historyManager.add(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        final List<Task> result = new ArrayList<>();
+        collect(TaskType.TASK, result);
+        return result;
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        final List<Epic> result = new ArrayList<>();
+        collect(TaskType.EPIC, result);
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        final List<Subtask> result = new ArrayList<>();
+        collect(TaskType.SUBTASK, result);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Вторичного индекса нет: декодируются все сущности этого типа.
+     */
+    @Override
+    public List<Task> getByStatus(final Status status, final TaskType type) {
+        final List<Task> all = new ArrayList<>();
+        collect(type, all);
+        final List<Task> result = new ArrayList<>();
+        for (final Task task : all) {
+            if (task.getStatus() == status) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void updateTask(final Task task) {
+        tasks.put(task.getId(), task);
+        cache.remove(key(TaskType.TASK, task.getId()));
+        journalPut(task);
+    }
+
+    @Override
+    public void updateEpic(final Epic epic) {
+        epics.put(epic.getId(), epic);
+        cache.remove(key(TaskType.EPIC, epic.getId()));
+        epic.recalculateStatus();
+        retime(epic);
+        journalPut(epic);
+    }
+
+    @Override
+    public void updateSubtask(final Subtask subtask) {
+        // Эпик и прежняя подзадача читаются до замены: время эпика учитывает прежнее состояние
+        final Epic epic = materializeEpic(subtask.getEpicId());
+        final Subtask previous = child(subtask.getEpicId(), subtask.getId());
+        subtasks.put(subtask.getId(), subtask);
+        cache.remove(key(TaskType.SUBTASK, subtask.getId()));
+        if (epic != null) {
+            epic.updateSubtaskStatus(subtask);
+            retime(epic, previous, subtask);
+        }
+        journalPut(subtask);
+    }
+
+    @Override
+    public void deleteTask(final int id) {
+        final boolean existed = tasks.remove(id) != null;
+        if (markDeleted(deletedTasks, TaskType.TASK, id) || existed) {
+            journalDelete(TaskType.TASK, id);
+        }
+        historyManager.remove(id);
+    }
+
+    @Override
+    public void deleteEpic(final int id) {
+        final Epic epic = resolveEpic(id);
+        if (epic != null) {
+            epic.forEachSubtaskId(subId -> {
+                subtasks.remove(subId);
+                markDeleted(deletedSubtasks, TaskType.SUBTASK, subId);
+                historyManager.remove(subId);
+            });
+            epics.remove(id);
+            markDeleted(deletedEpics, TaskType.EPIC, id);
+            historyManager.remove(id);
+            journalDelete(TaskType.EPIC, id);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(final int id) {
+        final Subtask subtask = resolveSubtask(id);
+        if (subtask != null) {
+            subtasks.remove(id);
+            markDeleted(deletedSubtasks, TaskType.SUBTASK, id);
+            final Epic epic = materializeEpic(subtask.getEpicId());
+            if (epic != null && epic.containsSubtask(id)) {
+                epic.removeSubtaskId(id);
+                if (!epic.removeSubtaskTime(subtask)) {
+                    retime(epic);
+                }
+            }
+            historyManager.remove(id);
+            journalDelete(TaskType.SUBTASK, id);
+        }
+    }
+
+    /**
+     * Возвращает текущую историю просмотров задач.
+     *
+     * @return список задач в порядке просмотра
+     */
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    private Task resolveTask(final int id) {
+        final Task task = tasks.get(id);
+        if (task != null || deletedTasks.contains(id)) {
+            return task;
+        }
+        return load(TaskType.TASK, id);
+    }
+
+    private Subtask resolveSubtask(final int id) {
+        final Subtask subtask = subtasks.get(id);
+        if (subtask != null || deletedSubtasks.contains(id)) {
+            return subtask;
+        }
+        return (Subtask) load(TaskType.SUBTASK, id);
+    }
+
+    /**
+     * Эпик из слоя изменений или из хранилища — вместе с подзадачами с учётом слоя.
+     */
+    private Epic resolveEpic(final int id) {
+        final Epic epic = epics.get(id);
+        if (epic != null || deletedEpics.contains(id)) {
+            return epic;
+        }
+        return (Epic) load(TaskType.EPIC, id);
+    }
+
+    /**
+     * Сущность из кэша или декодированная из хранилища.
+     */
+    private Task load(final TaskType type, final int id) {
+        final int key = key(type, id);
+        Task task = cache.get(key);
+        if (task == null) {
+            final int record = store.find(type, id);
+            if (record < 0) {
+                return null;
+            }
+            task = type == TaskType.EPIC ? decodeEpic(record) : store.decode(record);
+            cache.put(key, task);
+        }
+        return task;
+    }
+
+    /**
+     * Декодирует эпик с подзадачами с учётом слоя изменений. Для подзадач из хранилища
+     * берутся только ID, статус и время — названия эпику не нужны.
+     */
+    private Epic decodeEpic(final int record) {
+        final Epic epic = (Epic) store.decode(record);
+        store.forEachChild(record, subId -> {
+            final Subtask subtask = child(epic.getId(), subId);
+            if (subtask != null) {
+                epic.addSubtask(subtask);
+                epic.addSubtaskTime(subtask);
+            }
+        });
+        epic.recalculateStatus();
+        return epic;
+    }
+
+    /**
+     * Подзадача эпика из слоя изменений или заготовка из хранилища с ID, статусом и временем.
+     *
+     * @return подзадача или {@code null}, если она удалена или её нет
+     */
+    private Subtask child(final int epicId, final int subId) {
+        Subtask subtask = subtasks.get(subId);
+        if (subtask == null && !deletedSubtasks.contains(subId)) {
+            final int subRecord = store.find(TaskType.SUBTASK, subId);
+            if (subRecord >= 0) {
+                subtask = new Subtask(null, null, epicId);
+                subtask.setId(subId);
+                subtask.setStatus(store.status(subRecord));
+                subtask.setStartTime(store.startTime(subRecord));
+                subtask.setDuration(store.duration(subRecord));
+            }
+        }
+        return subtask;
+    }
+
+    /**
+     * Пересчитывает время эпика по подзадачам с учётом слоя изменений.
+     */
+    private void retime(final Epic epic) {
+        epic.recalculateTime(subId -> child(epic.getId(), subId));
+    }
+
+    /**
+     * Переносит в эпике время подзадачи с прежнего состояния на новое;
+     * пересчитывает по всем подзадачам, только если прежнее состояние неизвестно.
+     */
+    private void retime(final Epic epic, final Subtask previous, final Subtask subtask) {
+        if (!epic.containsSubtask(subtask.getId())) {
+            return;
+        }
+        if (previous == null || previous == subtask || !epic.replaceSubtaskTime(previous, subtask)) {
+            retime(epic);
+        }
+    }
+
+    /**
+     * Переносит эпик в слой изменений, чтобы менять его список подзадач и статус.
+     *
+     * @param id идентификатор эпика
+     * @return эпик из слоя или {@code null}, если эпика нет
+     */
+    private Epic materializeEpic(final int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            epic = resolveEpic(id);
+            if (epic != null) {
+                epics.put(id, epic);
+                cache.remove(key(TaskType.EPIC, id));
+            }
+        }
+        return epic;
+    }
+
+    /**
+     * @return {@code true}, если сущность есть в хранилище и отметка поставлена впервые
+     */
+    private boolean markDeleted(final IntSet deleted, final TaskType type, final int id) {
+        cache.remove(key(type, id));
+        return store.find(type, id) >= 0 && deleted.add(id);
+    }
+
+    /**
+     * Дописывает сущность в журнал снимка и сбрасывает его, если менеджер открыт через openSnapshot.
+     */
+    private void journalPut(final Task task) {
+        if (journal != null) {
+            try {
+                journal.put(task);
+                journal.sync();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+    }
+
+    /**
+     * Дописывает удаление в журнал снимка и сбрасывает его, если менеджер открыт через openSnapshot.
+     */
+    private void journalDelete(final TaskType type, final int id) {
+        if (journal != null) {
+            try {
+                journal.delete(type, id);
+                journal.sync();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+    }
+
+    /**
+     * Применяет запись журнала FileBackedTaskManager к слою изменений.
+     */
+    private void replay(final String record) {
+        final String[] fields = record.split(",", 2);
+        if (TaskJournal.PUT.equals(fields[0])) {
+            restore(Task.fromCsv(fields[1]));
+            return;
+        }
+        final String[] target = fields[1].split(",");
+        final int id = Integer.parseInt(target[1]);
+        switch (TaskType.valueOf(target[0])) {
+            case EPIC -> deleteEpic(id);
+            case SUBTASK -> deleteSubtask(id);
+            default -> deleteTask(id);
+        }
+    }
+
+    /**
+     * Кладёт в слой изменений сущность с уже назначенным ID, как InMemoryTaskManager.restore:
+     * эпик сохраняет подзадачи прежней версии, подзадача привязывается к эпику.
+     */
+    private void restore(final Task task) {
+        final int id = task.getId();
+        idGenerator.advancePast(id);
+        if (task instanceof Epic epic) {
+            final Epic previous = resolveEpic(id);
+            if (previous != null && previous != epic) {
+                previous.forEachSubtaskId(subId -> {
+                    final Subtask subtask = resolveSubtask(subId);
+                    if (subtask != null) {
+                        epic.addSubtask(subtask);
+                    }
+                });
+            }
+            updateEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            final Epic epic = materializeEpic(subtask.getEpicId());
+            final Subtask previous = child(subtask.getEpicId(), id);
+            subtasks.put(id, subtask);
+            cache.remove(key(TaskType.SUBTASK, id));
+            if (epic != null) {
+                final boolean member = epic.containsSubtask(id);
+                epic.addSubtask(subtask);
+                if (member) {
+                    retime(epic, previous, subtask);
+                } else {
+                    epic.addSubtaskTime(subtask);
+                }
+            }
+        } else {
+            updateTask(task);
+        }
+    }
+
+    private static int key(final TaskType type, final int id) {
+        return id << TYPE_BITS | type.ordinal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> void collect(final TaskType type, final List<? super T> result) {
+        forEach(type, task -> result.add((T) task));
+    }
+
+    /**
+     * Обходит сущности типа: сначала из хранилища, кроме изменённых и удалённых, затем из слоя.
+     */
+    private void forEach(final TaskType type, final Consumer<? super Task> action) {
+        final IntMap<? extends Task> overlay = switch (type) {
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+            default -> tasks;
+        };
+        final IntSet deleted = switch (type) {
+            case EPIC -> deletedEpics;
+            case SUBTASK -> deletedSubtasks;
+            default -> deletedTasks;
+        };
+        for (int record = 0; record < store.size(); record++) {
+            final int id = store.id(record);
+            if (store.type(record) != type || overlay.get(id) != null || deleted.contains(id)) {
+                continue;
+            }
+            action.accept(type == TaskType.EPIC ? decodeEpic(record) : store.decode(record));
+        }
+        overlay.forEachValue(action);
+    }
+}
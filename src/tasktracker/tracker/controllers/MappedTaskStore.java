@@ -0,0 +1,490 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Отображаемое в память хранилище сущностей только для чтения.
+ * <p>
+ * Формат (версия {@link #VERSION}, числа — 4 байта, старшие вперёд):
+ * <pre>
+ * заголовок:  'T' 'T' 'S' 'M' версия число_записей следующий_ID число_подзадач_эпиков длина_кучи
+ *             длина_снимка(8) сумма_снимка 0 поколение_журнала(8)
+ * индекс:     ID записей по возрастанию (число_записей × 4 байта)
+ * записи:     по {@link #RECORD_SIZE} байт, в порядке индекса:
+ *             id тип(1) статус(1) 0(2) id_эпика|число_подзадач начало_подзадач
+ *             смещение_названия длина_названия смещение_описания длина_описания
+ *             начало_секунды(8) начало_наносекунды длительность_наносекунды длительность_секунды(8)
+ * подзадачи:  ID подзадач эпиков по возрастанию, у эпика — начало и число в его записи
+ * куча строк: UTF-8 байты названий и описаний; длина -1 означает {@code null}
+ * </pre>
+ * Начало хранится секундами эпохи в UTC, {@link Long#MIN_VALUE} в секундах означает {@code null}
+ * у начала и у длительности. У эпиков время не хранится — оно выводится из подзадач.
+ * Длина и контрольная сумма снимка, из которого построено хранилище, позволяют понять,
+ * что снимок с тех пор не менялся (см. {@link Source}); у хранилища не из снимка длина -1.
+ * Открытие только отображает файл и читает заголовок, поэтому не зависит от размера данных.
+ * Запись ищется двоичным поиском по плотному индексу ID, поля декодируются
+ * по требованию абсолютными чтениями из отображения — их можно вести из нескольких потоков.
+ * Одинаковые ID сущностей разных типов (из старых снимков) допустимы и различаются по типу.
+ * <p>
+ * Одно отображение {@link MappedByteBuffer} ограничивает файл двумя гигабайтами.
+ */
+final class MappedTaskStore {
+
+    static final byte[] MAGIC = {'T', 'T', 'S', 'M'};
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 48;
+    static final int RECORD_SIZE = 56;
+
+    /** Секунды начала или длительности, означающие {@code null}. */
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int nextId;
+    private final long journalGeneration;
+    private final int recordsOffset;
+    private final int childrenOffset;
+    private final int heapOffset;
+
+    private MappedTaskStore(final MappedByteBuffer buffer, final int count, final int nextId,
+                            final int childCount, final int heapLength, final long journalGeneration) {
+        this.buffer = buffer;
+        this.count = count;
+        this.nextId = nextId;
+        this.journalGeneration = journalGeneration;
+        this.recordsOffset = HEADER_SIZE + 4 * count;
+        this.childrenOffset = recordsOffset + RECORD_SIZE * count;
+        this.heapOffset = childrenOffset + 4 * childCount;
+        if ((long) heapOffset + heapLength > buffer.capacity()) {
+            throw new ManagerSaveException("Файл хранилища обрезан: ожидалось "
+                    + ((long) heapOffset + heapLength) + " байт, есть " + buffer.capacity());
+        }
+    }
+
+    /**
+     * Отображает файл в память и проверяет заголовок.
+     *
+     * @param path файл хранилища
+     * @return хранилище поверх отображения
+     */
+    static MappedTaskStore open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Файл хранилища больше 2 ГБ: " + path);
+            }
+            if (size < HEADER_SIZE) {
+                throw new ManagerSaveException("Файл хранилища обрезан: " + path);
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (buffer.get(i) != MAGIC[i]) {
+                    throw new ManagerSaveException("Неизвестный формат хранилища: " + path);
+                }
+            }
+            final int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия хранилища " + version + ": " + path);
+            }
+            return new MappedTaskStore(buffer, buffer.getInt(8), buffer.getInt(12),
+                    buffer.getInt(16), buffer.getInt(20), buffer.getLong(40));
+        }
+    }
+
+    /**
+     * @param path   файл хранилища
+     * @param source снимок: его длина и контрольная сумма
+     * @return {@code true}, если файл читается, имеет текущую версию и построен из снимка
+     *         с той же длиной и контрольной суммой
+     */
+    static boolean isBuiltFrom(final Path path, final Source source) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            final byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                return false;
+            }
+            in.skipNBytes(16);
+            return in.readLong() == source.length() && in.readInt() == source.checksum();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return число записей
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return водяной знак генератора ID на момент записи
+     */
+    int nextId() {
+        return nextId;
+    }
+
+    /**
+     * @return поколение журнала, учтённое снимком, из которого построено хранилище; 0 — нет
+     */
+    long journalGeneration() {
+        return journalGeneration;
+    }
+
+    /**
+     * Ищет запись двоичным поиском по индексу ID.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     * @return номер записи или -1
+     */
+    int find(final TaskType type, final int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (idAt(mid) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int record = low; record < count && idAt(record) == id; record++) {
+            if (type(record) == type) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    int id(final int record) {
+        return idAt(record);
+    }
+
+    TaskType type(final int record) {
+        return TYPES[buffer.get(recordsOffset + record * RECORD_SIZE + 4)];
+    }
+
+    Status status(final int record) {
+        return STATUSES[buffer.get(recordsOffset + record * RECORD_SIZE + 5)];
+    }
+
+    /**
+     * Перебирает ID подзадач эпика в том виде, в каком они были записаны.
+     *
+     * @param record номер записи эпика
+     * @param action действие для каждого ID
+     */
+    void forEachChild(final int record, final IntConsumer action) {
+        final int base = recordsOffset + record * RECORD_SIZE;
+        final int size = buffer.getInt(base + 8);
+        final int start = childrenOffset + 4 * buffer.getInt(base + 12);
+        for (int i = 0; i < size; i++) {
+            action.accept(buffer.getInt(start + 4 * i));
+        }
+    }
+
+    /**
+     * Декодирует запись в новый объект. Эпик возвращается без подзадач —
+     * их добавляет вызывающий, чтобы учесть изменения поверх хранилища.
+     *
+     * @param record номер записи
+     * @return задача, эпик или подзадача
+     */
+    Task decode(final int record) {
+        final int base = recordsOffset + record * RECORD_SIZE;
+        final String name = string(base + 16);
+        final String description = string(base + 24);
+        final Task task = switch (type(record)) {
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, buffer.getInt(base + 8));
+            default -> new Task(name, description);
+        };
+        task.setId(idAt(record));
+        task.setStatus(status(record));
+        if (!(task instanceof Epic)) {
+            task.setStartTime(startTime(record));
+            task.setDuration(duration(record));
+        }
+        return task;
+    }
+
+    /**
+     * @param record номер записи
+     * @return время начала задачи или подзадачи; {@code null}, если не задано
+     */
+    LocalDateTime startTime(final int record) {
+        final int base = recordsOffset + record * RECORD_SIZE;
+        final long seconds = buffer.getLong(base + 32);
+        return seconds == NO_TIME ? null
+                : LocalDateTime.ofEpochSecond(seconds, buffer.getInt(base + 40), ZoneOffset.UTC);
+    }
+
+    /**
+     * @param record номер записи
+     * @return длительность задачи или подзадачи; {@code null}, если не задана
+     */
+    Duration duration(final int record) {
+        final int base = recordsOffset + record * RECORD_SIZE;
+        final long seconds = buffer.getLong(base + 48);
+        return seconds == NO_TIME ? null : Duration.ofSeconds(seconds, buffer.getInt(base + 44));
+    }
+
+    private int idAt(final int record) {
+        return buffer.getInt(HEADER_SIZE + 4 * record);
+    }
+
+    private String string(final int position) {
+        final int length = buffer.getInt(position + 4);
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(heapOffset + buffer.getInt(position), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Потоковая запись хранилища в два прохода по источнику, не держа сущности в памяти.
+     * <p>
+     * Первый проход ({@link #count(Task)}) запоминает только ключи «ID, тип» и пары
+     * «эпик, подзадача» — по 8 байт на сущность; {@link #layout()} сортирует их и размечает
+     * файл. Второй проход ({@link #write(Task)}) кладёт каждую запись на её место в отображении
+     * файла, а строки дописывает в кучу в порядке прихода. {@link #commit(int, Source)} пишет
+     * заголовок, сбрасывает файл на устройство и атомарно переименовывает его поверх целевого.
+     * Оба прохода должны перечислить одни и те же сущности. Подзадачи привязываются к эпикам
+     * по {@link Subtask#getEpicId()}.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path temp;
+
+        /** Ключи {@code id << 8 | тип} в порядке индекса после {@link #layout()}. */
+        private long[] keys = new long[1024];
+        private int count;
+
+        /** Пары {@code id_эпика << 32 | id_подзадачи}, по возрастанию после {@link #layout()}. */
+        private long[] children = new long[1024];
+        private int childCount;
+
+        private int maxId;
+        private int written;
+
+        private FileChannel channel;
+        /** Заголовок, индекс, записи и подзадачи — всё, кроме кучи строк. */
+        private MappedByteBuffer head;
+        private OutputStream heap;
+        private int recordsOffset;
+        private int childrenOffset;
+        private long heapOffset;
+        private long heapLength;
+        private boolean committed;
+
+        /**
+         * @param path файл хранилища; перезаписывается при {@link #commit(int, Source)}
+         */
+        Writer(final Path path) {
+            this.path = path;
+            this.temp = Path.of(path + FileBackedTaskManager.TEMP_SUFFIX);
+        }
+
+        /**
+         * Первый проход: учитывает сущность в индексе.
+         *
+         * @param task задача, эпик или подзадача с заполненным ID
+         */
+        void count(final Task task) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = key(task);
+            maxId = Math.max(maxId, task.getId());
+            if (task instanceof Subtask subtask) {
+                if (childCount == children.length) {
+                    children = Arrays.copyOf(children, childCount * 2);
+                }
+                children[childCount++] = (long) subtask.getEpicId() << 32 | (subtask.getId() & 0xFFFFFFFFL);
+            }
+        }
+
+        /**
+         * Размечает файл после первого прохода и записывает индекс ID и подзадачи эпиков.
+         */
+        void layout() throws IOException {
+            Arrays.sort(keys, 0, count);
+            Arrays.sort(children, 0, childCount);
+            recordsOffset = HEADER_SIZE + 4 * count;
+            childrenOffset = recordsOffset + RECORD_SIZE * count;
+            heapOffset = (long) HEADER_SIZE + 4L * count + (long) RECORD_SIZE * count + 4L * childCount;
+            if (heapOffset > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Хранилище не помещается в 2 ГБ: " + path);
+            }
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            head = channel.map(FileChannel.MapMode.READ_WRITE, 0, heapOffset);
+            for (int i = 0; i < count; i++) {
+                head.putInt(HEADER_SIZE + 4 * i, (int) (keys[i] >> 8));
+            }
+            for (int i = 0; i < childCount; i++) {
+                head.putInt(childrenOffset + 4 * i, (int) children[i]);
+            }
+            channel.position(heapOffset);
+            heap = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        }
+
+        /**
+         * Второй проход: записывает сущность на её место.
+         *
+         * @param task задача, эпик или подзадача, учтённая в первом проходе
+         */
+        void write(final Task task) throws IOException {
+            final int record = Arrays.binarySearch(keys, 0, count, key(task));
+            if (record < 0) {
+                throw new ManagerSaveException("Сущность " + TaskType.of(task) + " " + task.getId()
+                        + " не встречалась в первом проходе: " + path);
+            }
+            final int base = recordsOffset + record * RECORD_SIZE;
+            head.putInt(base, task.getId());
+            head.put(base + 4, (byte) TaskType.of(task).ordinal());
+            head.put(base + 5, (byte) task.getStatus().ordinal());
+            head.putShort(base + 6, (short) 0);
+            if (task instanceof Subtask subtask) {
+                head.putInt(base + 8, subtask.getEpicId());
+                head.putInt(base + 12, 0);
+            } else if (task instanceof Epic) {
+                final int first = lowerBound((long) task.getId() << 32);
+                head.putInt(base + 8, lowerBound((long) (task.getId() + 1) << 32) - first);
+                head.putInt(base + 12, first);
+            } else {
+                head.putInt(base + 8, 0);
+                head.putInt(base + 12, 0);
+            }
+            putString(base + 16, task.getName());
+            putString(base + 24, task.getDescription());
+            final LocalDateTime start = task instanceof Epic ? null : task.getStartTime();
+            final Duration duration = task instanceof Epic ? null : task.getDuration();
+            head.putLong(base + 32, start == null ? NO_TIME : start.toEpochSecond(ZoneOffset.UTC));
+            head.putInt(base + 40, start == null ? 0 : start.getNano());
+            head.putInt(base + 44, duration == null ? 0 : duration.getNano());
+            head.putLong(base + 48, duration == null ? NO_TIME : duration.getSeconds());
+            written++;
+        }
+
+        /**
+         * Дописывает заголовок и заменяет файл хранилища.
+         *
+         * @param nextId водяной знак генератора ID; не меньше наибольшего ID + 1
+         * @param source снимок, из которого построено хранилище, или {@link Source#NONE}
+         */
+        void commit(final int nextId, final Source source) throws IOException {
+            if (written != count) {
+                throw new ManagerSaveException("Второй проход записал " + written + " сущностей из " + count
+                        + ": " + path);
+            }
+            heap.flush();
+            head.put(0, MAGIC);
+            head.putInt(4, VERSION);
+            head.putInt(8, count);
+            head.putInt(12, Math.max(nextId, maxId + 1));
+            head.putInt(16, childCount);
+            head.putInt(20, (int) heapLength);
+            head.putLong(24, source.length());
+            head.putInt(32, source.checksum());
+            head.putInt(36, 0);
+            head.putLong(40, source.journalGeneration());
+            head.force();
+            channel.force(true);
+            channel.close();
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+        }
+
+        /**
+         * Закрывает файл; незавершённый временный файл удаляется.
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+            if (!committed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private int lowerBound(final long key) {
+            final int found = Arrays.binarySearch(children, 0, childCount, key);
+            int index = found < 0 ? -found - 1 : found;
+            while (index > 0 && children[index - 1] >= key) {
+                index--;
+            }
+            return index;
+        }
+
+        private void putString(final int position, final String value) throws IOException {
+            if (value == null) {
+                head.putInt(position, 0);
+                head.putInt(position + 4, -1);
+                return;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (heapOffset + heapLength + bytes.length > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Хранилище не помещается в 2 ГБ: " + path);
+            }
+            head.putInt(position, (int) heapLength);
+            head.putInt(position + 4, bytes.length);
+            heap.write(bytes);
+            heapLength += bytes.length;
+        }
+
+        private static long key(final Task task) {
+            return (long) task.getId() << 8 | TaskType.of(task).ordinal();
+        }
+    }
+
+    /**
+     * Снимок, из которого построено хранилище: длина файла, контрольная сумма из трейлера
+     * и поколение журнала, учтённое снимком. Снимок, переписанный после построения
+     * хранилища, отличается суммой, даже если время изменения файла не сдвинулось.
+     *
+     * @param length            длина снимка в байтах; -1 — хранилище записано не из снимка
+     * @param checksum          контрольная сумма снимка, см. {@link SnapshotFormat}
+     * @param journalGeneration поколение журнала, учтённое снимком; 0 — нет
+     */
+    record Source(long length, int checksum, long journalGeneration) {
+        static final Source NONE = new Source(-1, 0, 0);
+    }
+}
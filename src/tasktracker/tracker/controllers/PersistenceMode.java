@@ -0,0 +1,11 @@
+package tracker.controllers;
+
+/**
+ * Способ хранения данных FileBackedTaskManager на диске.
+ */
+public enum PersistenceMode {
+    /** Каждое изменение полностью перезаписывает файл. */
+    SNAPSHOT,
+    /** Изменения дописываются в журнал, который периодически сворачивается в снимок. */
+    JOURNAL
+}
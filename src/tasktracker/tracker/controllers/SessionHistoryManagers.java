@@ -0,0 +1,519 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Фабрика историй просмотров для отдельных сессий (пользователей).
+ * <p>
+ * История каждой сессии — буфер из примитивных ключей ({@code id << 2 | TaskType.ordinal()}),
+ * а не связный список узлов со ссылками на задачи. Буфер — один массив {@code int[]}:
+ * просмотры в порядке добавления на {@code 2 * capacity} ячеек и хеш-таблица
+ * «ключ → ячейка» с открытой адресацией. Повторный просмотр и удаление не сдвигают буфер,
+ * а оставляют пустую ячейку, вытеснение пропускает пустые ячейки с начала; когда буфер
+ * кончается, живые просмотры сдвигаются к началу. Поэтому добавление и удаление стоят
+ * амортизированно O(1) при любой ёмкости. На сессию приходится небольшой объект состояния
+ * и от 16 до 24 байт на единицу ёмкости; буферы завершённых сессий переиспользуются.
+ * <p>
+ * Семантика {@link HistoryManager#getHistory()} сохраняется в пределах сессии: повторный
+ * просмотр переносит задачу в конец, при переполнении вытесняется самый давний просмотр.
+ * Задачи превращаются в объекты только при чтении истории через {@link TaskResolver};
+ * удалённые к этому моменту задачи пропускаются и вычищаются из буфера.
+ * <p>
+ * Сессии без обращений дольше {@code idleTimeout} удаляются. Все методы потокобезопасны:
+ * операции с историей блокируют только свою сессию, общий монитор фабрики берут лишь
+ * очистка истёкших сессий и пул буферов.
+ */
+public class SessionHistoryManagers {
+
+    private static final TaskType[] TYPES = TaskType.values();
+
+    /** Пустая ячейка буфера: ключей с отрицательным ID не бывает. */
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final int tableSize;
+    private final long idleTimeoutMs;
+    private final LongSupplier clock;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** Буферы завершённых сессий для повторного использования; под своим монитором. */
+    private final ArrayDeque<int[]> freeBuffers = new ArrayDeque<>();
+
+    private volatile long lastSweep;
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Сессия, привязанная к текущему потоку, для {@link #current(TaskResolver)}. */
+    private final ThreadLocal<String> boundSession = new ThreadLocal<>();
+
+    /**
+     * @param capacity    ёмкость истории одной сессии
+     * @param idleTimeout время без обращений, после которого сессия удаляется
+     */
+    public SessionHistoryManagers(int capacity, Duration idleTimeout) {
+        this(capacity, idleTimeout, System::currentTimeMillis);
+    }
+
+    SessionHistoryManagers(int capacity, Duration idleTimeout, LongSupplier clock) {
+        if (capacity <= 0 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть от 1 до 2^28: " + capacity);
+        }
+        this.capacity = capacity;
+        // Степень двойки не меньше 2 * capacity: таблица заполнена не больше чем наполовину
+        this.tableSize = Integer.highestOneBit(2 * capacity - 1) << 1;
+        this.idleTimeoutMs = idleTimeout.toMillis();
+        this.clock = clock;
+        this.lastSweep = clock.getAsLong();
+    }
+
+    /**
+     * Возвращает историю конкретной сессии. Сессия создаётся при первом изменении.
+     *
+     * @param sessionId идентификатор сессии
+     * @param resolver  поиск задач для {@link HistoryManager#getHistory()}
+     * @return история сессии
+     */
+    public HistoryManager forSession(String sessionId, TaskResolver resolver) {
+        return new SessionView(resolver) {
+            @Override
+            String sessionId() {
+                return sessionId;
+            }
+        };
+    }
+
+    /**
+     * Возвращает историю, которая работает с сессией, привязанной к текущему потоку
+     * через {@link #bind(String)}. Без привязанной сессии просмотры не запоминаются,
+     * а история пуста. Удобно передать в {@link InMemoryTaskManager}.
+     *
+     * @param resolver поиск задач для {@link HistoryManager#getHistory()}
+     * @return история текущей сессии
+     */
+    public HistoryManager current(TaskResolver resolver) {
+        return new SessionView(resolver) {
+            @Override
+            String sessionId() {
+                return boundSession.get();
+            }
+        };
+    }
+
+    /**
+     * Привязывает сессию к текущему потоку до закрытия возвращённого объекта.
+     *
+     * @param sessionId идентификатор сессии
+     * @return привязка; при закрытии восстанавливается прежняя
+     */
+    public Binding bind(String sessionId) {
+        String previous = boundSession.get();
+        boundSession.set(sessionId);
+        return () -> {
+            if (previous == null) {
+                boundSession.remove();
+            } else {
+                boundSession.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Удаляет сессии, к которым не обращались дольше idleTimeout.
+     * Вызывается и сама, не чаще раза в половину idleTimeout.
+     *
+     * @return число удалённых сессий
+     */
+    public synchronized int expireIdle() {
+        long now = clock.getAsLong();
+        lastSweep = now;
+        int removed = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (session.closed || now - session.lastAccess <= idleTimeoutMs) {
+                    continue;
+                }
+                session.closed = true;
+            }
+            sessions.remove(entry.getKey(), session);
+            release(session.buffer);
+            removed++;
+        }
+        expired.add(removed);
+        return removed;
+    }
+
+    /**
+     * Завершает сессию и освобождает её буфер.
+     *
+     * @param sessionId идентификатор сессии
+     */
+    public void close(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            synchronized (session) {
+                session.closed = true;
+            }
+            release(session.buffer);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return сколько сессий удалено по таймауту
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * @return сколько просмотров вытеснено из-за ёмкости во всех сессиях
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return ёмкость истории одной сессии
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Привязка сессии к потоку, см. {@link #bind(String)}.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // ⬇️ Операции над буфером сессии; каждая под монитором своей сессии
+
+    private void add(String sessionId, Task task) {
+        int key = key(TaskType.of(task), task.getId());
+        while (true) {
+            Session session = session(sessionId, true);
+            synchronized (session) {
+                if (session.closed) {
+                    continue; // сессия истекла между поиском и блокировкой — берём новую
+                }
+                session.lastAccess = clock.getAsLong();
+                if (!session.remove(key) && session.size == capacity) {
+                    session.evictOldest();
+                    evictions.increment();
+                }
+                session.append(key);
+                return;
+            }
+        }
+    }
+
+    private void remove(String sessionId, int id) {
+        Session session = session(sessionId, false);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.closed) {
+                session.lastAccess = clock.getAsLong();
+                for (TaskType type : TYPES) {
+                    session.remove(key(type, id));
+                }
+            }
+        }
+    }
+
+    private int[] keys(String sessionId) {
+        Session session = session(sessionId, false);
+        if (session == null) {
+            return new int[0];
+        }
+        synchronized (session) {
+            if (session.closed) {
+                return new int[0];
+            }
+            session.lastAccess = clock.getAsLong();
+            int[] keys = new int[session.size];
+            int count = 0;
+            for (int i = session.head; i < session.tail; i++) {
+                if (session.buffer[i] != EMPTY) {
+                    keys[count++] = session.buffer[i];
+                }
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * @return ключи страницы истории от свежих просмотров к давним
+     */
+    private int[] recentKeys(String sessionId, int offset, int limit) {
+        Session session = session(sessionId, false);
+        if (session == null) {
+            return new int[0];
+        }
+        synchronized (session) {
+            if (session.closed || offset >= session.size) {
+                return new int[0];
+            }
+            session.lastAccess = clock.getAsLong();
+            int[] keys = new int[Math.min(limit, session.size - offset)];
+            int skipped = 0;
+            int count = 0;
+            for (int i = session.tail - 1; count < keys.length; i--) {
+                if (session.buffer[i] == EMPTY) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    keys[count++] = session.buffer[i];
+                }
+            }
+            return keys;
+        }
+    }
+
+    private void purge(String sessionId, int key) {
+        Session session = session(sessionId, false);
+        if (session != null) {
+            synchronized (session) {
+                if (!session.closed) {
+                    session.remove(key);
+                }
+            }
+        }
+    }
+
+    private Session session(String sessionId, boolean create) {
+        if (clock.getAsLong() - lastSweep > idleTimeoutMs / 2) {
+            expireIdle();
+        }
+        return create ? sessions.computeIfAbsent(sessionId, id -> new Session(allocate()))
+                : sessions.get(sessionId);
+    }
+
+    private int[] allocate() {
+        synchronized (freeBuffers) {
+            int[] buffer = freeBuffers.poll();
+            if (buffer != null) {
+                Arrays.fill(buffer, 2 * capacity, buffer.length, 0);
+                return buffer;
+            }
+        }
+        return new int[2 * capacity + tableSize];
+    }
+
+    private void release(int[] buffer) {
+        synchronized (freeBuffers) {
+            freeBuffers.push(buffer);
+        }
+    }
+
+    private static int key(TaskType type, int id) {
+        return id << 2 | type.ordinal();
+    }
+
+    /**
+     * Состояние сессии. Буфер: ячейки {@code [0, 2 * capacity)} с просмотрами, живые лежат
+     * в {@code [head, tail)} вперемешку с пустыми; дальше хеш-таблица с линейным
+     * пробированием, где {@code ячейка + 1} — позиция ключа, 0 — свободно.
+     * Все поля — под монитором сессии.
+     */
+    private final class Session {
+        final int[] buffer;
+        int head;
+        int tail;
+        int size;
+        long lastAccess;
+        boolean closed;
+
+        Session(int[] buffer) {
+            this.buffer = buffer;
+            this.lastAccess = clock.getAsLong();
+        }
+
+        void append(int key) {
+            if (tail == 2 * capacity) {
+                compact();
+            }
+            buffer[tail] = key;
+            insert(key, tail);
+            tail++;
+            size++;
+        }
+
+        /**
+         * @return {@code true}, если ключ был в истории
+         */
+        boolean remove(int key) {
+            int index = find(key);
+            if (index < 0) {
+                return false;
+            }
+            buffer[buffer[index] - 1] = EMPTY;
+            delete(index);
+            size--;
+            return true;
+        }
+
+        void evictOldest() {
+            while (buffer[head] == EMPTY) {
+                head++;
+            }
+            remove(buffer[head]);
+            head++;
+        }
+
+        /**
+         * Сдвигает живые просмотры к началу и перестраивает таблицу. Вызывается, когда
+         * буфер кончился: живых не больше capacity, так что до следующего раза будет
+         * не меньше capacity добавлений.
+         */
+        private void compact() {
+            int table = 2 * capacity;
+            Arrays.fill(buffer, table, buffer.length, 0);
+            int count = 0;
+            for (int i = head; i < tail; i++) {
+                if (buffer[i] != EMPTY) {
+                    buffer[count] = buffer[i];
+                    insert(buffer[count], count);
+                    count++;
+                }
+            }
+            head = 0;
+            tail = count;
+        }
+
+        /**
+         * @return индекс ключа в таблице или -1
+         */
+        private int find(int key) {
+            int table = 2 * capacity;
+            int mask = tableSize - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                int slot = buffer[table + i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (buffer[slot - 1] == key) {
+                    return table + i;
+                }
+            }
+        }
+
+        private void insert(int key, int slot) {
+            int table = 2 * capacity;
+            int mask = tableSize - 1;
+            int i = hash(key) & mask;
+            while (buffer[table + i] != 0) {
+                i = (i + 1) & mask;
+            }
+            buffer[table + i] = slot + 1;
+        }
+
+        /**
+         * Удаляет запись таблицы, сдвигая назад следующие за ней записи той же цепочки.
+         */
+        private void delete(int index) {
+            int table = 2 * capacity;
+            int mask = tableSize - 1;
+            int hole = index - table;
+            for (int i = (hole + 1) & mask; buffer[table + i] != 0; i = (i + 1) & mask) {
+                int home = hash(buffer[buffer[table + i] - 1]) & mask;
+                // Запись можно сдвинуть в дыру, если её исходная ячейка не между дырой и ней
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    buffer[table + hole] = buffer[table + i];
+                    hole = i;
+                }
+            }
+            buffer[table + hole] = 0;
+        }
+    }
+
+    private static int hash(int key) {
+        return key * 0x9E3779B9 >>> 16 ^ key;
+    }
+
+    /**
+     * HistoryManager поверх буфера сессии.
+     */
+    private abstract class SessionView implements HistoryManager {
+        private final TaskResolver resolver;
+
+        SessionView(TaskResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        /**
+         * @return сессия, с которой работает представление; {@code null} — никакая
+         */
+        abstract String sessionId();
+
+        @Override
+        public void add(Task task) {
+            String sessionId = sessionId();
+            if (task != null && sessionId != null) {
+                SessionHistoryManagers.this.add(sessionId, task);
+            }
+        }
+
+        @Override
+        public void remove(int id) {
+            String sessionId = sessionId();
+            if (sessionId != null) {
+                SessionHistoryManagers.this.remove(sessionId, id);
+            }
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            String sessionId = sessionId();
+            if (sessionId == null) {
+                return new ArrayList<>();
+            }
+            return resolve(sessionId, keys(sessionId));
+        }
+
+        @Override
+        public List<Task> getHistory(int offset, int limit) {
+            HistoryManager.checkPage(offset, limit);
+            String sessionId = sessionId();
+            if (sessionId == null) {
+                return new ArrayList<>();
+            }
+            // Удалённые задачи пропускаются, поэтому страница может оказаться короче limit
+            return resolve(sessionId, recentKeys(sessionId, offset, limit));
+        }
+
+        private List<Task> resolve(String sessionId, int[] keys) {
+            List<Task> history = new ArrayList<>(keys.length);
+            for (int key : keys) {
+                Task task = resolver.find(TYPES[key & 3], key >>> 2);
+                if (task != null) {
+                    history.add(task);
+                } else {
+                    purge(sessionId, key); // задачу удалили через другую сессию
+                }
+            }
+            return history;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Менеджер задач, разделённый на несколько независимых шардов — {@link InMemoryTaskManager}
+ * или {@link FileBackedTaskManager} со своим файлом.
+ * <p>
+ * ID несут номер шарда: шард {@code i} из {@code n} выдаёт только ID с {@code (id - 1) % n == i},
+ * поэтому ID уникальны во всём менеджере, а сущность по ID находится без таблицы маршрутов.
+ * Подзадача создаётся в шарде своего эпика, так что статус и время эпика пересчитываются
+ * внутри одного шарда. Новые задачи и эпики раскладываются по шардам по очереди.
+ * <p>
+ * {@code getAll*} и {@code getByStatus} опрашивают шарды параллельно и склеивают результаты
+ * по порядку шардов. Пересечения по времени проверяются общим индексом интервалов
+ * до обращения к шарду, поэтому задачи из разных шардов не пересекаются, а пакет с пересечением
+ * не применяется ни в одном шарде. История просмотров общая; шарды читаются без записи
+ * в свою историю.
+ * <p>
+ * Как и {@link InMemoryTaskManager}, рассчитан на один поток, изменяющий данные.
+ */
+public final class ShardedTaskManager implements TaskManager, Closeable {
+
+    /** Имя файла шарда в каталоге {@link #open}: {@code shard-<номер>.csv}. */
+    static final String SHARD_FILE_FORMAT = "shard-%d.csv";
+
+    private final InMemoryTaskManager[] shards;
+    private final TaskResolver[] resolvers;
+    private final ExecutorService executor;
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+
+    /** Шард для следующей задачи или эпика. */
+    private int nextShard;
+
+    /**
+     * Менеджер на {@code count} шардах в памяти.
+     *
+     * @param count число шардов
+     */
+    public ShardedTaskManager(final int count) {
+        this(newShards(count));
+    }
+
+    /**
+     * Менеджер на заданных шардах. Шарды переводятся на ID с шагом {@code shards.size()};
+     * уже загруженные в них сущности должны лежать в шарде, соответствующем их ID.
+     *
+     * @param shards шарды; дальше используются только через этот менеджер
+     * @throws IllegalArgumentException если шардов нет или сущность лежит не в своём шарде
+     */
+    public ShardedTaskManager(final List<? extends InMemoryTaskManager> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один шард");
+        }
+        this.shards = shards.toArray(new InMemoryTaskManager[0]);
+        resolvers = new TaskResolver[this.shards.length];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i].partitionIds(i, this.shards.length);
+            resolvers[i] = this.shards[i].resolver();
+        }
+        executor = this.shards.length == 1 ? null
+                : Executors.newFixedThreadPool(this.shards.length - 1,
+                        Thread.ofPlatform().name("task-shard-", 1).daemon().factory());
+        try {
+            checkPlacement();
+            for (final Task task : merge(TaskManager::getPrioritizedTasks)) {
+                intervalIndex.index(task);
+            }
+        } catch (RuntimeException e) {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Открывает менеджер на шардах {@link FileBackedTaskManager} в каталоге: по файлу
+     * {@code shard-<номер>.csv} на шард. Существующие файлы загружаются, недостающие создаются.
+     * Число шардов должно совпадать с тем, с которым каталог заполнялся.
+     *
+     * @param directory каталог файлов шардов; создаётся при необходимости
+     * @param count     число шардов
+     * @param mode      способ хранения шардов
+     * @param flushMode режим сброса изменений на диск
+     * @return менеджер, который нужно закрыть через {@link #close()}
+     * @throws IllegalArgumentException если файлы заполнялись с другим числом шардов
+     * @throws ManagerSaveException     если каталог или файл шарда недоступен
+     */
+    public static ShardedTaskManager open(final File directory, final int count, final PersistenceMode mode,
+                                          final FlushMode flushMode) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + count);
+        }
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось создать каталог шардов " + directory, e);
+        }
+        if (shardFile(directory, count).exists()) {
+            throw new IllegalArgumentException("Каталог " + directory + " заполнен с большим числом шардов");
+        }
+        final List<FileBackedTaskManager> shards = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                final File file = shardFile(directory, i);
+                shards.add(file.exists() ? FileBackedTaskManager.loadFromFile(file, mode, flushMode)
+                        : new FileBackedTaskManager(file, mode, flushMode));
+            }
+            return new ShardedTaskManager(shards);
+        } catch (RuntimeException e) {
+            for (final FileBackedTaskManager shard : shards) {
+                shard.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param directory каталог файлов шардов
+     * @param index     номер шарда
+     * @return файл шарда
+     */
+    static File shardFile(final File directory, final int index) {
+        return new File(directory, String.format(SHARD_FILE_FORMAT, index));
+    }
+
+    /**
+     * @return число шардов
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param id ID задачи, эпика или подзадачи
+     * @return номер шарда, в котором лежит сущность с этим ID
+     */
+    public int shardOf(final int id) {
+        return Math.floorMod(id - 1, shards.length);
+    }
+
+    @Override
+    public int createTask(final Task task) {
+        // ID выдаст шард; прежний ID объекта не должен исключать из проверки чужой интервал
+        task.setId(0);
+        checkOverlap(task);
+        final int shard = nextShard();
+        final int id = shards[shard].createTask(task);
+        intervalIndex.index(task);
+        return id;
+    }
+
+    @Override
+    public int createEpic(final Epic epic) {
+        return shards[nextShard()].createEpic(epic);
+    }
+
+    @Override
+    public int createSubtask(final Subtask subtask) {
+        subtask.setId(0);
+        checkOverlap(subtask);
+        final int id = shards[shardOf(subtask.getEpicId())].createSubtask(subtask);
+        intervalIndex.index(subtask);
+        return id;
+    }
+
+    @Override
+    public Task getTaskById(final int id) {
+        return viewed(find(TaskType.TASK, id));
+    }
+
+    @Override
+    public Epic getEpicById(final int id) {
+        return (Epic) viewed(find(TaskType.EPIC, id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(final int id) {
+        return (Subtask) viewed(find(TaskType.SUBTASK, id));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return merge(TaskManager::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return merge(TaskManager::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return merge(TaskManager::getAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getByStatus(final Status status, final TaskType type) {
+        return merge(shard -> shard.getByStatus(status, type));
+    }
+
+    @Override
+    public void updateTask(final Task task) {
+        checkOverlap(task);
+        shards[shardOf(task.getId())].updateTask(task);
+        reindex(TaskType.TASK, task.getId());
+    }
+
+    @Override
+    public void updateEpic(final Epic epic) {
+        shards[shardOf(epic.getId())].updateEpic(epic);
+    }
+
+    @Override
+    public void updateSubtask(final Subtask subtask) {
+        checkOverlap(subtask);
+        shards[shardOf(subtask.getId())].updateSubtask(subtask);
+        reindex(TaskType.SUBTASK, subtask.getId());
+    }
+
+    @Override
+    public void deleteTask(final int id) {
+        shards[shardOf(id)].deleteTask(id);
+        forget(id);
+    }
+
+    @Override
+    public void deleteEpic(final int id) {
+        final int[] subtaskIds = subtaskIds(id);
+        shards[shardOf(id)].deleteEpic(id);
+        forget(id);
+        for (final int subtaskId : subtaskIds) {
+            forget(subtaskId);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(final int id) {
+        shards[shardOf(id)].deleteSubtask(id);
+        forget(id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return intervalIndex.values();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Элементы раскладываются по шардам, каждый шард создаёт свою часть одним пакетом.
+     * Подзадачи должны ссылаться на уже существующие эпики. Пересечения по времени
+     * проверяются для всего пакета до изменений в шардах.
+     *
+     * @throws TaskOverlapException если элемент пересекается по времени с задачей или подзадачей
+     */
+    @Override
+    public int[] createAll(final Collection<? extends Task> items) {
+        // Элементы без ID сверяются между собой под временными отрицательными ID; шард выдаст настоящие
+        final int[] previous = new int[items.size()];
+        int i = 0;
+        for (final Task item : items) {
+            previous[i++] = item.getId();
+            item.setId(-i);
+        }
+        boolean checked = false;
+        try {
+            checkOverlaps(items);
+            checked = true;
+        } finally {
+            if (!checked) {
+                i = 0;
+                for (final Task item : items) {
+                    item.setId(previous[i++]);
+                }
+            }
+        }
+        final List<List<Task>> groups = newGroups();
+        final int[] shardOfItem = new int[items.size()];
+        i = 0;
+        for (final Task item : items) {
+            final int shard = item instanceof Subtask subtask ? shardOf(subtask.getEpicId()) : nextShard();
+            groups.get(shard).add(item);
+            shardOfItem[i++] = shard;
+        }
+        final int[][] shardIds = new int[shards.length][];
+        for (int shard = 0; shard < shards.length; shard++) {
+            shardIds[shard] = groups.get(shard).isEmpty() ? new int[0] : shards[shard].createAll(groups.get(shard));
+        }
+        final int[] ids = new int[items.size()];
+        final int[] positions = new int[shards.length];
+        for (i = 0; i < ids.length; i++) {
+            ids[i] = shardIds[shardOfItem[i]][positions[shardOfItem[i]]++];
+        }
+        for (final Task item : items) {
+            intervalIndex.index(item);
+        }
+        return ids;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Каждый шард обновляет свою часть одним пакетом. Пересечения по времени проверяются
+     * для всего пакета до изменений в шардах.
+     *
+     * @throws TaskOverlapException если элемент пересекается по времени с задачей или подзадачей
+     */
+    @Override
+    public void updateAll(final Collection<? extends Task> items) {
+        checkOverlaps(items);
+        final List<List<Task>> groups = newGroups();
+        for (final Task item : items) {
+            groups.get(shardOf(item.getId())).add(item);
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!groups.get(shard).isEmpty()) {
+                shards[shard].updateAll(groups.get(shard));
+            }
+        }
+        for (final Task item : items) {
+            if (!(item instanceof Epic)) {
+                reindex(item instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK, item.getId());
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll(final Collection<Integer> ids) {
+        final List<List<Integer>> groups = newGroups();
+        final List<int[]> subtaskIds = new ArrayList<>();
+        for (final int id : ids) {
+            groups.get(shardOf(id)).add(id);
+            subtaskIds.add(subtaskIds(id));
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!groups.get(shard).isEmpty()) {
+                shards[shard].deleteAll(groups.get(shard));
+            }
+        }
+        for (final int id : ids) {
+            forget(id);
+        }
+        for (final int[] epicSubtasks : subtaskIds) {
+            for (final int subtaskId : epicSubtasks) {
+                forget(subtaskId);
+            }
+        }
+    }
+
+    /**
+     * Закрывает шарды с файлами, дождавшись записи изменений, и останавливает потоки опроса шардов.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        for (final InMemoryTaskManager shard : shards) {
+            if (shard instanceof FileBackedTaskManager fileBacked) {
+                fileBacked.close();
+            }
+        }
+    }
+
+    private static List<InMemoryTaskManager> newShards(final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + count);
+        }
+        final List<InMemoryTaskManager> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new InMemoryTaskManager());
+        }
+        return shards;
+    }
+
+    private int nextShard() {
+        final int shard = nextShard;
+        nextShard = shard + 1 == shards.length ? 0 : shard + 1;
+        return shard;
+    }
+
+    private Task find(final TaskType type, final int id) {
+        return resolvers[shardOf(id)].find(type, id);
+    }
+
+    private Task viewed(final Task task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    /**
+     * @return ID подзадач эпика; пустой массив, если эпика с таким ID нет
+     */
+    private int[] subtaskIds(final int id) {
+        if (find(TaskType.EPIC, id) instanceof Epic epic) {
+            final int[] ids = new int[epic.getSubtaskCount()];
+            final int[] count = new int[1];
+            epic.forEachSubtaskId(subtaskId -> ids[count[0]++] = subtaskId);
+            return ids;
+        }
+        return new int[0];
+    }
+
+    /**
+     * Переносит в общем индексе интервал сущности на её хранимое в шарде состояние.
+     */
+    private void reindex(final TaskType type, final int id) {
+        final Task stored = find(type, id);
+        if (stored == null) {
+            intervalIndex.remove(id);
+        } else {
+            intervalIndex.index(stored);
+        }
+    }
+
+    /**
+     * Убирает удалённую сущность из истории и индекса интервалов.
+     */
+    private void forget(final int id) {
+        historyManager.remove(id);
+        intervalIndex.remove(id);
+    }
+
+    private void checkOverlap(final Task task) {
+        if (task.getDuration() != null && task.getDuration().isNegative()) {
+            throw new IllegalArgumentException("Отрицательная длительность задачи " + task.getId() + ": "
+                    + task.getDuration());
+        }
+        final Task other = intervalIndex.findOverlap(task);
+        if (other != null) {
+            throw new TaskOverlapException(String.format(
+                    "Задача %d (%s — %s) пересекается по времени с задачей %d (%s — %s)",
+                    task.getId(), task.getStartTime(), task.getEndTime(),
+                    other.getId(), other.getStartTime(), other.getEndTime()));
+        }
+    }
+
+    /**
+     * Проверяет пакет так, как если бы элементы применялись по одному: интервал каждого
+     * элемента на время проверки переносится в общем индексе. После проверки индекс
+     * возвращается к хранимым в шардах сущностям.
+     */
+    private void checkOverlaps(final Collection<? extends Task> items) {
+        final List<Task> moved = new ArrayList<>();
+        try {
+            for (final Task item : items) {
+                if (!(item instanceof Epic)) {
+                    checkOverlap(item);
+                    intervalIndex.index(item);
+                    moved.add(item);
+                }
+            }
+        } finally {
+            for (final Task item : moved) {
+                reindex(item instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK, item.getId());
+            }
+        }
+    }
+
+    private <T> List<List<T>> newGroups() {
+        final List<List<T>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        return groups;
+    }
+
+    /**
+     * Проверяет, что каждая сущность лежит в шарде, который соответствует её ID.
+     */
+    private void checkPlacement() {
+        final List<Task> misplaced = merge(shard -> {
+            final int index = indexOf(shard);
+            final List<Task> result = new ArrayList<>();
+            for (final List<? extends Task> entities : List.of(shard.getAllTasks(), shard.getAllEpics(),
+                    shard.getAllSubtasks())) {
+                for (final Task task : entities) {
+                    if (shardOf(task.getId()) != index) {
+                        result.add(task);
+                    }
+                }
+            }
+            return result;
+        });
+        if (!misplaced.isEmpty()) {
+            throw new IllegalArgumentException("Сущность " + misplaced.get(0).getId()
+                    + " лежит не в своём шарде: шарды заполнялись с другим их числом");
+        }
+    }
+
+    private int indexOf(final InMemoryTaskManager shard) {
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i] == shard) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Не шард этого менеджера");
+    }
+
+    /**
+     * Выполняет запрос на всех шардах параллельно — первый шард в вызывающем потоке —
+     * и склеивает результаты по порядку шардов.
+     */
+    private <T> List<T> merge(final Function<InMemoryTaskManager, ? extends List<? extends T>> query) {
+        if (executor == null) {
+            return new ArrayList<>(query.apply(shards[0]));
+        }
+        final List<Future<? extends List<? extends T>>> futures = new ArrayList<>(shards.length - 1);
+        for (int i = 1; i < shards.length; i++) {
+            final InMemoryTaskManager shard = shards[i];
+            futures.add(executor.submit(() -> query.apply(shard)));
+        }
+        final List<List<? extends T>> parts = new ArrayList<>(shards.length);
+        parts.add(query.apply(shards[0]));
+        int size = parts.get(0).size();
+        for (final Future<? extends List<? extends T>> future : futures) {
+            final List<? extends T> part = await(future);
+            parts.add(part);
+            size += part.size();
+        }
+        final List<T> result = new ArrayList<>(size);
+        for (final List<? extends T> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    private static <T> T await(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание шардов прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
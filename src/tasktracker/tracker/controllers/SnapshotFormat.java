@@ -0,0 +1,155 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Формат снимка FileBackedTaskManager.
+ * По умолчанию определяется по расширению файла: {@code .bin} — двоичный, остальные — CSV.
+ */
+public enum SnapshotFormat {
+    /** Текстовый CSV: id,type,name,status,description,epic,start,duration. */
+    CSV {
+        @Override
+        TaskReader openReader(Path path) throws IOException {
+            return new CsvTaskReader(path);
+        }
+
+        @Override
+        TaskWriter openWriter(Path path) throws IOException {
+            return new CsvTaskWriter(path);
+        }
+
+        @Override
+        int checksum(Path path) throws IOException {
+            final String trailer = new String(tail(path, CsvTaskWriter.TRAILER_LENGTH), StandardCharsets.US_ASCII);
+            if (trailer.startsWith(CsvTaskWriter.CHECKSUM_PREFIX) && trailer.endsWith("\n")) {
+                try {
+                    return Integer.parseUnsignedInt(trailer.substring(CsvTaskWriter.CHECKSUM_PREFIX.length(),
+                            trailer.length() - 1), 16);
+                } catch (NumberFormatException e) {
+                    // Не трейлер — считаем сумму по файлу
+                }
+            }
+            // Старый снимок без трейлера
+            final CRC32C crc = new CRC32C();
+            try (InputStream in = Files.newInputStream(path)) {
+                final byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+            return (int) crc.getValue();
+        }
+    },
+    /** Компактный двоичный формат, см. {@link BinaryTaskWriter}. */
+    BINARY {
+        @Override
+        TaskReader openReader(Path path) throws IOException {
+            return new BinaryTaskReader(path);
+        }
+
+        @Override
+        TaskWriter openWriter(Path path) throws IOException {
+            return new BinaryTaskWriter(path);
+        }
+
+        @Override
+        int checksum(Path path) throws IOException {
+            final byte[] trailer = tail(path, BinaryTaskWriter.TRAILER_LENGTH);
+            if (trailer.length < BinaryTaskWriter.TRAILER_LENGTH) {
+                throw new ManagerSaveException("Двоичный снимок обрезан: " + path);
+            }
+            return ByteBuffer.wrap(trailer).getInt();
+        }
+    };
+
+    /** Расширение файлов двоичного снимка. */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    abstract TaskReader openReader(Path path) throws IOException;
+
+    abstract TaskWriter openWriter(Path path) throws IOException;
+
+    /**
+     * Контрольная сумма снимка из его трейлера, без чтения всего файла.
+     * У CSV-снимка без трейлера сумма считается по всем байтам файла.
+     * Сумма не проверяется: это делает чтение снимка.
+     *
+     * @param path файл снимка
+     * @return CRC32C снимка
+     */
+    abstract int checksum(Path path) throws IOException;
+
+    /**
+     * Определяет формат по расширению файла.
+     *
+     * @param file файл снимка
+     * @return BINARY для {@code .bin}, иначе CSV
+     */
+    public static SnapshotFormat forFile(File file) {
+        return file.getName().endsWith(BINARY_EXTENSION) ? BINARY : CSV;
+    }
+
+    private static byte[] tail(Path path, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, channel.size()));
+            final long start = channel.size() - buffer.capacity();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("Снимок укоротился во время чтения: " + path);
+                }
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Переписывает снимок из одного формата в другой, не загружая его в менеджер.
+     * Форматы определяются по расширениям файлов.
+     *
+     * @param source исходный снимок
+     * @param target файл результата; перезаписывается
+     */
+    public static void convert(File source, File target) {
+        convert(source, forFile(source), target, forFile(target));
+    }
+
+    /**
+     * Переписывает снимок из одного формата в другой, не загружая его в менеджер.
+     *
+     * @param source       исходный снимок
+     * @param sourceFormat формат исходного снимка
+     * @param target       файл результата; перезаписывается
+     * @param targetFormat формат результата
+     */
+    public static void convert(File source, SnapshotFormat sourceFormat, File target, SnapshotFormat targetFormat) {
+        try (TaskReader reader = sourceFormat.openReader(source.toPath());
+             TaskWriter writer = targetFormat.openWriter(target.toPath())) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                writer.write(task);
+            }
+            if (reader.nextId() > 0) {
+                writer.writeNextId(reader.nextId());
+            }
+            if (reader.journalGeneration() > 0) {
+                writer.writeJournalGeneration(reader.journalGeneration());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при конвертации снимка " + source, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package tracker.controllers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * Поток чтения снимка, считающий CRC32C всех байт, кроме трейлера фиксированной длины в конце файла.
+ * Сравнивать {@link #checksum()} с трейлером можно, когда файл прочитан до конца.
+ */
+final class SnapshotInput extends FilterInputStream {
+
+    private final CRC32C crc = new CRC32C();
+
+    /** Сколько байт от начала файла входит в контрольную сумму. */
+    private final long covered;
+    private long position;
+
+    /**
+     * @param path          файл снимка
+     * @param trailerLength длина трейлера в конце файла
+     */
+    SnapshotInput(final Path path, final int trailerLength) throws IOException {
+        super(Files.newInputStream(path));
+        this.covered = Math.max(0, Files.size(path) - trailerLength);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b >= 0) {
+            if (position < covered) {
+                crc.update(b);
+            }
+            position++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        final int read = super.read(bytes, offset, length);
+        if (read > 0) {
+            final int counted = (int) Math.max(0, Math.min(read, covered - position));
+            crc.update(bytes, offset, counted);
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        // Пропуск без чтения сломал бы контрольную сумму
+        final byte[] skipped = new byte[(int) Math.min(n, 8192)];
+        final int read = read(skipped, 0, skipped.length);
+        return Math.max(read, 0);
+    }
+
+    /**
+     * @return CRC32C байт файла без трейлера, прочитанных до сих пор
+     */
+    int checksum() {
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,26 @@
+package tracker.controllers;
+
+/**
+ * Получатель сведений о записанных снимках и сброшенном на диск журнале {@link FileBackedTaskManager}.
+ */
+@FunctionalInterface
+public interface SnapshotListener {
+
+    /**
+     * Вызывается после того, как снимок записан и переименован поверх основного файла,
+     * в потоке, который его записал.
+     *
+     * @param bytes размер снимка в байтах
+     * @param nanos время записи снимка в наносекундах
+     */
+    void snapshotWritten(long bytes, long nanos);
+
+    /**
+     * Вызывается после того, как журнал сброшен на устройство ({@code force}),
+     * под блокировкой изменений менеджера.
+     *
+     * @param nanos время сброса в наносекундах
+     */
+    default void journalSynced(long nanos) {
+    }
+}
@@ -0,0 +1,70 @@
+package tracker.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Поток записи снимка, считающий CRC32C записанных байт.
+ * <p>
+ * Контрольная сумма охватывает всё, что прошло через {@code write}; трейлер
+ * с самой суммой пишется мимо неё через {@link #writeTrailer(byte[])}.
+ * {@link #close()} перед закрытием сбрасывает данные на устройство через
+ * {@link FileChannel#force(boolean)}. Буферизация — на стороне вызывающего.
+ */
+final class SnapshotOutput extends OutputStream {
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * @param path файл снимка; перезаписывается
+     */
+    SnapshotOutput(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = Channels.newOutputStream(channel);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        crc.update(b);
+        out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        crc.update(bytes, offset, length);
+        out.write(bytes, offset, length);
+    }
+
+    /**
+     * @return CRC32C всех записанных до сих пор байт
+     */
+    int checksum() {
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Дописывает трейлер, не включая его в контрольную сумму.
+     *
+     * @param trailer байты трейлера
+     */
+    void writeTrailer(final byte[] trailer) throws IOException {
+        out.write(trailer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.force(true);
+        } finally {
+            out.close();
+        }
+    }
+}
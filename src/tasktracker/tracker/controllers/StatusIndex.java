@@ -0,0 +1,75 @@
+package tracker.controllers;
+
+import tracker.model.Status;
+import tracker.model.TaskType;
+import tracker.util.IntSet;
+
+/**
+ * Вторичный индекс «тип и статус → ID сущностей».
+ * <p>
+ * Хранит для каждой пары тип/статус множество примитивных ID; переиндексация
+ * сущности стоит O(1) независимо от числа сущностей. Индекс отражает статус
+ * на момент последнего {@link #index}, поэтому менеджер вызывает его после
+ * каждого создания, обновления и пересчёта статуса эпика. Не потокобезопасен.
+ */
+final class StatusIndex {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final IntSet[] ids = new IntSet[TaskType.values().length * STATUSES.length];
+
+    StatusIndex() {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new IntSet();
+        }
+    }
+
+    /**
+     * Записывает текущий статус сущности, убирая её из остальных статусов того же типа.
+     *
+     * @param type   тип сущности
+     * @param id     идентификатор сущности
+     * @param status текущий статус; {@code null} убирает сущность из индекса
+     * @return статус, под которым сущность была в индексе, или {@code null}
+     */
+    Status index(final TaskType type, final int id, final Status status) {
+        Status previous = null;
+        for (final Status other : STATUSES) {
+            if (other != status && ids(type, other).remove(id)) {
+                previous = other;
+            }
+        }
+        if (status != null && !ids(type, status).add(id)) {
+            previous = status;
+        }
+        return previous;
+    }
+
+    /**
+     * Убирает сущность из индекса.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     */
+    void remove(final TaskType type, final int id) {
+        index(type, id, null);
+    }
+
+    /**
+     * Убирает из индекса все сущности.
+     */
+    void clear() {
+        for (final IntSet set : ids) {
+            set.clear();
+        }
+    }
+
+    /**
+     * @param type   тип сущности
+     * @param status статус
+     * @return живое множество ID сущностей этого типа в этом статусе
+     */
+    IntSet ids(final TaskType type, final Status status) {
+        return ids[type.ordinal() * STATUSES.length + status.ordinal()];
+    }
+}
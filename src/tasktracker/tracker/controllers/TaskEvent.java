@@ -0,0 +1,33 @@
+package tracker.controllers;
+
+import tracker.model.Status;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+/**
+ * Изменение в менеджере задач.
+ * <p>
+ * {@code task} — копия сущности после изменения, сделанная в момент события, поэтому
+ * её можно читать в потоке слушателя; у {@link Kind#DELETED} она {@code null}.
+ * {@code previousStatus} заполнен только у {@link Kind#EPIC_STATUS_CHANGED}.
+ *
+ * @param sequence       номер события; растёт на единицу в порядке изменений
+ * @param kind           вид изменения
+ * @param type           тип сущности
+ * @param id             идентификатор сущности
+ * @param task           копия сущности или {@code null}
+ * @param previousStatus статус эпика до пересчёта или {@code null}
+ */
+public record TaskEvent(long sequence, Kind kind, TaskType type, int id, Task task, Status previousStatus) {
+
+    /**
+     * Вид изменения.
+     */
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Статус эпика пересчитан и изменился из-за его подзадач. */
+        EPIC_STATUS_CHANGED
+    }
+}
@@ -0,0 +1,255 @@
+package tracker.controllers;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Доставка событий {@link TaskEvent} слушателям пачками через ограниченный кольцевой буфер.
+ * <p>
+ * Менеджер кладёт события операции в буфер одним вызовом {@link #publishAll}, отдельный
+ * поток-демон забирает всё накопленное, но не больше {@code maxBatch}, и отдаёт пачку
+ * каждому слушателю. Пока слушатели заняты, события копятся, поэтому медленный
+ * слушатель получает меньше вызовов с большими пачками.
+ * <p>
+ * Будить поток диспетчера на каждое событие дорого: это переключение контекста на операцию.
+ * Поэтому, получив первое событие после простоя, диспетчер ждёт остальные до {@code linger}
+ * или до полной пачки; публикующий поток будит его только из простоя и по полной пачке.
+ * Событие доходит до слушателей не позже чем через {@code linger}. Если буфер полон, публикующий
+ * поток ждёт, пока освободится место: изменения менеджера замедляются до скорости
+ * слушателей, а память не растёт. Исключение слушателя передаётся обработчику
+ * необработанных исключений потока и не мешает остальным слушателям.
+ * <p>
+ * Слушатель не может изменять менеджер или вызывать {@link #flush()}: из потока диспетчера
+ * это ожидание самого себя, поэтому {@link #publishAll} и {@link #flush()} в нём сразу
+ * бросают {@link IllegalStateException}. Менеджер проверяет поток ещё при входе в операцию,
+ * так что отклонённое изменение не затрагивает его состояние.
+ */
+public final class TaskEventDispatcher implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 8_192;
+    public static final int DEFAULT_MAX_BATCH = 1_024;
+    public static final long DEFAULT_LINGER_NANOS = 1_000_000;
+
+    private final TaskEvent[] buffer;
+    private final int mask;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final List<TaskEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition delivered = lock.newCondition();
+
+    /** Номер следующего события для чтения и для записи; буфер индексируется по маске. */
+    private long head;
+    private long tail;
+    /** Сколько событий уже отдано слушателям. */
+    private long deliveredCount;
+    /** Поток диспетчера простаивает и ждёт сигнала без таймаута. */
+    private boolean parked;
+    /** Сколько потоков ждут в {@link #flush()}; пока они есть, пачка не выдерживается. */
+    private int flushing;
+    private boolean closed;
+
+    private final Thread thread;
+
+    public TaskEventDispatcher() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, DEFAULT_LINGER_NANOS);
+    }
+
+    /**
+     * @param capacity    ёмкость буфера; округляется вверх до степени двойки
+     * @param maxBatch    наибольший размер пачки
+     * @param lingerNanos сколько ждать, добирая пачку, после первого события; 0 — не ждать
+     */
+    public TaskEventDispatcher(final int capacity, final int maxBatch, final long lingerNanos) {
+        if (capacity <= 0 || maxBatch <= 0 || lingerNanos < 0) {
+            throw new IllegalArgumentException("Ёмкость и размер пачки должны быть положительными, ожидание — неотрицательным");
+        }
+        this.lingerNanos = lingerNanos;
+        final int size = Integer.bitCount(capacity) == 1 ? capacity : Integer.highestOneBit(capacity) << 1;
+        buffer = new TaskEvent[size];
+        mask = size - 1;
+        this.maxBatch = maxBatch;
+        thread = new Thread(this::run, "task-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param listener слушатель; получает события, опубликованные после подписки
+     */
+    public void subscribe(final TaskEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener слушатель, которому больше не нужны события
+     */
+    public void unsubscribe(final TaskEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return есть ли подписчики; без них менеджер не создаёт события
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Кладёт события в буфер в порядке списка, ожидая места, если буфер полон.
+     *
+     * @param events события одной операции
+     * @throws IllegalStateException если диспетчер закрыт или вызов пришёл из слушателя
+     */
+    public void publishAll(final List<TaskEvent> events) {
+        checkNotDispatchThread();
+        int index = 0;
+        lock.lock();
+        try {
+            while (index < events.size()) {
+                if (closed) {
+                    throw new IllegalStateException("Диспетчер событий закрыт");
+                }
+                final long free = buffer.length - (tail - head);
+                if (free == 0) {
+                    notFull.awaitUninterruptibly();
+                    continue;
+                }
+                final int end = (int) Math.min(events.size(), index + free);
+                for (; index < end; index++) {
+                    buffer[(int) (tail++ & mask)] = events.get(index);
+                }
+                if (parked || tail - head >= Math.min(maxBatch, buffer.length)) {
+                    notEmpty.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ждёт, пока слушатели получат все события, опубликованные до вызова.
+     *
+     * @throws InterruptedException  если ожидание прервано
+     * @throws IllegalStateException если вызов пришёл из слушателя
+     */
+    public void flush() throws InterruptedException {
+        checkNotDispatchThread();
+        lock.lock();
+        try {
+            final long target = tail;
+            flushing++;
+            notEmpty.signal();
+            try {
+                while (deliveredCount < target && thread.isAlive()) {
+                    delivered.await();
+                }
+            } finally {
+                flushing--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Доставляет накопленные события и останавливает поток диспетчера.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        final List<TaskEvent> batch = new ArrayList<>(Math.min(maxBatch, buffer.length));
+        final List<TaskEvent> view = Collections.unmodifiableList(batch);
+        while (true) {
+            lock.lock();
+            try {
+                awaitBatch();
+                if (head == tail) {
+                    delivered.signalAll();
+                    return;
+                }
+                final long end = Math.min(tail, head + maxBatch);
+                for (; head < end; head++) {
+                    final int slot = (int) (head & mask);
+                    batch.add(buffer[slot]);
+                    buffer[slot] = null;
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (final TaskEventListener listener : listeners) {
+                try {
+                    listener.onEvents(view);
+                } catch (RuntimeException e) {
+                    final Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                }
+            }
+            lock.lock();
+            try {
+                deliveredCount += batch.size();
+                delivered.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Ждёт под блокировкой первое событие, затем добирает пачку до {@code linger}.
+     * Выходит сразу, если пачка полная, диспетчер закрывается или кто-то ждёт в {@link #flush()}.
+     */
+    private void awaitBatch() {
+        while (head == tail && !closed) {
+            parked = true;
+            notEmpty.awaitUninterruptibly();
+            parked = false;
+        }
+        long remaining = lingerNanos;
+        while (remaining > 0 && tail - head < Math.min(maxBatch, buffer.length) && !closed && flushing == 0) {
+            try {
+                remaining = notEmpty.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Поток диспетчера не может ждать места в буфере или доставки: их освобождает он сам.
+     */
+    void checkNotDispatchThread() {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("Слушатель событий не может изменять менеджер или ждать доставки");
+        }
+    }
+}
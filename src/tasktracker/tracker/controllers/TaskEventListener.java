@@ -0,0 +1,18 @@
+package tracker.controllers;
+
+import java.util.List;
+
+/**
+ * Получатель событий {@link TaskEventDispatcher}.
+ */
+@FunctionalInterface
+public interface TaskEventListener {
+
+    /**
+     * Принимает пачку событий в порядке изменений. Вызывается из потока диспетчера;
+     * пока слушатель работает, следующая пачка копится в буфере.
+     *
+     * @param events события; список действителен только на время вызова
+     */
+    void onEvents(List<TaskEvent> events);
+}
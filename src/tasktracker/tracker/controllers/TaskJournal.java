@@ -0,0 +1,256 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал изменений (write-ahead log) для FileBackedTaskManager.
+ * <p>
+ * Лежит рядом со снимком в файле {@code <снимок>.journal}, по одной записи на строку:
+ * <ul>
+ *     <li>{@code G,<поколение>} — последующие записи относятся к этому поколению журнала</li>
+ *     <li>{@code P,<csv>} — сущность создана или обновлена, далее её CSV-строка</li>
+ *     <li>{@code D,<type>,<id>} — сущность удалена</li>
+ * </ul>
+ * Записи содержат полное состояние сущности, поэтому повторное применение безопасно.
+ * Записи буферизуются и попадают в файл при {@link #flush()}, {@link #rotate()} или {@link #close()};
+ * {@link #sync()} вдобавок сбрасывает их на устройство.
+ * При уплотнении текущий журнал переименовывается в {@code <снимок>.journal.old}
+ * и удаляется после того, как снимок записан. Каждое уплотнение начинает новое поколение,
+ * а снимок хранит последнее учтённое: если сбой случился после записи снимка, но до удаления
+ * {@code .journal.old}, её записи уже в снимке и при чтении пропускаются.
+ */
+class TaskJournal implements Closeable {
+
+    static final String PUT = "P";
+    static final String DELETE = "D";
+    static final String GENERATION = "G";
+
+    private final Path path;
+    private final Path rotated;
+
+    private FileChannel channel;
+    private Writer writer;
+    private volatile int records;
+
+    /** Поколение, к которому относятся новые записи; растёт с каждым {@link #rotate()}. */
+    private long generation = 1;
+
+    /**
+     * @param snapshot файл снимка, рядом с которым ведётся журнал
+     */
+    TaskJournal(final File snapshot) {
+        this.path = Path.of(snapshot.getPath() + ".journal");
+        this.rotated = Path.of(snapshot.getPath() + ".journal.old");
+    }
+
+    /**
+     * Дописывает запись о создании или обновлении сущности.
+     *
+     * @param task сущность в её текущем состоянии
+     */
+    void put(final Task task) throws IOException {
+        append(PUT + "," + task.toCsvString());
+    }
+
+    /**
+     * Дописывает запись об удалении сущности.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     */
+    void delete(final TaskType type, final int id) throws IOException {
+        append(DELETE + "," + type + "," + id);
+    }
+
+    /**
+     * @return число записей в текущем журнале с момента последнего уплотнения
+     */
+    int records() {
+        return records;
+    }
+
+    /**
+     * @return {@code true}, если на диске есть текущий или отложенный журнал
+     */
+    boolean exists() {
+        return writer != null || Files.exists(path) || Files.exists(rotated);
+    }
+
+    /**
+     * @return {@code true}, если уплотнение не завершилось и отложенный журнал ещё не удалён
+     */
+    boolean hasRotated() {
+        return Files.exists(rotated);
+    }
+
+    /**
+     * Закрывает текущий журнал и откладывает его в {@code .journal.old}.
+     * Если предыдущее уплотнение не завершилось, записи дописываются к отложенным.
+     * Новые записи относятся уже к следующему поколению.
+     *
+     * @return поколение, которое учтёт снимок, свёрнутый из отложенных записей
+     */
+    long rotate() throws IOException {
+        close();
+        if (Files.exists(path)) {
+            if (Files.exists(rotated)) {
+                Files.write(rotated, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotated, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        records = 0;
+        return generation++;
+    }
+
+    /**
+     * Удаляет отложенный журнал — его записи уже попали в снимок.
+     */
+    void discardRotated() throws IOException {
+        Files.deleteIfExists(rotated);
+    }
+
+    /**
+     * Удаляет оба файла журнала.
+     */
+    void reset() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(rotated);
+        records = 0;
+    }
+
+    /**
+     * Читает записи отложенного и текущего журналов в порядке их появления,
+     * пропуская поколения, уже учтённые снимком. Записи без поколения (журнал, начатый
+     * до появления поколений) не пропускаются. Недописанная последняя строка
+     * (сбой во время записи) отбрасывается. Новые записи продолжат последнее прочитанное поколение.
+     *
+     * @param covered последнее поколение, учтённое снимком; 0 — читать всё
+     * @return записи журнала
+     */
+    List<String> read(final long covered) throws IOException {
+        final List<String> result = new ArrayList<>();
+        long latest = covered + 1;
+        for (final Path segment : List.of(rotated, path)) {
+            if (!Files.exists(segment)) {
+                continue;
+            }
+            final String content = Files.readString(segment, StandardCharsets.UTF_8);
+            final String[] lines = content.split("\n");
+            // Последняя строка без перевода строки — оборванная запись
+            final int complete = content.endsWith("\n") ? lines.length : lines.length - 1;
+            long current = 0;
+            int count = 0;
+            for (int i = 0; i < complete; i++) {
+                if (lines[i].startsWith(GENERATION + ",")) {
+                    current = Long.parseLong(lines[i].substring(GENERATION.length() + 1));
+                    latest = Math.max(latest, current);
+                } else if (!lines[i].isBlank() && (current == 0 || current > covered)) {
+                    result.add(lines[i]);
+                    count++;
+                }
+            }
+            if (segment == path) {
+                records = count;
+            }
+        }
+        generation = latest;
+        return result;
+    }
+
+    /**
+     * Передаёт накопленные в буфере записи в файл.
+     */
+    void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Передаёт накопленные в буфере записи в файл и отдаёт канал журнала, чтобы сбросить его
+     * на устройство без блокировки писателей. Канал годен до {@link #rotate()} или {@link #close()}.
+     *
+     * @return канал журнала или {@code null}, если журнал не открыт
+     */
+    FileChannel drain() throws IOException {
+        if (writer == null) {
+            return null;
+        }
+        writer.flush();
+        return channel;
+    }
+
+    /**
+     * Передаёт накопленные записи в файл и дожидается их записи на устройство.
+     * Метаданные файла не сбрасываются: длина журнала восстанавливается по записям.
+     *
+     * @return {@code true}, если журнал открыт и был сброшен
+     */
+    boolean sync() throws IOException {
+        if (writer == null) {
+            return false;
+        }
+        writer.flush();
+        channel.force(false);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            // Закрывает и канал
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+
+    private void append(final String record) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        writer.write(record);
+        writer.write('\n');
+        records++;
+    }
+
+    private void open() throws IOException {
+        // Затираем оборванный хвост, чтобы новая запись не склеилась с ним
+        if (Files.exists(path)) {
+            try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+                long end = raf.length();
+                while (end > 0) {
+                    raf.seek(end - 1);
+                    if (raf.read() == '\n') {
+                        break;
+                    }
+                    end--;
+                }
+                raf.setLength(end);
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        writer.write(GENERATION + "," + generation + "\n");
+    }
+}
@@ -2,8 +2,13 @@ package tracker.controllers;
 
 import tracker.model.Task;
 import tracker.model.Epic;
+import tracker.model.Status;
 import tracker.model.Subtask;
+import tracker.model.TaskType;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -29,6 +34,16 @@ public interface TaskManager {
 
     List<Subtask> getAllSubtasks(); // Исправлено: без аргументов
 
+    /**
+     * Возвращает сущности заданного типа в заданном статусе.
+     * Стоимость пропорциональна размеру результата, а не числу всех сущностей.
+     *
+     * @param status статус
+     * @param type   тип сущностей
+     * @return задачи, эпики или подзадачи в этом статусе
+     */
+    List<Task> getByStatus(Status status, TaskType type);
+
     void updateTask(Task task);
 
     void updateEpic(Epic epic);
@@ -41,4 +56,91 @@ public interface TaskManager {
 
     void deleteSubtask(int id);
 
+    /**
+     * Возвращает историю просмотров менеджера.
+     *
+     * @return список задач в порядке просмотра
+     */
+    List<Task> getHistory();
+
+    /**
+     * Возвращает задачи и подзадачи с заданным временем начала по возрастанию начала,
+     * затем окончания и ID. Эпики не входят — их время выводится из подзадач.
+     * Реализация по умолчанию собирает и сортирует все задачи и подзадачи;
+     * InMemoryTaskManager держит их в индексе интервалов и не сортирует, а созданные
+     * и изменённые задачи с пересечением по времени отклоняет с {@link TaskOverlapException}.
+     *
+     * @return задачи и подзадачи в порядке приоритета
+     */
+    default List<Task> getPrioritizedTasks() {
+        final List<Task> result = new ArrayList<>();
+        for (final Task task : getAllTasks()) {
+            if (task.getStartTime() != null) {
+                result.add(task);
+            }
+        }
+        for (final Subtask subtask : getAllSubtasks()) {
+            if (subtask.getStartTime() != null) {
+                result.add(subtask);
+            }
+        }
+        result.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getEndTime)
+                .thenComparingInt(Task::getId));
+        return result;
+    }
+
+    /**
+     * Создаёт задачи, эпики и подзадачи в порядке коллекции.
+     * Реализация по умолчанию создаёт их по одной.
+     *
+     * @param items новые сущности
+     * @return выданные ID в порядке коллекции
+     */
+    default int[] createAll(Collection<? extends Task> items) {
+        final int[] ids = new int[items.size()];
+        int i = 0;
+        for (final Task item : items) {
+            if (item instanceof Epic epic) {
+                ids[i++] = createEpic(epic);
+            } else if (item instanceof Subtask subtask) {
+                ids[i++] = createSubtask(subtask);
+            } else {
+                ids[i++] = createTask(item);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Обновляет задачи, эпики и подзадачи.
+     * Реализация по умолчанию обновляет их по одной.
+     *
+     * @param items изменённые сущности с заполненными ID
+     */
+    default void updateAll(Collection<? extends Task> items) {
+        for (final Task item : items) {
+            if (item instanceof Epic epic) {
+                updateEpic(epic);
+            } else if (item instanceof Subtask subtask) {
+                updateSubtask(subtask);
+            } else {
+                updateTask(item);
+            }
+        }
+    }
+
+    /**
+     * Удаляет сущности по ID; эпик удаляется вместе с подзадачами.
+     * Реализация по умолчанию удаляет их по одной.
+     *
+     * @param ids идентификаторы задач, эпиков и подзадач
+     */
+    default void deleteAll(Collection<Integer> ids) {
+        for (final int id : ids) {
+            deleteTask(id);
+            deleteEpic(id);
+            deleteSubtask(id);
+        }
+    }
+
 }
@@ -0,0 +1,13 @@
+package tracker.controllers;
+
+/**
+ * Исключение при пересечении задачи по времени с уже запланированной задачей или подзадачей.
+ * Наследуется от RuntimeException, как и {@link ManagerSaveException}.
+ */
+public class TaskOverlapException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TaskOverlapException(String message) {
+        super(message);
+    }
+}
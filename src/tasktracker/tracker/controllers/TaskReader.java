@@ -0,0 +1,33 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательное чтение сущностей из снимка.
+ */
+interface TaskReader extends Closeable {
+
+    /**
+     * Читает следующую сущность.
+     *
+     * @return задача, эпик или подзадача; {@code null}, если снимок закончился
+     */
+    Task next() throws IOException;
+
+    /**
+     * Водяной знак генератора ID из снимка; известен, когда {@link #next()} вернул {@code null}.
+     *
+     * @return следующий свободный ID или 0, если снимок его не хранит
+     */
+    int nextId();
+
+    /**
+     * Поколение журнала, учтённое снимком; известно, когда {@link #next()} вернул {@code null}.
+     *
+     * @return поколение журнала или 0, если снимок его не хранит
+     */
+    long journalGeneration();
+}
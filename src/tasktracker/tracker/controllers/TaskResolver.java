@@ -0,0 +1,18 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+/**
+ * Поиск сущности по типу и ID без побочных эффектов (в том числе без записи в историю).
+ */
+@FunctionalInterface
+public interface TaskResolver {
+
+    /**
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     * @return сущность или {@code null}, если её нет
+     */
+    Task find(TaskType type, int id);
+}
@@ -0,0 +1,86 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.util.PersistentIntMap;
+
+import java.util.List;
+
+/**
+ * Неизменяемое состояние менеджера на момент одной версии.
+ * <p>
+ * Сущности снимка — копии, сделанные при записи, а не живые объекты менеджера:
+ * последующие изменения в снимке не видны. Словари {@link PersistentIntMap}
+ * делят неизменённые узлы с соседними версиями, поэтому публикация версии
+ * копирует лишь изменённые сущности и пути к ним. Снимок можно читать из любых
+ * потоков без блокировок. Менять сущности снимка нельзя — изменения делаются
+ * через {@code update*} менеджера.
+ */
+public final class TaskSnapshot {
+
+    private final long version;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+
+    TaskSnapshot(final long version, final PersistentIntMap<Task> tasks, final PersistentIntMap<Epic> epics,
+                 final PersistentIntMap<Subtask> subtasks) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+    }
+
+    /**
+     * @return номер версии; растёт с каждым изменением менеджера
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return задачи снимка без копирования
+     */
+    public List<Task> getTasks() {
+        return tasks.values();
+    }
+
+    /**
+     * @return эпики снимка без копирования
+     */
+    public List<Epic> getEpics() {
+        return epics.values();
+    }
+
+    /**
+     * @return подзадачи снимка без копирования
+     */
+    public List<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    /**
+     * @param id идентификатор задачи
+     * @return задача или {@code null}
+     */
+    public Task getTask(final int id) {
+        return tasks.get(id);
+    }
+
+    /**
+     * @param id идентификатор эпика
+     * @return эпик или {@code null}
+     */
+    public Epic getEpic(final int id) {
+        return epics.get(id);
+    }
+
+    /**
+     * @param id идентификатор подзадачи
+     * @return подзадача или {@code null}
+     */
+    public Subtask getSubtask(final int id) {
+        return subtasks.get(id);
+    }
+}
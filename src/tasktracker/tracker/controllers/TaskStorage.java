@@ -0,0 +1,35 @@
+package tracker.controllers;
+
+import tracker.util.BoxedIntMap;
+import tracker.util.DenseIntMap;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+
+/**
+ * Способ хранения сущностей в InMemoryTaskManager по их ID.
+ */
+public enum TaskStorage {
+    /** HashMap с упакованными ключами — прежнее хранилище. */
+    HASH_MAP {
+        @Override
+        <V> IntMap<V> newMap() {
+            return new BoxedIntMap<>();
+        }
+    },
+    /** Открытая адресация по примитивным ключам, см. {@link IntHashMap}. */
+    OPEN_ADDRESSING {
+        @Override
+        <V> IntMap<V> newMap() {
+            return new IntHashMap<>();
+        }
+    },
+    /** Массив, индексированный ID, см. {@link DenseIntMap}; лучший выбор для плотных последовательных ID. */
+    DENSE_ARRAY {
+        @Override
+        <V> IntMap<V> newMap() {
+            return new DenseIntMap<>();
+        }
+    };
+
+    abstract <V> IntMap<V> newMap();
+}
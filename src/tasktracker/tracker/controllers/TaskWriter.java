@@ -0,0 +1,36 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательная запись сущностей в снимок.
+ * Подзадачи должны идти после своих эпиков.
+ */
+interface TaskWriter extends Closeable {
+
+    /**
+     * Записывает сущность.
+     *
+     * @param task задача, эпик или подзадача
+     */
+    void write(Task task) throws IOException;
+
+    /**
+     * Записывает водяной знак генератора ID — следующий свободный ID.
+     * Вызывается не более одного раза, после всех сущностей.
+     *
+     * @param nextId следующий свободный ID
+     */
+    void writeNextId(int nextId) throws IOException;
+
+    /**
+     * Записывает поколение журнала, все записи которого (и более ранних поколений) уже в снимке.
+     * Вызывается не более одного раза, после всех сущностей.
+     *
+     * @param generation поколение журнала; 0 — снимок не учитывает журнал
+     */
+    void writeJournalGeneration(long generation) throws IOException;
+}
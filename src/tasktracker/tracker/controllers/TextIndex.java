@@ -0,0 +1,428 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.model.TaskType;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+import tracker.util.IntSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Инвертированный индекс по названию и описанию задач, эпиков и подзадач.
+ * <p>
+ * Текст разбивается на слова (последовательности букв и цифр) в нижнем регистре.
+ * Для каждого слова хранятся множества ID сущностей, отдельное на каждый тип:
+ * поиск всегда идёт по одному типу и не перебирает чужие ID. Поиск слова — хеш-таблица;
+ * отдельное отсортированное множество слов меняется только при появлении
+ * и исчезновении слова, и по нему поиск по префиксу обходит только подходящие слова.
+ * <p>
+ * Запрос — слова через пробел, сущность должна содержать все; слово со звёздочкой
+ * на конце ({@code "отч*"}) ищется по префиксу.
+ * <p>
+ * Индекс держит оценку занятой памяти. Если она превысила бюджет, индекс
+ * освобождает всё, пишет предупреждение в журнал и становится недоступен
+ * ({@link #isAvailable()}, {@link #getOverflowCount()}); менеджер в этом случае ищет
+ * перебором, пока не перестроит индекс через {@link #clear()} и повторную индексацию.
+ * Класс не потокобезопасен.
+ */
+public final class TextIndex {
+
+    /** Бюджет памяти по умолчанию — 256 МиБ, около полумиллиона задач с описаниями. */
+    public static final long DEFAULT_BUDGET_BYTES = 256L << 20;
+
+    private static final System.Logger LOG = System.getLogger(TextIndex.class.getName());
+
+    private static final int TYPE_COUNT = TaskType.values().length;
+
+    /** Оценка памяти на слово: записи HashMap и TreeSet, объект строки, Postings с массивом по типам. */
+    private static final int TERM_OVERHEAD_BYTES = 48 + 40 + 24 + 16 + 32;
+
+    /** Оценка памяти на пустое IntSet вхождений одного типа. */
+    private static final int TYPE_POSTINGS_BYTES = 136;
+
+    /** Оценка памяти на вхождение с учётом запаса роста массивов IntSet. */
+    private static final int POSTING_BYTES = 18;
+
+    /** Оценка памяти на сущность: ячейка словаря документов и заголовок массива слов. */
+    private static final int DOCUMENT_OVERHEAD_BYTES = 32;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /** Те же слова в порядке сортировки — для поиска по префиксу. */
+    private final TreeSet<String> terms = new TreeSet<>();
+
+    /** Слова каждой проиндексированной сущности по типам — чтобы снять её из индекса после изменения на месте. */
+    private final IntMap<String[]>[] documents;
+
+    private final long budgetBytes;
+    private long estimatedBytes;
+    private boolean overflowed;
+    private int overflowCount;
+
+    /**
+     * @param budgetBytes бюджет памяти в байтах; 0 отключает индекс
+     */
+    public TextIndex(final long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Бюджет памяти не может быть отрицательным: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        this.overflowed = budgetBytes == 0;
+        this.documents = newDocuments();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static IntMap<String[]>[] newDocuments() {
+        final IntMap<String[]>[] documents = new IntMap[TYPE_COUNT];
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            documents[i] = new IntHashMap<>();
+        }
+        return documents;
+    }
+
+    /**
+     * Индексирует сущность заново по её текущим названию и описанию.
+     *
+     * @param task задача, эпик или подзадача с заполненным ID
+     */
+    public void index(final Task task) {
+        if (overflowed) {
+            return;
+        }
+        final int type = TaskType.of(task).ordinal();
+        final int id = task.getId();
+        unindex(type, id);
+
+        final Set<String> words = new HashSet<>();
+        tokenize(task.getName(), words);
+        tokenize(task.getDescription(), words);
+        final String[] documentTerms = new String[words.size()];
+        int i = 0;
+        for (final String word : words) {
+            documentTerms[i++] = addPosting(word, type, id);
+        }
+        documents[type].put(id, documentTerms);
+        estimatedBytes += DOCUMENT_OVERHEAD_BYTES + 4L * documentTerms.length;
+
+        if (estimatedBytes > budgetBytes) {
+            overflow();
+        }
+    }
+
+    private void overflow() {
+        int documentCount = 0;
+        for (final IntMap<String[]> typeDocuments : documents) {
+            documentCount += typeDocuments.size();
+        }
+        LOG.log(System.Logger.Level.WARNING,
+                "Текстовый индекс превысил бюджет {0} байт на {1} сущностях и отключён, поиск идёт перебором",
+                budgetBytes, documentCount);
+        overflowed = true;
+        overflowCount++;
+        release();
+    }
+
+    private void release() {
+        postings.clear();
+        terms.clear();
+        for (final IntMap<String[]> typeDocuments : documents) {
+            typeDocuments.clear();
+        }
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Убирает сущность из индекса.
+     *
+     * @param type тип сущности
+     * @param id   идентификатор сущности
+     */
+    public void remove(final TaskType type, final int id) {
+        if (!overflowed) {
+            unindex(type.ordinal(), id);
+        }
+    }
+
+    /**
+     * Очищает индекс; если он был переполнен — снова делает его доступным
+     * для повторной индексации.
+     */
+    public void clear() {
+        release();
+        overflowed = budgetBytes == 0;
+    }
+
+    /**
+     * Ищет сущности заданного типа, содержащие все слова запроса.
+     *
+     * @param type  тип сущностей
+     * @param query слова через пробел; слово со {@code *} на конце — префикс
+     * @return ID найденных сущностей по возрастанию
+     * @throws IllegalStateException если индекс отключён или переполнен
+     */
+    public int[] find(final TaskType type, final String query) {
+        if (overflowed) {
+            throw new IllegalStateException("Текстовый индекс недоступен");
+        }
+        final List<IntSet> matches = new ArrayList<>();
+        for (final Term term : parse(query)) {
+            final IntSet ids = term.prefix()
+                    ? unionByPrefix(term.text(), type.ordinal())
+                    : idsOf(term.text(), type.ordinal());
+            if (ids == null || ids.isEmpty()) {
+                return new int[0];
+            }
+            matches.add(ids);
+        }
+        if (matches.isEmpty()) {
+            return new int[0];
+        }
+
+        IntSet smallest = matches.get(0);
+        for (final IntSet ids : matches) {
+            if (ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        final int[] ids = new int[smallest.size()];
+        int count = 0;
+        for (int i = 0; i < smallest.size(); i++) {
+            final int id = smallest.get(i);
+            if (containedInAll(matches, id)) {
+                ids[count++] = id;
+            }
+        }
+        final int[] result = Arrays.copyOf(ids, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Проверка запроса на одной сущности без индекса — для поиска перебором.
+     * Семантика та же, что у {@link #find(TaskType, String)}.
+     *
+     * @param query слова через пробел; слово со {@code *} на конце — префикс
+     * @return предикат, истинный для сущностей, содержащих все слова запроса
+     */
+    public static Predicate<Task> matcher(final String query) {
+        final List<Term> terms = parse(query);
+        if (terms.isEmpty()) {
+            return task -> false;
+        }
+        return task -> {
+            final Set<String> words = new HashSet<>();
+            tokenize(task.getName(), words);
+            tokenize(task.getDescription(), words);
+            for (final Term term : terms) {
+                if (!containsTerm(words, term)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * @return {@code false}, если индекс отключён или переполнен и поиск должен идти перебором
+     */
+    public boolean isAvailable() {
+        return !overflowed;
+    }
+
+    /**
+     * @return сколько раз индекс превышал бюджет и отключался
+     */
+    public int getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * @return оценка занятой индексом памяти в байтах
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return бюджет памяти в байтах
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return число различных слов в индексе
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Разбивает текст на слова из букв и цифр в нижнем регистре.
+     *
+     * @param text текст; {@code null} даёт пустой список
+     * @return слова в порядке появления, с повторами
+     */
+    public static List<String> tokenize(final String text) {
+        final List<String> words = new ArrayList<>();
+        tokenize(text, words);
+        return words;
+    }
+
+    private static void tokenize(final String text, final Collection<String> words) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private static List<Term> parse(final String query) {
+        final List<Term> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (final String part : query.trim().split("\\s+")) {
+            final List<String> words = tokenize(part);
+            for (int i = 0; i < words.size(); i++) {
+                final boolean last = i == words.size() - 1;
+                terms.add(new Term(words.get(i), last && part.endsWith("*")));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Добавляет вхождение слова и возвращает экземпляр строки, хранимый в словаре,
+     * чтобы сущности не держали свои копии слов.
+     */
+    private String addPosting(final String word, final int type, final int id) {
+        Postings entry = postings.get(word);
+        if (entry == null) {
+            entry = new Postings(word, new IntSet[TYPE_COUNT]);
+            postings.put(word, entry);
+            terms.add(word);
+            estimatedBytes += TERM_OVERHEAD_BYTES + 2L * word.length();
+        }
+        IntSet ids = entry.ids()[type];
+        if (ids == null) {
+            ids = new IntSet();
+            entry.ids()[type] = ids;
+            estimatedBytes += TYPE_POSTINGS_BYTES;
+        }
+        ids.add(id);
+        estimatedBytes += POSTING_BYTES;
+        return entry.term();
+    }
+
+    private void unindex(final int type, final int id) {
+        final String[] documentTerms = documents[type].remove(id);
+        if (documentTerms == null) {
+            return;
+        }
+        for (final String term : documentTerms) {
+            final Postings entry = postings.get(term);
+            final IntSet ids = entry.ids()[type];
+            ids.remove(id);
+            estimatedBytes -= POSTING_BYTES;
+            if (ids.isEmpty()) {
+                entry.ids()[type] = null;
+                estimatedBytes -= TYPE_POSTINGS_BYTES;
+                if (entry.isEmpty()) {
+                    postings.remove(term);
+                    terms.remove(term);
+                    estimatedBytes -= TERM_OVERHEAD_BYTES + 2L * term.length();
+                }
+            }
+        }
+        estimatedBytes -= DOCUMENT_OVERHEAD_BYTES + 4L * documentTerms.length;
+    }
+
+    private IntSet idsOf(final String term, final int type) {
+        final Postings entry = postings.get(term);
+        return entry == null ? null : entry.ids()[type];
+    }
+
+    private IntSet unionByPrefix(final String prefix, final int type) {
+        final SortedSet<String> range = terms.subSet(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) {
+            return idsOf(range.first(), type);
+        }
+        final IntSet union = new IntSet();
+        for (final String term : range) {
+            final IntSet ids = idsOf(term, type);
+            if (ids != null) {
+                ids.forEach(union::add);
+            }
+        }
+        return union;
+    }
+
+    private static boolean containsTerm(final Set<String> words, final Term term) {
+        if (!term.prefix()) {
+            return words.contains(term.text());
+        }
+        for (final String word : words) {
+            if (word.startsWith(term.text())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containedInAll(final List<IntSet> matches, final int id) {
+        for (final IntSet ids : matches) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Слово запроса.
+     *
+     * @param text   слово в нижнем регистре
+     * @param prefix искать ли по префиксу
+     */
+    private record Term(String text, boolean prefix) {
+    }
+
+    /**
+     * Вхождения слова вместе с экземпляром самого слова, общим для всех сущностей.
+     *
+     * @param term слово
+     * @param ids  ID сущностей, содержащих слово, по порядковому номеру типа; {@code null} — ни одной
+     */
+    private record Postings(String term, IntSet[] ids) {
+
+        boolean isEmpty() {
+            for (final IntSet typeIds : ids) {
+                if (typeIds != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
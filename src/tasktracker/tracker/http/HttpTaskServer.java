@@ -0,0 +1,405 @@
+package tracker.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tracker.controllers.Managers;
+import tracker.controllers.ManagerSaveException;
+import tracker.controllers.TaskOverlapException;
+import tracker.controllers.TaskManager;
+import tracker.metrics.InstrumentedTaskManager;
+import tracker.metrics.MetricsRegistry;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP/JSON-интерфейс к {@link TaskManager} на {@code com.sun.net.httpserver}.
+ * <p>
+ * Каждый запрос выполняется в своём виртуальном потоке, поэтому число одновременных
+ * запросов не ограничено размером пула; менеджер должен быть потокобезопасным,
+ * например {@link tracker.controllers.ConcurrentTaskManager}.
+ * Ответы со списками пишутся потоково через {@link JsonWriter}.
+ * <p>
+ * Запросы соответствуют методам менеджера один к одному:
+ * <pre>
+ * GET    /tasks          getAllTasks        GET    /tasks/{id}     getTaskById
+ * POST   /tasks          createTask, если в теле нет id, иначе updateTask
+ * DELETE /tasks/{id}     deleteTask
+ * </pre>
+ * То же для {@code /epics} и {@code /subtasks}; {@code GET /history} — {@code getHistory},
+ * {@code GET /prioritized} — {@code getPrioritizedTasks}. Если серверу передан реестр метрик,
+ * {@code GET /metrics} отдаёт его в текстовом формате Prometheus.
+ * Создание отвечает 201 и {@code {"id": N}}, удаление — 204, отсутствующая сущность — 404
+ * (в том числе при обновлении), некорректный запрос — 400 (в том числе подзадача без эпика
+ * или с чужим эпиком), пересечение по времени — 406, ошибка сохранения и любая другая ошибка
+ * менеджера — 500 с {@code {"error": "..."}}.
+ * <p>
+ * Загрузка класса включает {@code TCP_NODELAY} для всех серверов {@code com.sun.net.httpserver}
+ * в процессе (свойство {@code sun.net.httpserver.nodelay}), если оно не задано явно: сервер JDK
+ * пишет заголовки и тело ответа отдельными пакетами, и с алгоритмом Нейгла второй пакет ждёт
+ * отложенного ACK клиента — около 40 мс на запрос. Чтобы оставить алгоритм Нейгла, задайте
+ * {@code -Dsun.net.httpserver.nodelay=false}.
+ */
+public class HttpTaskServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    static {
+        // См. описание класса. Свойство читается при создании первого сервера
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final TaskManager manager;
+    /** Метрики для {@code GET /metrics}; {@code null} — ресурса нет. */
+    private final MetricsRegistry metrics;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param manager потокобезопасный менеджер задач
+     * @param port    порт; 0 — любой свободный
+     */
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        this(manager, new InetSocketAddress(port));
+    }
+
+    /**
+     * @param manager потокобезопасный менеджер задач
+     * @param address адрес, на котором слушать
+     */
+    public HttpTaskServer(TaskManager manager, InetSocketAddress address) throws IOException {
+        this(manager, address, null);
+    }
+
+    /**
+     * @param manager потокобезопасный менеджер задач
+     * @param address адрес, на котором слушать
+     * @param metrics реестр, который отдаётся по {@code GET /metrics}; {@code null} — без метрик
+     */
+    public HttpTaskServer(TaskManager manager, InetSocketAddress address, MetricsRegistry metrics) throws IOException {
+        this.manager = manager;
+        this.metrics = metrics;
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MetricsRegistry metrics = new MetricsRegistry();
+        TaskManager manager = new InstrumentedTaskManager(Managers.getConcurrentTaskManager(), metrics);
+        HttpTaskServer server = new HttpTaskServer(manager, new InetSocketAddress(port), metrics);
+        metrics.registerMBeans("tracker");
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Останавливает сервер: новые соединения не принимаются, а запросы в обработке
+     * дорабатывают — метод возвращается, когда они завершены.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * @return порт, на котором слушает сервер
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (TaskOverlapException e) {
+                sendError(exchange, 406, e.getMessage());
+            } catch (ManagerSaveException e) {
+                sendError(exchange, 500, e.getMessage());
+            } catch (RuntimeException e) {
+                // Иначе сервер JDK молча закрыл бы соединение без ответа
+                sendError(exchange, 500, "Внутренняя ошибка: " + e);
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length < 2 || path.length > 3) {
+            sendError(exchange, 404, "Нет такого ресурса");
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        if (path[1].equals("metrics") && metrics != null) {
+            if (path.length != 2) {
+                sendError(exchange, 404, "Нет такого ресурса");
+            } else if (!method.equals("GET")) {
+                sendError(exchange, 405, "Метод не поддерживается");
+            } else {
+                sendMetrics(exchange);
+            }
+            return;
+        }
+        if (path[1].equals("history") || path[1].equals("prioritized")) {
+            if (path.length != 2) {
+                sendError(exchange, 404, "Нет такого ресурса");
+            } else if (!method.equals("GET")) {
+                sendError(exchange, 405, "Метод не поддерживается");
+            } else {
+                sendList(exchange, path[1].equals("history") ? manager.getHistory() : manager.getPrioritizedTasks());
+            }
+            return;
+        }
+        TaskType type = switch (path[1]) {
+            case "tasks" -> TaskType.TASK;
+            case "epics" -> TaskType.EPIC;
+            case "subtasks" -> TaskType.SUBTASK;
+            default -> null;
+        };
+        if (type == null) {
+            sendError(exchange, 404, "Нет такого ресурса");
+            return;
+        }
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendList(exchange, getAll(type));
+                case "POST" -> save(exchange, type);
+                default -> sendError(exchange, 405, "Метод не поддерживается");
+            }
+            return;
+        }
+        int id = parseId(path[2]);
+        switch (method) {
+            case "GET" -> {
+                Task task = getById(type, id);
+                if (task == null) {
+                    sendError(exchange, 404, "Не найдено: " + id);
+                } else {
+                    send(exchange, 200, json -> TaskJson.write(json, task));
+                }
+            }
+            case "DELETE" -> {
+                delete(type, id);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> sendError(exchange, 405, "Метод не поддерживается");
+        }
+    }
+
+    /**
+     * Создаёт сущность, если в теле нет ID, иначе обновляет существующую.
+     * Эпик подзадачи должен существовать, а при обновлении — совпадать с прежним.
+     */
+    private void save(HttpExchange exchange, TaskType type) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Task task = TaskJson.read(type, JsonReader.parseObject(body));
+        if (task instanceof Subtask subtask && manager.getEpicById(subtask.getEpicId()) == null) {
+            throw new IllegalArgumentException("Нет эпика " + subtask.getEpicId());
+        }
+        if (task.getId() == 0) {
+            int id = switch (type) {
+                case EPIC -> manager.createEpic((Epic) task);
+                case SUBTASK -> manager.createSubtask((Subtask) task);
+                default -> manager.createTask(task);
+            };
+            send(exchange, 201, json -> json.beginObject().name("id").value(id).endObject());
+            return;
+        }
+        switch (type) {
+            case EPIC -> {
+                // Подзадачи эпика живут в самом объекте эпика, поэтому меняем копию текущего
+                Epic current = manager.getEpicById(task.getId());
+                if (current == null) {
+                    sendError(exchange, 404, "Не найдено: " + task.getId());
+                    return;
+                }
+                Epic updated = new Epic(current);
+                updated.setName(task.getName());
+                updated.setDescription(task.getDescription());
+                manager.updateEpic(updated);
+            }
+            case SUBTASK -> {
+                Subtask current = manager.getSubtaskById(task.getId());
+                if (current == null) {
+                    sendError(exchange, 404, "Не найдено: " + task.getId());
+                    return;
+                }
+                if (current.getEpicId() != ((Subtask) task).getEpicId()) {
+                    throw new IllegalArgumentException("Подзадачу " + task.getId() + " нельзя перенести в другой эпик");
+                }
+                manager.updateSubtask((Subtask) task);
+            }
+            default -> {
+                if (manager.getTaskById(task.getId()) == null) {
+                    sendError(exchange, 404, "Не найдено: " + task.getId());
+                    return;
+                }
+                manager.updateTask(task);
+            }
+        }
+        send(exchange, 200, json -> json.beginObject().name("id").value(task.getId()).endObject());
+    }
+
+    private List<? extends Task> getAll(TaskType type) {
+        return switch (type) {
+            case EPIC -> manager.getAllEpics();
+            case SUBTASK -> manager.getAllSubtasks();
+            default -> manager.getAllTasks();
+        };
+    }
+
+    private Task getById(TaskType type, int id) {
+        return switch (type) {
+            case EPIC -> manager.getEpicById(id);
+            case SUBTASK -> manager.getSubtaskById(id);
+            default -> manager.getTaskById(id);
+        };
+    }
+
+    private void delete(TaskType type, int id) {
+        switch (type) {
+            case EPIC -> manager.deleteEpic(id);
+            case SUBTASK -> manager.deleteSubtask(id);
+            default -> manager.deleteTask(id);
+        }
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный ID: " + text);
+        }
+    }
+
+    private static void sendList(HttpExchange exchange, List<? extends Task> tasks) throws IOException {
+        send(exchange, 200, json -> {
+            json.beginArray();
+            for (Task task : tasks) {
+                TaskJson.write(json, task);
+            }
+            json.endArray();
+        });
+    }
+
+    private void sendMetrics(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", MetricsRegistry.TEXT_CONTENT_TYPE);
+        try (Writer writer = new OutputStreamWriter(new ResponseStream(exchange, 200), StandardCharsets.UTF_8)) {
+            metrics.writeText(writer);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    /**
+     * Отправляет ответ: короткое тело — одним пакетом с {@code Content-Length},
+     * длинное — потоком (chunked), не собирая его целиком в памяти.
+     */
+    private static void send(HttpExchange exchange, int status, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        try (Writer writer = new OutputStreamWriter(new ResponseStream(exchange, status), StandardCharsets.UTF_8)) {
+            body.write(new JsonWriter(writer));
+        }
+    }
+
+    /**
+     * Запись тела ответа.
+     */
+    @FunctionalInterface
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Тело ответа, которое копится в буфере, пока не превысит его размер.
+     * Небольшой ответ уходит целиком с известной длиной, без обрамления chunked и лишних пакетов;
+     * большой после переполнения буфера отправляется потоком.
+     */
+    private static final class ResponseStream extends OutputStream {
+        private static final int BUFFER_SIZE = 16 * 1024;
+
+        private final HttpExchange exchange;
+        private final int status;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count;
+        private OutputStream chunked;
+
+        ResponseStream(HttpExchange exchange, int status) {
+            this.exchange = exchange;
+            this.status = status;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    drain();
+                }
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (chunked == null) {
+                exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+                chunked = exchange.getResponseBody();
+            }
+            chunked.write(buffer, 0, count);
+            count = 0;
+            chunked.close();
+        }
+
+        private void drain() throws IOException {
+            if (chunked == null) {
+                exchange.sendResponseHeaders(status, 0);
+                chunked = exchange.getResponseBody();
+            }
+            chunked.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package tracker.http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбор тела запроса: небольшой рекурсивный разборщик JSON без рефлексии.
+ * <p>
+ * Объект становится {@link Map} в порядке полей, массив — {@link List}, число — {@link Long}
+ * (дробные — {@link Double}), остальное — {@link String}, {@link Boolean} или {@code null}.
+ * Ошибка синтаксиса — {@link IllegalArgumentException} с позицией.
+ */
+final class JsonReader {
+
+    private final String text;
+    private int position;
+
+    private JsonReader(final String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text JSON-объект
+     * @return поля объекта
+     * @throws IllegalArgumentException если текст — не один JSON-объект
+     */
+    static Map<String, Object> parseObject(final String text) {
+        final JsonReader reader = new JsonReader(text);
+        reader.skipWhitespace();
+        if (reader.peek() != '{') {
+            throw reader.error("Ожидался объект");
+        }
+        final Object value = reader.value();
+        reader.skipWhitespace();
+        if (reader.position != text.length()) {
+            throw reader.error("Лишние символы после объекта");
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> object = (Map<String, Object>) value;
+        return object;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        final char c = peek();
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield number();
+                }
+                throw error("Неожиданный символ");
+            }
+        };
+    }
+
+    private Map<String, Object> object() {
+        final Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Ожидалось имя поля");
+            }
+            final String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        final List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        position++;
+        final StringBuilder result = new StringBuilder();
+        int start = position;
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Незакрытая строка");
+            }
+            final char c = text.charAt(position);
+            if (c == '"') {
+                result.append(text, start, position++);
+                return result.toString();
+            }
+            if (c < 0x20) {
+                throw error("Управляющий символ в строке");
+            }
+            if (c != '\\') {
+                position++;
+                continue;
+            }
+            result.append(text, start, position);
+            if (position + 1 >= text.length()) {
+                throw error("Незакрытая строка");
+            }
+            final char escaped = text.charAt(position + 1);
+            position += 2;
+            switch (escaped) {
+                case '"', '\\', '/' -> result.append(escaped);
+                case 'b' -> result.append('\b');
+                case 'f' -> result.append('\f');
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 't' -> result.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Обрезанная последовательность \\u");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Некорректная последовательность \\u");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Некорректное экранирование");
+            }
+            start = position;
+        }
+    }
+
+    private Object number() {
+        final int start = position;
+        boolean fraction = false;
+        while (position < text.length()) {
+            final char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                fraction = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        final String number = text.substring(start, position);
+        try {
+            return fraction ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Некорректное число " + number);
+        }
+    }
+
+    private Object literal(final String literal, final Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Неожиданный символ");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void expect(final char c) {
+        if (peek() != c) {
+            throw error("Ожидался символ '" + c + "'");
+        }
+        position++;
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("Неожиданный конец");
+        }
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length()) {
+            final char c = text.charAt(position);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " в позиции " + position);
+    }
+}
@@ -0,0 +1,158 @@
+package tracker.http;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Потоковая запись JSON без рефлексии и промежуточного дерева.
+ * <p>
+ * Значения пишутся сразу в {@link Writer} по мере вызовов, поэтому ответ со списком
+ * из миллиона задач не собирается целиком в памяти. Запятые расставляются сами;
+ * правильную вложенность {@code begin*}/{@code end*} и пары «имя — значение» обеспечивает вызывающий.
+ */
+public final class JsonWriter implements Flushable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    /** Для каждого уровня вложенности: было ли на нём уже значение. */
+    private boolean[] hasValue = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * @param out куда писать; буферизация — забота вызывающего
+     */
+    public JsonWriter(final Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * @param name имя поля объекта; следующий вызов должен записать его значение
+     */
+    public JsonWriter name(final String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * @param value строка или {@code null}
+     */
+    public JsonWriter value(final String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(final long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(final boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        out.write("null");
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter open(final char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        if (++depth == hasValue.length) {
+            hasValue = Arrays.copyOf(hasValue, depth * 2);
+        }
+        hasValue[depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(final char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Нет открытого объекта или массива");
+        }
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    /**
+     * Ставит запятую перед вторым и следующими значениями уровня, кроме значения сразу после имени.
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasValue[depth]) {
+            out.write(',');
+        }
+        hasValue[depth] = true;
+    }
+
+    /**
+     * Пишет строку в кавычках; участки без экранирования уходят одним вызовом.
+     */
+    private void string(final String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+}
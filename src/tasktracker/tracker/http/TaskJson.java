@@ -0,0 +1,132 @@
+package tracker.http;
+
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * JSON-представление задач, эпиков и подзадач.
+ * <p>
+ * Поля: {@code id}, {@code type}, {@code name}, {@code description}, {@code status};
+ * у подзадачи ещё {@code epicId}, у эпика — {@code subtaskIds}.
+ * Время — {@code startTime}, {@code duration} и {@code endTime} в ISO-8601
+ * ({@code 2024-05-01T10:00}, {@code PT1H30M}) или {@code null}; длительность в теле
+ * запроса можно передать и целым числом минут. {@code endTime} только для чтения.
+ */
+final class TaskJson {
+
+    private TaskJson() {
+    }
+
+    /**
+     * Пишет сущность объектом JSON.
+     *
+     * @param json куда писать
+     * @param task задача, эпик или подзадача
+     */
+    static void write(final JsonWriter json, final Task task) throws IOException {
+        json.beginObject()
+                .name("id").value(task.getId())
+                .name("type").value(TaskType.of(task).name())
+                .name("name").value(task.getName())
+                .name("description").value(task.getDescription())
+                .name("status").value(task.getStatus() == null ? null : task.getStatus().name())
+                .name("startTime").value(task.getStartTime() == null ? null : task.getStartTime().toString())
+                .name("duration").value(task.getDuration() == null ? null : task.getDuration().toString())
+                .name("endTime").value(task.getEndTime() == null ? null : task.getEndTime().toString());
+        if (task instanceof Subtask subtask) {
+            json.name("epicId").value(subtask.getEpicId());
+        } else if (task instanceof Epic epic) {
+            json.name("subtaskIds").beginArray();
+            for (final int id : epic.getSubtaskIds()) {
+                json.value(id);
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    /**
+     * Собирает сущность из полей тела запроса. Статус и время эпика не читаются — их считает менеджер.
+     *
+     * @param type тип сущности по пути запроса
+     * @param json поля объекта
+     * @return новая сущность; ID 0, если его нет в теле
+     * @throws IllegalArgumentException если поле отсутствует или имеет не тот тип
+     */
+    static Task read(final TaskType type, final Map<String, Object> json) {
+        final String name = string(json, "name", true);
+        final String description = string(json, "description", false);
+        final Task task = switch (type) {
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, integer(json, "epicId", true));
+            default -> new Task(name, description);
+        };
+        task.setId(integer(json, "id", false));
+        final String status = string(json, "status", false);
+        if (status != null && type != TaskType.EPIC) {
+            try {
+                task.setStatus(Status.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный статус: " + status);
+            }
+        }
+        if (type != TaskType.EPIC) {
+            final String startTime = string(json, "startTime", false);
+            try {
+                task.setStartTime(startTime == null ? null : LocalDateTime.parse(startTime));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректное время начала: " + startTime);
+            }
+            task.setDuration(duration(json.get("duration")));
+        }
+        return task;
+    }
+
+    private static Duration duration(final Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Long minutes) {
+            return Duration.ofMinutes(minutes);
+        }
+        if (value instanceof String text) {
+            try {
+                return Duration.parse(text);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректная длительность: " + text);
+            }
+        }
+        throw new IllegalArgumentException("Поле duration должно быть строкой ISO-8601 или числом минут");
+    }
+
+    private static String string(final Map<String, Object> json, final String field, final boolean required) {
+        final Object value = json.get(field);
+        if (value == null && !required) {
+            return null;
+        }
+        if (!(value instanceof String text)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть строкой");
+        }
+        return text;
+    }
+
+    private static int integer(final Map<String, Object> json, final String field, final boolean required) {
+        final Object value = json.get(field);
+        if (value == null && !required) {
+            return 0;
+        }
+        if (!(value instanceof Long number) || number != number.intValue()) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть целым числом");
+        }
+        return number.intValue();
+    }
+}
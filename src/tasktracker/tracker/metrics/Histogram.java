@@ -0,0 +1,147 @@
+package tracker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма неотрицательных значений с логарифмически-линейными корзинами в духе HdrHistogram.
+ * <p>
+ * Значения меньше {@value #LINEAR} хранятся точно, каждый следующий диапазон {@code [2^k, 2^(k+1))}
+ * делится на {@value #SUB_BUCKETS} равных корзин, поэтому относительная погрешность
+ * перцентиля не больше 1/{@value #SUB_BUCKETS} (~3%) во всём диапазоне {@code long}.
+ * Запись — один атомарный инкремент корзины и счётчики без блокировок; память постоянна
+ * и не зависит от числа значений.
+ * <p>
+ * Чтение не согласовано с конкурентной записью: перцентили считаются по корзинам,
+ * которые в этот момент продолжают меняться, что для мониторинга допустимо.
+ */
+public final class Histogram implements HistogramMXBean {
+
+    /** Число корзин на диапазон удвоения; степень двойки. */
+    public static final int SUB_BUCKETS = 32;
+    /** Значения ниже этой границы попадают каждое в свою корзину. */
+    static final int LINEAR = SUB_BUCKETS * 2;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int LINEAR_BITS = SUB_BITS + 1;
+    /** Корзин хватает до {@code Long.MAX_VALUE}: старший бит значения не выше 62. */
+    private static final int BUCKETS = LINEAR + (63 - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записывает значение; отрицательное считается нулём.
+     *
+     * @param value значение, например время в наносекундах или размер в байтах
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        counts.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Возвращает значение, не меньше которого не больше {@code 100 - percentile} процентов записей:
+     * верхнюю границу корзины, но не больше наибольшего записанного значения.
+     *
+     * @param percentile перцентиль от 0 до 100
+     * @return значение перцентиля; 0, если записей нет
+     */
+    public long valueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("Перцентиль должен быть от 0 до 100: " + percentile);
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public double getMean() {
+        final long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getP50() {
+        return valueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90() {
+        return valueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99() {
+        return valueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999() {
+        return valueAtPercentile(99.9);
+    }
+
+    /**
+     * @return номер корзины значения
+     */
+    static int bucket(final long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = magnitude - SUB_BITS;
+        final int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR + (magnitude - LINEAR_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return наибольшее значение, попадающее в корзину
+     */
+    static long upperBound(final int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        final int magnitude = (bucket - LINEAR) / SUB_BUCKETS + LINEAR_BITS;
+        final int shift = magnitude - SUB_BITS;
+        final long sub = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,23 @@
+package tracker.metrics;
+
+/**
+ * Атрибуты {@link Histogram}, видимые через JMX.
+ */
+public interface HistogramMXBean {
+
+    long getCount();
+
+    long getSum();
+
+    long getMax();
+
+    double getMean();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+}
@@ -0,0 +1,97 @@
+package tracker.metrics;
+
+import tracker.controllers.HistoryManager;
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.model.Task;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Обёртка над {@link HistoryManager}, которая измеряет время операций истории
+ * ({@code history_add_nanos}, {@code history_remove_nanos}, {@code history_get_nanos}),
+ * размер возвращаемой истории ({@code history_size}) и текущее число записей
+ * ({@code history_entries}).
+ * <p>
+ * Подключается к {@link tracker.controllers.InMemoryTaskManager} через фабрику истории:
+ * {@code new InMemoryTaskManager(storage, resolver -> new InstrumentedHistoryManager(history, registry))}.
+ */
+public class InstrumentedHistoryManager implements HistoryManager {
+
+    private final HistoryManager delegate;
+    private final Histogram add;
+    private final Histogram remove;
+    private final Histogram get;
+    private final Histogram size;
+
+    /**
+     * @param delegate история, операции которой измеряются
+     * @param registry реестр, в котором заводятся метрики
+     */
+    public InstrumentedHistoryManager(final HistoryManager delegate, final MetricsRegistry registry) {
+        this.delegate = delegate;
+        add = registry.histogram("history_add_nanos");
+        remove = registry.histogram("history_remove_nanos");
+        get = registry.histogram("history_get_nanos");
+        size = registry.histogram("history_size");
+        // Размер InMemoryHistoryManager известен без копирования истории
+        registry.gauge("history_entries", delegate instanceof InMemoryHistoryManager memory
+                ? memory::size : () -> delegate.getHistory().size());
+    }
+
+    @Override
+    public void add(final Task task) {
+        final long start = System.nanoTime();
+        try {
+            delegate.add(task);
+        } finally {
+            add.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void remove(final int id) {
+        final long start = System.nanoTime();
+        try {
+            delegate.remove(id);
+        } finally {
+            remove.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        final long start = System.nanoTime();
+        final List<Task> history;
+        try {
+            history = delegate.getHistory();
+        } finally {
+            get.record(System.nanoTime() - start);
+        }
+        size.record(history.size());
+        return history;
+    }
+
+    @Override
+    public List<Task> getHistory(final int offset, final int limit) {
+        final long start = System.nanoTime();
+        final List<Task> page;
+        try {
+            page = delegate.getHistory(offset, limit);
+        } finally {
+            get.record(System.nanoTime() - start);
+        }
+        size.record(page.size());
+        return page;
+    }
+
+    @Override
+    public Iterator<Task> recentFirst() {
+        return delegate.recentFirst();
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        return delegate.snapshot();
+    }
+}
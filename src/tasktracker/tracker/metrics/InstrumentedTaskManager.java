@@ -0,0 +1,420 @@
+package tracker.metrics;
+
+import tracker.controllers.FileBackedTaskManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.controllers.TaskManager;
+import tracker.controllers.TaskResolver;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обёртка над любым {@link TaskManager}, которая измеряет его операции.
+ * <p>
+ * На каждую операцию заводятся гистограмма времени {@code task_manager_<операция>_nanos}
+ * и счётчик исключений {@code task_manager_<операция>_errors_total}. Если менеджер — наследник
+ * {@link InMemoryTaskManager}, после одиночных операций с подзадачами и эпиками записывается
+ * число подзадач затронутого эпика ({@code task_manager_epic_fanout}). Для
+ * {@link FileBackedTaskManager} дополнительно пишутся размер и время записи каждого снимка
+ * ({@code task_manager_snapshot_bytes}, {@code task_manager_snapshot_nanos}).
+ * <p>
+ * Накладные расходы — два вызова {@link System#nanoTime()} и запись в гистограмму без блокировок;
+ * метрики ищутся по имени один раз в конструкторе. Обёртка потокобезопасна настолько же,
+ * насколько менеджер, который она оборачивает.
+ */
+public class InstrumentedTaskManager implements TaskManager {
+
+    private static final String PREFIX = "task_manager_";
+
+    private final TaskManager delegate;
+    /** Поиск без записи в историю; {@code null}, если менеджер его не даёт. */
+    private final TaskResolver resolver;
+    private final Histogram epicFanout;
+
+    private final Operation createTask;
+    private final Operation createEpic;
+    private final Operation createSubtask;
+    private final Operation getTaskById;
+    private final Operation getEpicById;
+    private final Operation getSubtaskById;
+    private final Operation getAllTasks;
+    private final Operation getAllEpics;
+    private final Operation getAllSubtasks;
+    private final Operation getByStatus;
+    private final Operation updateTask;
+    private final Operation updateEpic;
+    private final Operation updateSubtask;
+    private final Operation deleteTask;
+    private final Operation deleteEpic;
+    private final Operation deleteSubtask;
+    private final Operation getHistory;
+    private final Operation getPrioritizedTasks;
+    private final Operation createAll;
+    private final Operation updateAll;
+    private final Operation deleteAll;
+
+    /**
+     * @param delegate менеджер, операции которого измеряются
+     * @param registry реестр, в котором заводятся метрики
+     */
+    public InstrumentedTaskManager(final TaskManager delegate, final MetricsRegistry registry) {
+        this.delegate = delegate;
+        resolver = delegate instanceof InMemoryTaskManager memory ? memory.resolver() : null;
+        epicFanout = registry.histogram(PREFIX + "epic_fanout");
+        createTask = new Operation(registry, "create_task");
+        createEpic = new Operation(registry, "create_epic");
+        createSubtask = new Operation(registry, "create_subtask");
+        getTaskById = new Operation(registry, "get_task");
+        getEpicById = new Operation(registry, "get_epic");
+        getSubtaskById = new Operation(registry, "get_subtask");
+        getAllTasks = new Operation(registry, "get_all_tasks");
+        getAllEpics = new Operation(registry, "get_all_epics");
+        getAllSubtasks = new Operation(registry, "get_all_subtasks");
+        getByStatus = new Operation(registry, "get_by_status");
+        updateTask = new Operation(registry, "update_task");
+        updateEpic = new Operation(registry, "update_epic");
+        updateSubtask = new Operation(registry, "update_subtask");
+        deleteTask = new Operation(registry, "delete_task");
+        deleteEpic = new Operation(registry, "delete_epic");
+        deleteSubtask = new Operation(registry, "delete_subtask");
+        getHistory = new Operation(registry, "get_history");
+        getPrioritizedTasks = new Operation(registry, "get_prioritized_tasks");
+        createAll = new Operation(registry, "create_all");
+        updateAll = new Operation(registry, "update_all");
+        deleteAll = new Operation(registry, "delete_all");
+        if (delegate instanceof FileBackedTaskManager fileBacked) {
+            final Histogram bytes = registry.histogram(PREFIX + "snapshot_bytes");
+            final Histogram nanos = registry.histogram(PREFIX + "snapshot_nanos");
+            fileBacked.setSnapshotListener((size, elapsed) -> {
+                bytes.record(size);
+                nanos.record(elapsed);
+            });
+        }
+    }
+
+    /**
+     * @return измеряемый менеджер
+     */
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public int createTask(final Task task) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.createTask(task);
+        } catch (RuntimeException e) {
+            createTask.failed();
+            throw e;
+        } finally {
+            createTask.record(start);
+        }
+    }
+
+    @Override
+    public int createEpic(final Epic epic) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.createEpic(epic);
+        } catch (RuntimeException e) {
+            createEpic.failed();
+            throw e;
+        } finally {
+            createEpic.record(start);
+        }
+    }
+
+    @Override
+    public int createSubtask(final Subtask subtask) {
+        final long start = System.nanoTime();
+        final int id;
+        try {
+            id = delegate.createSubtask(subtask);
+        } catch (RuntimeException e) {
+            createSubtask.failed();
+            throw e;
+        } finally {
+            createSubtask.record(start);
+        }
+        recordFanout(subtask.getEpicId());
+        return id;
+    }
+
+    @Override
+    public Task getTaskById(final int id) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getTaskById(id);
+        } catch (RuntimeException e) {
+            getTaskById.failed();
+            throw e;
+        } finally {
+            getTaskById.record(start);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(final int id) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getEpicById(id);
+        } catch (RuntimeException e) {
+            getEpicById.failed();
+            throw e;
+        } finally {
+            getEpicById.record(start);
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskById(final int id) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSubtaskById(id);
+        } catch (RuntimeException e) {
+            getSubtaskById.failed();
+            throw e;
+        } finally {
+            getSubtaskById.record(start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getAllTasks();
+        } catch (RuntimeException e) {
+            getAllTasks.failed();
+            throw e;
+        } finally {
+            getAllTasks.record(start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getAllEpics();
+        } catch (RuntimeException e) {
+            getAllEpics.failed();
+            throw e;
+        } finally {
+            getAllEpics.record(start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getAllSubtasks();
+        } catch (RuntimeException e) {
+            getAllSubtasks.failed();
+            throw e;
+        } finally {
+            getAllSubtasks.record(start);
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(final Status status, final TaskType type) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getByStatus(status, type);
+        } catch (RuntimeException e) {
+            getByStatus.failed();
+            throw e;
+        } finally {
+            getByStatus.record(start);
+        }
+    }
+
+    @Override
+    public void updateTask(final Task task) {
+        final long start = System.nanoTime();
+        try {
+            delegate.updateTask(task);
+        } catch (RuntimeException e) {
+            updateTask.failed();
+            throw e;
+        } finally {
+            updateTask.record(start);
+        }
+    }
+
+    @Override
+    public void updateEpic(final Epic epic) {
+        final long start = System.nanoTime();
+        try {
+            delegate.updateEpic(epic);
+        } catch (RuntimeException e) {
+            updateEpic.failed();
+            throw e;
+        } finally {
+            updateEpic.record(start);
+        }
+        recordFanout(epic.getId());
+    }
+
+    @Override
+    public void updateSubtask(final Subtask subtask) {
+        final long start = System.nanoTime();
+        try {
+            delegate.updateSubtask(subtask);
+        } catch (RuntimeException e) {
+            updateSubtask.failed();
+            throw e;
+        } finally {
+            updateSubtask.record(start);
+        }
+        recordFanout(subtask.getEpicId());
+    }
+
+    @Override
+    public void deleteTask(final int id) {
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteTask(id);
+        } catch (RuntimeException e) {
+            deleteTask.failed();
+            throw e;
+        } finally {
+            deleteTask.record(start);
+        }
+    }
+
+    @Override
+    public void deleteEpic(final int id) {
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteEpic(id);
+        } catch (RuntimeException e) {
+            deleteEpic.failed();
+            throw e;
+        } finally {
+            deleteEpic.record(start);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(final int id) {
+        // Эпик ищется до удаления: после него подзадачи уже нет
+        final Task subtask = resolver == null ? null : resolver.find(TaskType.SUBTASK, id);
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteSubtask(id);
+        } catch (RuntimeException e) {
+            deleteSubtask.failed();
+            throw e;
+        } finally {
+            deleteSubtask.record(start);
+        }
+        if (subtask instanceof Subtask removed) {
+            recordFanout(removed.getEpicId());
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } catch (RuntimeException e) {
+            getHistory.failed();
+            throw e;
+        } finally {
+            getHistory.record(start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedTasks();
+        } catch (RuntimeException e) {
+            getPrioritizedTasks.failed();
+            throw e;
+        } finally {
+            getPrioritizedTasks.record(start);
+        }
+    }
+
+    @Override
+    public int[] createAll(final Collection<? extends Task> items) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.createAll(items);
+        } catch (RuntimeException e) {
+            createAll.failed();
+            throw e;
+        } finally {
+            createAll.record(start);
+        }
+    }
+
+    @Override
+    public void updateAll(final Collection<? extends Task> items) {
+        final long start = System.nanoTime();
+        try {
+            delegate.updateAll(items);
+        } catch (RuntimeException e) {
+            updateAll.failed();
+            throw e;
+        } finally {
+            updateAll.record(start);
+        }
+    }
+
+    @Override
+    public void deleteAll(final Collection<Integer> ids) {
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteAll(ids);
+        } catch (RuntimeException e) {
+            deleteAll.failed();
+            throw e;
+        } finally {
+            deleteAll.record(start);
+        }
+    }
+
+    /**
+     * Записывает число подзадач эпика после операции, если менеджер даёт поиск без истории.
+     */
+    private void recordFanout(final int epicId) {
+        if (resolver != null && resolver.find(TaskType.EPIC, epicId) instanceof Epic epic) {
+            epicFanout.record(epic.getSubtaskCount());
+        }
+    }
+
+    /**
+     * Метрики одной операции: время и число исключений.
+     */
+    private static final class Operation {
+        private final Histogram latency;
+        private final LongAdder errors;
+
+        Operation(final MetricsRegistry registry, final String name) {
+            latency = registry.histogram(PREFIX + name + "_nanos");
+            errors = registry.counter(PREFIX + name + "_errors_total");
+        }
+
+        void record(final long start) {
+            latency.record(System.nanoTime() - start);
+        }
+
+        void failed() {
+            errors.increment();
+        }
+    }
+}
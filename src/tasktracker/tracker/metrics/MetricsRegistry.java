@@ -0,0 +1,218 @@
+package tracker.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Именованные метрики: гистограммы {@link Histogram}, счётчики и показатели.
+ * <p>
+ * Метрика создаётся при первом обращении по имени и дальше переиспользуется,
+ * поэтому обёртки получают её один раз при создании и не ищут на каждой операции.
+ * Наружу метрики отдаются текстом в формате Prometheus ({@link #writeText(Writer)})
+ * и через JMX ({@link #registerMBeans(String)}).
+ */
+public final class MetricsRegistry implements MetricsRegistryMXBean {
+
+    /** Тип содержимого текстового формата для HTTP-ответа. */
+    public static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /** Домен JMX, если MBean'ы зарегистрированы; гистограммы, созданные позже, регистрируются сразу. */
+    private String domain;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    /**
+     * @param name имя гистограммы
+     * @return гистограмма с этим именем, созданная при первом обращении
+     */
+    public Histogram histogram(final String name) {
+        final Histogram existing = histograms.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        checkName(name);
+        synchronized (this) {
+            Histogram histogram = histograms.get(name);
+            if (histogram == null) {
+                histogram = new Histogram();
+                histograms.put(name, histogram);
+                if (domain != null) {
+                    register(histogramName(domain, name), histogram);
+                }
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * @param name имя счётчика; по соглашению оканчивается на {@code _total}
+     * @return счётчик с этим именем, созданный при первом обращении
+     */
+    public LongAdder counter(final String name) {
+        final LongAdder existing = counters.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        checkName(name);
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Регистрирует показатель, значение которого читается в момент выгрузки.
+     * Повторная регистрация заменяет источник.
+     *
+     * @param name     имя показателя
+     * @param supplier источник значения; вызывается из потока, читающего метрики
+     */
+    public void gauge(final String name, final LongSupplier supplier) {
+        checkName(name);
+        gauges.put(name, supplier);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getAsLong());
+        }
+        return result;
+    }
+
+    /**
+     * Пишет все метрики в текстовом формате Prometheus 0.0.4, отсортированные по имени:
+     * гистограмму — как {@code summary} с квантилями, {@code _sum}, {@code _count} и {@code _max}.
+     *
+     * @param out получатель текста
+     * @throws IOException если запись не удалась
+     */
+    public void writeText(final Writer out) throws IOException {
+        for (final Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            final String name = entry.getKey();
+            final Histogram histogram = entry.getValue();
+            out.write("# TYPE " + name + " summary\n");
+            for (final double quantile : QUANTILES) {
+                out.write(name + "{quantile=\"" + quantile + "\"} "
+                        + histogram.valueAtPercentile(quantile * 100) + '\n');
+            }
+            out.write(name + "_sum " + histogram.getSum() + '\n');
+            out.write(name + "_count " + histogram.getCount() + '\n');
+            out.write(name + "_max " + histogram.getMax() + '\n');
+        }
+        for (final Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            out.write("# TYPE " + entry.getKey() + " counter\n");
+            out.write(entry.getKey() + ' ' + entry.getValue().sum() + '\n');
+        }
+        for (final Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            out.write("# TYPE " + entry.getKey() + " gauge\n");
+            out.write(entry.getKey() + ' ' + entry.getValue().getAsLong() + '\n');
+        }
+    }
+
+    /**
+     * @return все метрики в текстовом формате, как {@link #writeText(Writer)}
+     */
+    public String scrape() {
+        final StringWriter out = new StringWriter();
+        try {
+            writeText(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Регистрирует реестр ({@code domain:type=Metrics}) и каждую гистограмму
+     * ({@code domain:type=Histogram,name=...}) в платформенном MBeanServer.
+     *
+     * @param domain домен имён JMX, например {@code tracker}
+     * @throws IllegalStateException если MBean'ы уже зарегистрированы или имя занято
+     */
+    public synchronized void registerMBeans(final String domain) {
+        if (this.domain != null) {
+            throw new IllegalStateException("MBean'ы уже зарегистрированы в домене " + this.domain);
+        }
+        this.domain = domain;
+        try {
+            register(objectName(domain + ":type=Metrics"), this);
+            for (final Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                register(histogramName(domain, entry.getKey()), entry.getValue());
+            }
+        } catch (RuntimeException e) {
+            unregisterMBeans();
+            throw e;
+        }
+    }
+
+    /**
+     * Снимает с регистрации все MBean'ы реестра; без зарегистрированных ничего не делает.
+     */
+    public synchronized void unregisterMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (final ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // Уже снят снаружи
+            }
+        }
+        registered.clear();
+        domain = null;
+    }
+
+    private void register(final ObjectName name, final Object bean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать MBean " + name, e);
+        }
+        registered.add(name);
+    }
+
+    private static ObjectName histogramName(final String domain, final String name) {
+        return objectName(domain + ":type=Histogram,name=" + name);
+    }
+
+    private static ObjectName objectName(final String name) {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Некорректное имя JMX: " + name, e);
+        }
+    }
+
+    private static void checkName(final String name) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Некорректное имя метрики: " + name);
+        }
+    }
+}
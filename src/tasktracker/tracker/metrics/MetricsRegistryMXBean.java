@@ -0,0 +1,20 @@
+package tracker.metrics;
+
+import java.util.Map;
+
+/**
+ * Атрибуты {@link MetricsRegistry}, видимые через JMX. Гистограммы регистрируются
+ * отдельными MBean'ами {@code type=Histogram,name=...}.
+ */
+public interface MetricsRegistryMXBean {
+
+    /**
+     * @return значения счётчиков по именам
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return текущие значения показателей по именам
+     */
+    Map<String, Long> getGauges();
+}
@@ -1,14 +1,74 @@
 package tracker.model;
 
-import java.util.ArrayList;
+import tracker.util.PersistentIntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 
 /**
  * Класс Эпик
+ * <p>
+ * ID подзадач хранятся в неизменяемых словарях {@link PersistentIntMap}, по одному на статус,
+ * с которым подзадача учтена. Размеры словарей служат счётчиками по статусам:
+ * добавление, удаление и смена статуса подзадачи стоят O(log<sub>32</sub> k), статус эпика
+ * пересчитывается без обхода подзадач. Копия эпика делит словари с оригиналом,
+ * поэтому {@link #Epic(Epic)} стоит O(1) при любом числе подзадач.
+ * Изменение статуса подзадачи учитывается при вызове {@link #updateSubtaskStatus(Subtask)}.
+ * <p>
+ * Время эпика тоже выводится из подзадач: начало — самое раннее начало, окончание —
+ * самое позднее окончание, длительность — сумма длительностей. Эпик хранит только ID
+ * подзадач, поэтому время ему передаёт менеджер: {@link #addSubtaskTime(Subtask)},
+ * {@link #removeSubtaskTime(Subtask)} и {@link #replaceSubtaskTime(Subtask, Subtask)} стоят
+ * O(log k) — начала и окончания подзадач лежат в упорядоченных мультимножествах, длительность
+ * копится суммой. {@link #recalculateTime(IntFunction)} пересчитывает время заново за O(k).
+ * Копия эпика мультимножеств не получает: время в ней можно расширять, а первое удаление
+ * времени подзадачи вернёт {@code false} и потребует пересчёта.
  */
 public class Epic extends Task {
 
-    private final List<Integer> subtaskIds = new ArrayList<>();
+    private static final Status[] STATUSES = Status.values();
+
+    /** ID подзадач по статусу, с которым они учтены: ID → ID; индекс — {@link Status#ordinal()}. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final PersistentIntMap<Integer>[] subtaskIdsByStatus = new PersistentIntMap[STATUSES.length];
+
+    /** Окончание самой поздней подзадачи; {@code null}, если ни у одной нет времени начала. */
+    private LocalDateTime endTime;
+
+    /**
+     * Начала и окончания подзадач со временем: время → число подзадач; {@code null}, пока таких нет,
+     * и в копии эпика, пока время не пересчитано.
+     */
+    private TreeMap<LocalDateTime, Integer> starts;
+    private TreeMap<LocalDateTime, Integer> ends;
+
+    /** Сколько подзадач с длительностью учтено в сумме длительностей. */
+    private int durationCount;
+
+    /** Представление ID подзадач только для чтения: сначала NEW, затем IN_PROGRESS, затем DONE. */
+    private final List<Integer> subtaskIds = new AbstractList<>() {
+        @Override
+        public Integer get(int index) {
+            for (PersistentIntMap<Integer> ids : subtaskIdsByStatus) {
+                if (index < ids.size()) {
+                    return ids.values().get(index);
+                }
+                index -= ids.size();
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        public int size() {
+            return getSubtaskCount();
+        }
+    };
 
     /**
      * Конструктор эпика
@@ -18,25 +78,234 @@ public class Epic extends Task {
      */
     public Epic(String name, String description) {
         super(name, description);
+        for (int i = 0; i < subtaskIdsByStatus.length; i++) {
+            subtaskIdsByStatus[i] = PersistentIntMap.empty();
+        }
         setStatus(Status.NEW);
     }
 
+    /**
+     * Конструктор копии эпика за O(1): словари ID подзадач общие с оригиналом, время
+     * копируется без мультимножеств начал и окончаний.
+     *
+     * @param other эпик, чьи поля копируются
+     */
+    public Epic(Epic other) {
+        super(other);
+        System.arraycopy(other.subtaskIdsByStatus, 0, subtaskIdsByStatus, 0, subtaskIdsByStatus.length);
+        this.endTime = other.endTime;
+        this.durationCount = other.durationCount;
+    }
+
+    /**
+     * @return живое представление ID подзадач только для чтения
+     */
     public List<Integer> getSubtaskIds() {
         return subtaskIds;
     }
 
-    public void addSubtaskId(int id) {
-        subtaskIds.add(id);
+    /**
+     * Обходит ID подзадач без упаковки. Менять эпик во время обхода нельзя.
+     *
+     * @param action действие над каждым ID
+     */
+    public void forEachSubtaskId(IntConsumer action) {
+        for (PersistentIntMap<Integer> ids : subtaskIdsByStatus) {
+            ids.forEachValue(action::accept);
+        }
+    }
+
+    /**
+     * @param id идентификатор подзадачи
+     * @return {@code true}, если подзадача входит в эпик
+     */
+    public boolean containsSubtask(int id) {
+        return statusOf(id) != null;
+    }
+
+    /**
+     * @return число подзадач эпика
+     */
+    public int getSubtaskCount() {
+        int count = 0;
+        for (PersistentIntMap<Integer> ids : subtaskIdsByStatus) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    /**
+     * Добавляет подзадачу в эпик с её текущим статусом.
+     * Если подзадача уже в эпике — учитывает её новый статус.
+     *
+     * @param subtask подзадача эпика
+     */
+    public void addSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        Status previous = statusOf(id);
+        if (previous == subtask.getStatus()) {
+            return;
+        }
+        if (previous != null) {
+            remove(previous, id);
+        }
+        int status = subtask.getStatus().ordinal();
+        subtaskIdsByStatus[status] = subtaskIdsByStatus[status].put(id, id);
+        recalculateStatus();
+    }
+
+    /**
+     * Учитывает текущий статус подзадачи. Подзадачи не из этого эпика игнорируются.
+     *
+     * @param subtask подзадача эпика
+     */
+    public void updateSubtaskStatus(Subtask subtask) {
+        if (containsSubtask(subtask.getId())) {
+            addSubtask(subtask);
+        }
     }
 
     public void removeSubtaskId(int id) {
-        subtaskIds.remove(Integer.valueOf(id));
+        Status previous = statusOf(id);
+        if (previous != null) {
+            remove(previous, id);
+            recalculateStatus();
+        }
+    }
+
+    /**
+     * Выводит статус эпика из счётчиков подзадач:
+     * без подзадач или все NEW — NEW, все DONE — DONE, иначе IN_PROGRESS.
+     */
+    public void recalculateStatus() {
+        int total = getSubtaskCount();
+        if (total == 0 || subtaskIdsByStatus[Status.NEW.ordinal()].size() == total) {
+            setStatus(Status.NEW);
+        } else if (subtaskIdsByStatus[Status.DONE.ordinal()].size() == total) {
+            setStatus(Status.DONE);
+        } else {
+            setStatus(Status.IN_PROGRESS);
+        }
+    }
+
+    /**
+     * Расширяет время эпика на подзадачу. Длительность подзадачи добавляется к сумме,
+     * подзадача без времени начала не сдвигает начало и окончание.
+     *
+     * @param subtask подзадача эпика, время которой ещё не учтено
+     */
+    public void addSubtaskTime(Subtask subtask) {
+        Duration duration = subtask.getDuration();
+        if (duration != null) {
+            setDuration(durationCount == 0 ? duration : getDuration().plus(duration));
+            durationCount++;
+        }
+        LocalDateTime start = subtask.getStartTime();
+        if (start == null) {
+            return;
+        }
+        if (starts == null && endTime != null) {
+            // Копия без мультимножеств: границы расширяются, сузить их сможет только пересчёт
+            if (start.isBefore(getStartTime())) {
+                setStartTime(start);
+            }
+            if (subtask.getEndTime().isAfter(endTime)) {
+                endTime = subtask.getEndTime();
+            }
+            return;
+        }
+        if (starts == null) {
+            starts = new TreeMap<>();
+            ends = new TreeMap<>();
+        }
+        starts.merge(start, 1, Integer::sum);
+        ends.merge(subtask.getEndTime(), 1, Integer::sum);
+        setStartTime(starts.firstKey());
+        endTime = ends.lastKey();
+    }
+
+    /**
+     * Убирает из времени эпика учтённое время подзадачи.
+     *
+     * @param subtask подзадача в том состоянии, в котором её время учтено
+     * @return {@code false}, если такое время не учтено и эпик не изменён — тогда время
+     *         нужно пересчитать через {@link #recalculateTime(IntFunction)}
+     */
+    public boolean removeSubtaskTime(Subtask subtask) {
+        Duration duration = subtask.getDuration();
+        LocalDateTime start = subtask.getStartTime();
+        if (duration != null && durationCount == 0
+                || start != null && (starts == null || !starts.containsKey(start)
+                || !ends.containsKey(subtask.getEndTime()))) {
+            return false;
+        }
+        if (duration != null) {
+            durationCount--;
+            setDuration(durationCount == 0 ? null : getDuration().minus(duration));
+        }
+        if (start != null) {
+            decrement(starts, start);
+            decrement(ends, subtask.getEndTime());
+            setStartTime(starts.isEmpty() ? null : starts.firstKey());
+            endTime = ends.isEmpty() ? null : ends.lastKey();
+        }
+        return true;
+    }
+
+    /**
+     * Переносит время подзадачи с прежнего состояния на новое.
+     * Если время подзадачи не изменилось, эпик не трогается.
+     *
+     * @param previous подзадача в том состоянии, в котором её время учтено; не тот же объект, что {@code updated}
+     * @param updated  новое состояние подзадачи
+     * @return {@code false}, если прежнее время не учтено и эпик не изменён —
+     *         тогда время нужно пересчитать через {@link #recalculateTime(IntFunction)}
+     */
+    public boolean replaceSubtaskTime(Subtask previous, Subtask updated) {
+        if (Objects.equals(previous.getStartTime(), updated.getStartTime())
+                && Objects.equals(previous.getDuration(), updated.getDuration())) {
+            return true;
+        }
+        if (!removeSubtaskTime(previous)) {
+            return false;
+        }
+        addSubtaskTime(updated);
+        return true;
+    }
+
+    /**
+     * Пересчитывает время эпика по всем подзадачам за O(число подзадач).
+     *
+     * @param subtasks поиск подзадачи по ID; подзадачи, для которых он вернул {@code null}, пропускаются
+     */
+    public void recalculateTime(IntFunction<? extends Subtask> subtasks) {
+        setStartTime(null);
+        setDuration(null);
+        endTime = null;
+        starts = null;
+        ends = null;
+        durationCount = 0;
+        forEachSubtaskId(id -> {
+            Subtask subtask = subtasks.apply(id);
+            if (subtask != null) {
+                addSubtaskTime(subtask);
+            }
+        });
+    }
+
+    /**
+     * @return окончание самой поздней подзадачи или {@code null}
+     */
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
     }
 
     // 🔽 Новый метод — сохранение в CSV
     @Override
     public String toCsvString() {
-        return String.format("%d,%s,%s,%s,%s,", getId(), TaskType.EPIC, getName(), getStatus(), getDescription());
+        // Время эпика выводится из подзадач и в файл не пишется
+        return String.format("%d,%s,%s,%s,%s,,,", getId(), TaskType.EPIC, getName(), getStatus(), getDescription());
     }
 
     @Override
@@ -47,6 +316,25 @@ public class Epic extends Task {
                ", description='" + getDescription() + '\'' +
                ", status=" + getStatus() +
                ", subtaskIds=" + subtaskIds +
+               ", startTime=" + getStartTime() +
+               ", duration=" + getDuration() +
                '}';
     }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void remove(Status status, int id) {
+        subtaskIdsByStatus[status.ordinal()] = subtaskIdsByStatus[status.ordinal()].remove(id);
+    }
+
+    private Status statusOf(int id) {
+        for (Status status : STATUSES) {
+            if (subtaskIdsByStatus[status.ordinal()].get(id) != null) {
+                return status;
+            }
+        }
+        return null;
+    }
 }
@@ -19,6 +19,16 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    /**
+     * Конструктор копии подзадачи
+     *
+     * @param other подзадача, чьи поля копируются
+     */
+    public Subtask(Subtask other) {
+        super(other);
+        this.epicId = other.epicId;
+    }
+
     public int getEpicId() {
         return epicId;
     }
@@ -26,8 +36,8 @@ public class Subtask extends Task {
     // 🔽 Новый метод — сохранение в CSV
     @Override
     public String toCsvString() {
-        return String.format("%d,%s,%s,%s,%s,%d",
-                getId(), TaskType.SUBTASK, getName(), getStatus(), getDescription(), epicId);
+        return String.format("%d,%s,%s,%s,%s,%d,%s",
+                getId(), TaskType.SUBTASK, getName(), getStatus(), getDescription(), epicId, timeCsv());
     }
 
     @Override
@@ -38,6 +48,8 @@ public class Subtask extends Task {
                ", description='" + getDescription() + '\'' +
                ", status=" + getStatus() +
                ", epicId=" + epicId +
+               ", startTime=" + getStartTime() +
+               ", duration=" + getDuration() +
                '}';
     }
 }
@@ -1,7 +1,13 @@
 package tracker.model;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 /**
  * Класс задачи Task
+ * <p>
+ * Время начала и длительность необязательны. Задача без времени начала не занимает
+ * интервал в расписании; задача без длительности занимает нулевой интервал в момент начала.
  */
 public class Task {
 
@@ -9,6 +15,8 @@ public class Task {
     private String name;
     private String description;
     private Status status;
+    private LocalDateTime startTime;
+    private Duration duration;
 
     /**
      * Конструктор задачи
@@ -22,6 +30,20 @@ public class Task {
         this.status = Status.NEW;
     }
 
+    /**
+     * Конструктор копии задачи
+     *
+     * @param other задача, чьи ID, название, описание, статус и время копируются
+     */
+    public Task(Task other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.status = other.status;
+        this.startTime = other.startTime;
+        this.duration = other.duration;
+    }
+
     public int getId() {
         return id;
     }
@@ -54,14 +76,47 @@ public class Task {
         this.status = status;
     }
 
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * @return время окончания: начало плюс длительность; {@code null}, если начало не задано
+     */
+    public LocalDateTime getEndTime() {
+        if (startTime == null) {
+            return null;
+        }
+        return duration == null ? startTime : startTime.plus(duration);
+    }
+
     // 🔽 Новый метод — сохранение в CSV
     public String toCsvString() {
-        return String.format("%d,%s,%s,%s,%s,", id, TaskType.TASK, name, status, description);
+        return String.format("%d,%s,%s,%s,%s,,%s", id, TaskType.TASK, name, status, description, timeCsv());
+    }
+
+    /**
+     * @return поля start и duration для CSV в ISO-8601; пустое поле означает {@code null}
+     */
+    protected String timeCsv() {
+        return (startTime == null ? "" : startTime.toString()) + "," + (duration == null ? "" : duration.toString());
     }
 
     // 🔽 Новый метод — восстановление из CSV
     public static Task fromCsv(String line) {
-        String[] fields = line.split(",");
+        String[] fields = line.split(",", -1);
         int id = Integer.parseInt(fields[0]);
         String type = fields[1];
         String name = fields[2];
@@ -80,6 +135,14 @@ public class Task {
 
         task.setId(id);
         task.setStatus(status);
+        if (!(task instanceof Epic)) {
+            if (fields.length > 6 && !fields[6].isEmpty()) {
+                task.setStartTime(LocalDateTime.parse(fields[6]));
+            }
+            if (fields.length > 7 && !fields[7].isEmpty()) {
+                task.setDuration(Duration.parse(fields[7]));
+            }
+        }
         return task;
     }
 
@@ -90,6 +153,8 @@ public class Task {
                ", name='" + name + '\'' +
                ", description='" + description + '\'' +
                ", status=" + status +
+               ", startTime=" + startTime +
+               ", duration=" + duration +
                '}';
     }
 }
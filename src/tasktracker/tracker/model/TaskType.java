@@ -1,10 +1,26 @@
 package tracker.model;
 
 /**
- * Тип задачи для сохранения в CSV.
+ * Тип задачи для сохранения в файл.
  */
 public enum TaskType {
     TASK,
     EPIC,
-    SUBTASK
+    SUBTASK;
+
+    /**
+     * Определяет тип сущности по её классу.
+     *
+     * @param task задача, эпик или подзадача
+     * @return тип сущности
+     */
+    public static TaskType of(Task task) {
+        if (task instanceof Epic) {
+            return EPIC;
+        }
+        if (task instanceof Subtask) {
+            return SUBTASK;
+        }
+        return TASK;
+    }
 }
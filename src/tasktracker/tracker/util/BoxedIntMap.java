@@ -0,0 +1,54 @@
+package tracker.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * IntMap поверх обычного HashMap&lt;Integer, V&gt;: ключи упаковываются.
+ * Оставлен для сравнения и как прежнее поведение хранилища.
+ *
+ * @param <V> тип значений
+ */
+public final class BoxedIntMap<V> implements IntMap<V> {
+
+    private final Map<Integer, V> map = new HashMap<>();
+
+    @Override
+    public V get(int key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        return map.put(key, Objects.requireNonNull(value, "value"));
+    }
+
+    @Override
+    public V remove(int key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void forEachValue(Consumer<? super V> action) {
+        map.values().forEach(action);
+    }
+
+    @Override
+    public List<V> values() {
+        return new ArrayList<>(map.values());
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+}
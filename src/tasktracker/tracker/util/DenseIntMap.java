@@ -0,0 +1,107 @@
+package tracker.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * IntMap на массиве, индексированном ключом.
+ * <p>
+ * Подходит для последовательно выдаваемых ID: поиск — одно обращение к массиву,
+ * на запись — одна ссылка. Массив растёт до наибольшего ключа, поэтому при
+ * редких больших ключах память тратится впустую. Ключи должны быть неотрицательными.
+ * Обход идёт по возрастанию ключа.
+ * <p>
+ * Класс не потокобезопасен.
+ *
+ * @param <V> тип значений
+ */
+public final class DenseIntMap<V> implements IntMap<V> {
+
+    private Object[] values;
+    private int size;
+
+    /** Граница занятой части: все ключи меньше неё. */
+    private int limit;
+
+    public DenseIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedMaxKey ожидаемый наибольший ключ
+     */
+    public DenseIntMap(int expectedMaxKey) {
+        values = new Object[Math.max(16, expectedMaxKey + 1)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return key >= 0 && key < limit ? (V) values[key] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (key < 0) {
+            throw new IllegalArgumentException("Отрицательный ключ: " + key);
+        }
+        if (key >= values.length) {
+            values = Arrays.copyOf(values, Math.max(key + 1, values.length + (values.length >> 1)));
+        }
+        V previous = (V) values[key];
+        values[key] = value;
+        if (previous == null) {
+            size++;
+        }
+        limit = Math.max(limit, key + 1);
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key < 0 || key >= limit) {
+            return null;
+        }
+        V previous = (V) values[key];
+        if (previous != null) {
+            values[key] = null;
+            size--;
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < limit; i++) {
+            if (values[i] != null) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, limit, null);
+        size = 0;
+        limit = 0;
+    }
+}
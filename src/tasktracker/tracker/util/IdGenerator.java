@@ -0,0 +1,161 @@
+package tracker.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Единый потокобезопасный генератор ID.
+ * <p>
+ * Без блоков ID выдаются строго по возрастанию одним атомарным счётчиком.
+ * С блоками каждый поток забирает у счётчика сразу {@code blockSize} ID и раздаёт
+ * их без обращения к общему счётчику: конкуренция за него падает в {@code blockSize} раз,
+ * ID по-прежнему уникальны и растут внутри потока, но между потоками порядок
+ * выдачи не совпадает с порядком ID, а недоданные остатки блоков становятся пропусками.
+ * <p>
+ * {@link #peek()} — водяной знак: все выданные ID меньше него,
+ * поэтому его достаточно сохранить, чтобы после перезапуска не выдать ID повторно.
+ * <p>
+ * Генератор с шагом выдаёт только ID вида {@code first + k * stride}: генераторы с одним
+ * шагом и разными {@code first} не пересекаются, и по ID видно, какой из них его выдал.
+ */
+public final class IdGenerator {
+
+    private final AtomicInteger next;
+    private final int blockSize;
+    private final int first;
+    private final int stride;
+
+    /** Поколение счётчика; сброс и сдвиг вперёд делают блоки потоков недействительными. */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /** Блок текущего потока: следующий ID, конец блока (не включая) и поколение. */
+    private final ThreadLocal<int[]> blocks;
+
+    /**
+     * Генератор без блоков: ID строго по возрастанию.
+     */
+    public IdGenerator() {
+        this(1);
+    }
+
+    /**
+     * @param blockSize сколько ID поток забирает у общего счётчика за раз; 1 — без блоков
+     */
+    public IdGenerator(final int blockSize) {
+        this(blockSize, 1, 1);
+    }
+
+    /**
+     * Генератор без блоков, выдающий ID {@code first}, {@code first + stride}, ...
+     *
+     * @param first  первый ID
+     * @param stride шаг между ID
+     */
+    public IdGenerator(final int first, final int stride) {
+        this(1, first, stride);
+    }
+
+    private IdGenerator(final int blockSize, final int first, final int stride) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока ID должен быть положительным: " + blockSize);
+        }
+        if (first <= 0 || stride <= 0) {
+            throw new IllegalArgumentException("Первый ID и шаг должны быть положительными: " + first + ", " + stride);
+        }
+        this.blockSize = blockSize;
+        this.first = first;
+        this.stride = stride;
+        this.next = new AtomicInteger(first);
+        this.blocks = blockSize == 1 ? null : ThreadLocal.withInitial(() -> new int[3]);
+    }
+
+    /**
+     * @return новый ID, не выданный ранее
+     */
+    public int next() {
+        if (blocks == null) {
+            return next.getAndAdd(stride);
+        }
+        final int[] block = blocks.get();
+        final int currentGeneration = generation.get();
+        if (block[0] == block[1] || block[2] != currentGeneration) {
+            final int start = next.getAndAdd(blockSize * stride);
+            block[0] = start;
+            block[1] = start + blockSize * stride;
+            block[2] = currentGeneration;
+        }
+        final int id = block[0];
+        block[0] += stride;
+        return id;
+    }
+
+    /**
+     * Резервирует подряд идущие ID, например для пакетного создания:
+     * {@code i}-й из них равен {@code первый + i * getStride()}.
+     *
+     * @param count число ID
+     * @return первый из {@code count} зарезервированных ID
+     */
+    public int reserve(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Число ID не может быть отрицательным: " + count);
+        }
+        return next.getAndAdd(count * stride);
+    }
+
+    /**
+     * Возвращает зарезервированные ID, если после них ничего не выдавалось, — например,
+     * когда пакет, для которого их резервировали, отклонён.
+     *
+     * @param first первый ID, как его вернул {@link #reserve(int)}
+     * @param count число зарезервированных ID
+     * @return {@code true}, если ID возвращены; иначе они остаются пропущенными
+     */
+    public boolean release(final int first, final int count) {
+        return next.compareAndSet(first + count * stride, first);
+    }
+
+    /**
+     * Сдвигает генератор так, чтобы следующие ID были больше заданного, и отбрасывает
+     * блоки потоков: занятый ID мог попасть в ещё не розданную часть блока.
+     * Используется при восстановлении сущностей с уже назначенными ID.
+     *
+     * @param id занятый ID
+     */
+    public void advancePast(final int id) {
+        // Ближайший ID этого генератора после занятого
+        final int floor = id + 1 + Math.floorMod(first - id - 1, stride);
+        next.accumulateAndGet(floor, Math::max);
+        if (blocks != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return водяной знак: наименьший ID, который ещё не мог быть выдан
+     */
+    public int peek() {
+        return next.get();
+    }
+
+    /**
+     * Начинает выдачу ID заново с первого.
+     */
+    public void reset() {
+        next.set(first);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * @return сколько ID поток забирает за раз
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return шаг между выдаваемыми ID
+     */
+    public int getStride() {
+        return stride;
+    }
+}
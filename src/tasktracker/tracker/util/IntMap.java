@@ -0,0 +1,56 @@
+package tracker.util;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Словарь с ключами-примитивами int.
+ * Значения {@code null} не поддерживаются: {@code null} означает отсутствие ключа.
+ *
+ * @param <V> тип значений
+ */
+public interface IntMap<V> {
+
+    /**
+     * @param key ключ
+     * @return значение или {@code null}, если ключа нет
+     */
+    V get(int key);
+
+    /**
+     * @param key   ключ
+     * @param value значение, не {@code null}
+     * @return прежнее значение или {@code null}
+     */
+    V put(int key, V value);
+
+    /**
+     * @param key ключ
+     * @return удалённое значение или {@code null}, если ключа не было
+     */
+    V remove(int key);
+
+    default boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Обходит значения. Менять словарь во время обхода нельзя.
+     *
+     * @param action действие над каждым значением
+     */
+    void forEachValue(Consumer<? super V> action);
+
+    /**
+     * @return новый изменяемый список значений
+     */
+    List<V> values();
+
+    void clear();
+}
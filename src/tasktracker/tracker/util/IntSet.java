@@ -0,0 +1,203 @@
+package tracker.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество примитивных int без упаковки в Integer.
+ * <p>
+ * Элементы лежат плотным массивом, а хеш-таблица с открытой адресацией
+ * (линейное пробирование) хранит позицию каждого элемента в этом массиве.
+ * Добавление, удаление и проверка — O(1); удаление переносит последний элемент
+ * на место удалённого, поэтому порядок обхода не совпадает с порядком добавления.
+ * Обход идёт по плотному массиву и не создаёт объектов.
+ * <p>
+ * Класс не потокобезопасен.
+ */
+public final class IntSet {
+
+    private static final int MIN_CAPACITY = 4;
+
+    /** Элементы множества, занято {@code size} первых ячеек. */
+    private int[] elements;
+    private int size;
+
+    /** Таблица: позиция элемента в {@link #elements} плюс один; 0 — пустая ячейка. */
+    private int[] slots;
+    private int mask;
+
+    private final List<Integer> view = new AbstractList<>() {
+        @Override
+        public Integer get(int index) {
+            return IntSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    public IntSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize ожидаемое число элементов
+     */
+    public IntSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize) {
+            capacity <<= 1;
+        }
+        elements = new int[capacity];
+        slots = new int[capacity * 2];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * @param value элемент
+     * @return {@code true}, если элемента не было
+     */
+    public boolean add(int value) {
+        int slot = find(value);
+        if (slots[slot] != 0) {
+            return false;
+        }
+        if (size == elements.length) {
+            grow();
+            slot = find(value);
+        }
+        elements[size] = value;
+        slots[slot] = ++size;
+        return true;
+    }
+
+    /**
+     * @param value элемент
+     * @return {@code true}, если элемент был удалён
+     */
+    public boolean remove(int value) {
+        int slot = find(value);
+        int position = slots[slot] - 1;
+        if (position < 0) {
+            return false;
+        }
+        int last = elements[--size];
+        if (position != size) {
+            // Ячейку последнего элемента ищем до того, как его позиция займёт место удалённого
+            int lastSlot = find(last);
+            elements[position] = last;
+            slots[lastSlot] = position + 1;
+        }
+        deleteSlot(slot);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return slots[find(value)] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index позиция от 0 до {@code size() - 1}
+     * @return элемент на этой позиции обхода
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Обходит элементы без упаковки. Менять множество во время обхода нельзя.
+     *
+     * @param action действие над каждым элементом
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    /**
+     * @return копия элементов
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * @return живое представление только для чтения; элементы упаковываются при обращении
+     */
+    public List<Integer> asList() {
+        return view;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    /**
+     * @return ячейка с элементом либо пустая ячейка, куда его можно положить
+     */
+    private int find(int value) {
+        int slot = home(value);
+        while (slots[slot] != 0 && elements[slots[slot] - 1] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int home(int value) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Освобождает ячейку, сдвигая назад следующие за ней элементы той же цепочки.
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            int home = home(elements[slots[next] - 1]);
+            // Элемент можно сдвинуть в дыру, если его домашняя ячейка не лежит между дырой и им
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    private void grow() {
+        elements = Arrays.copyOf(elements, elements.length * 2);
+        slots = new int[elements.length * 2];
+        mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = home(elements[i]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package tracker.util;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Неизменяемый словарь с int-ключами — префиксное дерево с битовыми картами (HAMT).
+ * <p>
+ * Каждый уровень разбирает 5 бит ключа, начиная с младших, узел хранит только
+ * занятые ячейки и битовую карту. {@link #put} и {@link #remove} возвращают новый
+ * словарь, копируя лишь путь от корня до ключа (O(log<sub>32</sub> n) узлов),
+ * остальные узлы общие со старой версией. Поэтому старую версию можно читать
+ * из любых потоков без блокировок, пока пишущий поток строит новую.
+ * <p>
+ * Узлы хранят число записей поддерева, поэтому {@link #values()} — представление
+ * без копирования с доступом по позиции за O(log<sub>32</sub> n).
+ * Порядок обхода задаётся битами ключей и не совпадает с порядком добавления.
+ *
+ * @param <V> тип значений
+ */
+public final class PersistentIntMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null);
+
+    /** Корень; {@code null} у пустого словаря. */
+    private final Node root;
+
+    private PersistentIntMap(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return пустой словарь
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    /**
+     * @param key ключ
+     * @return значение или {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            final int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            final int index = node.index(bit);
+            final Object slot = node.slots[index];
+            if (!(slot instanceof Node child)) {
+                return node.keys[index] == key ? (V) slot : null;
+            }
+            node = child;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    /**
+     * @param key   ключ
+     * @param value значение, не {@code null}
+     * @return словарь с этой записью; этот же словарь, если значение не изменилось
+     */
+    public PersistentIntMap<V> put(final int key, final V value) {
+        final Node updated = put(root == null ? Node.EMPTY : root, 0, key, value);
+        return updated == root ? this : new PersistentIntMap<>(updated);
+    }
+
+    /**
+     * @param key ключ
+     * @return словарь без этой записи; этот же словарь, если записи не было
+     */
+    public PersistentIntMap<V> remove(final int key) {
+        if (root == null) {
+            return this;
+        }
+        final Node updated = remove(root, 0, key);
+        if (updated == root) {
+            return this;
+        }
+        return updated == null ? empty() : new PersistentIntMap<>(updated);
+    }
+
+    /**
+     * @return число записей
+     */
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * @return {@code true}, если записей нет
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Обходит значения в порядке префиксного дерева.
+     *
+     * @param action действие для каждого значения
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(final Consumer<? super V> action) {
+        if (root != null) {
+            forEach(root, (Consumer<Object>) action);
+        }
+    }
+
+    /**
+     * @return неизменяемое представление значений без копирования
+     */
+    public List<V> values() {
+        return new Values<>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        while (true) {
+            for (final Object slot : node.slots) {
+                if (!(slot instanceof Node child)) {
+                    if (index == 0) {
+                        return (V) slot;
+                    }
+                    index--;
+                } else if (index < child.size) {
+                    node = child;
+                    break;
+                } else {
+                    index -= child.size;
+                }
+            }
+        }
+    }
+
+    private static Node put(final Node node, final int shift, final int key, final Object value) {
+        final int bit = bit(key, shift);
+        final int index = node.index(bit);
+        final int length = node.slots.length;
+        if ((node.bitmap & bit) == 0) {
+            final int[] keys = new int[length + 1];
+            final Object[] slots = new Object[length + 1];
+            System.arraycopy(node.keys, 0, keys, 0, index);
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            keys[index] = key;
+            slots[index] = value;
+            System.arraycopy(node.keys, index, keys, index + 1, length - index);
+            System.arraycopy(node.slots, index, slots, index + 1, length - index);
+            return new Node(node.bitmap | bit, keys, slots, node.size + 1);
+        }
+        final Object slot = node.slots[index];
+        final Object replacement;
+        int delta = 0;
+        if (slot instanceof Node child) {
+            final Node updated = put(child, shift + BITS, key, value);
+            if (updated == child) {
+                return node;
+            }
+            replacement = updated;
+            delta = updated.size - child.size;
+        } else if (node.keys[index] == key) {
+            if (slot == value) {
+                return node;
+            }
+            replacement = value;
+        } else {
+            // Ключи совпали в уже разобранных битах — расходятся глубже
+            replacement = put(put(Node.EMPTY, shift + BITS, node.keys[index], slot), shift + BITS, key, value);
+            delta = 1;
+        }
+        final Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, node.keys, slots, node.size + delta);
+    }
+
+    /**
+     * @return тот же узел, если ключа нет; {@code null}, если узел опустел; иначе новый узел
+     */
+    private static Node remove(final Node node, final int shift, final int key) {
+        final int bit = bit(key, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        final int index = node.index(bit);
+        final Object slot = node.slots[index];
+        if (slot instanceof Node child) {
+            final Node updated = remove(child, shift + BITS, key);
+            if (updated == child) {
+                return node;
+            }
+            if (updated == null) {
+                return without(node, index, bit);
+            }
+            final int[] keys = node.keys.clone();
+            final Object[] slots = node.slots.clone();
+            if (updated.slots.length == 1 && !(updated.slots[0] instanceof Node)) {
+                // В поддереве осталась одна запись — поднимаем её на этот уровень
+                keys[index] = updated.keys[0];
+                slots[index] = updated.slots[0];
+            } else {
+                slots[index] = updated;
+            }
+            return new Node(node.bitmap, keys, slots, node.size - 1);
+        }
+        return node.keys[index] == key ? without(node, index, bit) : node;
+    }
+
+    private static Node without(final Node node, final int index, final int bit) {
+        final int length = node.slots.length - 1;
+        if (length == 0) {
+            return null;
+        }
+        final int[] keys = new int[length];
+        final Object[] slots = new Object[length];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.keys, index + 1, keys, index, length - index);
+        System.arraycopy(node.slots, index + 1, slots, index, length - index);
+        return new Node(node.bitmap & ~bit, keys, slots, node.size - 1);
+    }
+
+    private static void forEach(final Node node, final Consumer<Object> action) {
+        for (final Object slot : node.slots) {
+            if (slot instanceof Node child) {
+                forEach(child, action);
+            } else {
+                action.accept(slot);
+            }
+        }
+    }
+
+    private static int bit(final int key, final int shift) {
+        return 1 << ((key >>> shift) & MASK);
+    }
+
+    /**
+     * Узел дерева: битовая карта занятых ячеек и сами ячейки — значение с ключом
+     * в {@code keys} либо дочерний узел; плюс число записей поддерева.
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(0, new int[0], new Object[0], 0);
+
+        final int bitmap;
+        final int[] keys;
+        final Object[] slots;
+        final int size;
+
+        Node(final int bitmap, final int[] keys, final Object[] slots, final int size) {
+            this.bitmap = bitmap;
+            this.keys = keys;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Значения словаря как неизменяемый список. Итератор и {@code forEach} обходят
+     * дерево, не ища каждую позицию от корня.
+     */
+    private static final class Values<V> extends AbstractList<V> {
+        private final PersistentIntMap<V> map;
+
+        Values(final PersistentIntMap<V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public V get(final int index) {
+            return map.valueAt(index);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void forEach(final Consumer<? super V> action) {
+            map.forEachValue(action);
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator<>(map.root);
+        }
+    }
+
+    /**
+     * Обход дерева стеком узлов; следующее значение находится заранее.
+     * Ячейки текущего узла лежат в полях, чтобы соседние значения выдавались без стека.
+     */
+    private static final class ValueIterator<V> implements Iterator<V> {
+        /** Глубина дерева не больше 7: 32 бита ключа по 5 на уровень. */
+        private final Object[][] parents = new Object[8][];
+        private final int[] parentPositions = new int[8];
+        private int depth;
+        private Object[] slots;
+        private int position;
+        private Object next;
+
+        ValueIterator(final Node root) {
+            slots = root == null ? new Object[0] : root.slots;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            final Object value = next;
+            if (value == null) {
+                throw new NoSuchElementException();
+            }
+            if (position < slots.length && !(slots[position] instanceof Node)) {
+                next = slots[position++];
+            } else {
+                advance();
+            }
+            return (V) value;
+        }
+
+        private void advance() {
+            while (true) {
+                if (position < slots.length) {
+                    final Object slot = slots[position++];
+                    if (!(slot instanceof Node child)) {
+                        next = slot;
+                        return;
+                    }
+                    parents[depth] = slots;
+                    parentPositions[depth] = position;
+                    depth++;
+                    slots = child.slots;
+                    position = 0;
+                } else if (depth > 0) {
+                    depth--;
+                    slots = parents[depth];
+                    position = parentPositions[depth];
+                    parents[depth] = null;
+                } else {
+                    next = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package tracker.util;
+
+/**
+ * Кэш ограниченного размера с int-ключами и вытеснением W-TinyLFU.
+ * <p>
+ * Новые записи попадают в небольшое окно LRU (около 1% ёмкости). Вытесненная из окна
+ * запись становится кандидатом в основную часть — сегментированный LRU из испытательного
+ * и защищённого (80%) сегментов — и вытесняет жертву из хвоста испытательного сегмента,
+ * только если по частотному скетчу к ней обращались чаще. Повторное обращение
+ * в испытательном сегменте переводит запись в защищённый. Поэтому однократный проход
+ * по множеству ключей не вымывает часто читаемые записи.
+ * <p>
+ * Скетч — Count-Min на четырёх строках счётчиков до 15; после {@code 10 × ёмкость}
+ * обращений все счётчики делятся пополам, и старая популярность постепенно забывается.
+ * <p>
+ * Класс не потокобезопасен.
+ *
+ * @param <V> тип значений
+ */
+public final class TinyLfuCache<V> {
+
+    private static final int MAX_FREQUENCY = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private final IntMap<Node<V>> nodes = new IntHashMap<>();
+    private final Node<V> window = Node.sentinel();
+    private final Node<V> probation = Node.sentinel();
+    private final Node<V> protectedSegment = Node.sentinel();
+    private int windowSize;
+    private int protectedSize;
+
+    private final byte[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int additions;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maximumSize наибольшее число записей; 0 отключает кэш
+     */
+    public TinyLfuCache(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Размер кэша не может быть отрицательным: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        final int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+        this.sketch = new byte[width * SEEDS.length];
+        this.sketchMask = width - 1;
+        this.sampleSize = Math.max(16, maximumSize) * 10;
+    }
+
+    /**
+     * Возвращает значение и учитывает обращение.
+     *
+     * @param key ключ
+     * @return значение или {@code null}, если записи нет
+     */
+    public V get(final int key) {
+        increment(key);
+        final Node<V> node = nodes.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onHit(node);
+        return node.value;
+    }
+
+    /**
+     * Кладёт значение; при переполнении вытесняет запись по правилам W-TinyLFU.
+     *
+     * @param key   ключ
+     * @param value значение, не {@code null}
+     */
+    public void put(final int key, final V value) {
+        if (maximumSize == 0) {
+            return;
+        }
+        final Node<V> existing = nodes.get(key);
+        if (existing != null) {
+            existing.value = value;
+            onHit(existing);
+            return;
+        }
+        final Node<V> node = new Node<>(key, value);
+        nodes.put(key, node);
+        node.segment = window;
+        node.linkAfter(window);
+        windowSize++;
+        if (windowSize > windowMaximum) {
+            final Node<V> candidate = window.prev;
+            candidate.unlink();
+            windowSize--;
+            candidate.segment = probation;
+            candidate.linkAfter(probation);
+            if (nodes.size() > maximumSize) {
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * Убирает запись, не считая это вытеснением.
+     *
+     * @param key ключ
+     */
+    public void remove(final int key) {
+        final Node<V> node = nodes.remove(key);
+        if (node != null) {
+            detach(node);
+        }
+    }
+
+    /**
+     * Убирает все записи; счётчики и частоты сохраняются.
+     */
+    public void clear() {
+        nodes.clear();
+        window.unlink();
+        probation.unlink();
+        protectedSegment.unlink();
+        windowSize = 0;
+        protectedSize = 0;
+    }
+
+    /**
+     * @return число записей
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return наибольшее число записей
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return счётчики попаданий, промахов и вытеснений с момента создания
+     */
+    public Stats stats() {
+        return new Stats(hits, misses, evictions);
+    }
+
+    /**
+     * Оценка частоты обращений к ключу — для тестов и диагностики.
+     *
+     * @param key ключ
+     * @return минимальный счётчик по строкам скетча, от 0 до 15
+     */
+    int frequency(final int key) {
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, sketch[index(key, row)]);
+        }
+        return frequency;
+    }
+
+    private void onHit(final Node<V> node) {
+        if (node.segment == probation) {
+            node.unlink();
+            node.segment = protectedSegment;
+            node.linkAfter(protectedSegment);
+            protectedSize++;
+            if (protectedSize > protectedMaximum) {
+                final Node<V> demoted = protectedSegment.prev;
+                demoted.unlink();
+                protectedSize--;
+                demoted.segment = probation;
+                demoted.linkAfter(probation);
+            }
+        } else {
+            node.unlink();
+            node.linkAfter(node.segment);
+        }
+    }
+
+    /**
+     * Выбирает между кандидатом из окна и жертвой из хвоста испытательного сегмента.
+     */
+    private void evict(final Node<V> candidate) {
+        Node<V> victim = probation.prev;
+        if (victim == candidate || victim == probation) {
+            victim = protectedSegment.prev != protectedSegment ? protectedSegment.prev : candidate;
+        }
+        final Node<V> evicted = victim != candidate && frequency(candidate.key) > frequency(victim.key)
+                ? victim : candidate;
+        nodes.remove(evicted.key);
+        detach(evicted);
+        evictions++;
+    }
+
+    private void detach(final Node<V> node) {
+        node.unlink();
+        if (node.segment == window) {
+            windowSize--;
+        } else if (node.segment == protectedSegment) {
+            protectedSize--;
+        }
+    }
+
+    private void increment(final int key) {
+        if (maximumSize == 0) {
+            return;
+        }
+        for (int row = 0; row < SEEDS.length; row++) {
+            final int i = index(key, row);
+            if (sketch[i] < MAX_FREQUENCY) {
+                sketch[i]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] >>= 1;
+            }
+            additions /= 2;
+        }
+    }
+
+    private int index(final int key, final int row) {
+        int hash = key * SEEDS[row];
+        hash ^= hash >>> 16;
+        return row * (sketchMask + 1) + (hash & sketchMask);
+    }
+
+    /**
+     * Счётчики кэша.
+     *
+     * @param hits      попадания
+     * @param misses    промахи
+     * @param evictions вытеснения
+     */
+    public record Stats(long hits, long misses, long evictions) {
+
+        /**
+         * @return доля попаданий среди обращений; 0, если обращений не было
+         */
+        public double hitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * Запись кэша в одном из трёх кольцевых списков; у списка — пустой заголовок.
+     */
+    private static final class Node<V> {
+        final int key;
+        V value;
+        Node<V> segment;
+        Node<V> prev = this;
+        Node<V> next = this;
+
+        Node(final int key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        static <V> Node<V> sentinel() {
+            return new Node<>(0, null);
+        }
+
+        void linkAfter(final Node<V> head) {
+            next = head.next;
+            prev = head;
+            head.next.prev = this;
+            head.next = this;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
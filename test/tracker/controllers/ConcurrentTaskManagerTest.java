@@ -0,0 +1,282 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для ConcurrentTaskManager.
+ * Проверяются уникальность ID и согласованность эпиков при параллельных изменениях.
+ */
+class ConcurrentTaskManagerTest {
+
+    private static final int THREADS = 8;
+    private static final int EPICS = 16;
+    private static final int OPS_PER_THREAD = 5_000;
+
+    private ConcurrentTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ConcurrentTaskManager();
+    }
+
+    /**
+     * Параллельное создание задач выдаёт уникальные ID.
+     */
+    @Test
+    void testParallelCreateAssignsUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    manager.createTask(new Task("Task", "Desc"));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : manager.getAllTasks()) {
+            ids.add(task.getId());
+        }
+        assertEquals(THREADS * OPS_PER_THREAD, ids.size(), "ID задач не должны повторяться");
+    }
+
+    /**
+     * Удалённая задача не возвращается обновлением из другого потока, индекс статусов
+     * не хранит удалённых задач.
+     */
+    @Test
+    void testDeletedTaskIsNotRestoredByConcurrentUpdate() throws Exception {
+        int[] ids = new int[OPS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = manager.createTask(new Task("Task " + i, "Desc"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int id : ids) {
+                    if (thread == 0) {
+                        manager.deleteTask(id);
+                    } else {
+                        Task task = new Task("Task", "Updated");
+                        task.setId(id);
+                        task.setStatus(Status.values()[thread % Status.values().length]);
+                        manager.updateTask(task);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(manager.getAllTasks().isEmpty(), "Удалённые задачи не вернулись");
+        for (Status status : Status.values()) {
+            assertTrue(manager.getByStatus(status, TaskType.TASK).isEmpty());
+        }
+    }
+
+    /**
+     * Удалённая подзадача не возвращается обновлением из другого потока:
+     * её нет ни в менеджере, ни в индексе статусов, ни в эпике.
+     */
+    @Test
+    void testDeletedSubtaskIsNotRestoredByConcurrentUpdate() throws Exception {
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int[] ids = new int[OPS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = manager.createSubtask(new Subtask("Sub " + i, "Desc", epicId));
+        }
+
+        runDeleteAgainstUpdates(ids, (id, thread) -> {
+            if (thread == 0) {
+                manager.deleteSubtask(id);
+            } else {
+                Subtask subtask = new Subtask("Sub", "Updated", epicId);
+                subtask.setId(id);
+                subtask.setStatus(Status.values()[thread % Status.values().length]);
+                manager.updateSubtask(subtask);
+            }
+        });
+
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Удалённые подзадачи не вернулись");
+        for (Status status : Status.values()) {
+            assertTrue(manager.getByStatus(status, TaskType.SUBTASK).isEmpty());
+        }
+        Epic epic = manager.getEpicById(epicId);
+        assertTrue(epic.getSubtaskIds().isEmpty(), "В эпике не осталось подзадач");
+        assertEquals(Status.NEW, epic.getStatus());
+    }
+
+    /**
+     * Удалённый эпик не возвращается обновлением из другого потока вместе
+     * с ID уже удалённых подзадач.
+     */
+    @Test
+    void testDeletedEpicIsNotRestoredByConcurrentUpdate() throws Exception {
+        int[] ids = new int[OPS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = manager.createEpic(new Epic("Epic " + i, "Desc"));
+            manager.createSubtask(new Subtask("Sub " + i, "Desc", ids[i]));
+        }
+
+        runDeleteAgainstUpdates(ids, (id, thread) -> {
+            if (thread == 0) {
+                manager.deleteEpic(id);
+            } else {
+                Epic epic = new Epic("Epic", "Updated");
+                epic.setId(id);
+                manager.updateEpic(epic);
+            }
+        });
+
+        assertTrue(manager.getAllEpics().isEmpty(), "Удалённые эпики не вернулись");
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Подзадачи удалены вместе с эпиками");
+        for (Status status : Status.values()) {
+            assertTrue(manager.getByStatus(status, TaskType.EPIC).isEmpty());
+            assertTrue(manager.getByStatus(status, TaskType.SUBTASK).isEmpty());
+        }
+    }
+
+    /**
+     * Случайные создания, обновления и удаления подзадач из многих потоков
+     * оставляют каждый эпик согласованным с его подзадачами.
+     */
+    @Test
+    void testEpicInvariantsUnderConcurrentSubtaskChanges() throws Exception {
+        int[] epicIds = new int[EPICS];
+        for (int i = 0; i < EPICS; i++) {
+            epicIds[i] = manager.createEpic(new Epic("Epic " + i, "Desc"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Integer> own = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    int op = random.nextInt(10);
+                    if (op < 4 || own.isEmpty()) {
+                        int epicId = epicIds[random.nextInt(EPICS)];
+                        own.add(manager.createSubtask(new Subtask("Sub", "Desc", epicId)));
+                    } else if (op < 8) {
+                        Subtask existing = manager.getSubtaskById(own.get(random.nextInt(own.size())));
+                        Subtask updated = new Subtask("Sub", "Updated", existing.getEpicId());
+                        updated.setId(existing.getId());
+                        updated.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                        manager.updateSubtask(updated);
+                    } else {
+                        manager.deleteSubtask(own.remove(random.nextInt(own.size())));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        for (Future<Object> future : futures) {
+            future.get();
+        }
+
+        for (Epic epic : manager.getAllEpics()) {
+            Set<Integer> expectedIds = new HashSet<>();
+            boolean allNew = true;
+            boolean allDone = true;
+            for (Subtask subtask : manager.getAllSubtasks()) {
+                if (subtask.getEpicId() == epic.getId()) {
+                    expectedIds.add(subtask.getId());
+                    allNew &= subtask.getStatus() == Status.NEW;
+                    allDone &= subtask.getStatus() == Status.DONE;
+                }
+            }
+            Status expected = expectedIds.isEmpty() || allNew ? Status.NEW
+                    : allDone ? Status.DONE : Status.IN_PROGRESS;
+
+            assertEquals(expectedIds, new HashSet<>(epic.getSubtaskIds()),
+                    "Список подзадач эпика " + epic.getId() + " должен совпадать с подзадачами");
+            assertEquals(expectedIds.size(), epic.getSubtaskIds().size(), "Подзадачи эпика не дублируются");
+            assertEquals(expected, epic.getStatus(), "Статус эпика " + epic.getId());
+        }
+    }
+
+    /**
+     * Удаление эпика убирает его подзадачи и историю просмотров.
+     */
+    @Test
+    void testDeleteEpicRemovesSubtasksAndHistory() {
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int subtaskId = manager.createSubtask(new Subtask("Sub", "Desc", epicId));
+        manager.getEpicById(epicId);
+        manager.getSubtaskById(subtaskId);
+
+        manager.deleteEpic(epicId);
+
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getHistory().isEmpty());
+    }
+
+    /**
+     * Поток 0 удаляет сущности по списку ID, остальные потоки одновременно их обновляют.
+     */
+    private void runDeleteAgainstUpdates(int[] ids, IdAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int id : ids) {
+                    action.apply(id, thread);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface IdAction {
+        void apply(int id, int thread);
+    }
+}
@@ -6,6 +6,10 @@ import tracker.model.Epic;
 import tracker.model.Status;
 import tracker.model.Subtask;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class EpicStatusUpdateTest {
@@ -70,4 +74,93 @@ class EpicStatusUpdateTest {
         Epic savedEpic = taskManager.getEpicById(epicId);
         assertEquals(Status.NEW, savedEpic.getStatus(), "Эпик без подзадач должен быть NEW");
     }
+
+    @Test
+    void testEpicStatusFollowsSubtaskStatusChange() {
+        int epicId = taskManager.createEpic(new Epic("Epic 5", "Description Epic 5"));
+        Subtask sub = new Subtask("Sub1", "Desc1", epicId);
+        taskManager.createSubtask(sub);
+
+        sub.setStatus(Status.DONE);
+        taskManager.updateSubtask(sub);
+        assertEquals(Status.DONE, taskManager.getEpicById(epicId).getStatus());
+
+        taskManager.deleteSubtask(sub.getId());
+        assertEquals(Status.NEW, taskManager.getEpicById(epicId).getStatus(), "Эпик без подзадач снова NEW");
+    }
+
+    /**
+     * Свойство: после любой последовательности операций статус эпика из счётчиков
+     * совпадает с полным пересчётом по подзадачам.
+     */
+    @Test
+    void testIncrementalStatusMatchesFullScan() {
+        for (long seed = 0; seed < 50; seed++) {
+            Random random = new Random(seed);
+            taskManager = new InMemoryTaskManager();
+            List<Integer> epicIds = new ArrayList<>();
+            List<Integer> subtaskIds = new ArrayList<>();
+            for (int step = 0; step < 300; step++) {
+                int op = random.nextInt(10);
+                if (op == 0 || epicIds.isEmpty()) {
+                    epicIds.add(taskManager.createEpic(new Epic("Epic", "Desc")));
+                } else if (op < 5 || subtaskIds.isEmpty()) {
+                    Subtask sub = new Subtask("Sub", "Desc", epicIds.get(random.nextInt(epicIds.size())));
+                    sub.setStatus(randomStatus(random));
+                    subtaskIds.add(taskManager.createSubtask(sub));
+                } else if (op < 8) {
+                    Subtask sub = taskManager.getSubtaskById(subtaskIds.get(random.nextInt(subtaskIds.size())));
+                    if (random.nextBoolean()) {
+                        sub.setStatus(randomStatus(random));
+                        taskManager.updateSubtask(sub);
+                    } else {
+                        Subtask replacement = new Subtask("Sub", "Replaced", sub.getEpicId());
+                        replacement.setId(sub.getId());
+                        replacement.setStatus(randomStatus(random));
+                        taskManager.updateSubtask(replacement);
+                    }
+                } else if (op < 9) {
+                    taskManager.deleteSubtask(subtaskIds.remove(random.nextInt(subtaskIds.size())));
+                } else {
+                    int epicId = epicIds.remove(random.nextInt(epicIds.size()));
+                    taskManager.deleteEpic(epicId);
+                    subtaskIds.removeIf(id -> taskManager.getSubtaskById(id) == null);
+                }
+
+                for (Epic epic : taskManager.getAllEpics()) {
+                    assertEquals(fullScanStatus(epic), epic.getStatus(),
+                            "seed=" + seed + ", step=" + step + ", epic=" + epic.getId());
+                }
+            }
+        }
+    }
+
+    private static Status randomStatus(Random random) {
+        return Status.values()[random.nextInt(Status.values().length)];
+    }
+
+    /**
+     * Эталон: прежний алгоритм с обходом всех подзадач эпика.
+     */
+    private Status fullScanStatus(Epic epic) {
+        boolean any = false;
+        boolean allNew = true;
+        boolean allDone = true;
+        for (Subtask subtask : taskManager.getAllSubtasks()) {
+            if (subtask.getEpicId() != epic.getId()) {
+                continue;
+            }
+            any = true;
+            if (subtask.getStatus() != Status.DONE) {
+                allDone = false;
+            }
+            if (subtask.getStatus() != Status.NEW) {
+                allNew = false;
+            }
+        }
+        if (!any || allNew) {
+            return Status.NEW;
+        }
+        return allDone ? Status.DONE : Status.IN_PROGRESS;
+    }
 }
@@ -5,6 +5,12 @@ import tracker.model.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,4 +59,458 @@ class FileBackedTaskManagerTest {
         assertEquals(1, loaded.getAllEpics().size());
         assertEquals(1, loaded.getAllSubtasks().size());
     }
+
+    @Test
+    void testJournalModeRestoresStateWithoutSnapshotRewrite() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+
+        int taskId = manager.createTask(new Task("Task1", "Description1"));
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        Subtask subtask = new Subtask("Sub1", "SubDesc", epicId);
+        int subtaskId = manager.createSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        manager.deleteTask(taskId);
+        long snapshotSize = file.length();
+        manager.close();
+
+        // Снимок остался пустым — всё лежит в журнале
+        assertEquals(snapshotSize, file.length());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertEquals(Status.DONE, loaded.getSubtaskById(subtaskId).getStatus());
+        assertEquals(Status.DONE, loaded.getEpicById(epicId).getStatus());
+        loaded.close();
+    }
+
+    @Test
+    void testJournalCompactionFoldsIntoSnapshot() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        manager.createSubtask(new Subtask("Sub1", "SubDesc", epicId));
+        manager.compact();
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.close();
+
+        File journal = new File(file.getPath() + ".journal");
+        assertEquals(1, Files.readAllLines(journal.toPath()).stream()
+                .filter(line -> !line.startsWith(TaskJournal.GENERATION + ",")).count(),
+                "В журнале только запись после уплотнения");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(1, loaded.getAllEpics().size());
+        assertEquals(1, loaded.getAllSubtasks().size());
+        assertFalse(journal.exists(), "Режим SNAPSHOT сворачивает найденный журнал");
+    }
+
+    @Test
+    void testRotatedJournalIsNotReplayedOverNewerSnapshot() throws IOException {
+        for (String suffix : new String[]{".csv", ".bin"}) {
+            File file = File.createTempFile("test", suffix);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+            int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+            manager.createSubtask(new Subtask("Sub1", "SubDesc", epicId));
+            manager.compact();
+            manager.createSubtask(new Subtask("Sub2", "SubDesc", epicId));
+            manager.deleteEpic(epicId);
+            Path journal = Path.of(file.getPath() + ".journal");
+            byte[] rotated = Files.readAllBytes(journal);
+            manager.compact();
+            manager.createTask(new Task("Task1", "Description1"));
+            manager.close();
+
+            // Сбой после переименования нового снимка, но до удаления .journal.old
+            Files.write(Path.of(file.getPath() + ".journal.old"), rotated);
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+            assertTrue(loaded.getAllEpics().isEmpty(), suffix);
+            assertTrue(loaded.getAllSubtasks().isEmpty(), "Нет подзадачи без эпика: " + suffix);
+            assertEquals(1, loaded.getAllTasks().size(), "Записи после уплотнения применены: " + suffix);
+            loaded.close();
+
+            // Тот же отложенный журнал поверх предыдущего снимка применяется
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            bytes[bytes.length / 2] ^= 0x01;
+            Files.write(file.toPath(), bytes);
+            FileBackedTaskManager fallback = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+            assertTrue(fallback.isLoadedFromBackup(), suffix);
+            assertTrue(fallback.getAllEpics().isEmpty(), suffix);
+            assertTrue(fallback.getAllSubtasks().isEmpty(), suffix);
+            assertEquals(1, fallback.getAllTasks().size(), suffix);
+            fallback.close();
+        }
+    }
+
+    @Test
+    void testJournalIgnoresTornLastRecord() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.close();
+
+        // Имитируем сбой посреди записи
+        Files.writeString(Path.of(file.getPath() + ".journal"), "P,2,TASK,Tas", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(1, loaded.getAllTasks().size());
+        int id = loaded.createTask(new Task("Task2", "Description2"));
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(2, reloaded.getAllTasks().size());
+        assertEquals("Task2", reloaded.getTaskById(id).getName());
+        reloaded.close();
+    }
+
+    @Test
+    void testGroupCommitDefersWritesUntilFlush() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        // Интервал заведомо больше времени теста — сброс только явный
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT,
+                FlushMode.GROUP_COMMIT, 60_000, 1_000);
+
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.createTask(new Task("Task2", "Description2"));
+        assertEquals(0, file.length(), "До сброса файл не перезаписывается");
+
+        manager.flush();
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+        manager.close();
+    }
+
+    @Test
+    void testFailedFlushKeepsChangesPending() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT,
+                FlushMode.GROUP_COMMIT, 60_000, 1_000);
+        manager.createTask(new Task("Task1", "Description1"));
+
+        // Каталог на месте временного файла не даёт записать снимок
+        Path temp = Path.of(file.getPath() + FileBackedTaskManager.TEMP_SUFFIX);
+        Files.createDirectory(temp);
+        assertThrows(ManagerSaveException.class, manager::flush);
+        Files.delete(temp);
+
+        manager.flush();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Повторный сброс записывает изменения, не попавшие на диск");
+        manager.close();
+    }
+
+    @Test
+    void testJournalForcedPerChangeInSyncAndPerBatchInGroupCommit() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        AtomicInteger syncs = new AtomicInteger();
+        SnapshotListener listener = new SnapshotListener() {
+            @Override
+            public void snapshotWritten(long bytes, long nanos) {
+            }
+
+            @Override
+            public void journalSynced(long nanos) {
+                syncs.incrementAndGet();
+            }
+        };
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.setSnapshotListener(listener);
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.createTask(new Task("Task2", "Description2"));
+        manager.createAll(List.of(new Task("Task3", "Description3"), new Task("Task4", "Description4")));
+        assertEquals(3, syncs.get(), "SYNC: сброс на устройство после каждого изменения и пакета");
+        manager.close();
+
+        syncs.set(0);
+        manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL, FlushMode.GROUP_COMMIT, 60_000, 1_000);
+        manager.setSnapshotListener(listener);
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task("Task" + i, "Description"));
+        }
+        assertEquals(0, syncs.get(), "GROUP_COMMIT: до сброса пачки журнал не сбрасывается");
+        manager.flush();
+        manager.flush();
+        assertEquals(1, syncs.get(), "GROUP_COMMIT: один сброс на пачку");
+        manager.close();
+        assertEquals(1, syncs.get());
+    }
+
+    @Test
+    void testAsyncModePersistsEverythingOnClose() throws IOException {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            File file = File.createTempFile("test", ".csv");
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, mode, FlushMode.ASYNC);
+            int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+            for (int i = 0; i < 100; i++) {
+                manager.createSubtask(new Subtask("Sub" + i, "SubDesc", epicId));
+            }
+            manager.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, mode);
+            assertEquals(100, loaded.getAllSubtasks().size(), "Режим " + mode);
+            loaded.close();
+        }
+    }
+
+    @Test
+    void testChangesAfterCloseAreRejected() throws IOException {
+        for (FlushMode flushMode : FlushMode.values()) {
+            for (PersistenceMode mode : PersistenceMode.values()) {
+                File file = File.createTempFile("test", ".csv");
+                FileBackedTaskManager manager = new FileBackedTaskManager(file, mode, flushMode);
+                int id = manager.createTask(new Task("Task1", "Description1"));
+                manager.close();
+
+                String context = "Режим " + mode + ", " + flushMode;
+                assertThrows(IllegalStateException.class,
+                        () -> manager.createTask(new Task("Task2", "Description2")), context);
+                assertThrows(IllegalStateException.class, () -> manager.deleteTask(id), context);
+                assertEquals(1, manager.getAllTasks().size(), "Отклонённое изменение не применено: " + context);
+                manager.close();
+
+                FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, mode);
+                assertEquals(1, loaded.getAllTasks().size(), context);
+                loaded.close();
+            }
+        }
+    }
+
+    @Test
+    void testLoadKeepsIdsAndFields() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+
+        int removedEpicId = manager.createEpic(new Epic("Removed", "Gone"));
+        Epic epic = new Epic("Epic1", "EpicDesc");
+        int epicId = manager.createEpic(epic);
+        Subtask subtask = new Subtask("Sub1", "SubDesc", epicId);
+        subtask.setStatus(Status.IN_PROGRESS);
+        int subtaskId = manager.createSubtask(subtask);
+        manager.deleteEpic(removedEpicId);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        Subtask loadedSubtask = loaded.getSubtaskById(subtaskId);
+        assertEquals("Sub1", loadedSubtask.getName());
+        assertEquals("SubDesc", loadedSubtask.getDescription());
+        assertEquals(Status.IN_PROGRESS, loadedSubtask.getStatus());
+        assertEquals(epicId, loadedSubtask.getEpicId());
+        assertEquals(Status.IN_PROGRESS, loaded.getEpicById(epicId).getStatus());
+        assertNull(loaded.getEpicById(removedEpicId), "ID не должны сдвигаться после удаления");
+    }
+
+    @Test
+    void testLoadHandlesWindowsLineEndingsAndRejectsBrokenRows() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\r\n"
+                + "3,TASK,Task3,DONE,Desc3,\r\n\r\n");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(Status.DONE, loaded.getTaskById(3).getStatus());
+
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\n3,TASK,Task3,LATER,Desc3,\n");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void testBinarySnapshotSelectedByExtension() throws IOException {
+        File file = File.createTempFile("test", SnapshotFormat.BINARY_EXTENSION);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        assertEquals(SnapshotFormat.BINARY, manager.getFormat());
+
+        int taskId = manager.createTask(new Task("Задача, с запятой", null));
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        Subtask subtask = new Subtask("Sub1", "SubDesc", epicId);
+        subtask.setStatus(Status.DONE);
+        int subtaskId = manager.createSubtask(subtask);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        Task task = loaded.getTaskById(taskId);
+        assertEquals("Задача, с запятой", task.getName());
+        assertNull(task.getDescription());
+        assertEquals(epicId, loaded.getSubtaskById(subtaskId).getEpicId());
+        assertEquals(Status.DONE, loaded.getEpicById(epicId).getStatus());
+    }
+
+    @Test
+    void testConvertBetweenCsvAndBinary() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(csv);
+        manager.createTask(new Task("Task1", "Description1"));
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        manager.createSubtask(new Subtask("Sub1", "SubDesc", epicId));
+
+        File binary = File.createTempFile("test", SnapshotFormat.BINARY_EXTENSION);
+        File back = File.createTempFile("test", ".csv");
+        SnapshotFormat.convert(csv, binary);
+        SnapshotFormat.convert(binary, back);
+
+        assertTrue(binary.length() < csv.length(), "Двоичный снимок компактнее CSV");
+        assertEquals(Files.readString(csv.toPath()), Files.readString(back.toPath()));
+    }
+
+    @Test
+    void testDeletedIdsAreNotReusedAfterLoad() throws IOException {
+        for (String suffix : new String[]{".csv", ".bin"}) {
+            File file = File.createTempFile("test", suffix);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file);
+            int taskId = manager.createTask(new Task("Task1", "Description1"));
+            int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+            assertNotEquals(taskId, epicId, "ID разных типов не пересекаются");
+            manager.deleteEpic(epicId);
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+            int newId = loaded.createEpic(new Epic("Epic2", "EpicDesc"));
+            assertTrue(newId > epicId, "ID удалённого эпика не выдаётся повторно: " + suffix);
+        }
+    }
+
+    @Test
+    void testBulkOperationsPersistOnce() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        AtomicInteger saves = new AtomicInteger();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file) {
+            @Override
+            protected void save() {
+                saves.incrementAndGet();
+                super.save();
+            }
+        };
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        List<Task> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i % 2 == 0 ? new Task("Task" + i, "Desc") : new Subtask("Sub" + i, "Desc", epicId));
+        }
+
+        saves.set(0);
+        int[] ids = manager.createAll(items);
+        manager.deleteAll(List.of(ids[0], ids[1]));
+        assertEquals(2, saves.get(), "Один save() на пакет");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(49, loaded.getAllTasks().size());
+        assertEquals(49, loaded.getAllSubtasks().size());
+        assertEquals(49, loaded.getEpicById(epicId).getSubtaskCount());
+    }
+
+    @Test
+    void testBulkOperationsReplayFromJournal() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        int epicId = manager.createEpic(new Epic("Epic1", "EpicDesc"));
+        Subtask subtask = new Subtask("Sub1", "SubDesc", epicId);
+        Task task = new Task("Task1", "Desc");
+        manager.createAll(List.of(subtask, task));
+        subtask.setStatus(Status.DONE);
+        manager.updateAll(List.of(subtask));
+        manager.deleteAll(List.of(task.getId()));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertEquals(Status.DONE, loaded.getEpicById(epicId).getStatus());
+        loaded.close();
+    }
+
+    @Test
+    void testCorruptedSnapshotFallsBackToPrevious() throws IOException {
+        for (String suffix : new String[]{".csv", ".bin"}) {
+            File file = File.createTempFile("test", suffix);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file);
+            manager.createTask(new Task("Task1", "Description1"));
+            manager.createTask(new Task("Task2", "Description2"));
+            assertFalse(new File(file.getPath() + FileBackedTaskManager.TEMP_SUFFIX).exists());
+
+            // Портим байт в середине последнего снимка
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            bytes[bytes.length / 2] ^= 0x01;
+            Files.write(file.toPath(), bytes);
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+            assertTrue(loaded.isLoadedFromBackup(), suffix);
+            assertEquals(1, loaded.getAllTasks().size(), "Загружен предыдущий снимок: " + suffix);
+            assertEquals("Task1", loaded.getAllTasks().get(0).getName());
+        }
+    }
+
+    @Test
+    void testMissingTrailerIsRejectedUnlessPreTrailerSnapshot() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\n1,TASK,Task1,NEW,Desc,\n");
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(), "Снимок до трейлера");
+
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\n1,TASK,Task1,NEW,Desc,\n"
+                + CsvTaskWriter.NEXT_ID_PREFIX + "2\n");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file), "С #next-id");
+
+        Files.writeString(file.toPath(), CsvTaskWriter.CSV_HEADER + "1,TASK,Task1,NEW,Desc,,,\n");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "С нынешним заголовком");
+
+        // Обрезанный трейлер при наличии резервной копии — откат к ней
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.createTask(new Task("Task2", "Description2"));
+        String content = Files.readString(file.toPath());
+        Files.writeString(file.toPath(), content.substring(0, content.indexOf(CsvTaskWriter.CHECKSUM_PREFIX)));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertTrue(loaded.isLoadedFromBackup());
+        assertEquals(1, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void testBackupWithoutCompactedJournalIsRejected() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.createTask(new Task("Task2", "Description2"));
+        manager.compact();
+        manager.close();
+
+        // Свёрнутые записи журнала есть только в последнем снимке
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file.toPath(), bytes);
+        ManagerSaveException e = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL));
+        assertTrue(e.getMessage().contains("журнала"), e.getMessage());
+    }
+
+    @Test
+    void testEmptyBinarySnapshotIsCorrupted() throws IOException {
+        File file = File.createTempFile("test", ".bin");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file));
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.createTask(new Task("Task1", "Description1"));
+        manager.createTask(new Task("Task2", "Description2"));
+        Files.write(file.toPath(), new byte[0]);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertTrue(loaded.isLoadedFromBackup(), "Пустой снимок при резервной копии — откат к ней");
+        assertEquals(1, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void testUnknownBinaryVersionIsRejected() throws IOException {
+        File file = File.createTempFile("test", ".bin");
+        new FileBackedTaskManager(file).createTask(new Task("Task1", "Description1"));
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[BinaryTaskWriter.MAGIC.length] = BinaryTaskWriter.VERSION + 1;
+        Files.write(file.toPath(), bytes);
+        Files.delete(Path.of(file.getPath() + FileBackedTaskManager.BACKUP_SUFFIX));
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file));
+        assertTrue(e.getMessage().contains("версия"), e.getMessage());
+    }
+
+    @Test
+    void testCorruptedSnapshotWithoutBackupIsRejected() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        Files.writeString(file.toPath(), CsvTaskWriter.CSV_HEADER + "1,TASK,Task1,NEW,Desc,\n"
+                + CsvTaskWriter.CHECKSUM_PREFIX + "00000000\n");
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
 }
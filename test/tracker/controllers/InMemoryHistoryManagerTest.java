@@ -4,9 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tracker.model.Task;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -104,4 +110,77 @@ class InMemoryHistoryManagerTest {
         final List<Task> history = historyManager.getHistory();
         assertTrue(history.isEmpty(), "Пустая история должна возвращать пустой список");
     }
+
+    /**
+     * Проверка вытеснения самого старого просмотра при превышении ёмкости.
+     */
+    @Test
+    void testBoundedHistoryEvictsOldest() {
+        final InMemoryHistoryManager bounded = new InMemoryHistoryManager(2);
+        final Task task1 = new Task("Task 1", "Desc 1");
+        task1.setId(1);
+        final Task task2 = new Task("Task 2", "Desc 2");
+        task2.setId(2);
+        final Task task3 = new Task("Task 3", "Desc 3");
+        task3.setId(3);
+
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task1); // повтор не вытесняет
+        assertEquals(0, bounded.getEvictionCount());
+
+        bounded.add(task3);
+        assertEquals(List.of(task1, task3), bounded.getHistory(), "Task2 — самый давний просмотр");
+        assertEquals(1, bounded.getEvictionCount());
+        assertEquals(2, bounded.size());
+    }
+
+    /**
+     * Проверка постраничного чтения от свежих просмотров и итератора с хвоста.
+     */
+    @Test
+    void testRecentPagesAndIterator() {
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            final Task task = new Task("Task " + i, "Desc " + i);
+            task.setId(i);
+            tasks.add(task);
+            historyManager.add(task);
+        }
+
+        assertEquals(List.of(tasks.get(4), tasks.get(3)), historyManager.getHistory(0, 2));
+        assertEquals(List.of(tasks.get(1), tasks.get(0)), historyManager.getHistory(3, 10));
+        assertTrue(historyManager.getHistory(5, 2).isEmpty());
+
+        final List<Task> recent = new ArrayList<>();
+        historyManager.recentFirst().forEachRemaining(recent::add);
+        final List<Task> reversed = new ArrayList<>(tasks);
+        Collections.reverse(reversed);
+        assertEquals(reversed, recent);
+
+        final Iterator<Task> iterator = historyManager.recentFirst();
+        iterator.next();
+        historyManager.remove(1);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    /**
+     * Проверка, что снимок не меняется вместе с историей и переиспользуется без изменений.
+     */
+    @Test
+    void testSnapshotIsImmutableAndCached() {
+        final Task task1 = new Task("Task 1", "Desc 1");
+        task1.setId(1);
+        final Task task2 = new Task("Task 2", "Desc 2");
+        task2.setId(2);
+        historyManager.add(task1);
+
+        final List<Task> snapshot = historyManager.snapshot();
+        assertSame(snapshot, historyManager.snapshot(), "Без изменений снимок не пересобирается");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(task2));
+
+        historyManager.add(task2);
+        assertEquals(List.of(task1), snapshot);
+        assertEquals(List.of(task1, task2), historyManager.snapshot());
+    }
 }
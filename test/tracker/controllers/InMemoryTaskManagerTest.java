@@ -3,12 +3,17 @@ package tracker.controllers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tracker.model.Epic;
+import tracker.model.Status;
 import tracker.model.Subtask;
 import tracker.model.Task;
+import tracker.model.TaskType;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -116,4 +121,139 @@ class InMemoryTaskManagerTest {
                 "Дубликаты задачи не должны увеличивать историю");
         assertEquals(task, history.get(0));
     }
+
+    /**
+     * Проверка, что менеджер одинаково работает на любом хранилище.
+     */
+    @Test
+    void testEveryStorageSupportsCrud() {
+        for (final TaskStorage storage : TaskStorage.values()) {
+            final InMemoryTaskManager storageManager = new InMemoryTaskManager(storage);
+            final int taskId = storageManager.createTask(new Task("Task 1", "Desc 1"));
+            final int epicId = storageManager.createEpic(new Epic("Epic 1", "Desc Epic"));
+            final int subtaskId = storageManager.createSubtask(new Subtask("Sub1", "Desc1", epicId));
+
+            assertEquals(1, storageManager.getAllTasks().size(), storage.name());
+            assertEquals(subtaskId, storageManager.getSubtaskById(subtaskId).getId(), storage.name());
+
+            storageManager.deleteTask(taskId);
+            storageManager.deleteEpic(epicId);
+            assertTrue(storageManager.getAllTasks().isEmpty(), storage.name());
+            assertTrue(storageManager.getAllSubtasks().isEmpty(), storage.name());
+            assertTrue(storageManager.getHistory().isEmpty(), storage.name());
+        }
+    }
+
+    /**
+     * Проверка, что выборка по статусу следует за созданием, обновлением,
+     * пересчётом статуса эпика и удалением — в обычном и потокобезопасном менеджере.
+     */
+    @Test
+    void testGetByStatusFollowsChanges() {
+        for (final TaskManager indexed : List.of(manager, new ConcurrentTaskManager())) {
+            final Task task = new Task("Task 1", "Desc 1");
+            indexed.createTask(task);
+            final int epicId = indexed.createEpic(new Epic("Epic 1", "Desc Epic"));
+            final Subtask sub1 = new Subtask("Sub1", "Desc1", epicId);
+            final Subtask sub2 = new Subtask("Sub2", "Desc2", epicId);
+            indexed.createSubtask(sub1);
+            indexed.createSubtask(sub2);
+            assertEquals(List.of(task), indexed.getByStatus(Status.NEW, TaskType.TASK));
+            assertEquals(2, indexed.getByStatus(Status.NEW, TaskType.SUBTASK).size());
+
+            task.setStatus(Status.IN_PROGRESS);
+            indexed.updateTask(task);
+            sub1.setStatus(Status.DONE);
+            indexed.updateSubtask(sub1);
+            assertTrue(indexed.getByStatus(Status.NEW, TaskType.TASK).isEmpty());
+            assertEquals(List.of(task), indexed.getByStatus(Status.IN_PROGRESS, TaskType.TASK));
+            assertEquals(List.of(sub1), indexed.getByStatus(Status.DONE, TaskType.SUBTASK));
+            assertEquals(1, indexed.getByStatus(Status.IN_PROGRESS, TaskType.EPIC).size());
+
+            indexed.deleteSubtask(sub2.getId());
+            assertEquals(1, indexed.getByStatus(Status.DONE, TaskType.EPIC).size());
+            assertTrue(indexed.getByStatus(Status.IN_PROGRESS, TaskType.EPIC).isEmpty());
+
+            indexed.deleteEpic(epicId);
+            indexed.deleteTask(task.getId());
+            for (final TaskType type : TaskType.values()) {
+                for (final Status status : Status.values()) {
+                    assertTrue(indexed.getByStatus(status, type).isEmpty(), type + " " + status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Проверка пакетного создания, обновления и удаления вместе со статусами эпиков.
+     */
+    @Test
+    void testBulkOperationsKeepEpicsAndIndexesConsistent() {
+        final Epic epic = new Epic("Epic 1", "Desc Epic");
+        manager.createEpic(epic);
+        final List<Task> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new Subtask("Sub" + i, "Desc", epic.getId()));
+        }
+        items.add(new Task("Task 1", "Desc 1"));
+
+        final int[] ids = manager.createAll(items);
+        assertEquals(items.size(), ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], items.get(i).getId());
+        }
+        assertEquals(10, epic.getSubtaskCount());
+
+        for (final Task item : items) {
+            item.setStatus(Status.DONE);
+        }
+        manager.updateAll(items);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(List.of(epic), manager.getByStatus(Status.DONE, TaskType.EPIC));
+
+        manager.deleteAll(List.of(ids[0], ids[10]));
+        assertEquals(9, manager.getAllSubtasks().size());
+        assertTrue(manager.getAllTasks().isEmpty());
+
+        manager.deleteAll(List.of(epic.getId()));
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getByStatus(Status.DONE, TaskType.EPIC).isEmpty());
+        assertTrue(manager.getByStatus(Status.DONE, TaskType.SUBTASK).isEmpty());
+    }
+
+    /**
+     * Проверка, что снимок — неизменяемое состояние на момент версии, а новые версии видят изменения.
+     */
+    @Test
+    void testSnapshotIsPointInTime() {
+        final Task task = new Task("Task 1", "Desc 1");
+        manager.createTask(task);
+        final Epic epic = new Epic("Epic 1", "Desc Epic");
+        manager.createEpic(epic);
+        final Subtask subtask = new Subtask("Sub 1", "Desc", epic.getId());
+        manager.createSubtask(subtask);
+
+        final TaskSnapshot first = manager.snapshot();
+        assertSame(first, manager.snapshot(), "без изменений версия не меняется");
+
+        task.setName("Changed in place");
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals("Task 1", first.getTask(task.getId()).getName());
+        assertEquals(Status.NEW, first.getEpic(epic.getId()).getStatus());
+
+        final TaskSnapshot second = manager.snapshot();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(Status.DONE, second.getEpic(epic.getId()).getStatus());
+        assertEquals(Status.DONE, second.getSubtask(subtask.getId()).getStatus());
+        assertSame(first.getTask(task.getId()), second.getTask(task.getId()), "неизменённая сущность общая");
+
+        manager.deleteEpic(epic.getId());
+        final TaskSnapshot third = manager.snapshot();
+        assertTrue(third.getEpics().isEmpty());
+        assertTrue(third.getSubtasks().isEmpty());
+        assertEquals(1, second.getSubtasks().size());
+        assertEquals(List.of(task.getId()), third.getTasks().stream().map(Task::getId).toList());
+        assertThrows(UnsupportedOperationException.class, () -> third.getTasks().clear());
+    }
 }
@@ -0,0 +1,307 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+import tracker.util.TinyLfuCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты менеджера поверх отображаемого в память хранилища.
+ */
+class MappedTaskManagerTest {
+
+    /**
+     * Проверка, что записанные сущности читаются из отображения без потерь.
+     */
+    @Test
+    void testReadsFromMappedStore() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        int taskId = source.createTask(new Task("Задача", null));
+        int epicId = source.createEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask done = new Subtask("Готово", "Сделано", epicId);
+        done.setStatus(Status.DONE);
+        int doneId = source.createSubtask(done);
+        int newId = source.createSubtask(new Subtask("Новая", "Ещё не начата", epicId));
+        source.deleteTask(source.createTask(new Task("Удалённая", "")));
+
+        File file = File.createTempFile("test", ".tsm");
+        MappedTaskManager.write(file, source);
+        MappedTaskManager manager = MappedTaskManager.open(file);
+
+        Task task = manager.getTaskById(taskId);
+        assertEquals("Задача", task.getName());
+        assertNull(task.getDescription());
+        Epic epic = manager.getEpicById(epicId);
+        assertEquals("Описание эпика", epic.getDescription());
+        assertEquals(Set.of(doneId, newId), Set.copyOf(epic.getSubtaskIds()));
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(epicId, manager.getSubtaskById(doneId).getEpicId());
+        assertNull(manager.getTaskById(epicId));
+        assertNull(manager.getEpicById(12345));
+        assertEquals(3, manager.getHistory().size());
+        assertEquals(2, manager.getAllSubtasks().size());
+        assertEquals(1, manager.getByStatus(Status.DONE, TaskType.SUBTASK).size());
+        assertTrue(manager.createTask(new Task("После", "")) > newId + 1, "ID удалённой задачи не выдаётся снова");
+    }
+
+    /**
+     * Проверка, что изменения копятся поверх файла и сохраняются в новый файл.
+     */
+    @Test
+    void testOverlayHoldsWrites() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        int taskId = source.createTask(new Task("Задача", ""));
+        int epicId = source.createEpic(new Epic("Эпик", ""));
+        int subId = source.createSubtask(new Subtask("Подзадача", "", epicId));
+        int otherEpicId = source.createEpic(new Epic("Второй эпик", ""));
+        int otherSubId = source.createSubtask(new Subtask("Вторая подзадача", "", otherEpicId));
+
+        File file = File.createTempFile("test", ".tsm");
+        MappedTaskManager.write(file, source);
+        long size = file.length();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+
+        Subtask subtask = manager.getSubtaskById(subId);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus());
+        int addedId = manager.createSubtask(new Subtask("Добавленная", "", epicId));
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epicId).getStatus());
+
+        manager.deleteTask(taskId);
+        manager.deleteEpic(otherEpicId);
+        assertNull(manager.getTaskById(taskId));
+        assertNull(manager.getSubtaskById(otherSubId));
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertEquals(1, manager.getAllEpics().size());
+        assertEquals(size, file.length(), "файл хранилища не меняется");
+
+        File next = File.createTempFile("test", ".tsm");
+        manager.writeTo(next);
+        MappedTaskManager reopened = MappedTaskManager.open(next);
+        assertEquals(0, reopened.getOverlaySize());
+        assertEquals(Set.of(subId, addedId), Set.copyOf(reopened.getEpicById(epicId).getSubtaskIds()));
+        assertEquals(Status.DONE, reopened.getSubtaskById(subId).getStatus());
+        assertNull(reopened.getEpicById(otherEpicId));
+        assertEquals(2, reopened.getAllSubtasks().size());
+    }
+
+    /**
+     * Проверка конвертации снимка и отказа открывать чужой файл.
+     */
+    @Test
+    void testConvertSnapshotAndRejectForeignFile() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(csv);
+        int epicId = fileManager.createEpic(new Epic("Эпик", "Описание эпика"));
+        int subId = fileManager.createSubtask(new Subtask("Подзадача", "", epicId));
+
+        File file = File.createTempFile("test", ".tsm");
+        MappedTaskManager.convert(csv, file);
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        assertEquals("Описание эпика", manager.getEpicById(epicId).getDescription());
+        assertEquals(List.of(subId), manager.getEpicById(epicId).getSubtaskIds());
+
+        File foreign = File.createTempFile("test", ".tsm");
+        Files.writeString(foreign.toPath(), "id,type,name,status,description,epic\n1,TASK,a,NEW,b,\n");
+        assertThrows(ManagerSaveException.class, () -> MappedTaskManager.open(foreign));
+    }
+
+    /**
+     * Проверка ленивой загрузки снимка: журнал применяется, кэш ограничен и ведёт счётчики.
+     */
+    @Test
+    void testOpenSnapshotWithJournalAndBoundedCache() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(csv);
+        for (int i = 0; i < 50; i++) {
+            fileManager.createTask(new Task("Задача " + i, ""));
+        }
+        int epicId = fileManager.createEpic(new Epic("Эпик", ""));
+        int subId = fileManager.createSubtask(new Subtask("Подзадача", "", epicId));
+        fileManager.close();
+        FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(csv, PersistenceMode.JOURNAL);
+        Subtask subtask = journaled.getSubtaskById(subId);
+        subtask.setStatus(Status.DONE);
+        journaled.updateSubtask(subtask);
+        journaled.deleteTask(1);
+        journaled.flush();
+
+        MappedTaskManager manager = MappedTaskManager.openSnapshot(csv, 10);
+        assertTrue(new File(csv.getPath() + MappedTaskManager.STORE_SUFFIX).exists());
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus());
+        assertNull(manager.getTaskById(1));
+        for (int round = 0; round < 3; round++) {
+            for (int id = 2; id <= 50; id++) {
+                assertEquals(id, manager.getTaskById(id).getId());
+            }
+        }
+        assertEquals(10, manager.getCacheSize());
+        TinyLfuCache.Stats stats = manager.getCacheStats();
+        assertEquals(3 * 49 + 1, stats.hits() + stats.misses());
+        assertTrue(stats.evictions() > 0);
+        journaled.close();
+    }
+
+    /**
+     * Проверка, что изменения менеджера поверх снимка попадают в журнал снимка
+     * и видны при следующем открытии и FileBackedTaskManager.
+     */
+    @Test
+    void testOpenSnapshotPersistsWritesToJournal() throws IOException {
+        for (String suffix : new String[]{".csv", ".bin"}) {
+            File file = File.createTempFile("test", suffix);
+            FileBackedTaskManager fileManager = new FileBackedTaskManager(file);
+            int firstId = fileManager.createTask(new Task("Первая", ""));
+            int epicId = fileManager.createEpic(new Epic("Эпик", ""));
+            int subId = fileManager.createSubtask(new Subtask("Подзадача", "", epicId));
+            fileManager.close();
+
+            MappedTaskManager manager = MappedTaskManager.openSnapshot(file);
+            int secondId = manager.createTask(new Task("Вторая", ""));
+            Subtask subtask = manager.getSubtaskById(subId);
+            subtask.setStatus(Status.DONE);
+            manager.updateSubtask(subtask);
+            manager.deleteTask(firstId);
+            manager.close();
+
+            MappedTaskManager reopened = MappedTaskManager.openSnapshot(file);
+            assertNull(reopened.getTaskById(firstId), suffix);
+            assertEquals("Вторая", reopened.getTaskById(secondId).getName(), suffix);
+            assertEquals(Status.DONE, reopened.getEpicById(epicId).getStatus(), suffix);
+            reopened.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+            assertEquals(List.of(secondId), loaded.getAllTasks().stream().map(Task::getId).toList(), suffix);
+            assertEquals(Status.DONE, loaded.getEpicById(epicId).getStatus(), suffix);
+            assertTrue(loaded.createTask(new Task("Третья", "")) > secondId, suffix);
+            loaded.close();
+        }
+    }
+
+    /**
+     * Проверка, что хранилище пересобирается по контрольной сумме снимка,
+     * даже если снимок той же длины и старше хранилища по времени изменения.
+     */
+    @Test
+    void testStoreRebuiltWhenSnapshotContentChanges() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(csv);
+        int taskId = fileManager.createTask(new Task("A", ""));
+        fileManager.close();
+        MappedTaskManager.openSnapshot(csv).close();
+        File store = new File(csv.getPath() + MappedTaskManager.STORE_SUFFIX);
+
+        FileBackedTaskManager updater = FileBackedTaskManager.loadFromFile(csv);
+        Task task = updater.getTaskById(taskId);
+        task.setName("B");
+        updater.updateTask(task);
+        updater.close();
+        assertTrue(csv.setLastModified(store.lastModified() - 60_000));
+
+        MappedTaskManager manager = MappedTaskManager.openSnapshot(csv);
+        assertEquals("B", manager.getTaskById(taskId).getName());
+        manager.close();
+    }
+
+    /**
+     * Проверка, что повреждённый снимок заменяется предыдущим, если журнал не ведётся,
+     * и не заменяется, если журнал есть, а уплотнение завершилось.
+     */
+    @Test
+    void testOpenSnapshotFallsBackToBackup() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(csv);
+        int firstId = fileManager.createTask(new Task("Первая", ""));
+        int secondId = fileManager.createTask(new Task("Вторая", ""));
+        fileManager.close();
+        byte[] bytes = Files.readAllBytes(csv.toPath());
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(csv.toPath(), bytes);
+
+        MappedTaskManager manager = MappedTaskManager.openSnapshot(csv);
+        assertEquals("Первая", manager.getTaskById(firstId).getName());
+        assertNull(manager.getTaskById(secondId));
+        manager.close();
+
+        Files.writeString(Path.of(csv.getPath() + ".journal"), "G,1\n");
+        assertThrows(ManagerSaveException.class, () -> MappedTaskManager.openSnapshot(csv));
+    }
+
+    /**
+     * Проверка, что отложенный журнал, уже свёрнутый в снимок, не применяется повторно.
+     */
+    @Test
+    void testOpenSnapshotSkipsJournalCoveredBySnapshot() throws IOException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        int epicId = fileManager.createEpic(new Epic("Эпик", ""));
+        fileManager.createSubtask(new Subtask("Первая", "", epicId));
+        fileManager.compact();
+        fileManager.createSubtask(new Subtask("Вторая", "", epicId));
+        fileManager.deleteEpic(epicId);
+        byte[] rotated = Files.readAllBytes(Path.of(file.getPath() + ".journal"));
+        fileManager.compact();
+        fileManager.createTask(new Task("Задача", ""));
+        fileManager.close();
+        // Сбой после переименования нового снимка, но до удаления .journal.old
+        Files.write(Path.of(file.getPath() + ".journal.old"), rotated);
+
+        MappedTaskManager manager = MappedTaskManager.openSnapshot(file);
+        assertTrue(manager.getAllEpics().isEmpty());
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Нет подзадачи без эпика");
+        assertEquals(1, manager.getAllTasks().size());
+        manager.close();
+    }
+
+    /**
+     * Проверка потоковой записи на наборе из многих эпиков: подзадачи эпиков и поля
+     * совпадают с источником и при записи из менеджера, и при конвертации снимка.
+     */
+    @Test
+    void testStreamedStoreMatchesSource() throws IOException {
+        File csv = File.createTempFile("test", ".csv");
+        FileBackedTaskManager source = new FileBackedTaskManager(csv, PersistenceMode.JOURNAL);
+        for (int e = 0; e < 200; e++) {
+            int epicId = source.createEpic(new Epic("Эпик " + e, e % 3 == 0 ? "" : "Описание " + e));
+            source.createTask(new Task("Задача " + e, ""));
+            for (int i = 0; i < e % 7; i++) {
+                source.createSubtask(new Subtask("Подзадача " + i, "", epicId));
+            }
+        }
+        source.compact();
+        source.close();
+        File written = File.createTempFile("test", ".tsm");
+        MappedTaskManager.write(written, source);
+        File converted = File.createTempFile("test", ".tsm");
+        MappedTaskManager.convert(csv, converted);
+
+        for (File file : List.of(written, converted)) {
+            MappedTaskManager manager = MappedTaskManager.open(file);
+            assertEquals(source.getAllTasks().size(), manager.getAllTasks().size());
+            assertEquals(source.getAllSubtasks().size(), manager.getAllSubtasks().size());
+            for (Epic expected : source.getAllEpics()) {
+                Epic actual = manager.getEpicById(expected.getId());
+                assertEquals(expected.getName(), actual.getName());
+                assertEquals(expected.getDescription(), actual.getDescription());
+                assertEquals(Set.copyOf(expected.getSubtaskIds()), Set.copyOf(actual.getSubtaskIds()));
+            }
+            assertEquals(source.getIdGenerator().peek(), manager.createTask(new Task("Новая", "")));
+        }
+    }
+}
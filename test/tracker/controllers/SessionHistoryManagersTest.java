@@ -0,0 +1,212 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для SessionHistoryManagers.
+ * Проверяются раздельные истории сессий, вытеснение, истечение сессий и работа с менеджером задач.
+ */
+class SessionHistoryManagersTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SessionHistoryManagers sessions;
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionHistoryManagers(3, Duration.ofMinutes(10), now::get);
+        manager = new InMemoryTaskManager(TaskStorage.OPEN_ADDRESSING, sessions::current);
+    }
+
+    /**
+     * Каждая сессия видит только свои просмотры.
+     */
+    @Test
+    void testSessionsHaveSeparateHistories() {
+        final int id1 = manager.createTask(new Task("Task 1", "Desc 1"));
+        final int id2 = manager.createTask(new Task("Task 2", "Desc 2"));
+
+        inSession("alice", () -> {
+            manager.getTaskById(id1);
+        });
+        inSession("bob", () -> {
+            manager.getTaskById(id2);
+            assertEquals(List.of(manager.getAllTasks().get(1)), manager.getHistory());
+        });
+        inSession("alice", () -> {
+            assertEquals(1, manager.getHistory().size());
+            assertEquals(id1, manager.getHistory().get(0).getId());
+        });
+        assertTrue(manager.getHistory().isEmpty(), "Без сессии история пуста");
+    }
+
+    /**
+     * Повторный просмотр переносит задачу в конец, переполнение вытесняет самую давнюю.
+     */
+    @Test
+    void testRepeatedViewMovesToEndAndOverflowEvictsOldest() {
+        final HistoryManager history = sessions.forSession("alice", manager::find);
+        final Task[] tasks = new Task[4];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Desc");
+            manager.createTask(tasks[i]);
+        }
+
+        history.add(tasks[0]);
+        history.add(tasks[1]);
+        history.add(tasks[0]);
+        assertEquals(List.of(tasks[1], tasks[0]), history.getHistory());
+
+        history.add(tasks[2]);
+        history.add(tasks[3]);
+        assertEquals(List.of(tasks[0], tasks[2], tasks[3]), history.getHistory());
+        assertEquals(1, sessions.getEvictionCount());
+    }
+
+    /**
+     * Задача и эпик с одинаковым ID из старого снимка не вытесняют друг друга, удалённые задачи пропадают.
+     */
+    @Test
+    void testTypedIdsAndDeletedTasks() {
+        final Task task = new Task("Task 1", "Desc 1");
+        task.setId(1);
+        final Epic epic = new Epic("Epic 1", "Desc Epic");
+        epic.setId(1);
+        manager.restore(task);
+        manager.restore(epic);
+        final int taskId = task.getId();
+        final int epicId = epic.getId();
+
+        inSession("alice", () -> {
+            manager.getTaskById(taskId);
+            manager.getEpicById(epicId);
+            assertEquals(2, manager.getHistory().size());
+        });
+        inSession("bob", () -> {
+            manager.deleteEpic(epicId);
+        });
+        inSession("alice", () -> {
+            assertEquals(1, manager.getHistory().size(), "Эпик удалён через другую сессию");
+        });
+    }
+
+    /**
+     * Сессии без обращений удаляются, их буферы переиспользуются.
+     */
+    @Test
+    void testIdleSessionsExpire() {
+        final int id = manager.createTask(new Task("Task 1", "Desc 1"));
+        inSession("alice", () -> {
+            manager.getTaskById(id);
+        });
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        inSession("bob", () -> {
+            manager.getTaskById(id);
+        });
+        assertEquals(2, sessions.getSessionCount());
+
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        assertEquals(1, sessions.expireIdle());
+        assertEquals(1, sessions.getExpiredCount());
+        inSession("alice", () -> {
+            assertTrue(manager.getHistory().isEmpty(), "История истёкшей сессии потеряна");
+        });
+    }
+
+    /**
+     * Долгая смесь просмотров и удалений совпадает с моделью на LinkedHashSet:
+     * буфер многократно уплотняется, а таблица ключей переживает удаления.
+     */
+    @Test
+    void testLongChurnMatchesModel() {
+        final HistoryManager history = sessions.forSession("alice", manager::find);
+        final Task[] tasks = new Task[8];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Desc");
+            manager.createTask(tasks[i]);
+        }
+        final LinkedHashSet<Task> model = new LinkedHashSet<>();
+        final Random random = new Random(42);
+        for (int step = 0; step < 10_000; step++) {
+            final Task task = tasks[random.nextInt(tasks.length)];
+            if (random.nextInt(4) == 0) {
+                history.remove(task.getId());
+                model.remove(task);
+            } else {
+                history.add(task);
+                model.remove(task);
+                if (model.size() == 3) {
+                    model.remove(model.iterator().next());
+                }
+                model.add(task);
+            }
+            assertEquals(List.copyOf(model), history.getHistory(), "Шаг " + step);
+        }
+    }
+
+    /**
+     * Потоки с разными сессиями не мешают друг другу.
+     */
+    @Test
+    void testConcurrentSessionsStayIsolated() throws Exception {
+        final Task[] tasks = new Task[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Desc");
+            manager.createTask(tasks[i]);
+        }
+        final int threadCount = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<List<Task>>> results = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final String sessionId = "user-" + t;
+            final int offset = t;
+            results.add(executor.submit(() -> {
+                final HistoryManager history = sessions.forSession(sessionId, manager::find);
+                for (int i = 0; i < 20_000; i++) {
+                    history.add(tasks[(offset + i) % tasks.length]);
+                }
+                return history.getHistory();
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int t = 0; t < threadCount; t++) {
+            final int last = t + 20_000 - 1;
+            final List<Task> expected = List.of(tasks[(last - 2) % tasks.length],
+                    tasks[(last - 1) % tasks.length], tasks[last % tasks.length]);
+            assertEquals(expected, results.get(t).get());
+        }
+        assertEquals(threadCount, sessions.getSessionCount());
+        assertEquals(threadCount * (20_000L - 3), sessions.getEvictionCount());
+    }
+
+    /**
+     * Выполняет действие с сессией, привязанной к текущему потоку, и снимает привязку.
+     */
+    private void inSession(final String sessionId, final Runnable action) {
+        final SessionHistoryManagers.Binding binding = sessions.bind(sessionId);
+        try {
+            action.run();
+        } finally {
+            binding.close();
+        }
+    }
+}
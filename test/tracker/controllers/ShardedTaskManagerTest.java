@@ -0,0 +1,148 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для ShardedTaskManager: маршрутизация по ID, общие история и индекс интервалов,
+ * хранение шардов в отдельных файлах.
+ */
+class ShardedTaskManagerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    /**
+     * Подзадачи попадают в шард эпика, ID уникальны, выборки склеиваются из всех шардов.
+     */
+    @Test
+    void testRoutingAndMerge() {
+        ShardedTaskManager manager = new ShardedTaskManager(3);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(manager.createTask(new Task("Task " + i, "Desc")));
+        }
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        Subtask done = new Subtask("Done", "Desc", epicId);
+        done.setStatus(Status.DONE);
+        int doneId = manager.createSubtask(done);
+        int newId = manager.createSubtask(new Subtask("New", "Desc", epicId));
+        ids.addAll(List.of(epicId, doneId, newId));
+        assertEquals(9, ids.size(), "ID уникальны во всех шардах");
+
+        assertEquals(manager.shardOf(epicId), manager.shardOf(doneId));
+        assertEquals(manager.shardOf(epicId), manager.shardOf(newId));
+        Set<Integer> taskShards = new HashSet<>();
+        for (Task task : manager.getAllTasks()) {
+            taskShards.add(manager.shardOf(task.getId()));
+        }
+        assertEquals(3, taskShards.size(), "Задачи разложены по всем шардам");
+        assertEquals(6, manager.getAllTasks().size());
+        assertEquals(2, manager.getAllSubtasks().size());
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epicId).getStatus());
+        assertEquals(List.of(doneId), manager.getByStatus(Status.DONE, TaskType.SUBTASK).stream()
+                .map(Task::getId).toList());
+
+        manager.getSubtaskById(doneId);
+        manager.getTaskById(1);
+        assertEquals(List.of(epicId, doneId, 1), manager.getHistory().stream().map(Task::getId).toList());
+        manager.deleteEpic(epicId);
+        assertNull(manager.getSubtaskById(doneId));
+        assertEquals(List.of(1), manager.getHistory().stream().map(Task::getId).toList());
+
+        int[] created = manager.createAll(List.of(new Task("A", "Desc"), new Task("B", "Desc"), new Task("C", "Desc")));
+        assertEquals(3, created.length);
+        assertEquals("B", manager.getTaskById(created[1]).getName());
+        manager.deleteAll(List.of(created[0], created[2]));
+        assertEquals(7, manager.getAllTasks().size());
+        manager.close();
+    }
+
+    /**
+     * Пересечения по времени проверяются между шардами; порядок приоритета общий.
+     */
+    @Test
+    void testOverlapsAcrossShards() {
+        ShardedTaskManager manager = new ShardedTaskManager(4);
+        int first = manager.createTask(timed(new Task("First", "Desc"), 0, 60));
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        assertTrue(manager.shardOf(first) != manager.shardOf(epicId));
+        assertThrows(TaskOverlapException.class,
+                () -> manager.createSubtask(timed(new Subtask("Overlap", "Desc", epicId), 30, 60)));
+        int subtaskId = manager.createSubtask(timed(new Subtask("Sub", "Desc", epicId), 60, 30));
+        int late = manager.createTask(timed(new Task("Late", "Desc"), 180, 30));
+        assertEquals(List.of(first, subtaskId, late), ids(manager.getPrioritizedTasks()));
+        assertEquals(START.plusMinutes(90), manager.getEpicById(epicId).getEndTime());
+
+        List<Task> batch = List.of(timed(new Task("A", "Desc"), 120, 30), timed(new Task("B", "Desc"), 130, 30));
+        assertThrows(TaskOverlapException.class, () -> manager.createAll(batch));
+        assertEquals(2, manager.getAllTasks().size(), "Пакет с пересечением не применён ни в одном шарде");
+        assertEquals(List.of(0, 0), ids(batch), "Элементам возвращены прежние ID");
+
+        Task moved = timed(new Task("Late", "Desc"), 100, 30);
+        moved.setId(late);
+        manager.updateTask(moved);
+        manager.deleteSubtask(subtaskId);
+        assertEquals(List.of(first, late), ids(manager.getPrioritizedTasks()));
+        manager.close();
+    }
+
+    /**
+     * Каждый шард хранится в своём файле; после повторного открытия данные и ID на месте,
+     * а открытие с другим числом шардов отклоняется.
+     */
+    @Test
+    void testShardFiles() throws IOException {
+        File directory = Files.createTempDirectory("shards").toFile();
+        ShardedTaskManager manager = ShardedTaskManager.open(directory, 3, PersistenceMode.SNAPSHOT, FlushMode.SYNC);
+        int taskId = manager.createTask(timed(new Task("Task", "Desc"), 0, 30));
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int subtaskId = manager.createSubtask(new Subtask("Sub", "Desc", epicId));
+        manager.close();
+        assertTrue(manager.shardOf(taskId) != manager.shardOf(epicId));
+        assertTrue(ShardedTaskManager.shardFile(directory, manager.shardOf(taskId)).exists());
+        assertTrue(ShardedTaskManager.shardFile(directory, manager.shardOf(epicId)).exists());
+
+        ShardedTaskManager reopened = ShardedTaskManager.open(directory, 3, PersistenceMode.SNAPSHOT, FlushMode.SYNC);
+        assertEquals("Task", reopened.getTaskById(taskId).getName());
+        assertEquals(List.of(subtaskId), reopened.getEpicById(epicId).getSubtaskIds());
+        assertEquals(List.of(taskId), ids(reopened.getPrioritizedTasks()));
+        Set<Integer> ids = new HashSet<>(List.of(taskId, epicId, subtaskId));
+        for (int i = 0; i < 6; i++) {
+            assertTrue(ids.add(reopened.createTask(new Task("More", "Desc"))), "Новые ID не совпадают со старыми");
+        }
+        reopened.close();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ShardedTaskManager.open(directory, 2, PersistenceMode.SNAPSHOT, FlushMode.SYNC));
+        assertThrows(IllegalArgumentException.class,
+                () -> ShardedTaskManager.open(directory, 4, PersistenceMode.SNAPSHOT, FlushMode.SYNC));
+    }
+
+    private static <T extends Task> T timed(T task, int startMinutes, int durationMinutes) {
+        task.setStartTime(START.plusMinutes(startMinutes));
+        task.setDuration(Duration.ofMinutes(durationMinutes));
+        return task;
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
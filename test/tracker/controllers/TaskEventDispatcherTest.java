@@ -0,0 +1,199 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для событий InMemoryTaskManager и TaskEventDispatcher.
+ * Проверяются состав и порядок событий, смена статуса эпика, пачки и ожидание при полном буфере.
+ */
+class TaskEventDispatcherTest {
+
+    /**
+     * Операции менеджера дают события в порядке изменений, смена статуса эпика — отдельное событие.
+     */
+    @Test
+    void testManagerPublishesChangesAndEpicTransitions() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.createTask(new Task("Before", "Not observed"));
+        List<TaskEvent> events = Collections.synchronizedList(new ArrayList<>());
+        manager.events().subscribe(events::addAll);
+
+        Task task = new Task("Task", "Desc");
+        int taskId = manager.createTask(task);
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        Subtask subtask = new Subtask("Sub", "Desc", epicId);
+        subtask.setStatus(Status.IN_PROGRESS);
+        int subtaskId = manager.createSubtask(subtask);
+        Subtask done = new Subtask("Sub", "Desc", epicId);
+        done.setId(subtaskId);
+        done.setStatus(Status.DONE);
+        manager.updateSubtask(done);
+        manager.deleteEpic(epicId);
+        manager.events().flush();
+
+        List<String> expected = List.of(
+                "CREATED TASK " + taskId,
+                "CREATED EPIC " + epicId,
+                "CREATED SUBTASK " + subtaskId,
+                "EPIC_STATUS_CHANGED EPIC " + epicId + " NEW->IN_PROGRESS",
+                "UPDATED SUBTASK " + subtaskId,
+                "EPIC_STATUS_CHANGED EPIC " + epicId + " IN_PROGRESS->DONE",
+                "DELETED SUBTASK " + subtaskId,
+                "DELETED EPIC " + epicId);
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            TaskEvent event = events.get(i);
+            assertEquals(i + 1, event.sequence(), "Номера событий идут подряд");
+            actual.add(event.kind() + " " + event.type() + " " + event.id()
+                    + (event.previousStatus() == null ? "" : " " + event.previousStatus() + "->"
+                    + event.task().getStatus()));
+        }
+        assertEquals(expected, actual);
+        assertNotSame(task, events.get(0).task(), "В событии копия сущности");
+    }
+
+    /**
+     * Пакетное создание сравнивает статус нового эпика с начальным и публикует его смену один раз.
+     */
+    @Test
+    void testBulkCreateReportsEpicStatusOnce() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        List<TaskEvent> events = Collections.synchronizedList(new ArrayList<>());
+        manager.events().subscribe(events::addAll);
+
+        Epic epic = new Epic("Epic", "Desc");
+        epic.setId(1);
+        List<Task> items = new ArrayList<>(List.of(epic));
+        for (int i = 0; i < 3; i++) {
+            Subtask subtask = new Subtask("Sub " + i, "Desc", 1);
+            subtask.setStatus(Status.DONE);
+            items.add(subtask);
+        }
+        manager.createAll(items);
+        manager.events().flush();
+
+        assertEquals(5, events.size());
+        TaskEvent last = events.get(4);
+        assertEquals(TaskEvent.Kind.EPIC_STATUS_CHANGED, last.kind());
+        assertEquals(TaskType.EPIC, last.type());
+        assertEquals(Status.NEW, last.previousStatus());
+        assertEquals(Status.DONE, last.task().getStatus());
+    }
+
+    /**
+     * Медленный слушатель получает события пачками не больше заданной, а публикация ждёт места в буфере.
+     */
+    @Test
+    void testBatchesAndBackpressure() throws Exception {
+        try (TaskEventDispatcher dispatcher = new TaskEventDispatcher(4, 3, TaskEventDispatcher.DEFAULT_LINGER_NANOS)) {
+            CountDownLatch release = new CountDownLatch(1);
+            List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+            List<Long> received = Collections.synchronizedList(new ArrayList<>());
+            dispatcher.subscribe(batch -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                batchSizes.add(batch.size());
+                batch.forEach(event -> received.add(event.sequence()));
+            });
+
+            List<TaskEvent> events = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                events.add(new TaskEvent(i, TaskEvent.Kind.CREATED, TaskType.TASK, i, null, null));
+            }
+            Thread publisher = new Thread(() -> dispatcher.publishAll(events));
+            publisher.start();
+            publisher.join(200);
+            assertTrue(publisher.isAlive(), "Публикация ждёт, пока слушатель не освободит буфер");
+
+            release.countDown();
+            publisher.join(TimeUnit.SECONDS.toMillis(10));
+            dispatcher.flush();
+            assertEquals(20, received.size());
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i + 1, received.get(i));
+            }
+            assertTrue(batchSizes.stream().allMatch(size -> size <= 3));
+        }
+    }
+
+    /**
+     * Изменение менеджера и ожидание доставки из слушателя сразу отклоняются, а не зависают.
+     */
+    @Test
+    void testListenerCannotPublishOrFlush() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        manager.events().subscribe(events -> {
+            try {
+                manager.createTask(new Task("From listener", "Desc"));
+            } catch (IllegalStateException e) {
+                errors.add(e);
+            }
+            try {
+                manager.events().flush();
+            } catch (IllegalStateException | InterruptedException e) {
+                errors.add(e);
+            }
+        });
+
+        manager.createTask(new Task("Task", "Desc"));
+        manager.events().flush();
+        assertEquals(2, errors.size());
+        assertTrue(errors.stream().allMatch(IllegalStateException.class::isInstance));
+    }
+
+    /**
+     * Изменение из слушателя отклоняется до того, как затронет состояние: в памяти
+     * и в журнале нет ни новой задачи, ни удаления, а ID не израсходован.
+     */
+    @Test
+    void testRejectedListenerChangeLeavesStateUnchanged() throws IOException, InterruptedException {
+        File file = File.createTempFile("test", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        int first = manager.createTask(new Task("Task", "Desc"));
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        manager.events().subscribe(events -> {
+            try {
+                manager.createTask(new Task("From listener", "Desc"));
+            } catch (IllegalStateException e) {
+                errors.add(e);
+            }
+            try {
+                manager.deleteTask(first);
+            } catch (IllegalStateException e) {
+                errors.add(e);
+            }
+        });
+
+        int second = manager.createTask(new Task("Task2", "Desc"));
+        manager.events().flush();
+        assertEquals(2, errors.size());
+        assertEquals(List.of(first, second), manager.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals(second + 1, manager.createTask(new Task("Task3", "Desc")), "ID не израсходован");
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(3, loaded.getAllTasks().size());
+        loaded.close();
+    }
+}
@@ -0,0 +1,295 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для времени задач: пересечения, порядок приоритета, время эпика и сохранение в файл.
+ */
+class TaskTimeTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    /**
+     * Пересекающиеся задачи отклоняются, смежные — нет; порядок приоритета — по времени начала.
+     */
+    @Test
+    void testOverlapsRejectedAndPrioritizedOrder() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int late = manager.createTask(timed(new Task("Late", "Desc"), 120, 30));
+        int early = manager.createTask(timed(new Task("Early", "Desc"), 0, 60));
+        int adjacent = manager.createSubtask(timed(new Subtask("Adjacent", "Desc", epicId), 60, 60));
+        manager.createTask(new Task("Untimed", "Desc"));
+
+        assertThrows(TaskOverlapException.class,
+                () -> manager.createTask(timed(new Task("Overlap", "Desc"), 90, 60)));
+        assertThrows(TaskOverlapException.class,
+                () -> manager.createSubtask(timed(new Subtask("Inside", "Desc", epicId), 10, 5)));
+        assertEquals(List.of(early, adjacent, late), ids(manager.getPrioritizedTasks()));
+
+        // Сдвиг задачи внутри собственного интервала — не пересечение
+        Task moved = timed(new Task("Early", "Desc"), 15, 45);
+        moved.setId(early);
+        manager.updateTask(moved);
+        Task clash = timed(new Task("Late", "Desc"), 100, 30);
+        clash.setId(late);
+        assertThrows(TaskOverlapException.class, () -> manager.updateTask(clash));
+        assertEquals(START.plusMinutes(120), manager.getTaskById(late).getStartTime());
+
+        manager.deleteSubtask(adjacent);
+        int freed = manager.createTask(timed(new Task("Freed", "Desc"), 60, 60));
+        assertEquals(List.of(early, freed, late), ids(manager.getPrioritizedTasks()));
+        List<Task> sorted = new ArrayList<>(manager.getPrioritizedTasks());
+        sorted.sort(Comparator.comparing(Task::getStartTime));
+        assertEquals(sorted, manager.getPrioritizedTasks(), "Индекс отдаёт задачи уже по порядку");
+    }
+
+    /**
+     * Время эпика выводится из подзадач и пересчитывается при их изменении и удалении.
+     */
+    @Test
+    void testEpicTimeDerivedFromSubtasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        assertNull(manager.getEpicById(epicId).getStartTime());
+
+        int first = manager.createSubtask(timed(new Subtask("First", "Desc", epicId), 60, 30));
+        int second = manager.createSubtask(timed(new Subtask("Second", "Desc", epicId), 0, 15));
+        manager.createSubtask(new Subtask("Untimed", "Desc", epicId));
+        Epic epic = manager.getEpicById(epicId);
+        assertEquals(START, epic.getStartTime());
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+        assertEquals(START.plusMinutes(90), epic.getEndTime());
+
+        Subtask longer = timed(new Subtask("First", "Desc", epicId), 60, 120);
+        longer.setId(first);
+        manager.updateSubtask(longer);
+        assertEquals(START.plusMinutes(180), manager.getEpicById(epicId).getEndTime());
+
+        manager.deleteSubtask(second);
+        epic = manager.getEpicById(epicId);
+        assertEquals(START.plusMinutes(60), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(120), epic.getDuration());
+    }
+
+    /**
+     * Время эпика, которое переносится при каждом изменении подзадачи, совпадает с пересчитанным заново.
+     */
+    @Test
+    void testIncrementalEpicTimeMatchesRecalculation() {
+        for (TaskManager manager : List.of(new InMemoryTaskManager(), new ConcurrentTaskManager())) {
+            int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+            List<Integer> ids = new ArrayList<>();
+            Random random = new Random(7);
+            for (int step = 0; step < 2_000; step++) {
+                int action = ids.isEmpty() ? 0 : random.nextInt(4);
+                if (action == 0) {
+                    ids.add(manager.createSubtask(randomTime(new Subtask("Sub", "Desc", epicId), random, step)));
+                } else if (action == 1) {
+                    Subtask updated = randomTime(new Subtask("Sub", "Desc", epicId), random, step);
+                    updated.setId(ids.get(random.nextInt(ids.size())));
+                    manager.updateSubtask(updated);
+                } else if (action == 2) {
+                    manager.deleteSubtask(ids.remove(random.nextInt(ids.size())));
+                } else {
+                    Epic renamed = new Epic("Epic " + step, "Desc");
+                    renamed.setId(epicId);
+                    manager.updateEpic(renamed);
+                }
+                Epic epic = manager.getEpicById(epicId);
+                Epic expected = new Epic(epic);
+                expected.recalculateTime(id -> manager.getSubtaskById(id));
+                assertEquals(expected.getStartTime(), epic.getStartTime(), "Шаг " + step);
+                assertEquals(expected.getEndTime(), epic.getEndTime(), "Шаг " + step);
+                assertEquals(expected.getDuration(), epic.getDuration(), "Шаг " + step);
+            }
+        }
+    }
+
+    /**
+     * Копия эпика делит с ним ID подзадач, но изменения одного не видны в другом;
+     * время копии без мультимножеств сужается только пересчётом.
+     */
+    @Test
+    void testEpicCopyIsIndependent() {
+        Epic epic = new Epic("Epic", "Desc");
+        Subtask first = timed(new Subtask("A", "Desc", 1), 120, 60);
+        first.setId(2);
+        Subtask second = timed(new Subtask("B", "Desc", 1), 0, 60);
+        second.setId(3);
+        epic.addSubtask(first);
+        epic.addSubtaskTime(first);
+
+        Epic copy = new Epic(epic);
+        epic.addSubtask(second);
+        epic.addSubtaskTime(second);
+        copy.removeSubtaskId(first.getId());
+
+        assertEquals(List.of(first.getId(), second.getId()), epic.getSubtaskIds().stream().sorted().toList());
+        assertEquals(START, epic.getStartTime());
+        assertTrue(copy.getSubtaskIds().isEmpty(), "Удаление из копии не видно в эпике и наоборот");
+        assertEquals(START.plusHours(2), copy.getStartTime());
+
+        copy.addSubtask(second);
+        copy.addSubtaskTime(second);
+        assertEquals(START, copy.getStartTime());
+        assertEquals(START.plusHours(3), copy.getEndTime());
+        assertFalse(copy.removeSubtaskTime(second), "Без мультимножеств время копии не сужается");
+        copy.recalculateTime(id -> id == second.getId() ? second : null);
+        assertTrue(copy.removeSubtaskTime(second));
+        assertNull(copy.getStartTime());
+    }
+
+    /**
+     * Пакет с пересечением не применяется целиком, в том числе при пересечении внутри пакета.
+     */
+    @Test
+    void testBulkOverlapLeavesManagerUnchanged() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int existing = manager.createTask(timed(new Task("Existing", "Desc"), 0, 60));
+
+        List<Task> batch = List.of(
+                timed(new Task("A", "Desc"), 60, 60),
+                timed(new Task("B", "Desc"), 90, 60));
+        assertThrows(TaskOverlapException.class, () -> manager.createAll(batch));
+        assertEquals(1, manager.getAllTasks().size());
+        assertEquals(List.of(existing), ids(manager.getPrioritizedTasks()));
+        assertEquals(List.of(0, 0), ids(batch), "Элементам возвращены прежние ID");
+        assertEquals(existing + 1, manager.createTask(new Task("Next", "Desc")), "ID отклонённого пакета не пропущены");
+
+        // Интервалы, перенесённые при неудачной проверке, возвращены: пакет без пересечения проходит
+        manager.createAll(List.of(timed(new Task("A", "Desc"), 60, 60), timed(new Task("B", "Desc"), 120, 60)));
+        assertEquals(3, manager.getPrioritizedTasks().size());
+    }
+
+    /**
+     * Отклонённые создание и пакет с отрицательной длительностью не расходуют ID,
+     * не меняют ID элементов и не оставляют их интервалов в индексе.
+     */
+    @Test
+    void testRejectedCreateKeepsIdsAndIndex() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int existing = manager.createTask(timed(new Task("Existing", "Desc"), 0, 60));
+
+        Task overlap = timed(new Task("Overlap", "Desc"), 30, 60);
+        overlap.setId(42);
+        assertThrows(TaskOverlapException.class, () -> manager.createTask(overlap));
+        assertEquals(42, overlap.getId(), "ID задачи не изменён");
+        Subtask negative = timed(new Subtask("Negative", "Desc", epicId), 120, -10);
+        assertThrows(IllegalArgumentException.class, () -> manager.createSubtask(negative));
+        assertEquals(0, negative.getId());
+
+        List<Task> batch = List.of(
+                timed(new Task("A", "Desc"), 60, 60),
+                timed(new Task("B", "Desc"), 180, -60));
+        assertThrows(IllegalArgumentException.class, () -> manager.createAll(batch));
+        assertEquals(List.of(0, 0), ids(batch), "Элементам возвращены прежние ID");
+        assertEquals(List.of(existing), ids(manager.getPrioritizedTasks()));
+        assertEquals(existing + 1, manager.createTask(timed(new Task("A", "Desc"), 60, 60)),
+                "ID отклонённых операций не пропущены");
+    }
+
+    /**
+     * Время задач и подзадач сохраняется в CSV и двоичном снимке и в хранилище MappedTaskManager.
+     */
+    @Test
+    void testTimePersists() throws IOException {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            for (PersistenceMode mode : PersistenceMode.values()) {
+                checkTimePersists(format, mode);
+            }
+        }
+    }
+
+    private static void checkTimePersists(SnapshotFormat format, PersistenceMode mode) throws IOException {
+        File file = File.createTempFile("time", format == SnapshotFormat.BINARY ? SnapshotFormat.BINARY_EXTENSION : ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, format, mode, FlushMode.SYNC,
+                FileBackedTaskManager.DEFAULT_GROUP_COMMIT_MS, FileBackedTaskManager.DEFAULT_GROUP_COMMIT_OPS);
+        int taskId = manager.createTask(timed(new Task("Task", "Desc"), 0, 90));
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        Subtask subtask = new Subtask("Sub", "Desc", epicId);
+        subtask.setStartTime(START.plusDays(1).withNano(1_500));
+        int subtaskId = manager.createSubtask(subtask);
+        manager.createTask(new Task("Untimed", "Desc"));
+
+        manager.close();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, format, mode, FlushMode.SYNC);
+        assertEquals(START, loaded.getTaskById(taskId).getStartTime(), format + " " + mode);
+        assertEquals(Duration.ofMinutes(90), loaded.getTaskById(taskId).getDuration());
+        assertEquals(subtask.getStartTime(), loaded.getSubtaskById(subtaskId).getStartTime());
+        assertNull(loaded.getSubtaskById(subtaskId).getDuration());
+        assertEquals(subtask.getStartTime(), loaded.getEpicById(epicId).getStartTime());
+        assertEquals(ids(manager.getPrioritizedTasks()), ids(loaded.getPrioritizedTasks()));
+        assertThrows(TaskOverlapException.class,
+                () -> loaded.createTask(timed(new Task("Overlap", "Desc"), 30, 10)));
+
+        File store = File.createTempFile("time", MappedTaskManager.STORE_SUFFIX);
+        MappedTaskManager.write(store, loaded);
+        MappedTaskManager mapped = MappedTaskManager.open(store);
+        assertEquals(Duration.ofMinutes(90), mapped.getTaskById(taskId).getDuration());
+        assertEquals(subtask.getStartTime(), mapped.getEpicById(epicId).getEndTime());
+        assertEquals(ids(manager.getPrioritizedTasks()), ids(mapped.getPrioritizedTasks()));
+    }
+
+    /**
+     * Старые строки CSV без полей времени читаются как задачи без времени.
+     */
+    @Test
+    void testLegacyCsvRowsHaveNoTime() {
+        Task task = Task.fromCsv("1,TASK,Task,NEW,Desc,");
+        Subtask subtask = (Subtask) Task.fromCsv("2,SUBTASK,Sub,DONE,Desc,5");
+        assertNull(task.getStartTime());
+        assertNull(subtask.getDuration());
+        assertEquals(5, subtask.getEpicId());
+
+        Task timed = timed(new Task("Task", "Desc"), 0, 45);
+        Task parsed = Task.fromCsv(timed.toCsvString());
+        assertEquals(timed.getStartTime(), parsed.getStartTime());
+        assertEquals(timed.getDuration(), parsed.getDuration());
+        assertTrue(Task.fromCsv(new Epic("Epic", "Desc").toCsvString()) instanceof Epic);
+    }
+
+    private static <T extends Task> T timed(T task, int startMinutes, int durationMinutes) {
+        task.setStartTime(START.plusMinutes(startMinutes));
+        task.setDuration(Duration.ofMinutes(durationMinutes));
+        return task;
+    }
+
+    /**
+     * Подзадача в своём слоте по номеру шага, чтобы не пересекаться с другими: с временем,
+     * без времени или только с длительностью; начала и окончания часто совпадают.
+     */
+    private static Subtask randomTime(Subtask subtask, Random random, int step) {
+        int kind = random.nextInt(4);
+        if (kind > 0) {
+            subtask.setDuration(Duration.ofMinutes(random.nextInt(3) * 10));
+        }
+        if (kind > 1) {
+            subtask.setStartTime(START.plusHours(step));
+        }
+        return subtask;
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
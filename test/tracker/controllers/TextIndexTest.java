@@ -0,0 +1,123 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.model.TaskType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты полнотекстового индекса и поиска в InMemoryTaskManager.
+ */
+class TextIndexTest {
+
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setup() {
+        manager = new InMemoryTaskManager();
+    }
+
+    /**
+     * Проверка разбиения текста на слова в нижнем регистре.
+     */
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("сдать", "отчёт", "q3", "2024"), TextIndex.tokenize("Сдать отчёт-Q3, 2024!"));
+        assertTrue(TextIndex.tokenize(null).isEmpty());
+    }
+
+    /**
+     * Проверка поиска по словам, по префиксу и пересечения слов запроса.
+     */
+    @Test
+    void testTermPrefixAndConjunction() {
+        final Task report = new Task("Сдать отчёт", "Квартальный отчёт для бухгалтерии");
+        final Task review = new Task("Ревью кода", "Посмотреть отчётность по тестам");
+        manager.createTask(report);
+        manager.createTask(review);
+
+        assertEquals(List.of(report), manager.search("ОТЧЁТ", TaskType.TASK));
+        assertEquals(List.of(report, review), manager.search("отч*", TaskType.TASK));
+        assertEquals(List.of(review), manager.search("отч* кода", TaskType.TASK));
+        assertTrue(manager.search("отчёт кода", TaskType.TASK).isEmpty());
+        assertTrue(manager.search("   ", TaskType.TASK).isEmpty());
+    }
+
+    /**
+     * Проверка, что индекс следует за изменением на месте, удалением
+     * и не смешивает типы с одинаковыми ID из старого снимка.
+     */
+    @Test
+    void testIndexFollowsMutationsAndTypes() {
+        final Task task = new Task("Купить молоко", "");
+        task.setId(1);
+        manager.restore(task);
+        final Epic epic = new Epic("Переезд", "Купить коробки");
+        epic.setId(1);
+        manager.restore(epic);
+        final int epicId = epic.getId();
+        final int subtaskId = manager.createSubtask(new Subtask("Коробки", "Купить скотч", epicId));
+
+        task.setName("Купить хлеб");
+        manager.updateTask(task);
+        assertTrue(manager.search("молоко", TaskType.TASK).isEmpty());
+        assertEquals(List.of(task), manager.search("хлеб", TaskType.TASK));
+        assertEquals(1, manager.search("купить", TaskType.EPIC).size());
+        assertArrayEquals(new int[]{subtaskId}, manager.getTextIndex().find(TaskType.SUBTASK, "скотч"));
+
+        manager.deleteEpic(epicId);
+        assertTrue(manager.search("купить", TaskType.EPIC).isEmpty());
+        assertTrue(manager.search("скотч", TaskType.SUBTASK).isEmpty());
+        assertEquals(List.of(task), manager.search("купить", TaskType.TASK));
+    }
+
+    /**
+     * Проверка, что при превышении бюджета индекс освобождается, а поиск переходит на перебор.
+     */
+    @Test
+    void testBudgetOverflowFallsBackToScan() {
+        final InMemoryTaskManager small = new InMemoryTaskManager(TaskStorage.OPEN_ADDRESSING,
+                resolver -> new InMemoryHistoryManager(), 2_000);
+        for (int i = 0; i < 20; i++) {
+            small.createTask(new Task("Задача номер" + i, "общий текст"));
+        }
+
+        assertFalse(small.getTextIndex().isAvailable());
+        assertEquals(0, small.getTextIndex().getEstimatedBytes());
+        assertEquals(20, small.search("общий", TaskType.TASK).size());
+        assertEquals(11, small.search("задача номер1*", TaskType.TASK).size());
+        assertEquals(1, small.getTextIndex().getOverflowCount());
+    }
+
+    /**
+     * Проверка, что переполненный индекс перестраивается, когда сущности снова укладываются в бюджет.
+     */
+    @Test
+    void testRebuildAfterOverflow() {
+        final InMemoryTaskManager small = new InMemoryTaskManager(TaskStorage.OPEN_ADDRESSING,
+                resolver -> new InMemoryHistoryManager(), 2_000);
+        final int[] ids = new int[20];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = small.createTask(new Task("Задача номер" + i, "общий текст"));
+        }
+        assertFalse(small.rebuildTextIndex(), "Всё ещё не укладывается в бюджет");
+        assertEquals(2, small.getTextIndex().getOverflowCount());
+
+        for (int i = 2; i < ids.length; i++) {
+            small.deleteTask(ids[i]);
+        }
+        assertTrue(small.rebuildTextIndex());
+        assertArrayEquals(new int[]{ids[0], ids[1]}, small.getTextIndex().find(TaskType.TASK, "общий"));
+        assertArrayEquals(new int[]{ids[1]}, small.getTextIndex().find(TaskType.TASK, "номер1"));
+        assertEquals(2, small.getTextIndex().getOverflowCount());
+    }
+}
@@ -0,0 +1,219 @@
+package tracker.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.controllers.ConcurrentTaskManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.metrics.InstrumentedTaskManager;
+import tracker.metrics.MetricsRegistry;
+import tracker.model.Epic;
+import tracker.model.Status;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для HttpTaskServer и JSON-кодировщика.
+ * Проверяются соответствие запросов методам менеджера, коды ответов и экранирование строк.
+ */
+class HttpTaskServerTest {
+
+    private ConcurrentTaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new ConcurrentTaskManager();
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Создание, чтение, обновление и удаление задачи через HTTP.
+     */
+    @Test
+    void testTaskCrud() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks", "{\"name\":\"Task\",\"description\":\"Desc\"}");
+        assertEquals(201, created.statusCode());
+        int id = ((Long) JsonReader.parseObject(created.body()).get("id")).intValue();
+        assertEquals("Task", manager.getTaskById(id).getName());
+
+        Map<String, Object> task = JsonReader.parseObject(send("GET", "/tasks/" + id, null).body());
+        assertEquals("TASK", task.get("type"));
+        assertEquals("Desc", task.get("description"));
+        assertEquals("NEW", task.get("status"));
+
+        String update = "{\"id\":" + id + ",\"name\":\"Task\",\"description\":\"Desc\",\"status\":\"DONE\"}";
+        assertEquals(200, send("POST", "/tasks", update).statusCode());
+        assertEquals(Status.DONE, manager.getTaskById(id).getStatus());
+        assertTrue(send("GET", "/tasks", null).body().contains("\"status\":\"DONE\""));
+
+        assertEquals(204, send("DELETE", "/tasks/" + id, null).statusCode());
+        assertNull(manager.getTaskById(id));
+        assertEquals(404, send("GET", "/tasks/" + id, null).statusCode());
+    }
+
+    /**
+     * Подзадачи через HTTP меняют статус эпика; обновление эпика сохраняет его подзадачи.
+     */
+    @Test
+    void testEpicSubtasksAndHistory() throws Exception {
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        HttpResponse<String> created = send("POST", "/subtasks",
+                "{\"name\":\"Sub\",\"description\":\"Desc\",\"status\":\"IN_PROGRESS\",\"epicId\":" + epicId + "}");
+        assertEquals(201, created.statusCode());
+        int subtaskId = ((Long) JsonReader.parseObject(created.body()).get("id")).intValue();
+
+        assertEquals(200, send("POST", "/epics",
+                "{\"id\":" + epicId + ",\"name\":\"Renamed\",\"description\":\"Desc\"}").statusCode());
+        Map<String, Object> epic = JsonReader.parseObject(send("GET", "/epics/" + epicId, null).body());
+        assertEquals("Renamed", epic.get("name"));
+        assertEquals("IN_PROGRESS", epic.get("status"));
+        assertEquals(List.of((long) subtaskId), epic.get("subtaskIds"));
+
+        send("GET", "/subtasks/" + subtaskId, null);
+        List<Task> history = manager.getHistory();
+        assertEquals(subtaskId, history.get(history.size() - 1).getId());
+        assertTrue(send("GET", "/history", null).body().contains("\"epicId\":" + epicId));
+        assertEquals(404, send("POST", "/epics", "{\"id\":999,\"name\":\"Epic\"}").statusCode());
+    }
+
+    /**
+     * Некорректные запросы отвечают 400, 404 и 405 и не меняют менеджер.
+     */
+    @Test
+    void testRejectsBadRequests() throws Exception {
+        assertEquals(400, send("POST", "/tasks", "{\"name\":").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"name\":\"Task\",\"status\":\"LATER\"}").statusCode());
+        assertEquals(400, send("POST", "/subtasks", "{\"name\":\"Sub\"}").statusCode());
+        assertEquals(400, send("GET", "/tasks/abc", null).statusCode());
+        assertEquals(404, send("GET", "/unknown", null).statusCode());
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode());
+        assertEquals(404, send("POST", "/tasks", "{\"id\":999,\"name\":\"Task\"}").statusCode());
+        assertEquals(400, send("POST", "/subtasks", "{\"name\":\"Sub\",\"epicId\":999}").statusCode());
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int otherId = manager.createEpic(new Epic("Other", "Desc"));
+        int subtaskId = manager.createSubtask(new Subtask("Sub", "Desc", epicId));
+        assertEquals(404, send("POST", "/subtasks",
+                "{\"id\":999,\"name\":\"Sub\",\"epicId\":" + epicId + "}").statusCode());
+        assertEquals(400, send("POST", "/subtasks",
+                "{\"id\":" + subtaskId + ",\"name\":\"Moved\",\"epicId\":" + otherId + "}").statusCode());
+        assertEquals(List.of(subtaskId), manager.getEpicById(epicId).getSubtaskIds());
+        assertEquals("Sub", manager.getSubtaskById(subtaskId).getName());
+    }
+
+    /**
+     * Непредвиденная ошибка менеджера отвечает 500, а не обрывом соединения.
+     */
+    @Test
+    void testUnexpectedErrorIsServerError() throws Exception {
+        server.stop();
+        server = new HttpTaskServer(new InMemoryTaskManager() {
+            @Override
+            public List<Task> getAllTasks() {
+                throw new IllegalStateException("Сбой");
+            }
+        }, 0);
+        server.start();
+
+        HttpResponse<String> response = send("GET", "/tasks", null);
+        assertEquals(500, response.statusCode());
+        assertTrue(response.body().contains("Сбой"), response.body());
+    }
+
+    /**
+     * Время задачи передаётся в ISO-8601, пересечение отклоняется с 406, {@code /prioritized}
+     * отдаёт задачи по времени начала.
+     */
+    @Test
+    void testTimedTasksAndPrioritized() throws Exception {
+        server.stop();
+        server = new HttpTaskServer(new InMemoryTaskManager(), 0);
+        server.start();
+
+        assertEquals(201, send("POST", "/tasks",
+                "{\"name\":\"Late\",\"startTime\":\"2024-05-01T12:00\",\"duration\":\"PT30M\"}").statusCode());
+        assertEquals(201, send("POST", "/tasks",
+                "{\"name\":\"Early\",\"startTime\":\"2024-05-01T10:00\",\"duration\":60}").statusCode());
+        assertEquals(406, send("POST", "/tasks",
+                "{\"name\":\"Overlap\",\"startTime\":\"2024-05-01T10:30\",\"duration\":15}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"name\":\"Bad\",\"startTime\":\"tomorrow\"}").statusCode());
+
+        String body = send("GET", "/prioritized", null).body();
+        assertTrue(body.indexOf("Early") < body.indexOf("Late"));
+        assertTrue(body.contains("\"duration\":\"PT1H\",\"endTime\":\"2024-05-01T11:00\""));
+        assertEquals(405, send("POST", "/prioritized", "{}").statusCode());
+    }
+
+    /**
+     * {@code /metrics} отдаёт метрики обёрнутого менеджера текстом; без реестра ресурса нет.
+     */
+    @Test
+    void testMetricsEndpoint() throws Exception {
+        assertEquals(404, send("GET", "/metrics", null).statusCode());
+        server.stop();
+        MetricsRegistry metrics = new MetricsRegistry();
+        server = new HttpTaskServer(new InstrumentedTaskManager(manager, metrics), new InetSocketAddress(0), metrics);
+        server.start();
+
+        send("POST", "/tasks", "{\"name\":\"Task\"}");
+        send("GET", "/tasks/999", null);
+        HttpResponse<String> response = send("GET", "/metrics", null);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        assertTrue(response.body().contains("task_manager_create_task_nanos_count 1\n"));
+        assertTrue(response.body().contains("task_manager_get_task_nanos_count 1\n"));
+        assertEquals(405, send("POST", "/metrics", "").statusCode());
+    }
+
+    /**
+     * Кодировщик экранирует спецсимволы, разборщик восстанавливает исходные строки.
+     */
+    @Test
+    void testJsonRoundTrip() throws IOException {
+        Subtask subtask = new Subtask("Кавычка \" и \\ слэш", "Строка\nвторая\t\u0001", 7);
+        subtask.setId(3);
+        StringWriter out = new StringWriter();
+        TaskJson.write(new JsonWriter(out), subtask);
+
+        Map<String, Object> json = JsonReader.parseObject(out.toString());
+        assertEquals(subtask.getName(), json.get("name"));
+        assertEquals(subtask.getDescription(), json.get("description"));
+        assertEquals(7L, json.get("epicId"));
+        assertTrue(out.toString().contains("\\u0001"));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject("{\"a\":1} x"));
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,153 @@
+package tracker.metrics;
+
+import org.junit.jupiter.api.Test;
+import tracker.controllers.FileBackedTaskManager;
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.controllers.TaskOverlapException;
+import tracker.controllers.TaskStorage;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для гистограммы, реестра метрик и обёрток менеджеров.
+ */
+class MetricsTest {
+
+    /**
+     * Перцентили гистограммы отличаются от точных не больше чем на ширину корзины.
+     */
+    @Test
+    void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getP99());
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMax());
+        assertEquals(100_000L * 100_001 / 2 * 1_000, histogram.getSum());
+        double[] percentiles = {1, 50, 90, 99, 99.9};
+        for (double percentile : percentiles) {
+            long exact = (long) Math.ceil(percentile * 1_000) * 1_000;
+            long value = histogram.valueAtPercentile(percentile);
+            assertTrue(value >= exact && value <= exact * (1 + 1.0 / Histogram.SUB_BUCKETS),
+                    percentile + ": " + value + " против " + exact);
+        }
+        assertEquals(100_000_000L, histogram.valueAtPercentile(100));
+
+        // Границы корзин покрывают весь диапазон long без пропусков
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = Histogram.bucket(value);
+            assertTrue(value <= Histogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > Histogram.upperBound(bucket - 1));
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.bucket(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Обёртки считают операции и исключения, число подзадач эпика и размер истории.
+     */
+    @Test
+    void testInstrumentedManagers() {
+        MetricsRegistry registry = new MetricsRegistry();
+        InstrumentedTaskManager manager = new InstrumentedTaskManager(new InMemoryTaskManager(TaskStorage.OPEN_ADDRESSING,
+                resolver -> new InstrumentedHistoryManager(new InMemoryHistoryManager(), registry)), registry);
+        int epicId = manager.createEpic(new Epic("Epic", "Desc"));
+        int first = manager.createSubtask(new Subtask("First", "Desc", epicId));
+        manager.createSubtask(new Subtask("Second", "Desc", epicId));
+        manager.deleteSubtask(first);
+
+        int taskId = manager.createTask(timed(new Task("Task", "Desc")));
+        assertThrows(TaskOverlapException.class, () -> manager.createTask(timed(new Task("Overlap", "Desc"))));
+        manager.getTaskById(taskId);
+        manager.getEpicById(epicId);
+        manager.getHistory();
+
+        assertEquals(2, registry.histogram("task_manager_create_subtask_nanos").getCount());
+        assertEquals(2, registry.histogram("task_manager_create_task_nanos").getCount());
+        assertEquals(1, registry.counter("task_manager_create_task_errors_total").sum());
+        assertEquals(0, registry.counter("task_manager_create_subtask_errors_total").sum());
+        Histogram fanout = registry.histogram("task_manager_epic_fanout");
+        assertEquals(3, fanout.getCount());
+        assertEquals(2, fanout.getMax());
+        assertEquals(1, fanout.getP50());
+        assertEquals(2, registry.histogram("history_add_nanos").getCount());
+        assertEquals(2, registry.histogram("history_size").getMax());
+        assertEquals(2L, registry.getGauges().get("history_entries"));
+    }
+
+    /**
+     * Текстовая выгрузка и атрибуты MBean'ов отражают одни и те же значения.
+     */
+    @Test
+    void testScrapeAndJmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("save_nanos").record(1_500);
+        registry.counter("saves_total").add(3);
+        registry.gauge("queue_depth", () -> 7);
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("bad name"));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE save_nanos summary\n"));
+        assertTrue(text.contains("save_nanos{quantile=\"0.99\"} 1500\n"));
+        assertTrue(text.contains("save_nanos_count 1\n"));
+        assertTrue(text.contains("# TYPE saves_total counter\nsaves_total 3\n"));
+        assertTrue(text.contains("queue_depth 7\n"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        registry.registerMBeans("tracker.test");
+        try {
+            registry.histogram("late_nanos").record(42);
+            assertEquals(1_500L, server.getAttribute(new ObjectName("tracker.test:type=Histogram,name=save_nanos"), "Max"));
+            assertEquals(42L, server.getAttribute(new ObjectName("tracker.test:type=Histogram,name=late_nanos"), "P50"));
+            assertTrue(server.isRegistered(new ObjectName("tracker.test:type=Metrics")));
+            assertThrows(IllegalStateException.class, () -> registry.registerMBeans("tracker.test"));
+        } finally {
+            registry.unregisterMBeans();
+        }
+        assertFalse(server.isRegistered(new ObjectName("tracker.test:type=Metrics")));
+    }
+
+    /**
+     * Для FileBackedTaskManager пишутся размер и время каждого снимка.
+     */
+    @Test
+    void testSnapshotBytes() throws IOException {
+        File file = File.createTempFile("metrics", ".csv");
+        MetricsRegistry registry = new MetricsRegistry();
+        FileBackedTaskManager fileBacked = new FileBackedTaskManager(file);
+        InstrumentedTaskManager manager = new InstrumentedTaskManager(fileBacked, registry);
+        manager.createTask(new Task("Task", "Desc"));
+        manager.createTask(new Task("Task", "Longer description"));
+        fileBacked.close();
+
+        Histogram bytes = registry.histogram("task_manager_snapshot_bytes");
+        assertTrue(bytes.getCount() >= 2);
+        assertEquals(file.length(), bytes.getMax());
+        assertTrue(registry.histogram("task_manager_snapshot_nanos").getSum() > 0);
+    }
+
+    private static Task timed(Task task) {
+        task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        return task;
+    }
+}
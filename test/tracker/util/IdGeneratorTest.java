@@ -0,0 +1,103 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для IdGenerator.
+ * Проверяются порядок без блоков, уникальность с блоками из нескольких потоков и сдвиг водяного знака.
+ */
+class IdGeneratorTest {
+
+    @Test
+    void testSequentialWithoutBlocks() {
+        IdGenerator generator = new IdGenerator();
+        assertEquals(1, generator.next());
+        assertEquals(2, generator.next());
+        assertEquals(3, generator.reserve(10));
+        assertEquals(13, generator.next());
+
+        generator.advancePast(100);
+        assertEquals(101, generator.next());
+        generator.advancePast(50);
+        assertEquals(102, generator.next(), "Сдвиг назад не действует");
+        assertEquals(103, generator.peek());
+
+        generator.reset();
+        assertEquals(1, generator.next());
+    }
+
+    @Test
+    void testBlocksAreUniqueAcrossThreads() throws Exception {
+        IdGenerator generator = new IdGenerator(64);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .<Future<?>>mapToObj(t -> pool.submit(() -> {
+                        for (int i = 0; i < 10_000; i++) {
+                            assertTrue(ids.add(generator.next()), "ID выдан дважды");
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(80_000, ids.size());
+        int max = ids.stream().mapToInt(Integer::intValue).max().orElseThrow();
+        assertTrue(max < generator.peek(), "Водяной знак больше любого выданного ID");
+    }
+
+    @Test
+    void testAdvancePastDiscardsThreadBlock() {
+        IdGenerator generator = new IdGenerator(16);
+        assertEquals(1, generator.next());
+        generator.advancePast(5); // ID 5 лежит в блоке текущего потока
+        for (int i = 0; i < 32; i++) {
+            assertTrue(generator.next() != 5, "Занятый ID не выдаётся");
+        }
+    }
+
+    @Test
+    void testReleaseReturnsOnlyLastReservation() {
+        IdGenerator generator = new IdGenerator(2, 3);
+        int first = generator.reserve(4);
+        assertTrue(generator.release(first, 4));
+        assertEquals(2, generator.next(), "Возвращённые ID выдаются снова");
+
+        first = generator.reserve(2);
+        generator.next();
+        assertFalse(generator.release(first, 2), "После резерва ID уже выдавались");
+        assertEquals(14, generator.next());
+    }
+
+    @Test
+    void testStrideKeepsResidue() {
+        IdGenerator generator = new IdGenerator(2, 3);
+        assertEquals(2, generator.next());
+        assertEquals(5, generator.next());
+        assertEquals(8, generator.reserve(2));
+        assertEquals(14, generator.next());
+
+        generator.advancePast(30);
+        assertEquals(32, generator.next(), "После сдвига ID того же остатка");
+        generator.advancePast(34);
+        assertEquals(35, generator.peek());
+        generator.reset();
+        assertEquals(2, generator.next());
+    }
+}
@@ -0,0 +1,70 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Тесты реализаций IntMap: каждая сверяется с HashMap на случайных операциях.
+ */
+class IntMapTest {
+
+    @Test
+    void testIntHashMapMatchesHashMap() {
+        check(new IntHashMap<>(), 2_000);
+    }
+
+    @Test
+    void testDenseIntMapMatchesHashMap() {
+        check(new DenseIntMap<>(), 2_000);
+    }
+
+    @Test
+    void testBoxedIntMapMatchesHashMap() {
+        check(new BoxedIntMap<>(), 2_000);
+    }
+
+    @Test
+    void testDenseIntMapIteratesInKeyOrder() {
+        IntMap<String> map = new DenseIntMap<>();
+        map.put(30, "c");
+        map.put(1, "a");
+        map.put(7, "b");
+        assertEquals(List.of("a", "b", "c"), map.values());
+        map.clear();
+        assertNull(map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    private static void check(IntMap<String> map, int keyRange) {
+        Random random = new Random(7);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(keyRange);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.get(key), map.get(key));
+                default -> {
+                    String value = "v" + i;
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                }
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -1; key <= keyRange; key++) {
+            assertEquals(expected.get(key), map.get(key), "key=" + key);
+        }
+        List<String> iterated = new ArrayList<>();
+        map.forEachValue(iterated::add);
+        assertEquals(expected.size(), iterated.size());
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+}
@@ -0,0 +1,74 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для IntSet.
+ * Проверяются операции множества и совпадение с HashSet на случайных последовательностях.
+ */
+class IntSetTest {
+
+    @Test
+    void testAddRemoveContains() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5), "Повторное добавление ничего не меняет");
+        assertTrue(set.add(0));
+        assertTrue(set.add(-7));
+        assertEquals(3, set.size());
+
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(5));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-7));
+        assertEquals(2, set.asList().size());
+    }
+
+    @Test
+    void testListViewIsReadOnlyAndLive() {
+        IntSet set = new IntSet();
+        List<Integer> view = set.asList();
+        set.add(1);
+        set.add(2);
+        assertEquals(List.of(1, 2), view);
+        set.remove(1);
+        assertEquals(List.of(2), view);
+        assertThrows(UnsupportedOperationException.class, () -> view.add(3));
+    }
+
+    @Test
+    void testMatchesHashSetOnRandomOperations() {
+        Random random = new Random(42);
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            // Узкий диапазон — много коллизий, удалений и повторов
+            int value = random.nextInt(2_000) * (random.nextBoolean() ? 1 : 64);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = -10; value < 130_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "value=" + value);
+        }
+        List<Integer> iterated = new ArrayList<>();
+        set.forEach(iterated::add);
+        assertEquals(expected, new HashSet<>(iterated));
+        assertEquals(expected.size(), iterated.size());
+    }
+}
@@ -0,0 +1,72 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для PersistentIntMap.
+ * Проверяются совпадение с HashMap на случайных операциях и неизменность старых версий.
+ */
+class PersistentIntMapTest {
+
+    @Test
+    void testMatchesHashMap() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextBoolean() ? random.nextInt(2_000) : random.nextInt();
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        List<Integer> values = new ArrayList<>(map.values());
+        List<Integer> byIndex = new ArrayList<>();
+        for (int i = 0; i < map.size(); i++) {
+            byIndex.add(map.values().get(i));
+        }
+        assertEquals(values, byIndex);
+        values.sort(null);
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values);
+    }
+
+    @Test
+    void testOldVersionsAreUnchanged() {
+        PersistentIntMap<String> empty = PersistentIntMap.empty();
+        PersistentIntMap<String> one = empty.put(1, "a");
+        PersistentIntMap<String> two = one.put(33, "b");
+        PersistentIntMap<String> replaced = two.put(1, "c");
+        PersistentIntMap<String> removed = replaced.remove(33);
+
+        assertTrue(empty.isEmpty());
+        assertEquals("a", one.get(1));
+        assertNull(one.get(33));
+        assertEquals("a", two.get(1));
+        assertEquals("c", replaced.get(1));
+        assertEquals(2, replaced.size());
+        assertEquals(1, removed.size());
+        assertNull(removed.get(33));
+        assertSame(removed, removed.remove(99));
+        assertTrue(removed.remove(1).isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для TinyLfuCache.
+ * Проверяются ограничение размера, счётчики и устойчивость частых ключей к однократному проходу.
+ */
+class TinyLfuCacheTest {
+
+    @Test
+    void testBoundedSizeAndStats() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.stats().evictions());
+
+        cache.put(5_000, "x");
+        assertEquals("x", cache.get(5_000));
+        assertNull(cache.get(-1));
+        cache.remove(5_000);
+        assertNull(cache.get(5_000));
+
+        TinyLfuCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(0.5, new TinyLfuCache.Stats(1, 1, 0).hitRate());
+
+        TinyLfuCache<String> disabled = new TinyLfuCache<>(0);
+        disabled.put(1, "v");
+        assertNull(disabled.get(1));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void testFrequentKeysSurviveScan() {
+        TinyLfuCache<Integer> cache = new TinyLfuCache<>(100);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        for (int key = 1_000; key < 11_000; key++) {
+            cache.get(key);
+            cache.put(key, key);
+        }
+        int survived = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                survived++;
+            }
+        }
+        assertTrue(survived >= 45, "Частые ключи вытеснены проходом: осталось " + survived);
+        assertEquals(100, cache.size());
+    }
+}